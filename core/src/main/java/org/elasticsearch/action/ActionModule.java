@@ -176,11 +176,16 @@ import org.elasticsearch.action.ingest.SimulatePipelineTransportAction;
 import org.elasticsearch.action.main.MainAction;
 import org.elasticsearch.action.main.TransportMainAction;
 import org.elasticsearch.action.search.ClearScrollAction;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
 import org.elasticsearch.action.search.MultiSearchAction;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
 import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchResponseCache;
 import org.elasticsearch.action.search.SearchScrollAction;
 import org.elasticsearch.action.search.TransportClearScrollAction;
+import org.elasticsearch.action.search.TransportClosePointInTimeAction;
 import org.elasticsearch.action.search.TransportMultiSearchAction;
+import org.elasticsearch.action.search.TransportOpenPointInTimeAction;
 import org.elasticsearch.action.search.TransportSearchAction;
 import org.elasticsearch.action.search.TransportSearchScrollAction;
 import org.elasticsearch.action.support.ActionFilter;
@@ -301,7 +306,9 @@ import org.elasticsearch.rest.action.ingest.RestPutPipelineAction;
 import org.elasticsearch.rest.action.ingest.RestSimulatePipelineAction;
 import org.elasticsearch.rest.action.main.RestMainAction;
 import org.elasticsearch.rest.action.search.RestClearScrollAction;
+import org.elasticsearch.rest.action.search.RestClosePointInTimeAction;
 import org.elasticsearch.rest.action.search.RestMultiSearchAction;
+import org.elasticsearch.rest.action.search.RestOpenPointInTimeAction;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.rest.action.search.RestSearchScrollAction;
 import org.elasticsearch.rest.action.suggest.RestSuggestAction;
@@ -323,6 +330,7 @@ public class ActionModule extends AbstractModule {
     private final Map<String, ActionHandler<?, ?>> actions;
     private final List<Class<? extends ActionFilter>> actionFilters;
     private final AutoCreateIndex autoCreateIndex;
+    private final SearchResponseCache searchResponseCache;
     private final DestructiveOperations destructiveOperations;
     private final RestController restController;
 
@@ -334,6 +342,7 @@ public class ActionModule extends AbstractModule {
         actions = setupActions(actionPlugins);
         actionFilters = setupActionFilters(actionPlugins, ingestEnabled);
         autoCreateIndex = transportClient ? null : new AutoCreateIndex(settings, resolver);
+        searchResponseCache = transportClient ? null : new SearchResponseCache(settings);
         destructiveOperations = new DestructiveOperations(settings, clusterSettings);
         restController = new RestController(settings);
     }
@@ -438,6 +447,8 @@ public class ActionModule extends AbstractModule {
         actions.register(MultiSearchAction.INSTANCE, TransportMultiSearchAction.class);
         actions.register(ExplainAction.INSTANCE, TransportExplainAction.class);
         actions.register(ClearScrollAction.INSTANCE, TransportClearScrollAction.class);
+        actions.register(OpenPointInTimeAction.INSTANCE, TransportOpenPointInTimeAction.class);
+        actions.register(ClosePointInTimeAction.INSTANCE, TransportClosePointInTimeAction.class);
         actions.register(RecoveryAction.INSTANCE, TransportRecoveryAction.class);
 
         //Indexed scripts
@@ -553,6 +564,8 @@ public class ActionModule extends AbstractModule {
         registerRestHandler(handlers, RestSearchAction.class);
         registerRestHandler(handlers, RestSearchScrollAction.class);
         registerRestHandler(handlers, RestClearScrollAction.class);
+        registerRestHandler(handlers, RestOpenPointInTimeAction.class);
+        registerRestHandler(handlers, RestClosePointInTimeAction.class);
         registerRestHandler(handlers, RestMultiSearchAction.class);
 
         registerRestHandler(handlers, RestValidateQueryAction.class);
@@ -628,6 +641,7 @@ public class ActionModule extends AbstractModule {
         if (false == transportClient) {
             // Supporting classes only used when not a transport client
             bind(AutoCreateIndex.class).toInstance(autoCreateIndex);
+            bind(SearchResponseCache.class).toInstance(searchResponseCache);
             bind(TransportLivenessAction.class).asEagerSingleton();
 
             // register GenericAction -> transportAction Map used by NodeClient
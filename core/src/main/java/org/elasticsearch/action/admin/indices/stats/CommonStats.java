@@ -26,6 +26,7 @@ import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.engine.SegmentsStats;
@@ -153,6 +154,9 @@ public class CommonStats implements Streamable, ToXContent {
                     break;
                 case QueryCache:
                     queryCache = indicesQueryCache.getStats(indexShard.shardId());
+                    if (indexShard.getQueryCachingPolicy() instanceof CostAwareQueryCachingPolicy) {
+                        queryCache.add(((CostAwareQueryCachingPolicy) indexShard.getQueryCachingPolicy()).stats());
+                    }
                     break;
                 case FieldData:
                     fieldData = indexShard.fieldDataStats(flags.fieldDataFields());
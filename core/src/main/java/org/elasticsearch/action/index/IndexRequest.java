@@ -20,6 +20,7 @@
 package org.elasticsearch.action.index;
 
 import org.elasticsearch.ElasticsearchGenerationException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.DocumentRequest;
 import org.elasticsearch.action.RoutingMissingException;
@@ -69,6 +70,11 @@ import static org.elasticsearch.action.ValidateActions.addValidationError;
  */
 public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implements DocumentRequest<IndexRequest> {
 
+    /**
+     * Value of {@link #getAutoGeneratedTimestamp()} for requests whose id was provided by the user.
+     */
+    public static final long UNSET_AUTO_GENERATED_TIMESTAMP = -1L;
+
     /**
      * Operation type controls if the type of the index operation.
      */
@@ -152,6 +158,14 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
 
     private String pipeline;
 
+    /**
+     * The time in milliseconds at which the id of this request was generated, or {@link #UNSET_AUTO_GENERATED_TIMESTAMP} if the id
+     * was provided by the user.
+     */
+    private long autoGeneratedTimestamp = UNSET_AUTO_GENERATED_TIMESTAMP;
+
+    private boolean isRetry = false;
+
     public IndexRequest() {
     }
 
@@ -591,6 +605,9 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         // generate id if not already provided and id generation is allowed
         if (allowIdGeneration) {
             if (id == null) {
+                assert autoGeneratedTimestamp == UNSET_AUTO_GENERATED_TIMESTAMP : "timestamp has already been generated!";
+                // extra paranoia: the engine relies on this timestamp being positive
+                autoGeneratedTimestamp = Math.max(0, System.currentTimeMillis());
                 id(UUIDs.base64UUID());
             }
         }
@@ -625,6 +642,27 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         routing(metaData.resolveIndexRouting(parent, routing, index));
     }
 
+    /**
+     * Returns the time in milliseconds at which the id of this request was generated, or {@link #UNSET_AUTO_GENERATED_TIMESTAMP}
+     * if the id was provided by the user. Documents with a generated id can be appended to the index without checking whether
+     * the id already exists, unless the request might have been performed before, see {@link #isRetry()}.
+     */
+    public long getAutoGeneratedTimestamp() {
+        return autoGeneratedTimestamp;
+    }
+
+    /**
+     * Returns <code>true</code> if this request has been sent again after a failed or timed out attempt.
+     */
+    public boolean isRetry() {
+        return isRetry;
+    }
+
+    @Override
+    public void onRetry() {
+        isRetry = true;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -639,6 +677,13 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
         pipeline = in.readOptionalString();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            isRetry = in.readBoolean();
+            autoGeneratedTimestamp = in.readLong();
+        } else {
+            isRetry = false;
+            autoGeneratedTimestamp = UNSET_AUTO_GENERATED_TIMESTAMP;
+        }
     }
 
     @Override
@@ -655,6 +700,10 @@ public class IndexRequest extends ReplicatedWriteRequest<IndexRequest> implement
         out.writeLong(version);
         out.writeByte(versionType.getValue());
         out.writeOptionalString(pipeline);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeBoolean(isRetry);
+            out.writeLong(autoGeneratedTimestamp);
+        }
     }
 
     @Override
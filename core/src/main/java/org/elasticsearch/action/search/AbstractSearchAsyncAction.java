@@ -31,13 +31,17 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.PlainShardIterator;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchTransportService;
 import org.elasticsearch.search.controller.SearchPhaseController;
@@ -48,12 +52,17 @@ import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.QuerySearchResultProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.action.search.TransportSearchHelper.internalSearchRequest;
+import static org.elasticsearch.action.search.TransportSearchHelper.parsePointInTimeId;
 
 abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult> extends AbstractAsyncAction {
 
@@ -64,13 +73,19 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
     protected final ThreadPool threadPool;
     protected final ActionListener<SearchResponse> listener;
     protected final GroupShardsIterator shardsIts;
+    // the readers to search on each shard if the request targets a point in time
+    @Nullable
+    private final Map<ShardId, PointInTimeIdForShard> pointInTime;
     protected final SearchRequest request;
     protected final ClusterState clusterState;
     protected final DiscoveryNodes nodes;
     protected final int expectedSuccessfulOps;
+    private final int preFilterShardSize;
     private final int expectedTotalOps;
     protected final AtomicInteger successfulOps = new AtomicInteger();
     private final AtomicInteger totalOps = new AtomicInteger();
+    // the number of shards that were not searched because they can't match the query, they count as successful
+    private volatile int skippedOps;
     protected final AtomicArray<FirstResult> firstResults;
     private volatile AtomicArray<ShardSearchFailure> shardFailures;
     private final Object shardFailuresMutex = new Object();
@@ -93,22 +108,38 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
 
         clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
 
-        // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
-        // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
-        // of just for the _search api
-        String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, request.indicesOptions(),
-            startTime(), request.indices());
-
-        for (String index : concreteIndices) {
-            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index);
-        }
+        if (request.pointInTime() != null) {
+            pointInTime = new HashMap<>();
+            for (PointInTimeIdForShard shard : parsePointInTimeId(request.pointInTime())) {
+                pointInTime.put(shard.getShardId(), shard);
+            }
+            Set<String> indices = new HashSet<>();
+            for (ShardId shardId : pointInTime.keySet()) {
+                if (indices.add(shardId.getIndexName())) {
+                    clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, shardId.getIndexName());
+                }
+            }
+            shardsIts = pointInTimeShards(clusterState, pointInTime.values());
+        } else {
+            pointInTime = null;
+            // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
+            // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
+            // of just for the _search api
+            String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, request.indicesOptions(),
+                startTime(), request.indices());
+
+            for (String index : concreteIndices) {
+                clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index);
+            }
 
-        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
-            request.indices());
+            Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
+                request.indices());
 
-        shardsIts = clusterService.operationRouting().searchShards(clusterState, concreteIndices, routingMap, request.preference());
+            shardsIts = clusterService.operationRouting().searchShards(clusterState, concreteIndices, routingMap, request.preference());
+        }
         final int shardCount = shardsIts.size();
         failIfOverShardCountLimit(clusterService, shardCount);
+        preFilterShardSize = clusterService.getClusterSettings().get(TransportSearchAction.PRE_FILTER_SHARD_SIZE_SETTING);
         expectedSuccessfulOps = shardCount;
         // we need to add 1 for non active partition, since we count it in the total!
         expectedTotalOps = shardsIts.totalSizeWith1ForEmpty();
@@ -116,6 +147,38 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
         firstResults = new AtomicArray<>(shardsIts.size());
     }
 
+    /**
+     * Targets the copy of each shard that holds the reader pinned by the point in time. A shard whose copy is gone has
+     * no active copy to search and fails.
+     */
+    private static GroupShardsIterator pointInTimeShards(ClusterState clusterState, Collection<PointInTimeIdForShard> shards) {
+        List<ShardIterator> iterators = new ArrayList<>(shards.size());
+        for (PointInTimeIdForShard shard : shards) {
+            List<ShardRouting> copies = new ArrayList<>(1);
+            IndexShardRoutingTable shardRoutingTable = clusterState.routingTable().shardRoutingTableOrNull(shard.getShardId());
+            if (shardRoutingTable != null) {
+                for (ShardRouting copy : shardRoutingTable.activeShards()) {
+                    if (shard.getNode().equals(copy.currentNodeId())) {
+                        copies.add(copy);
+                    }
+                }
+            }
+            iterators.add(new PlainShardIterator(shard.getShardId(), copies));
+        }
+        return new GroupShardsIterator(iterators);
+    }
+
+    private ShardSearchTransportRequest shardSearchRequest(ShardRouting shard) {
+        if (pointInTime != null) {
+            PointInTimeIdForShard pointInTimeShard = pointInTime.get(shard.shardId());
+            return internalSearchRequest(shard, shardsIts.size(), request, pointInTimeShard.getFilteringAliases(), startTime(),
+                pointInTimeShard.getReaderId());
+        }
+        String[] filteringAliases = indexNameExpressionResolver.filteringAliases(clusterState,
+            shard.index().getName(), request.indices());
+        return internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime());
+    }
+
     private void failIfOverShardCountLimit(ClusterService clusterService, int shardCount) {
         final long shardCountLimit = clusterService.getClusterSettings().get(TransportSearchAction.SHARD_COUNT_LIMIT_SETTING);
         if (shardCount > shardCountLimit) {
@@ -135,9 +198,93 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
                 ShardSearchFailure.EMPTY_ARRAY));
             return;
         }
+        if (shardsIts.size() > preFilterShardSize && SearchService.canRewriteToMatchNone(request.source())) {
+            preFilterShards();
+        } else {
+            performFirstPhase(null);
+        }
+    }
+
+    /**
+     * Asks a copy of each shard whether the query can match any of its documents, then searches the shards that can.
+     * This saves the creation of search contexts, and the slots of the search thread pools, on shards that don't hold
+     * anything of interest, e.g. the shards of time based indices that are older than the range of dates of a search.
+     */
+    private void preFilterShards() {
+        final boolean[] canMatch = new boolean[shardsIts.size()];
+        final AtomicInteger pending = new AtomicInteger(shardsIts.size());
+        int shardIndex = -1;
+        for (final ShardIterator shardIt : shardsIts) {
+            final int index = ++shardIndex;
+            final ShardRouting shard = shardIt.nextOrNull();
+            // the first phase iterates over the copies of the shard again
+            shardIt.reset();
+            final DiscoveryNode node = shard == null ? null : nodes.get(shard.currentNodeId());
+            if (node == null) {
+                // let the first phase report the failure
+                canMatch[index] = true;
+                onPreFilterResult(pending, canMatch);
+                continue;
+            }
+            searchTransportService.sendCanMatch(node, shardSearchRequest(shard),
+                new ActionListener<SearchTransportService.CanMatchResponse>() {
+                    @Override
+                    public void onResponse(SearchTransportService.CanMatchResponse response) {
+                        canMatch[index] = response.canMatch();
+                        onPreFilterResult(pending, canMatch);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        // search the shard anyway, the first phase fails over to the other copies
+                        canMatch[index] = true;
+                        onPreFilterResult(pending, canMatch);
+                    }
+                });
+        }
+    }
+
+    private void onPreFilterResult(AtomicInteger pending, boolean[] canMatch) {
+        if (pending.decrementAndGet() == 0) {
+            try {
+                performFirstPhase(canMatch);
+            } catch (Exception e) {
+                raiseEarlyFailure(new SearchPhaseExecutionException(firstPhaseName(), "failed to start", e, buildShardFailures()));
+            }
+        }
+    }
+
+    /**
+     * Executes the first phase on all shards, or on the shards that can match if <code>canMatch</code> is not null.
+     */
+    private void performFirstPhase(@Nullable boolean[] canMatch) {
+        if (canMatch != null) {
+            boolean skipAll = true;
+            for (boolean shardCanMatch : canMatch) {
+                skipAll &= shardCanMatch == false;
+            }
+            if (skipAll) {
+                // search one shard so that the response is built the same way as if no shard was skipped
+                canMatch[0] = true;
+            }
+            // skipped shards count as successful, this must be accounted for before any shard responds
+            int skipped = 0;
+            int shardIndex = -1;
+            for (final ShardIterator shardIt : shardsIts) {
+                if (canMatch[++shardIndex] == false) {
+                    skipped++;
+                    totalOps.addAndGet(shardIt.size());
+                }
+            }
+            skippedOps = skipped;
+            successfulOps.addAndGet(skipped);
+        }
         int shardIndex = -1;
         for (final ShardIterator shardIt : shardsIts) {
             shardIndex++;
+            if (canMatch != null && canMatch[shardIndex] == false) {
+                continue;
+            }
             final ShardRouting shard = shardIt.nextOrNull();
             if (shard != null) {
                 performFirstPhase(shardIndex, shardIt, shard);
@@ -157,10 +304,7 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
             if (node == null) {
                 onFirstPhaseResult(shardIndex, shard, null, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
             } else {
-                String[] filteringAliases = indexNameExpressionResolver.filteringAliases(clusterState,
-                    shard.index().getName(), request.indices());
-                sendExecuteFirstPhase(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases,
-                    startTime()), new ActionListener<FirstResult>() {
+                sendExecuteFirstPhase(node, shardSearchRequest(shard), new ActionListener<FirstResult>() {
                         @Override
                         public void onResponse(FirstResult result) {
                             onFirstPhaseResult(shardIndex, shard, result, shardIt);
@@ -216,7 +360,7 @@ abstract class AbstractSearchAsyncAction<FirstResult extends SearchPhaseResult>
                 }
             }
             final ShardSearchFailure[] shardSearchFailures = buildShardFailures();
-            if (successfulOps.get() == 0) {
+            if (successfulOps.get() == skippedOps) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("All shards failed for phase: [{}]", e, firstPhaseName());
                 }
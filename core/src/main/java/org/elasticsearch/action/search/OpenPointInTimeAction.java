@@ -0,0 +1,47 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.client.ElasticsearchClient;
+
+/**
+ * Pins the current reader of a copy of each shard of some indices so that searches can run against the same data
+ * over and over again, see {@link SearchRequest#pointInTime(String)}.
+ */
+public class OpenPointInTimeAction extends Action<OpenPointInTimeRequest, OpenPointInTimeResponse, OpenPointInTimeRequestBuilder> {
+
+    public static final OpenPointInTimeAction INSTANCE = new OpenPointInTimeAction();
+    public static final String NAME = "indices:data/read/point_in_time/open";
+
+    private OpenPointInTimeAction() {
+        super(NAME);
+    }
+
+    @Override
+    public OpenPointInTimeResponse newResponse() {
+        return new OpenPointInTimeResponse();
+    }
+
+    @Override
+    public OpenPointInTimeRequestBuilder newRequestBuilder(ElasticsearchClient client) {
+        return new OpenPointInTimeRequestBuilder(client, this);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The id of an opened point in time, to pass to {@link SearchRequest#pointInTime(String)}.
+ */
+public class OpenPointInTimeResponse extends ActionResponse implements ToXContent {
+
+    private String id;
+    private int totalShards;
+
+    public OpenPointInTimeResponse(String id, int totalShards) {
+        this.id = id;
+        this.totalShards = totalShards;
+    }
+
+    OpenPointInTimeResponse() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The number of shards the point in time pinned a reader on.
+     */
+    public int getTotalShards() {
+        return totalShards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.ID, id);
+        builder.field(Fields.TOTAL_SHARDS, totalShards);
+        return builder;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        id = in.readString();
+        totalShards = in.readVInt();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(id);
+        out.writeVInt(totalShards);
+    }
+
+    static final class Fields {
+        static final String ID = "id";
+        static final String TOTAL_SHARDS = "total_shards";
+    }
+}
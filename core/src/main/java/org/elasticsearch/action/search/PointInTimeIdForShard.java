@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.shard.ShardId;
+
+/**
+ * The reader that a point in time pinned on a shard copy: the node that holds it, its id on that node and the alias
+ * filters that were resolved when the point in time was opened.
+ */
+class PointInTimeIdForShard {
+    private final ShardId shardId;
+    private final String node;
+    private final long readerId;
+    private final String[] filteringAliases;
+
+    PointInTimeIdForShard(ShardId shardId, String node, long readerId, @Nullable String[] filteringAliases) {
+        this.shardId = shardId;
+        this.node = node;
+        this.readerId = readerId;
+        this.filteringAliases = filteringAliases;
+    }
+
+    public ShardId getShardId() {
+        return shardId;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public long getReaderId() {
+        return readerId;
+    }
+
+    @Nullable
+    public String[] getFilteringAliases() {
+        return filteringAliases;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.IndicesRequest;
@@ -34,6 +35,7 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
 
 import java.io.IOException;
 
+import static org.elasticsearch.action.ValidateActions.addValidationError;
 import static org.elasticsearch.search.Scroll.readScroll;
 
 /**
@@ -64,6 +66,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
 
     private Scroll scroll;
 
+    @Nullable
+    private String pointInTime;
+
     private String[] types = Strings.EMPTY_ARRAY;
 
     public static final IndicesOptions DEFAULT_INDICES_OPTIONS = IndicesOptions.strictExpandOpenAndForbidClosed();
@@ -99,6 +104,18 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
 //        if (source == null && extraSource == null) {
 //            validationException = addValidationError("search source is missing", validationException);
 //        }
+        if (pointInTime != null) {
+            if (scroll != null) {
+                validationException = addValidationError("[point_in_time] cannot be used with [scroll]", validationException);
+            }
+            if (indices != null && indices.length > 0) {
+                validationException = addValidationError("[indices] cannot be used with [point_in_time], the indices are those of the " +
+                    "point in time", validationException);
+            }
+            if (routing != null) {
+                validationException = addValidationError("[routing] cannot be used with [point_in_time]", validationException);
+            }
+        }
         return validationException;
     }
 
@@ -263,6 +280,23 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         return scroll(new Scroll(TimeValue.parseTimeValue(keepAlive, null, getClass().getSimpleName() + ".Scroll.keepAlive")));
     }
 
+    /**
+     * The id of the point in time to search, see {@link OpenPointInTimeAction}.
+     */
+    @Nullable
+    public String pointInTime() {
+        return pointInTime;
+    }
+
+    /**
+     * Searches the readers that the given point in time has pinned on each of its shards instead of the current ones, so
+     * that successive requests see the same data. The indices and shards to search are those of the point in time.
+     */
+    public SearchRequest pointInTime(@Nullable String pointInTime) {
+        this.pointInTime = pointInTime;
+        return this;
+    }
+
     /**
      * Sets if this request should use the request cache or not, assuming that it can (for
      * example, if "now" is used, it will never be cached). By default (not set, or null,
@@ -308,6 +342,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         indicesOptions = IndicesOptions.readIndicesOptions(in);
 
         requestCache = in.readOptionalBoolean();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            pointInTime = in.readOptionalString();
+        }
     }
 
     @Override
@@ -338,5 +375,8 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         out.writeStringArray(types);
         indicesOptions.writeIndicesOptions(out);
         out.writeOptionalBoolean(requestCache);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeOptionalString(pointInTime);
+        }
     }
 }
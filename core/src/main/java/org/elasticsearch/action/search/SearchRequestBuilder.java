@@ -108,6 +108,14 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Searches the readers pinned by the given point in time, see {@link OpenPointInTimeAction}.
+     */
+    public SearchRequestBuilder setPointInTime(String pointInTimeId) {
+        request.pointInTime(pointInTimeId);
+        return this;
+    }
+
     /**
      * An optional timeout to control how long search is allowed to take.
      */
@@ -379,6 +387,15 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Whether the total number of hits must be counted accurately. When <tt>false</tt>, searches sorted by score may
+     * skip the hits that can't make it into the top hits. Defaults to <tt>true</tt>.
+     */
+    public SearchRequestBuilder setTrackTotalHits(boolean trackTotalHits) {
+        sourceBuilder().trackTotalHits(trackTotalHits);
+        return this;
+    }
+
     /**
      * Sets the stored fields to load and return as part of the search request. If none
      * are specified, the source of the document will be returned.
@@ -0,0 +1,273 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Caches the responses of search requests on the coordinating node for a short time, so that many clients that send
+ * the same search at about the same time, like dashboards, only cost a single execution. Concurrent identical searches
+ * are also coalesced: a search that arrives while an identical one is running waits for its response instead of
+ * running again.
+ * <p>
+ * Responses are keyed by the serialized request and the version of the cluster metadata, so that they are not
+ * reused once an index got recreated or an alias changed. The coordinating node doesn't know when the shards
+ * refresh, so a cached response may miss the documents that got indexed since it was computed, for up to
+ * <tt>search.response_cache.expire</tt>. This cache is disabled by default.
+ * <p>
+ * Entries are weighed by the size of the serialized request and response, which is a cheap lower bound of the memory
+ * they use, and the total is bounded by <tt>search.response_cache.size</tt>.
+ */
+public final class SearchResponseCache {
+
+    /**
+     * How long a search response is reused for, <code>0</code> (the default) disables the cache.
+     */
+    public static final Setting<TimeValue> EXPIRE_SETTING =
+        Setting.positiveTimeSetting("search.response_cache.expire", TimeValue.timeValueMillis(0), Property.NodeScope);
+
+    /**
+     * The maximum size of the search responses in the cache, either as an absolute size or as a percentage of the heap.
+     */
+    public static final Setting<ByteSizeValue> SIZE_SETTING =
+        Setting.byteSizeSetting("search.response_cache.size", "1%", Property.NodeScope);
+
+    private final Cache<Key, CachedResponse> cache;
+    private final ConcurrentMap<Key, PendingSearch> pendingSearches = new ConcurrentHashMap<>();
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+    private final CounterMetric coalescedCount = new CounterMetric();
+
+    public SearchResponseCache(Settings settings) {
+        final TimeValue expire = EXPIRE_SETTING.get(settings);
+        if (expire.nanos() > 0) {
+            cache = CacheBuilder.<Key, CachedResponse>builder()
+                .setExpireAfterWrite(expire.nanos())
+                .setMaximumWeight(SIZE_SETTING.get(settings).bytes())
+                .weigher((key, response) -> key.bytes.length + response.sizeInBytes)
+                .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns the key of the given request in this cache, or <code>null</code> if its response must not be cached.
+     */
+    Key key(SearchRequest request, ClusterState state) throws IOException {
+        if (cache == null || request.scroll() != null || Boolean.FALSE.equals(request.requestCache())) {
+            return null;
+        }
+        final BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+        // the same request may hit other indices or see other alias filters once the metadata changed
+        out.writeLong(state.metaData().version());
+        return new Key(out.bytes().toBytesRef());
+    }
+
+    /**
+     * Notifies the listener with the cached response of the request with the given key if there is one, or with
+     * the response of an identical search that is running already. Otherwise executes the search with the given
+     * consumer and caches its response unless some shards failed or timed out.
+     */
+    void execute(Key key, Consumer<ActionListener<SearchResponse>> search, ActionListener<SearchResponse> listener) {
+        while (true) {
+            final CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                hitCount.inc();
+                listener.onResponse(cached.response);
+                return;
+            }
+            final PendingSearch pending = new PendingSearch(listener);
+            final PendingSearch running = pendingSearches.putIfAbsent(key, pending);
+            if (running == null) {
+                missCount.inc();
+                final ActionListener<SearchResponse> searchListener = new ActionListener<SearchResponse>() {
+                    @Override
+                    public void onResponse(SearchResponse response) {
+                        if (response.getShardFailures().length == 0 && response.isTimedOut() == false) {
+                            // cache before the search stops being pending so that identical searches always find one
+                            cache.put(key, new CachedResponse(response, serializedSize(response)));
+                        }
+                        pendingSearches.remove(key, pending);
+                        for (ActionListener<SearchResponse> listener : pending.complete()) {
+                            try {
+                                listener.onResponse(response);
+                            } catch (Exception e) {
+                                listener.onFailure(e);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        pendingSearches.remove(key, pending);
+                        for (ActionListener<SearchResponse> listener : pending.complete()) {
+                            listener.onFailure(e);
+                        }
+                    }
+                };
+                try {
+                    search.accept(searchListener);
+                } catch (Exception e) {
+                    // the waiting searches must be released
+                    searchListener.onFailure(e);
+                }
+                return;
+            }
+            if (running.addListener(listener)) {
+                coalescedCount.inc();
+                return;
+            }
+            // the running search just completed, its response may be cached by now
+        }
+    }
+
+    /**
+     * Returns the size of the given response once serialized.
+     */
+    static long serializedSize(SearchResponse response) {
+        final CountingStreamOutput out = new CountingStreamOutput();
+        try {
+            response.writeTo(out);
+        } catch (IOException e) {
+            // can't happen, nothing is written
+            throw new AssertionError(e);
+        }
+        return out.size;
+    }
+
+    public SearchResponseCacheStats stats() {
+        final long memorySize = cache == null ? 0 : cache.weight();
+        final long evictions = cache == null ? 0 : cache.stats().getEvictions();
+        return new SearchResponseCacheStats(memorySize, evictions, hitCount.count(), missCount.count(), coalescedCount.count());
+    }
+
+    static final class Key {
+        private final BytesRef bytes;
+
+        Key(BytesRef bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return bytes.equals(((Key) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return bytes.hashCode();
+        }
+    }
+
+    private static final class CachedResponse {
+        private final SearchResponse response;
+        private final long sizeInBytes;
+
+        CachedResponse(SearchResponse response, long sizeInBytes) {
+            this.response = response;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
+    /**
+     * A stream that only counts the bytes that are written to it.
+     */
+    private static final class CountingStreamOutput extends StreamOutput {
+        private long size;
+
+        @Override
+        public void writeByte(byte b) {
+            size++;
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) {
+            size += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void reset() {
+            size = 0;
+        }
+    }
+
+    /**
+     * The listeners that wait for the response of a running search.
+     */
+    private static final class PendingSearch {
+        private List<ActionListener<SearchResponse>> listeners = new ArrayList<>();
+
+        PendingSearch(ActionListener<SearchResponse> listener) {
+            listeners.add(listener);
+        }
+
+        /**
+         * Adds a listener, unless the search completed already in which case <code>false</code> is returned.
+         */
+        synchronized boolean addListener(ActionListener<SearchResponse> listener) {
+            if (listeners == null) {
+                return false;
+            }
+            listeners.add(listener);
+            return true;
+        }
+
+        synchronized List<ActionListener<SearchResponse>> complete() {
+            final List<ActionListener<SearchResponse>> completed = listeners;
+            listeners = null;
+            return completed;
+        }
+    }
+}
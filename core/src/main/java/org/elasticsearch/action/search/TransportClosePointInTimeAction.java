@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.search.action.SearchTransportService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.action.search.TransportSearchHelper.parsePointInTimeId;
+
+/**
+ * Releases the readers of a point in time on all the nodes that hold one.
+ */
+public class TransportClosePointInTimeAction extends HandledTransportAction<ClosePointInTimeRequest, ClearScrollResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportClosePointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                           ClusterService clusterService, SearchTransportService searchTransportService,
+                                           ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(settings, ClosePointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            ClosePointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(ClosePointInTimeRequest request, ActionListener<ClearScrollResponse> listener) {
+        final PointInTimeIdForShard[] shards = parsePointInTimeId(request.id());
+        if (shards.length == 0) {
+            listener.onResponse(new ClearScrollResponse(true, 0));
+            return;
+        }
+        final DiscoveryNodes nodes = clusterService.state().nodes();
+        final CountDown counter = new CountDown(shards.length);
+        final AtomicInteger numFreed = new AtomicInteger();
+        final AtomicBoolean succeeded = new AtomicBoolean(true);
+        for (PointInTimeIdForShard shard : shards) {
+            final DiscoveryNode node = nodes.get(shard.getNode());
+            if (node == null) {
+                // the node left the cluster and took the reader with it
+                if (counter.countDown()) {
+                    listener.onResponse(new ClearScrollResponse(succeeded.get(), numFreed.get()));
+                }
+                continue;
+            }
+            searchTransportService.sendFreePointInTime(node, shard.getReaderId(),
+                new ActionListener<SearchTransportService.SearchFreeContextResponse>() {
+                    @Override
+                    public void onResponse(SearchTransportService.SearchFreeContextResponse response) {
+                        if (response.isFreed()) {
+                            numFreed.incrementAndGet();
+                        }
+                        onShardDone();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        logger.warn("{}: failed to close point in time on node [{}]", e, shard.getShardId(), node);
+                        succeeded.set(false);
+                        onShardDone();
+                    }
+
+                    private void onShardDone() {
+                        if (counter.countDown()) {
+                            listener.onResponse(new ClearScrollResponse(succeeded.get(), numFreed.get()));
+                        }
+                    }
+                });
+        }
+    }
+}
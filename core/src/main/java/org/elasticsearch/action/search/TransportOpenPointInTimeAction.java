@@ -0,0 +1,198 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.search.action.SearchTransportService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.action.search.TransportSearchHelper.buildPointInTimeId;
+
+/**
+ * Opens a point in time on a copy of each shard that a search with the same indices, routing and preference would hit.
+ * The point in time is only opened if all shards succeed, the readers that were already pinned are released otherwise.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportOpenPointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                          ClusterService clusterService, SearchTransportService searchTransportService,
+                                          ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(settings, OpenPointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        ClusterState clusterState = clusterService.state();
+        clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+        String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, request);
+        for (String index : concreteIndices) {
+            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index);
+        }
+        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
+            request.indices());
+        GroupShardsIterator shardsIts = clusterService.operationRouting().searchShards(clusterState, concreteIndices, routingMap,
+            request.preference());
+        new Async(request, listener, clusterState, shardsIts).run();
+    }
+
+    private class Async {
+        final OpenPointInTimeRequest request;
+        final ActionListener<OpenPointInTimeResponse> listener;
+        final ClusterState clusterState;
+        final GroupShardsIterator shardsIts;
+        final AtomicArray<PointInTimeIdForShard> shards;
+        final CountDown counter;
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        private Async(OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener, ClusterState clusterState,
+                      GroupShardsIterator shardsIts) {
+            this.request = request;
+            this.listener = listener;
+            this.clusterState = clusterState;
+            this.shardsIts = shardsIts;
+            this.shards = new AtomicArray<>(shardsIts.size());
+            this.counter = new CountDown(shardsIts.size());
+        }
+
+        void run() {
+            if (shardsIts.size() == 0) {
+                onDone();
+                return;
+            }
+            int shardIndex = -1;
+            for (ShardIterator shardIt : shardsIts) {
+                open(++shardIndex, shardIt, null);
+            }
+        }
+
+        /**
+         * Opens the point in time on the next copy of the shard, or fails the shard if there are no copies left.
+         */
+        void open(final int shardIndex, final ShardIterator shardIt, Exception lastFailure) {
+            final ShardRouting shard = shardIt.nextOrNull();
+            if (shard == null) {
+                failure.compareAndSet(null, lastFailure == null ? new NoShardAvailableActionException(shardIt.shardId()) : lastFailure);
+                onShardDone();
+                return;
+            }
+            final DiscoveryNode node = clusterState.nodes().get(shard.currentNodeId());
+            if (node == null) {
+                open(shardIndex, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
+                return;
+            }
+            searchTransportService.sendOpenPointInTime(node, shard.shardId(), request.keepAlive(),
+                new ActionListener<SearchTransportService.ShardOpenPointInTimeResponse>() {
+                    @Override
+                    public void onResponse(SearchTransportService.ShardOpenPointInTimeResponse response) {
+                        String[] filteringAliases = indexNameExpressionResolver.filteringAliases(clusterState,
+                            shard.index().getName(), request.indices());
+                        shards.set(shardIndex, new PointInTimeIdForShard(shard.shardId(), node.getId(), response.id(),
+                            filteringAliases));
+                        onShardDone();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("{}: failed to open point in time on [{}]", e, shard.shardId(), node);
+                        }
+                        open(shardIndex, shardIt, e);
+                    }
+                });
+        }
+
+        void onShardDone() {
+            if (counter.countDown()) {
+                onDone();
+            }
+        }
+
+        void onDone() {
+            List<PointInTimeIdForShard> opened = new ArrayList<>(shardsIts.size());
+            for (AtomicArray.Entry<PointInTimeIdForShard> entry : shards.asList()) {
+                opened.add(entry.value);
+            }
+            final Exception e = failure.get();
+            if (e != null) {
+                release(opened);
+                listener.onFailure(e);
+                return;
+            }
+            final String id;
+            try {
+                id = buildPointInTimeId(opened);
+            } catch (Exception buildFailure) {
+                release(opened);
+                listener.onFailure(buildFailure);
+                return;
+            }
+            listener.onResponse(new OpenPointInTimeResponse(id, opened.size()));
+        }
+
+        void release(List<PointInTimeIdForShard> opened) {
+            for (PointInTimeIdForShard shard : opened) {
+                DiscoveryNode node = clusterState.nodes().get(shard.getNode());
+                if (node != null) {
+                    searchTransportService.sendFreePointInTime(node, shard.getReaderId(),
+                        new ActionListener<SearchTransportService.SearchFreeContextResponse>() {
+                            @Override
+                            public void onResponse(SearchTransportService.SearchFreeContextResponse response) {
+                            }
+
+                            @Override
+                            public void onFailure(Exception e) {
+                                // the reader is released once its keep alive expires
+                                logger.debug("{}: failed to release point in time reader on [{}]", e, shard.getShardId(), node);
+                            }
+                        });
+                }
+            }
+        }
+    }
+}
@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.elasticsearch.action.search.SearchType.QUERY_AND_FETCH;
+import static org.elasticsearch.action.search.TransportSearchHelper.parsePointInTimeId;
 import static org.elasticsearch.action.search.SearchType.QUERY_THEN_FETCH;
 
 public class TransportSearchAction extends HandledTransportAction<SearchRequest, SearchResponse> {
@@ -48,30 +49,44 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", 1000L, 1L, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Searches on more shards than this first ask each shard whether its documents can match the query at all, and skip
+     * the shards that can't.
+     */
+    public static final Setting<Integer> PRE_FILTER_SHARD_SIZE_SETTING = Setting.intSetting(
+            "action.search.pre_filter_shard_size", 128, 1, Property.Dynamic, Property.NodeScope);
+
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
     private final SearchPhaseController searchPhaseController;
+    private final SearchResponseCache responseCache;
 
     @Inject
     public TransportSearchAction(Settings settings, ThreadPool threadPool, SearchPhaseController searchPhaseController,
                                  TransportService transportService, SearchTransportService searchTransportService,
                                  ClusterService clusterService, ActionFilters actionFilters, IndexNameExpressionResolver
-                                             indexNameExpressionResolver) {
+                                             indexNameExpressionResolver, SearchResponseCache responseCache) {
         super(settings, SearchAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver, SearchRequest::new);
         this.searchPhaseController = searchPhaseController;
         this.searchTransportService = searchTransportService;
         this.clusterService = clusterService;
+        this.responseCache = responseCache;
     }
 
     @Override
     protected void doExecute(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
         // optimize search type for cases where there is only one shard group to search on
         try {
-            ClusterState clusterState = clusterService.state();
-            String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, searchRequest);
-            Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState,
-                    searchRequest.routing(), searchRequest.indices());
-            int shardCount = clusterService.operationRouting().searchShardsCount(clusterState, concreteIndices, routingMap);
+            final int shardCount;
+            if (searchRequest.pointInTime() != null) {
+                shardCount = parsePointInTimeId(searchRequest.pointInTime()).length;
+            } else {
+                ClusterState clusterState = clusterService.state();
+                String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, searchRequest);
+                Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState,
+                        searchRequest.routing(), searchRequest.indices());
+                shardCount = clusterService.operationRouting().searchShardsCount(clusterState, concreteIndices, routingMap);
+            }
             if (shardCount == 1) {
                 // if we only have one group, then we always want Q_A_F, no need for DFS, and no need to do THEN since we hit one shard
                 searchRequest.searchType(QUERY_AND_FETCH);
@@ -93,7 +108,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
             logger.debug("failed to optimize search type, continue as normal", e);
         }
 
-        searchAsyncAction(searchRequest, listener).start();
+        SearchResponseCache.Key cacheKey = null;
+        try {
+            cacheKey = responseCache.key(searchRequest, clusterService.state());
+        } catch (Exception e) {
+            logger.debug("failed to build the response cache key, continue without caching", e);
+        }
+        if (cacheKey == null) {
+            searchAsyncAction(searchRequest, listener).start();
+        } else {
+            responseCache.execute(cacheKey, l -> searchAsyncAction(searchRequest, l).start(), listener);
+        }
     }
 
     private AbstractSearchAsyncAction searchAsyncAction(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
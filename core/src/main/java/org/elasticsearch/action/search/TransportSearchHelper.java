@@ -23,12 +23,15 @@ import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.RAMOutputStream;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
 import org.elasticsearch.search.internal.ShardSearchTransportRequest;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.List;
 
 /**
  *
@@ -40,6 +43,11 @@ final class TransportSearchHelper {
         return new ShardSearchTransportRequest(request, shardRouting, numberOfShards, filteringAliases, nowInMillis);
     }
 
+    static ShardSearchTransportRequest internalSearchRequest(ShardRouting shardRouting, int numberOfShards, SearchRequest request,
+                                                             String[] filteringAliases, long nowInMillis, long pointInTimeId) {
+        return new ShardSearchTransportRequest(request, shardRouting, numberOfShards, filteringAliases, nowInMillis, pointInTimeId);
+    }
+
     static InternalScrollSearchRequest internalScrollSearchRequest(long id, SearchScrollRequest request) {
         return new InternalScrollSearchRequest(request, id);
     }
@@ -89,6 +97,59 @@ final class TransportSearchHelper {
         }
     }
 
+    static String buildPointInTimeId(List<PointInTimeIdForShard> shards) throws IOException {
+        try (RAMOutputStream out = new RAMOutputStream()) {
+            out.writeVInt(shards.size());
+            for (PointInTimeIdForShard shard : shards) {
+                out.writeString(shard.getShardId().getIndexName());
+                out.writeString(shard.getShardId().getIndex().getUUID());
+                out.writeVInt(shard.getShardId().id());
+                out.writeString(shard.getNode());
+                out.writeLong(shard.getReaderId());
+                String[] filteringAliases = shard.getFilteringAliases();
+                if (filteringAliases == null) {
+                    out.writeVInt(0);
+                } else {
+                    out.writeVInt(filteringAliases.length + 1);
+                    for (String alias : filteringAliases) {
+                        out.writeString(alias);
+                    }
+                }
+            }
+            byte[] bytes = new byte[(int) out.getFilePointer()];
+            out.writeTo(bytes, 0);
+            return Base64.getUrlEncoder().encodeToString(bytes);
+        }
+    }
+
+    static PointInTimeIdForShard[] parsePointInTimeId(String pointInTimeId) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(pointInTimeId);
+            ByteArrayDataInput in = new ByteArrayDataInput(bytes);
+            PointInTimeIdForShard[] shards = new PointInTimeIdForShard[in.readVInt()];
+            for (int i = 0; i < shards.length; ++i) {
+                ShardId shardId = new ShardId(new Index(in.readString(), in.readString()), in.readVInt());
+                String node = in.readString();
+                long readerId = in.readLong();
+                String[] filteringAliases = null;
+                int numAliases = in.readVInt();
+                if (numAliases > 0) {
+                    filteringAliases = new String[numAliases - 1];
+                    for (int j = 0; j < filteringAliases.length; j++) {
+                        filteringAliases[j] = in.readString();
+                    }
+                }
+                shards[i] = new PointInTimeIdForShard(shardId, node, readerId, filteringAliases);
+            }
+            if (in.getPosition() != bytes.length) {
+                throw new IllegalArgumentException("Not all bytes were read");
+            }
+            return shards;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+    }
+
     private TransportSearchHelper() {
 
     }
@@ -162,6 +162,13 @@ public abstract class ReplicationRequest<Request extends ReplicationRequest<Requ
         primaryTerm = term;
     }
 
+    /**
+     * Called when this request is sent again because a previous attempt failed or timed out, which doesn't mean that the
+     * previous attempt wasn't performed on the primary.
+     */
+    public void onRetry() {
+    }
+
     @Override
     public ActionRequestValidationException validate() {
         ActionRequestValidationException validationException = null;
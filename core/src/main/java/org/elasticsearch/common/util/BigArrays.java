@@ -21,6 +21,7 @@ package org.elasticsearch.common.util;
 
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
@@ -151,6 +152,11 @@ public class BigArrays implements Releasable {
             return false;
         }
 
+        @Override
+        public boolean get(long index, int len, BytesRef ref, BytesRefBuilder scratch) {
+            return get(index, len, ref);
+        }
+
         @Override
         public void set(long index, byte[] buf, int offset, int len) {
             assert indexIsInt(index);
@@ -371,6 +377,8 @@ public class BigArrays implements Releasable {
     final PageCacheRecycler recycler;
     final CircuitBreakerService breakerService;
     final boolean checkBreaker;
+    // whether pages of big arrays of primitives are allocated from direct memory
+    private final boolean direct;
     private final BigArrays circuitBreakingInstance;
 
     public BigArrays(Settings settings, @Nullable final CircuitBreakerService breakerService) {
@@ -382,6 +390,7 @@ public class BigArrays implements Releasable {
         this.checkBreaker = checkBreaker;
         this.recycler = recycler;
         this.breakerService = breakerService;
+        this.direct = recycler != null && recycler.isDirect();
         if (checkBreaker) {
             this.circuitBreakingInstance = this;
         } else {
@@ -457,7 +466,7 @@ public class BigArrays implements Releasable {
     public ByteArray newByteArray(long size, boolean clearOnResize) {
         final ByteArray array;
         if (size > BYTE_PAGE_SIZE) {
-            array = new BigByteArray(size, this, clearOnResize);
+            array = direct ? new BigDirectByteArray(size, this, clearOnResize) : new BigByteArray(size, this, clearOnResize);
         } else if (size >= BYTE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<byte[]> page = recycler.bytePage(clearOnResize);
             array = new ByteArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -479,6 +488,8 @@ public class BigArrays implements Releasable {
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
             return resizeInPlace((BigByteArray) array, size);
+        } else if (array instanceof BigDirectByteArray) {
+            return resizeInPlace((BigDirectByteArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final ByteArray newArray = newByteArray(size, arr.clearOnResize);
@@ -539,7 +550,7 @@ public class BigArrays implements Releasable {
     public IntArray newIntArray(long size, boolean clearOnResize) {
         final IntArray array;
         if (size > INT_PAGE_SIZE) {
-            array = new BigIntArray(size, this, clearOnResize);
+            array = direct ? new BigDirectIntArray(size, this, clearOnResize) : new BigIntArray(size, this, clearOnResize);
         } else if (size >= INT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<int[]> page = recycler.intPage(clearOnResize);
             array = new IntArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -561,6 +572,8 @@ public class BigArrays implements Releasable {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof BigDirectIntArray) {
+            return resizeInPlace((BigDirectIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -589,7 +602,7 @@ public class BigArrays implements Releasable {
     public LongArray newLongArray(long size, boolean clearOnResize) {
         final LongArray array;
         if (size > LONG_PAGE_SIZE) {
-            array = new BigLongArray(size, this, clearOnResize);
+            array = direct ? new BigDirectLongArray(size, this, clearOnResize) : new BigLongArray(size, this, clearOnResize);
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
             array = new LongArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -611,6 +624,8 @@ public class BigArrays implements Releasable {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof BigDirectLongArray) {
+            return resizeInPlace((BigDirectLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -639,7 +654,7 @@ public class BigArrays implements Releasable {
     public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
         final DoubleArray arr;
         if (size > LONG_PAGE_SIZE) {
-            arr = new BigDoubleArray(size, this, clearOnResize);
+            arr = direct ? new BigDirectDoubleArray(size, this, clearOnResize) : new BigDoubleArray(size, this, clearOnResize);
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
             arr = new DoubleArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -658,6 +673,8 @@ public class BigArrays implements Releasable {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof BigDirectDoubleArray) {
+            return resizeInPlace((BigDirectDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
@@ -686,7 +703,7 @@ public class BigArrays implements Releasable {
     public FloatArray newFloatArray(long size, boolean clearOnResize) {
         final FloatArray array;
         if (size > INT_PAGE_SIZE) {
-            array = new BigFloatArray(size, this, clearOnResize);
+            array = direct ? new BigDirectFloatArray(size, this, clearOnResize) : new BigFloatArray(size, this, clearOnResize);
         } else if (size >= INT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<int[]> page = recycler.intPage(clearOnResize);
             array = new FloatArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -705,6 +722,8 @@ public class BigArrays implements Releasable {
     public FloatArray resize(FloatArray array, long size) {
         if (array instanceof BigFloatArray) {
             return resizeInPlace((BigFloatArray) array, size);
+        } else if (array instanceof BigDirectFloatArray) {
+            return resizeInPlace((BigDirectFloatArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final FloatArray newArray = newFloatArray(size, arr.clearOnResize);
@@ -21,6 +21,7 @@ package org.elasticsearch.common.util;
 
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.RamUsageEstimator;
 
 import java.util.Arrays;
@@ -73,20 +74,36 @@ final class BigByteArray extends AbstractBigArray implements ByteArray {
             ref.length = len;
             return false;
         } else {
-            ref.bytes = new byte[len];
-            ref.offset = 0;
-            ref.length = pageSize() - indexInPage;
-            System.arraycopy(pages[pageIndex], indexInPage, ref.bytes, 0, ref.length);
-            do {
-                ++pageIndex;
-                final int copyLength = Math.min(pageSize(), len - ref.length);
-                System.arraycopy(pages[pageIndex], 0, ref.bytes, ref.length, copyLength);
-                ref.length += copyLength;
-            } while (ref.length < len);
+            copy(index, len, ref, new byte[len]);
             return true;
         }
     }
 
+    @Override
+    public boolean get(long index, int len, BytesRef ref, BytesRefBuilder scratch) {
+        if (indexInPage(index) + len <= pageSize()) {
+            return get(index, len, ref);
+        }
+        scratch.grow(len);
+        copy(index, len, ref, scratch.bytes());
+        return true;
+    }
+
+    private void copy(long index, int len, BytesRef ref, byte[] dest) {
+        int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        ref.bytes = dest;
+        ref.offset = 0;
+        ref.length = pageSize() - indexInPage;
+        System.arraycopy(pages[pageIndex], indexInPage, ref.bytes, 0, ref.length);
+        do {
+            ++pageIndex;
+            final int copyLength = Math.min(pageSize(), len - ref.length);
+            System.arraycopy(pages[pageIndex], 0, ref.bytes, ref.length, copyLength);
+            ref.length += copyLength;
+        } while (ref.length < len);
+    }
+
     @Override
     public void set(long index, byte[] buf, int offset, int len) {
         assert index + len <= size();
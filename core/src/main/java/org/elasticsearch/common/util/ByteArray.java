@@ -20,6 +20,7 @@
 package org.elasticsearch.common.util;
 
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 
 /**
  * Abstraction of an array of byte values.
@@ -43,6 +44,14 @@ public interface ByteArray extends BigArray {
      */
     boolean get(long index, int len, BytesRef ref);
 
+    /**
+     * Get a reference to a slice, like {@link #get(long, int, BytesRef)}, but materialize it into the given scratch
+     * buffer, which only grows when needed. The reference is only valid until the scratch buffer is reused.
+     *
+     * @return <code>true</code> when the slice was copied to the scratch buffer, <code>false</code> otherwise.
+     */
+    boolean get(long index, int len, BytesRef ref, BytesRefBuilder scratch);
+
     /**
      * Bulk set.
      */
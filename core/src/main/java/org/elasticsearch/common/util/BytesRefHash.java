@@ -21,6 +21,7 @@ package org.elasticsearch.common.util;
 
 import com.carrotsearch.hppc.BitMixer;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 
@@ -37,6 +38,8 @@ public final class BytesRefHash extends AbstractHash {
     private ByteArray bytes;
     private IntArray hashes; // we cache hashes for faster re-hashing
     private final BytesRef spare;
+    // the keys that span several pages are copied here when they are compared, instead of to a new array every time
+    private final BytesRefBuilder scratch;
 
     // Constructor with configurable capacity and default maximum load factor.
     public BytesRefHash(long capacity, BigArrays bigArrays) {
@@ -51,6 +54,7 @@ public final class BytesRefHash extends AbstractHash {
         bytes = bigArrays.newByteArray(capacity * 3, false);
         hashes = bigArrays.newIntArray(capacity, false);
         spare = new BytesRef();
+        scratch = new BytesRefBuilder();
     }
 
     // BytesRef has a weak hashCode function so we try to improve it by rehashing using Murmur3
@@ -70,6 +74,13 @@ public final class BytesRefHash extends AbstractHash {
         return dest;
     }
 
+    private BytesRef probe(long id) {
+        final long startOffset = startOffsets.get(id);
+        final int length = (int) (startOffsets.get(id + 1) - startOffset);
+        bytes.get(startOffset, length, spare, scratch);
+        return spare;
+    }
+
     /**
      * Get the id associated with <code>key</code>
      */
@@ -77,7 +88,7 @@ public final class BytesRefHash extends AbstractHash {
         final long slot = slot(rehash(code), mask);
         for (long index = slot; ; index = nextSlot(index, mask)) {
             final long id = id(index);
-            if (id == -1L || key.bytesEquals(get(id, spare))) {
+            if (id == -1L || key.bytesEquals(probe(id))) {
                 return id;
             }
         }
@@ -99,7 +110,7 @@ public final class BytesRefHash extends AbstractHash {
                 append(id, key, code);
                 ++size;
                 return id;
-            } else if (key.bytesEquals(get(curId, spare))) {
+            } else if (key.bytesEquals(probe(curId))) {
                 return -1 - curId;
             }
         }
@@ -117,8 +128,7 @@ public final class BytesRefHash extends AbstractHash {
     }
 
     private boolean assertConsistent(long id, int code) {
-        get(id, spare);
-        return rehash(spare.hashCode()) == code;
+        return rehash(probe(id).hashCode()) == code;
     }
 
     private void reset(int code, long id) {
@@ -32,6 +32,8 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -56,15 +58,27 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    /**
+     * Whether the pages of big byte, int, long, float and double arrays should be allocated from direct memory instead
+     * of the heap. Direct pages are returned to the recycler when arrays are released, pages that don't fit in the
+     * recycler anymore are reclaimed together with their {@link ByteBuffer} by the garbage collector.
+     */
+    public static final Setting<Boolean> DIRECT_SETTING =
+        Setting.boolSetting("cache.recycler.page.direct", false, Property.NodeScope);
+    public static final Setting<ByteSizeValue> LIMIT_DIRECT_SETTING  =
+        Setting.byteSizeSetting("cache.recycler.page.limit.direct", "10%", Property.NodeScope);
+
+    private static final byte[] EMPTY_PAGE = new byte[BigArrays.PAGE_SIZE_IN_BYTES];
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
     private final Recycler<long[]> longPage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
 
     @Override
     public void close() {
-        Releasables.close(true, bytePage, intPage, longPage, objectPage);
+        Releasables.close(true, bytePage, intPage, longPage, objectPage, directPage);
     }
 
     protected PageCacheRecycler(Settings settings) {
@@ -143,6 +157,31 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         });
 
         assert BigArrays.PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxIntPageCount + maxLongPageCount + maxObjectPageCount) <= limit;
+
+        if (DIRECT_SETTING.get(settings)) {
+            // direct pages are not typed, the same page can back arrays of bytes, ints, longs, floats or doubles
+            final int maxDirectPageCount =
+                (int) Math.min(Integer.MAX_VALUE, LIMIT_DIRECT_SETTING.get(settings).bytes() / BigArrays.PAGE_SIZE_IN_BYTES);
+            directPage = build(type, maxDirectPageCount, availableProcessors, new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance(int sizing) {
+                    return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do
+                }
+            });
+        } else {
+            directPage = null;
+        }
+    }
+
+    /**
+     * Whether pages of big arrays of primitives should be obtained through {@link #directPage(boolean)}.
+     */
+    public boolean isDirect() {
+        return directPage != null;
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -169,6 +208,17 @@ public class PageCacheRecycler extends AbstractComponent implements Releasable {
         return v;
     }
 
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        assert isDirect() : "direct pages are disabled";
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v().duplicate();
+            page.clear();
+            page.put(EMPTY_PAGE);
+        }
+        return v;
+    }
+
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
         return objectPage.obtain();
@@ -23,7 +23,10 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -159,46 +162,13 @@ public class XContentMapValues {
                 continue;
             }
 
-            boolean exactIncludeMatch = false; // true if the current position was specifically mentioned
-            boolean pathIsPrefixOfAnInclude = false; // true if potentially a sub scope can be included
-            if (includes.length == 0) {
-                // implied match anything
-                exactIncludeMatch = true;
-            } else {
-                for (String include : includes) {
-                    // check for prefix matches as well to see if we need to zero in, something like: obj1.arr1.* or *.field
-                    // note, this does not work well with middle matches, like obj1.*.obj3
-                    if (include.charAt(0) == '*') {
-                        if (Regex.simpleMatch(include, path)) {
-                            exactIncludeMatch = true;
-                            break;
-                        }
-                        pathIsPrefixOfAnInclude = true;
-                        continue;
-                    }
-                    if (include.startsWith(path)) {
-                        if (include.length() == path.length()) {
-                            exactIncludeMatch = true;
-                            break;
-                        } else if (include.length() > path.length() && include.charAt(path.length()) == '.') {
-                            // include might may match deeper paths. Dive deeper.
-                            pathIsPrefixOfAnInclude = true;
-                            continue;
-                        }
-                    }
-                    if (Regex.simpleMatch(include, path)) {
-                        exactIncludeMatch = true;
-                        break;
-                    }
-                }
-            }
-
-            if (!(pathIsPrefixOfAnInclude || exactIncludeMatch)) {
+            final IncludeMatch match = matchIncludes(includes, path);
+            if (match == IncludeMatch.NONE) {
                 // skip subkeys, not interesting.
                 sb.setLength(mark);
                 continue;
             }
-
+            final boolean exactIncludeMatch = match == IncludeMatch.EXACT;
 
             if (entry.getValue() instanceof Map) {
                 Map<String, Object> innerInto = new HashMap<>();
@@ -245,6 +215,183 @@ public class XContentMapValues {
         }
     }
 
+    private enum IncludeMatch {
+        /** the path is not included and can't contain included paths */
+        NONE,
+        /** the path is not included itself but sub paths might be */
+        PREFIX,
+        /** the path was specifically mentioned */
+        EXACT
+    }
+
+    private static IncludeMatch matchIncludes(String[] includes, String path) {
+        if (includes.length == 0) {
+            // implied match anything
+            return IncludeMatch.EXACT;
+        }
+        boolean pathIsPrefixOfAnInclude = false; // true if potentially a sub scope can be included
+        for (String include : includes) {
+            // check for prefix matches as well to see if we need to zero in, something like: obj1.arr1.* or *.field
+            // note, this does not work well with middle matches, like obj1.*.obj3
+            if (include.charAt(0) == '*') {
+                if (Regex.simpleMatch(include, path)) {
+                    return IncludeMatch.EXACT;
+                }
+                pathIsPrefixOfAnInclude = true;
+                continue;
+            }
+            if (include.startsWith(path)) {
+                if (include.length() == path.length()) {
+                    return IncludeMatch.EXACT;
+                } else if (include.length() > path.length() && include.charAt(path.length()) == '.') {
+                    // include might may match deeper paths. Dive deeper.
+                    pathIsPrefixOfAnInclude = true;
+                    continue;
+                }
+            }
+            if (Regex.simpleMatch(include, path)) {
+                return IncludeMatch.EXACT;
+            }
+        }
+        return pathIsPrefixOfAnInclude ? IncludeMatch.PREFIX : IncludeMatch.NONE;
+    }
+
+    /**
+     * Filters the object the parser is positioned on (its current token must be {@link XContentParser.Token#START_OBJECT})
+     * and writes the result to the builder, consuming the parser up to the matching {@link XContentParser.Token#END_OBJECT}.
+     * Includes and excludes have the same semantics as {@link #filter(Map, String[], String[])}, but the source never has
+     * to be converted to a map: subtrees that are not included are skipped and subtrees that are fully included are copied
+     * as they are. Unlike the map based filtering, the order of the keys of the source is preserved.
+     */
+    public static void filter(XContentParser parser, XContentBuilder builder, String[] includes, String[] excludes) throws IOException {
+        if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+            throw new ElasticsearchParseException("expected an object to filter but got [{}]", parser.currentToken());
+        }
+        builder.startObject();
+        filter(parser, builder, new PendingStart(), includes == null ? Strings.EMPTY_ARRAY : includes,
+            excludes == null ? Strings.EMPTY_ARRAY : excludes, new StringBuilder());
+        builder.endObject();
+    }
+
+    private static void filter(XContentParser parser, XContentBuilder builder, PendingStart object, String[] includes,
+                               String[] excludes, StringBuilder sb) throws IOException {
+        if (includes.length == 0 && excludes.length == 0) {
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                assert token == XContentParser.Token.FIELD_NAME;
+                object.write(builder);
+                builder.field(parser.currentName());
+                parser.nextToken();
+                builder.copyCurrentStructure(parser);
+            }
+            return;
+        }
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME;
+            final String key = parser.currentName();
+            token = parser.nextToken();
+            int mark = sb.length();
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+            sb.append(key);
+            String path = sb.toString();
+
+            final IncludeMatch match = Regex.simpleMatch(excludes, path) ? IncludeMatch.NONE : matchIncludes(includes, path);
+            if (match == IncludeMatch.NONE) {
+                parser.skipChildren();
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                // only written once something is included, unless it was specifically mentioned
+                PendingStart inner = new PendingStart(object, key, false);
+                // if we had an exact match, we want give deeper excludes their chance
+                filter(parser, builder, inner, match == IncludeMatch.EXACT ? Strings.EMPTY_ARRAY : includes, excludes, sb);
+                if (match == IncludeMatch.EXACT) {
+                    inner.write(builder);
+                }
+                if (inner.written) {
+                    builder.endObject();
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                object.write(builder);
+                builder.startArray(key);
+                PendingStart inner = new PendingStart();
+                filterArray(parser, builder, inner, match == IncludeMatch.EXACT ? Strings.EMPTY_ARRAY : includes, excludes, sb);
+                builder.endArray();
+            } else if (match == IncludeMatch.EXACT) {
+                object.write(builder);
+                builder.field(key);
+                builder.copyCurrentStructure(parser);
+            }
+            sb.setLength(mark);
+        }
+    }
+
+    private static void filterArray(XContentParser parser, XContentBuilder builder, PendingStart array, String[] includes,
+                                    String[] excludes, StringBuilder sb) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (includes.length == 0 && excludes.length == 0) {
+                array.write(builder);
+                builder.copyCurrentStructure(parser);
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                PendingStart inner = new PendingStart(array, null, false);
+                filter(parser, builder, inner, includes, excludes, sb);
+                if (inner.written) {
+                    builder.endObject();
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                PendingStart inner = new PendingStart(array, null, true);
+                filterArray(parser, builder, inner, includes, excludes, sb);
+                if (inner.written) {
+                    builder.endArray();
+                }
+            } else {
+                array.write(builder);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * The start of an object or array that is only written to the builder once some of its content is included, so that
+     * objects and arrays that end up empty can be omitted like the map based filtering does.
+     */
+    private static final class PendingStart {
+        private final PendingStart parent;
+        private final String fieldName;
+        private final boolean array;
+        private boolean written;
+
+        /** a start that has already been written */
+        PendingStart() {
+            this(null, null, false);
+            this.written = true;
+        }
+
+        PendingStart(PendingStart parent, String fieldName, boolean array) {
+            this.parent = parent;
+            this.fieldName = fieldName;
+            this.array = array;
+        }
+
+        void write(XContentBuilder builder) throws IOException {
+            if (written) {
+                return;
+            }
+            parent.write(builder);
+            if (fieldName != null) {
+                builder.field(fieldName);
+            }
+            if (array) {
+                builder.startArray();
+            } else {
+                builder.startObject();
+            }
+            written = true;
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
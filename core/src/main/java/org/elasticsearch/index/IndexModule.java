@@ -93,6 +93,11 @@ public final class IndexModule {
     public static final Setting<Boolean> INDEX_QUERY_CACHE_EVERYTHING_SETTING =
         Setting.boolSetting("index.queries.cache.everything", false, Property.IndexScope);
 
+    // whether filters are admitted into the query cache based on the cost of building their doc id sets
+    // rather than on their reuse only, see CostAwareQueryCachingPolicy
+    public static final Setting<Boolean> INDEX_QUERY_CACHE_COST_AWARE_SETTING =
+        Setting.boolSetting("index.queries.cache.cost_aware", true, Property.IndexScope);
+
     private final IndexSettings indexSettings;
     private final IndexStoreConfig indexStoreConfig;
     private final AnalysisRegistry analysisRegistry;
@@ -86,6 +86,7 @@ import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
@@ -342,7 +343,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             } else {
                 indexShard = new IndexShard(routing, this.indexSettings, path, store, indexCache, mapperService, similarityService,
                     indexFieldData, engineFactory, eventListener, searcherWrapper, threadPool, bigArrays, engineWarmer,
-                    searchOperationListeners, indexingOperationListeners);
+                    searchOperationListeners, indexingOperationListeners, nodeServicesProvider.getIndicesMergeScheduler());
             }
             eventListener.indexShardStateChanged(indexShard, null, indexShard.state(), "shard created");
             eventListener.afterIndexShardCreated(indexShard);
@@ -448,6 +449,19 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         );
     }
 
+    /**
+     * Creates a new QueryShardContext that resolves date math against the given time rather than the time of the current
+     * search context, for instance to rewrite the query of a search request before its search context is created.
+     */
+    public QueryShardContext newQueryShardContext(IndexReader indexReader, LongSupplier nowInMillis) {
+        return new QueryShardContext(
+                indexSettings, indexCache.bitsetFilterCache(), indexFieldData, mapperService(),
+                similarityService(), nodeServicesProvider.getScriptService(), nodeServicesProvider.getIndicesQueriesRegistry(),
+                nodeServicesProvider.getClient(), indexReader,
+                nodeServicesProvider.getClusterService().state(), nowInMillis
+        );
+    }
+
     /**
      * Creates a new QueryShardContext. The context has not types set yet, if types are required set them via
      * {@link QueryShardContext#setTypes(String...)}. This context may be used for query parsing but cannot be
@@ -98,6 +98,12 @@ public final class IndexSettings {
      */
     public static final Setting<Integer> MAX_RESCORE_WINDOW_SETTING =
             Setting.intSetting("index.max_rescore_window", MAX_RESULT_WINDOW_SETTING, 1, Property.Dynamic, Property.IndexScope);
+    /**
+     * Allows searches that are sorted on a numeric field to skip the segments that can't contain competitive hits, in which
+     * case the total number of hits is a lower bound.
+     */
+    public static final Setting<Boolean> INDEX_SORT_EARLY_TERMINATION_SETTING =
+        Setting.boolSetting("index.search.sort_early_termination", false, Property.Dynamic, Property.IndexScope);
     public static final TimeValue DEFAULT_REFRESH_INTERVAL = new TimeValue(1, TimeUnit.SECONDS);
     public static final Setting<TimeValue> INDEX_REFRESH_INTERVAL_SETTING =
         Setting.timeSetting("index.refresh_interval", DEFAULT_REFRESH_INTERVAL, new TimeValue(-1, TimeUnit.MILLISECONDS),
@@ -106,6 +112,16 @@ public final class IndexSettings {
         Setting.byteSizeSetting("index.translog.flush_threshold_size", new ByteSizeValue(512, ByteSizeUnit.MB), Property.Dynamic,
             Property.IndexScope);
 
+    /**
+     * How much memory the live version map of a shard may use before the sources of new documents are not kept in memory
+     * anymore to serve realtime gets until the next refresh. Defaults to <code>0</code>: realtime gets read from the translog.
+     * Note that this bounds the memory of the whole version map, which includes the versions of all documents that have been
+     * indexed or deleted since the last refresh, not only the cached sources.
+     */
+    public static final Setting<ByteSizeValue> INDEX_REALTIME_GET_SOURCE_CACHE_SIZE_SETTING =
+        Setting.byteSizeSetting("index.realtime_get.source_cache_size", new ByteSizeValue(0), Property.Dynamic,
+            Property.IndexScope);
+
 
     /**
      * Index setting to enable / disable deletes garbage collection.
@@ -148,6 +164,7 @@ public final class IndexSettings {
     private final TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
+    private volatile ByteSizeValue realtimeGetSourceCacheSize;
     private final MergeSchedulerConfig mergeSchedulerConfig;
     private final MergePolicyConfig mergePolicyConfig;
     private final IndexScopedSettings scopedSettings;
@@ -155,6 +172,7 @@ public final class IndexSettings {
     private volatile boolean warmerEnabled;
     private volatile int maxResultWindow;
     private volatile int maxRescoreWindow;
+    private volatile boolean sortEarlyTermination;
     private volatile boolean TTLPurgeDisabled;
     /**
      * The maximum number of refresh listeners allows on this shard.
@@ -243,11 +261,13 @@ public final class IndexSettings {
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
+        realtimeGetSourceCacheSize = scopedSettings.get(INDEX_REALTIME_GET_SOURCE_CACHE_SIZE_SETTING);
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
+        sortEarlyTermination = scopedSettings.get(INDEX_SORT_EARLY_TERMINATION_SETTING);
         TTLPurgeDisabled = scopedSettings.get(INDEX_TTL_DISABLE_PURGE_SETTING);
         maxRefreshListeners = scopedSettings.get(MAX_REFRESH_LISTENERS_PER_SHARD);
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
@@ -269,9 +289,11 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(INDEX_TTL_DISABLE_PURGE_SETTING, this::setTTLPurgeDisabled);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SORT_EARLY_TERMINATION_SETTING, this::setSortEarlyTermination);
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REALTIME_GET_SOURCE_CACHE_SIZE_SETTING, this::setRealtimeGetSourceCacheSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
@@ -282,6 +304,10 @@ public final class IndexSettings {
         this.flushThresholdSize = byteSizeValue;
     }
 
+    private void setRealtimeGetSourceCacheSize(ByteSizeValue byteSizeValue) {
+        this.realtimeGetSourceCacheSize = byteSizeValue;
+    }
+
     private void setGCDeletes(TimeValue timeValue) {
         this.gcDeletesInMillis = timeValue.getMillis();
     }
@@ -467,6 +493,12 @@ public final class IndexSettings {
      */
     public ByteSizeValue getFlushThresholdSize() { return flushThresholdSize; }
 
+    /**
+     * Returns how much memory the live version map may use before the sources of new documents are not kept in memory
+     * anymore to serve realtime gets.
+     */
+    public ByteSizeValue getRealtimeGetSourceCacheSize() { return realtimeGetSourceCacheSize; }
+
     /**
      * Returns the {@link MergeSchedulerConfig}
      */
@@ -494,6 +526,18 @@ public final class IndexSettings {
         this.maxRescoreWindow = maxRescoreWindow;
     }
 
+    /**
+     * Returns <code>true</code> if searches that are sorted on a numeric field may skip the segments that can't contain
+     * competitive hits.
+     */
+    public boolean isSortEarlyTermination() {
+        return sortEarlyTermination;
+    }
+
+    private void setSortEarlyTermination(boolean sortEarlyTermination) {
+        this.sortEarlyTermination = sortEarlyTermination;
+    }
+
     /**
      * Returns the GC deletes cycle in milliseconds.
      */
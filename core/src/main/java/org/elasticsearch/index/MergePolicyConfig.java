@@ -19,8 +19,12 @@
 
 package org.elasticsearch.index;
 
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.TieredMergePolicy;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.IndexScopedSettings;
@@ -29,6 +33,9 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * A shard in elasticsearch is a Lucene index, and a Lucene index is broken
  * down into segments. Segments are internal storage elements in the index
@@ -43,10 +50,16 @@ import org.elasticsearch.common.unit.ByteSizeValue;
  * segments are allowed per tier. It also does not over-merge (i.e., cascade merges).
  *
  * <p>
- * All merge policy settings are <b>dynamic</b> and can be updated on a live index.
- * The merge policy has the following settings:
+ * All merge policy settings but <code>index.merge.policy.type</code> are <b>dynamic</b> and can
+ * be updated on a live index. The merge policy has the following settings:
  *
  * <ul>
+ * <li><code>index.merge.policy.type</code>:
+ *
+ *     Either <code>tiered</code> (the default) or <code>time_series</code>. The <code>time_series</code>
+ *     policy only merges adjacent segments, so that segments of append-only indices keep covering
+ *     contiguous time ranges, see below.
+ *
  * <li><code>index.merge.policy.expunge_deletes_allowed</code>:
  *
  *     When expungeDeletes is called, we only merge away a segment if its delete
@@ -113,12 +126,26 @@ import org.elasticsearch.common.unit.ByteSizeValue;
  * indices segments API to see the segments that an index has, and
  * possibly either increase the <code>max_merged_segment</code> or issue an optimize
  * call for the index (try and aim to issue it on a low traffic time).
+ *
+ * <p>
+ * The <code>time_series</code> merge policy is a {@link LogByteSizeMergePolicy}. It only merges
+ * adjacent segments, which hold documents that were indexed one after another. On append-only
+ * indices such as logs, old data thus ends up in large segments that are not rewritten anymore,
+ * while merging concentrates on the small recent segments. <code>max_merge_at_once</code> is the
+ * number of adjacent segments of the same size level that are merged together. Segments larger
+ * than <code>max_merged_segment</code> divided by <code>max_merge_at_once</code> are never merged,
+ * so that merged segments don't get larger than <code>max_merged_segment</code>.
+ * <code>floor_segment</code> is the size below which all segments are considered to be on the
+ * same level. <code>expunge_deletes_allowed</code> and <code>compound_format</code> apply as
+ * well. The other settings only apply to the <code>tiered</code> merge policy.
  */
 
 public final class MergePolicyConfig {
     private final TieredMergePolicy mergePolicy = new TieredMergePolicy();
+    private final TimeSeriesMergePolicy timeSeriesMergePolicy = new TimeSeriesMergePolicy();
     private final ESLogger logger;
     private final boolean mergesEnabled;
+    private final boolean timeSeries;
 
     public static final double          DEFAULT_EXPUNGE_DELETES_ALLOWED     = 10d;
     public static final ByteSizeValue   DEFAULT_FLOOR_SEGMENT               = new ByteSizeValue(2, ByteSizeUnit.MB);
@@ -127,6 +154,10 @@ public final class MergePolicyConfig {
     public static final ByteSizeValue   DEFAULT_MAX_MERGED_SEGMENT          = new ByteSizeValue(5, ByteSizeUnit.GB);
     public static final double          DEFAULT_SEGMENTS_PER_TIER           = 10.0d;
     public static final double          DEFAULT_RECLAIM_DELETES_WEIGHT      = 2.0d;
+    public static final String          TIERED_MERGE_POLICY                 = "tiered";
+    public static final String          TIME_SERIES_MERGE_POLICY            = "time_series";
+    public static final Setting<String> INDEX_MERGE_POLICY_TYPE_SETTING     =
+        new Setting<>("index.merge.policy.type", TIERED_MERGE_POLICY, MergePolicyConfig::parseType, Property.IndexScope);
     public static final Setting<Double> INDEX_COMPOUND_FORMAT_SETTING       =
         new Setting<>("index.compound_format", Double.toString(TieredMergePolicy.DEFAULT_NO_CFS_RATIO), MergePolicyConfig::parseNoCFSRatio,
             Property.Dynamic, Property.IndexScope);
@@ -169,8 +200,15 @@ public final class MergePolicyConfig {
         if (mergesEnabled == false) {
             logger.warn("[{}] is set to false, this should only be used in tests and can cause serious problems in production environments", INDEX_MERGE_ENABLED);
         }
+        this.timeSeries = TIME_SERIES_MERGE_POLICY.equals(indexSettings.getValue(INDEX_MERGE_POLICY_TYPE_SETTING));
+        double noCFSRatio = indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING);
+        timeSeriesMergePolicy.setNoCFSRatio(noCFSRatio);
+        timeSeriesMergePolicy.setMinMergeMB(floorSegment.mbFrac());
+        timeSeriesMergePolicy.setMergeFactor(maxMergeAtOnce);
+        timeSeriesMergePolicy.setMaxMergeMB(maxMergedSegment.mbFrac() / maxMergeAtOnce);
+        timeSeriesMergePolicy.setForceMergeDeletesPctAllowed(forceMergeDeletesPctAllowed);
         maxMergeAtOnce = adjustMaxMergeAtOnceIfNeeded(maxMergeAtOnce, segmentsPerTier);
-        mergePolicy.setNoCFSRatio(indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING));
+        mergePolicy.setNoCFSRatio(noCFSRatio);
         mergePolicy.setForceMergeDeletesPctAllowed(forceMergeDeletesPctAllowed);
         mergePolicy.setFloorSegmentMB(floorSegment.mbFrac());
         mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
@@ -179,8 +217,13 @@ public final class MergePolicyConfig {
         mergePolicy.setSegmentsPerTier(segmentsPerTier);
         mergePolicy.setReclaimDeletesWeight(reclaimDeletesWeight);
         if (logger.isTraceEnabled()) {
-            logger.trace("using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}], max_merge_at_once[{}], max_merge_at_once_explicit[{}], max_merged_segment[{}], segments_per_tier[{}], reclaim_deletes_weight[{}]",
-                forceMergeDeletesPctAllowed, floorSegment, maxMergeAtOnce, maxMergeAtOnceExplicit, maxMergedSegment, segmentsPerTier, reclaimDeletesWeight);
+            if (timeSeries) {
+                logger.trace("using [time_series] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}], max_merge_at_once[{}], max_merged_segment[{}]",
+                    forceMergeDeletesPctAllowed, floorSegment, timeSeriesMergePolicy.getMergeFactor(), maxMergedSegment);
+            } else {
+                logger.trace("using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}], max_merge_at_once[{}], max_merge_at_once_explicit[{}], max_merged_segment[{}], segments_per_tier[{}], reclaim_deletes_weight[{}]",
+                    forceMergeDeletesPctAllowed, floorSegment, maxMergeAtOnce, maxMergeAtOnceExplicit, maxMergedSegment, segmentsPerTier, reclaimDeletesWeight);
+            }
         }
     }
 
@@ -194,6 +237,7 @@ public final class MergePolicyConfig {
 
     void setMaxMergedSegment(ByteSizeValue maxMergedSegment) {
         mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.mbFrac());
+        timeSeriesMergePolicy.setMaxMergeMB(maxMergedSegment.mbFrac() / timeSeriesMergePolicy.getMergeFactor());
     }
 
     void setMaxMergesAtOnceExplicit(Integer maxMergeAtOnceExplicit) {
@@ -202,18 +246,24 @@ public final class MergePolicyConfig {
 
     void setMaxMergesAtOnce(Integer maxMergeAtOnce) {
         mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        timeSeriesMergePolicy.setMergeFactor(maxMergeAtOnce);
+        // the tiered merge policy holds on to the maximum size of merged segments as it was configured
+        timeSeriesMergePolicy.setMaxMergeMB(mergePolicy.getMaxMergedSegmentMB() / maxMergeAtOnce);
     }
 
     void setFloorSegmentSetting(ByteSizeValue floorSegementSetting) {
         mergePolicy.setFloorSegmentMB(floorSegementSetting.mbFrac());
+        timeSeriesMergePolicy.setMinMergeMB(floorSegementSetting.mbFrac());
     }
 
     void setExpungeDeletesAllowed(Double value) {
         mergePolicy.setForceMergeDeletesPctAllowed(value);
+        timeSeriesMergePolicy.setForceMergeDeletesPctAllowed(value);
     }
 
     void setNoCFSRatio(Double noCFSRatio) {
         mergePolicy.setNoCFSRatio(noCFSRatio);
+        timeSeriesMergePolicy.setNoCFSRatio(noCFSRatio);
     }
 
     private int adjustMaxMergeAtOnceIfNeeded(int maxMergeAtOnce, double segmentsPerTier) {
@@ -231,7 +281,21 @@ public final class MergePolicyConfig {
     }
 
     MergePolicy getMergePolicy() {
-        return mergesEnabled ? mergePolicy : NoMergePolicy.INSTANCE;
+        if (mergesEnabled == false) {
+            return NoMergePolicy.INSTANCE;
+        }
+        return timeSeries ? timeSeriesMergePolicy : mergePolicy;
+    }
+
+    private static String parseType(String type) {
+        switch (type) {
+            case TIERED_MERGE_POLICY:
+            case TIME_SERIES_MERGE_POLICY:
+                return type;
+            default:
+                throw new IllegalArgumentException("unknown value for [index.merge.policy.type] must be one of ["
+                    + TIERED_MERGE_POLICY + ", " + TIME_SERIES_MERGE_POLICY + "] but was: " + type);
+        }
     }
 
     private static double parseNoCFSRatio(String noCFSRatio) {
@@ -252,4 +316,48 @@ public final class MergePolicyConfig {
             }
         }
     }
+
+    /**
+     * A {@link LogByteSizeMergePolicy} that only expunges deletes from segments that have more than
+     * <code>expunge_deletes_allowed</code> percent of deleted documents, like {@link TieredMergePolicy} does. Runs of adjacent
+     * segments are merged together, so that documents stay in the order they were indexed in.
+     */
+    static final class TimeSeriesMergePolicy extends LogByteSizeMergePolicy {
+
+        private volatile double forceMergeDeletesPctAllowed = DEFAULT_EXPUNGE_DELETES_ALLOWED;
+
+        void setForceMergeDeletesPctAllowed(double forceMergeDeletesPctAllowed) {
+            this.forceMergeDeletesPctAllowed = forceMergeDeletesPctAllowed;
+        }
+
+        double getForceMergeDeletesPctAllowed() {
+            return forceMergeDeletesPctAllowed;
+        }
+
+        @Override
+        public MergeSpecification findForcedDeletesMerges(SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+            final List<SegmentCommitInfo> segments = segmentInfos.asList();
+            final MergeSpecification spec = new MergeSpecification();
+            int firstSegmentWithDeletions = -1;
+            for (int i = 0; i < segments.size(); i++) {
+                final SegmentCommitInfo info = segments.get(i);
+                final double pctDeletes = 100. * writer.numDeletedDocs(info) / info.info.maxDoc();
+                if (pctDeletes > forceMergeDeletesPctAllowed) {
+                    if (firstSegmentWithDeletions == -1) {
+                        firstSegmentWithDeletions = i;
+                    } else if (i - firstSegmentWithDeletions == mergeFactor) {
+                        spec.add(new OneMerge(segments.subList(firstSegmentWithDeletions, i)));
+                        firstSegmentWithDeletions = i;
+                    }
+                } else if (firstSegmentWithDeletions != -1) {
+                    spec.add(new OneMerge(segments.subList(firstSegmentWithDeletions, i)));
+                    firstSegmentWithDeletions = -1;
+                }
+            }
+            if (firstSegmentWithDeletions != -1) {
+                spec.add(new OneMerge(segments.subList(firstSegmentWithDeletions, segments.size())));
+            }
+            return spec.merges.isEmpty() ? null : spec;
+        }
+    }
 }
@@ -0,0 +1,222 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.TermQuery;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link QueryCachingPolicy} that admits filters into the query cache based on what it costs to build their
+ * doc id sets and on how much memory these take, rather than on their reuse only like Lucene's
+ * {@link org.apache.lucene.search.UsageTrackingQueryCachingPolicy}.
+ * <p>
+ * A filter that has never been cached is admitted once it has been used often enough: cheap term queries need
+ * 20 recent uses and boolean queries 5 like in Lucene, but any other query (ranges, geo, scripts, ...) only
+ * needs 2 since a single build is enough to know whether it is worth caching. The query cache then reports the
+ * time it took to build the doc id set of a segment and its size through
+ * {@link #onCache(Query, long, long, long, int)}, and from then on the filter is only admitted on other segments
+ * if the time its recent uses would save per byte of cache is at least {@link #DEFAULT_MIN_BENEFIT_PER_BYTE}
+ * nanoseconds. This keeps cheap filters that match many documents out of the cache, while filters that are
+ * expensive to evaluate get cached quickly.
+ */
+public final class CostAwareQueryCachingPolicy implements QueryCachingPolicy {
+
+    /** The minimum number of nanoseconds that the recent uses of a filter must save per byte of cache. */
+    public static final long DEFAULT_MIN_BENEFIT_PER_BYTE = 100;
+
+    /** The number of uses after which the use counts of all filters are halved, so that only recent uses count. */
+    static final int HISTORY_SIZE = 256;
+
+    /** The maximum number of filters whose statistics are tracked. */
+    static final int MAX_TRACKED_FILTERS = 1024;
+
+    /** Filters are reported in stats with their string representation cut to that many characters. */
+    private static final int MAX_QUERY_LENGTH = 256;
+
+    private final long minBenefitPerByte;
+    // keyed by hash code like UsageTrackingQueryCachingPolicy so that tracking a filter doesn't keep it alive, and access
+    // ordered so that the least recently used filters are the first to go
+    private final Map<Integer, Usage> usages = new LinkedHashMap<Integer, Usage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Usage> eldest) {
+            return size() > MAX_TRACKED_FILTERS;
+        }
+    };
+    private int usesSinceDecay;
+
+    public CostAwareQueryCachingPolicy() {
+        this(DEFAULT_MIN_BENEFIT_PER_BYTE);
+    }
+
+    CostAwareQueryCachingPolicy(long minBenefitPerByte) {
+        this.minBenefitPerByte = minBenefitPerByte;
+    }
+
+    private static boolean shouldNeverCache(Query query) {
+        if (query instanceof MatchAllDocsQuery || query instanceof MatchNoDocsQuery) {
+            // no need to cache, these queries are already efficient
+            return true;
+        }
+        if (query instanceof BooleanQuery && ((BooleanQuery) query).clauses().isEmpty()) {
+            return true;
+        }
+        if (query instanceof DisjunctionMaxQuery && ((DisjunctionMaxQuery) query).getDisjuncts().isEmpty()) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns how many times a filter that has never been cached must have been used recently before it is cached.
+     */
+    static int minFrequencyToCache(Query query) {
+        if (query instanceof TermQuery) {
+            // term queries are cheap to evaluate, caching them is rarely worth the memory
+            return 20;
+        } else if (query instanceof BooleanQuery || query instanceof DisjunctionMaxQuery) {
+            // their clauses may be cached individually already
+            return 5;
+        } else {
+            return 2;
+        }
+    }
+
+    @Override
+    public synchronized void onUse(Query query) {
+        if (shouldNeverCache(query)) {
+            return;
+        }
+        usage(query).uses++;
+        if (++usesSinceDecay >= HISTORY_SIZE) {
+            for (Usage usage : usages.values()) {
+                usage.uses /= 2;
+            }
+            usesSinceDecay = 0;
+        }
+    }
+
+    @Override
+    public synchronized boolean shouldCache(Query query) {
+        if (shouldNeverCache(query)) {
+            return false;
+        }
+        final Usage usage = usage(query);
+        final boolean admit;
+        if (usage.builds == 0) {
+            admit = usage.uses >= minFrequencyToCache(query);
+        } else {
+            admit = usage.uses * usage.buildTimeInNanos >= minBenefitPerByte * Math.max(1, usage.ramBytesUsed);
+        }
+        usage.admitted = admit;
+        if (admit == false) {
+            usage.rejections++;
+        }
+        return admit;
+    }
+
+    /**
+     * Called by the query cache when it built and cached the doc id set of the given filter for a segment.
+     *
+     * @param buildTimeInNanos  the time it took to evaluate the filter on the segment and to build its doc id set
+     * @param ramBytesUsed      the memory used by the doc id set
+     * @param matchingDocs      the number of documents of the segment that match the filter
+     * @param maxDoc            the number of documents of the segment
+     */
+    public synchronized void onCache(Query query, long buildTimeInNanos, long ramBytesUsed, long matchingDocs, int maxDoc) {
+        final Usage usage = usage(query);
+        usage.builds++;
+        usage.buildTimeInNanos += buildTimeInNanos;
+        usage.ramBytesUsed += ramBytesUsed;
+        usage.matchingDocs += matchingDocs;
+        usage.docs += maxDoc;
+    }
+
+    private Usage usage(Query query) {
+        final int key = query.hashCode();
+        Usage usage = usages.get(key);
+        if (usage == null) {
+            usage = new Usage(query);
+            usages.put(key, usage);
+        } else if (usage.query.get() == null) {
+            usage.query = new WeakReference<>(query);
+        }
+        return usage;
+    }
+
+    /**
+     * Returns the statistics of the filters that were admitted into the cache the most recently, ordered by the time
+     * their recent uses would save, and of the filters that are the most often rejected.
+     */
+    public synchronized QueryCacheStats stats() {
+        final List<QueryCacheStats.FilterStats> cached = new ArrayList<>();
+        final List<QueryCacheStats.FilterStats> rejected = new ArrayList<>();
+        for (Usage usage : usages.values()) {
+            // filters that nobody references anymore are not going to be used again
+            final Query query = usage.query.get();
+            if (query == null) {
+                continue;
+            }
+            if (usage.admitted) {
+                cached.add(usage.toFilterStats(query));
+            } else if (usage.rejections > 0) {
+                rejected.add(usage.toFilterStats(query));
+            }
+        }
+        return new QueryCacheStats(0, 0, 0, 0, 0, QueryCacheStats.top(cached, QueryCacheStats.FilterStats::getBenefit),
+            QueryCacheStats.top(rejected, QueryCacheStats.FilterStats::getRejections));
+    }
+
+    private static final class Usage {
+        // only used to describe the filter in stats, its description is too costly to compute on every new filter
+        WeakReference<Query> query;
+        long uses;
+        long rejections;
+        boolean admitted;
+        long builds;
+        long buildTimeInNanos;
+        long ramBytesUsed;
+        long matchingDocs;
+        long docs;
+
+        Usage(Query query) {
+            this.query = new WeakReference<>(query);
+        }
+
+        QueryCacheStats.FilterStats toFilterStats(Query query) {
+            String description = query.toString();
+            if (description.length() > MAX_QUERY_LENGTH) {
+                description = description.substring(0, MAX_QUERY_LENGTH) + "...";
+            }
+            return new QueryCacheStats.FilterStats(description, uses, rejections, builds, buildTimeInNanos, ramBytesUsed,
+                matchingDocs, docs);
+        }
+    }
+}
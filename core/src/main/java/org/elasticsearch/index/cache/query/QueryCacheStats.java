@@ -20,14 +20,25 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  */
@@ -38,6 +49,11 @@ public class QueryCacheStats implements Streamable, ToXContent {
     long missCount;
     long cacheCount;
     long cacheSize;
+    List<FilterStats> topCachedFilters = Collections.emptyList();
+    List<FilterStats> topRejectedFilters = Collections.emptyList();
+
+    /** The maximum number of filters in each of {@link #getTopCachedFilters()} and {@link #getTopRejectedFilters()}. */
+    public static final int TOP_FILTERS = 10;
 
     public QueryCacheStats() {
     }
@@ -50,12 +66,47 @@ public class QueryCacheStats implements Streamable, ToXContent {
         this.cacheSize = cacheSize;
     }
 
+    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize,
+                           List<FilterStats> topCachedFilters, List<FilterStats> topRejectedFilters) {
+        this(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+        this.topCachedFilters = topCachedFilters;
+        this.topRejectedFilters = topRejectedFilters;
+    }
+
     public void add(QueryCacheStats stats) {
         ramBytesUsed += stats.ramBytesUsed;
         hitCount += stats.hitCount;
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        if (stats.topCachedFilters.isEmpty() == false) {
+            topCachedFilters = top(merge(topCachedFilters, stats.topCachedFilters), FilterStats::getBenefit);
+        }
+        if (stats.topRejectedFilters.isEmpty() == false) {
+            topRejectedFilters = top(merge(topRejectedFilters, stats.topRejectedFilters), FilterStats::getRejections);
+        }
+    }
+
+    /**
+     * Merges the statistics of the same filters, e.g. from different shards.
+     */
+    private static List<FilterStats> merge(List<FilterStats> first, List<FilterStats> second) {
+        final Map<String, FilterStats> merged = new LinkedHashMap<>();
+        for (List<FilterStats> filters : Arrays.asList(first, second)) {
+            for (FilterStats filter : filters) {
+                merged.merge(filter.getQuery(), filter, FilterStats::merge);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Returns the {@link #TOP_FILTERS} filters with the highest value of the given key.
+     */
+    public static List<FilterStats> top(List<FilterStats> filters, ToLongFunction<FilterStats> key) {
+        final List<FilterStats> sorted = new ArrayList<>(filters);
+        sorted.sort(Comparator.comparingLong(key).reversed());
+        return sorted.size() > TOP_FILTERS ? new ArrayList<>(sorted.subList(0, TOP_FILTERS)) : sorted;
     }
 
     public long getMemorySizeInBytes() {
@@ -108,6 +159,21 @@ public class QueryCacheStats implements Streamable, ToXContent {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The filters that the caching policy of the shards admitted into the cache, ordered by the time that their recent
+     * uses would save.
+     */
+    public List<FilterStats> getTopCachedFilters() {
+        return topCachedFilters;
+    }
+
+    /**
+     * The filters that the caching policy of the shards refused to cache the most often.
+     */
+    public List<FilterStats> getTopRejectedFilters() {
+        return topRejectedFilters;
+    }
+
     public static QueryCacheStats readQueryCacheStats(StreamInput in) throws IOException {
         QueryCacheStats stats = new QueryCacheStats();
         stats.readFrom(in);
@@ -122,6 +188,13 @@ public class QueryCacheStats implements Streamable, ToXContent {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            topCachedFilters = in.readList(FilterStats::new);
+            topRejectedFilters = in.readList(FilterStats::new);
+        } else {
+            topCachedFilters = Collections.emptyList();
+            topRejectedFilters = Collections.emptyList();
+        }
     }
 
     @Override
@@ -131,6 +204,10 @@ public class QueryCacheStats implements Streamable, ToXContent {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeList(topCachedFilters);
+            out.writeList(topRejectedFilters);
+        }
     }
 
     @Override
@@ -143,10 +220,153 @@ public class QueryCacheStats implements Streamable, ToXContent {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        filtersToXContent(builder, params, Fields.TOP_CACHED_FILTERS, topCachedFilters);
+        filtersToXContent(builder, params, Fields.TOP_REJECTED_FILTERS, topRejectedFilters);
         builder.endObject();
         return builder;
     }
 
+    private static void filtersToXContent(XContentBuilder builder, Params params, String name, List<FilterStats> filters)
+            throws IOException {
+        if (filters.isEmpty()) {
+            return;
+        }
+        builder.startArray(name);
+        for (FilterStats filter : filters) {
+            filter.toXContent(builder, params);
+        }
+        builder.endArray();
+    }
+
+    /**
+     * The statistics that a {@link CostAwareQueryCachingPolicy} gathered about a filter.
+     */
+    public static final class FilterStats implements Writeable, ToXContent {
+
+        private final String query;
+        private final long uses;
+        private final long rejections;
+        private final long builds;
+        private final long buildTimeInNanos;
+        private final long ramBytesUsed;
+        private final long matchingDocs;
+        private final long docs;
+
+        public FilterStats(String query, long uses, long rejections, long builds, long buildTimeInNanos, long ramBytesUsed,
+                           long matchingDocs, long docs) {
+            this.query = query;
+            this.uses = uses;
+            this.rejections = rejections;
+            this.builds = builds;
+            this.buildTimeInNanos = buildTimeInNanos;
+            this.ramBytesUsed = ramBytesUsed;
+            this.matchingDocs = matchingDocs;
+            this.docs = docs;
+        }
+
+        public FilterStats(StreamInput in) throws IOException {
+            query = in.readString();
+            uses = in.readVLong();
+            rejections = in.readVLong();
+            builds = in.readVLong();
+            buildTimeInNanos = in.readVLong();
+            ramBytesUsed = in.readVLong();
+            matchingDocs = in.readVLong();
+            docs = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(query);
+            out.writeVLong(uses);
+            out.writeVLong(rejections);
+            out.writeVLong(builds);
+            out.writeVLong(buildTimeInNanos);
+            out.writeVLong(ramBytesUsed);
+            out.writeVLong(matchingDocs);
+            out.writeVLong(docs);
+        }
+
+        static FilterStats merge(FilterStats first, FilterStats second) {
+            return new FilterStats(first.query, first.uses + second.uses, first.rejections + second.rejections,
+                first.builds + second.builds, first.buildTimeInNanos + second.buildTimeInNanos,
+                first.ramBytesUsed + second.ramBytesUsed, first.matchingDocs + second.matchingDocs, first.docs + second.docs);
+        }
+
+        /**
+         * The string representation of the filter.
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * The number of recent uses of the filter.
+         */
+        public long getUses() {
+            return uses;
+        }
+
+        /**
+         * The number of times the filter was not admitted into the cache.
+         */
+        public long getRejections() {
+            return rejections;
+        }
+
+        /**
+         * The number of doc id sets of this filter that have been built for the cache.
+         */
+        public long getBuilds() {
+            return builds;
+        }
+
+        /**
+         * The total time it took to build the doc id sets of this filter.
+         */
+        public long getBuildTimeInNanos() {
+            return buildTimeInNanos;
+        }
+
+        /**
+         * The total memory used by the doc id sets of this filter that have been built.
+         */
+        public long getMemorySizeInBytes() {
+            return ramBytesUsed;
+        }
+
+        /**
+         * The fraction of the documents that match the filter, in the segments it has been built for.
+         */
+        public double getSelectivity() {
+            return docs == 0 ? 0 : (double) matchingDocs / docs;
+        }
+
+        /**
+         * The time, in nanoseconds, that the recent uses of the filter would save if it was cached on a segment.
+         */
+        public long getBenefit() {
+            return builds == 0 ? 0 : uses * (buildTimeInNanos / builds);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(Fields.QUERY, query);
+            builder.field(Fields.USES, uses);
+            builder.field(Fields.REJECTIONS, rejections);
+            builder.field(Fields.BUILDS, builds);
+            if (builds > 0) {
+                builder.timeValueField(Fields.BUILD_TIME_IN_MILLIS, Fields.BUILD_TIME,
+                    TimeUnit.NANOSECONDS.toMillis(buildTimeInNanos), TimeUnit.MILLISECONDS);
+                builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, ramBytesUsed);
+                builder.field(Fields.SELECTIVITY, getSelectivity());
+            }
+            builder.endObject();
+            return builder;
+        }
+    }
+
     static final class Fields {
         static final String QUERY_CACHE = "query_cache";
         static final String MEMORY_SIZE = "memory_size";
@@ -157,6 +377,15 @@ public class QueryCacheStats implements Streamable, ToXContent {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String TOP_CACHED_FILTERS = "top_cached_filters";
+        static final String TOP_REJECTED_FILTERS = "top_rejected_filters";
+        static final String QUERY = "query";
+        static final String USES = "uses";
+        static final String REJECTIONS = "rejections";
+        static final String BUILDS = "builds";
+        static final String BUILD_TIME = "build_time";
+        static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+        static final String SELECTIVITY = "selectivity";
     }
 
 }
@@ -24,6 +24,9 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.index.OneMergeHelper;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.metrics.CounterMetric;
@@ -38,6 +41,7 @@ import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.MergeSchedulerConfig;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesMergeScheduler;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -62,13 +66,18 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
     private final CounterMetric totalMergeStoppedTime = new CounterMetric();
     private final CounterMetric totalMergeThrottledTime = new CounterMetric();
+    private final CounterMetric currentQueuedMerges = new CounterMetric();
+    private final CounterMetric totalMergeQueuedTime = new CounterMetric();
 
     private final Set<OnGoingMerge> onGoingMerges = ConcurrentCollections.newConcurrentSet();
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
     private final MergeSchedulerConfig config;
+    private final IndicesMergeScheduler indicesMergeScheduler;
 
-    public ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
+    public ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings,
+                                                 @Nullable IndicesMergeScheduler indicesMergeScheduler) {
         this.config = indexSettings.getMergeSchedulerConfig();
+        this.indicesMergeScheduler = indicesMergeScheduler;
         this.shardId = shardId;
         this.indexSettings = indexSettings.getSettings();
         this.logger = Loggers.getLogger(getClass(), this.indexSettings, shardId);
@@ -83,21 +92,33 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     protected void doMerge(IndexWriter writer, MergePolicy.OneMerge merge) throws IOException {
         int totalNumDocs = merge.totalNumDocs();
         long totalSizeInBytes = merge.totalBytesSize();
+        OnGoingMerge onGoingMerge = new OnGoingMerge(merge);
+        // the merge is in flight while it waits for a node level merge slot, so that indexing gets throttled if merges queue up
+        beforeMerge(onGoingMerge);
+        final Releasable mergeSlot;
+        boolean success = false;
+        try {
+            mergeSlot = acquireMergeSlot(merge, totalSizeInBytes);
+            success = true;
+        } finally {
+            if (success == false) {
+                afterMerge(onGoingMerge);
+            }
+        }
         long timeNS = System.nanoTime();
         currentMerges.inc();
         currentMergesNumDocs.inc(totalNumDocs);
         currentMergesSizeInBytes.inc(totalSizeInBytes);
 
-        OnGoingMerge onGoingMerge = new OnGoingMerge(merge);
         onGoingMerges.add(onGoingMerge);
 
         if (logger.isTraceEnabled()) {
             logger.trace("merge [{}] starting..., merging [{}] segments, [{}] docs, [{}] size, into [{}] estimated_size", OneMergeHelper.getSegmentName(merge), merge.segments.size(), totalNumDocs, new ByteSizeValue(totalSizeInBytes), new ByteSizeValue(merge.estimatedMergeBytes));
         }
         try {
-            beforeMerge(onGoingMerge);
             super.doMerge(writer, merge);
         } finally {
+            mergeSlot.close();
             long tookMS = TimeValue.nsecToMSec(System.nanoTime() - timeNS);
 
             onGoingMerges.remove(onGoingMerge);
@@ -136,6 +157,25 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         }
     }
 
+    /**
+     * Waits until the node level merge scheduler lets the merge run, if there is one.
+     */
+    private Releasable acquireMergeSlot(MergePolicy.OneMerge merge, long totalSizeInBytes) {
+        if (indicesMergeScheduler == null) {
+            return () -> {};
+        }
+        long timeNS = System.nanoTime();
+        currentQueuedMerges.inc();
+        try {
+            return indicesMergeScheduler.acquire(totalSizeInBytes, merge.rateLimiter::getAbort);
+        } catch (InterruptedException e) {
+            throw new ThreadInterruptedException(e);
+        } finally {
+            currentQueuedMerges.dec();
+            totalMergeQueuedTime.inc(TimeValue.nsecToMSec(System.nanoTime() - timeNS));
+        }
+    }
+
     /**
      * A callback allowing for custom logic before an actual merge starts.
      */
@@ -172,7 +212,9 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
                 currentMerges.count(), currentMergesNumDocs.count(), currentMergesSizeInBytes.count(),
                 totalMergeStoppedTime.count(),
                 totalMergeThrottledTime.count(),
-                config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY);
+                config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY,
+                currentQueuedMerges.count(),
+                totalMergeQueuedTime.count());
         return mergeStats;
     }
 
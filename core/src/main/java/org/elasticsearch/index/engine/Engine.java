@@ -40,6 +40,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
@@ -281,6 +282,15 @@ public abstract class Engine implements Closeable {
 
     public abstract void delete(Delete delete) throws EngineException;
 
+    /**
+     * Throws a {@link VersionConflictEngineException} if the version of the given document that is already known to this
+     * engine conflicts with the given version, without looking it up in the index. Replicas use this to reject stale
+     * operations before paying for parsing and analyzing their document. Operations that pass this check can still be
+     * rejected by {@link #index(Index)}.
+     */
+    public void ensureNotStale(String type, String id, Term uid, long version, VersionType versionType) throws EngineException {
+    }
+
     /**
      * Attempts to do a special commit where the given syncID is put into the commit data. The attempt
      * succeeds if there are not pending writes in lucene and the current point is equal to the expected one.
@@ -850,10 +860,19 @@ public abstract class Engine implements Closeable {
     public static class Index extends Operation {
 
         private final ParsedDocument doc;
+        private final long autoGeneratedIdTimestamp;
+        private final boolean isRetry;
 
-        public Index(Term uid, ParsedDocument doc, long version, VersionType versionType, Origin origin, long startTime) {
+        public Index(Term uid, ParsedDocument doc, long version, VersionType versionType, Origin origin, long startTime,
+                     long autoGeneratedIdTimestamp, boolean isRetry) {
             super(uid, version, versionType, origin, startTime);
             this.doc = doc;
+            this.autoGeneratedIdTimestamp = autoGeneratedIdTimestamp;
+            this.isRetry = isRetry;
+        }
+
+        public Index(Term uid, ParsedDocument doc, long version, VersionType versionType, Origin origin, long startTime) {
+            this(uid, doc, version, versionType, origin, startTime, IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP, false);
         }
 
         public Index(Term uid, ParsedDocument doc) {
@@ -890,6 +909,21 @@ public abstract class Engine implements Closeable {
             return this.doc.ttl();
         }
 
+        /**
+         * Returns the time at which the id of this document was generated, or {@link IndexRequest#UNSET_AUTO_GENERATED_TIMESTAMP}
+         * if it was provided by the user.
+         */
+        public long getAutoGeneratedIdTimestamp() {
+            return autoGeneratedIdTimestamp;
+        }
+
+        /**
+         * Returns <code>true</code> if this operation might have been performed before.
+         */
+        public boolean isRetry() {
+            return isRetry;
+        }
+
         @Override
         public void updateVersion(long version) {
             super.updateVersion(version);
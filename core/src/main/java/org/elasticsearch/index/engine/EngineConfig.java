@@ -39,6 +39,7 @@ import org.elasticsearch.index.shard.TranslogRecoveryPerformer;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.indices.IndexingMemoryController;
+import org.elasticsearch.indices.IndicesMergeScheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
 /*
@@ -67,6 +68,8 @@ public final class EngineConfig {
     private final QueryCachingPolicy queryCachingPolicy;
     @Nullable
     private final RefreshListeners refreshListeners;
+    @Nullable
+    private final IndicesMergeScheduler indicesMergeScheduler;
 
     /**
      * Index setting to change the low level lucene codec used for writing new segments.
@@ -89,8 +92,16 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * Index setting to append documents with auto-generated ids without looking up whether their id already exists, unless the
+     * request has been retried. This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<Boolean> INDEX_OPTIMIZE_AUTO_GENERATED_ID_SETTING =
+        Setting.boolSetting("index.optimize_auto_generated_id", false, Property.IndexScope);
+
     private TranslogConfig translogConfig;
     private final OpenMode openMode;
+    private final boolean optimizeAutoGeneratedIds;
 
     /**
      * Creates a new {@link org.elasticsearch.index.engine.EngineConfig}
@@ -100,7 +111,8 @@ public final class EngineConfig {
                         MergePolicy mergePolicy,Analyzer analyzer,
                         Similarity similarity, CodecService codecService, Engine.EventListener eventListener,
                         TranslogRecoveryPerformer translogRecoveryPerformer, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
-                        TranslogConfig translogConfig, TimeValue flushMergesAfter, RefreshListeners refreshListeners) {
+                        TranslogConfig translogConfig, TimeValue flushMergesAfter, RefreshListeners refreshListeners,
+                        @Nullable IndicesMergeScheduler indicesMergeScheduler) {
         if (openMode == null) {
             throw new IllegalArgumentException("openMode must not be null");
         }
@@ -116,6 +128,7 @@ public final class EngineConfig {
         this.codecService = codecService;
         this.eventListener = eventListener;
         codecName = indexSettings.getValue(INDEX_CODEC_SETTING);
+        optimizeAutoGeneratedIds = indexSettings.getValue(INDEX_OPTIMIZE_AUTO_GENERATED_ID_SETTING);
         // We give IndexWriter a "huge" (256 MB) buffer, so it won't flush on its own unless the ES indexing buffer is also huge and/or
         // there are not too many shards allocated to this node.  Instead, IndexingMemoryController periodically checks
         // and refreshes the most heap-consuming shards when total indexing heap usage across all shards is too high:
@@ -127,6 +140,16 @@ public final class EngineConfig {
         this.flushMergesAfter = flushMergesAfter;
         this.openMode = openMode;
         this.refreshListeners = refreshListeners;
+        this.indicesMergeScheduler = indicesMergeScheduler;
+    }
+
+    /**
+     * Returns <code>true</code> if documents with auto-generated ids can be appended to the index without a version lookup.
+     *
+     * @see #INDEX_OPTIMIZE_AUTO_GENERATED_ID_SETTING
+     */
+    public boolean isOptimizeAutoGeneratedIds() {
+        return optimizeAutoGeneratedIds;
     }
 
     /**
@@ -311,4 +334,13 @@ public final class EngineConfig {
     public RefreshListeners getRefreshListeners() {
         return refreshListeners;
     }
+
+    /**
+     * Returns the node level {@link IndicesMergeScheduler} merges of this engine must acquire a slot from, or <code>null</code> if
+     * merges are only scheduled per shard.
+     */
+    @Nullable
+    public IndicesMergeScheduler getIndicesMergeScheduler() {
+        return indicesMergeScheduler;
+    }
 }
@@ -41,7 +41,10 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.lucene.LoggerInfoStream;
@@ -53,6 +56,7 @@ import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
@@ -63,6 +67,7 @@ import org.elasticsearch.index.shard.TranslogRecoveryPerformer;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogCorruptedException;
+import org.elasticsearch.indices.IndicesMergeScheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
@@ -73,6 +78,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
@@ -115,6 +121,10 @@ public class InternalEngine extends Engine {
     private final AtomicInteger throttleRequestCount = new AtomicInteger();
     private final EngineConfig.OpenMode openMode;
     private final AtomicBoolean allowCommits = new AtomicBoolean(true);
+    // The highest auto-generated id timestamp of the operations that might have been indexed more than once: documents with an
+    // auto-generated id whose timestamp is above this watermark can't already be in the index, so they are appended without a version
+    // lookup.
+    private final AtomicLong maxUnsafeAutoIdTimestamp = new AtomicLong(IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP);
 
     public InternalEngine(EngineConfig engineConfig) throws EngineException {
         super(engineConfig);
@@ -128,7 +138,8 @@ public class InternalEngine extends Engine {
         boolean success = false;
         try {
             this.lastDeleteVersionPruneTimeMSec = engineConfig.getThreadPool().estimatedTimeInMillis();
-            mergeScheduler = scheduler = new EngineMergeScheduler(engineConfig.getShardId(), engineConfig.getIndexSettings());
+            mergeScheduler = scheduler = new EngineMergeScheduler(engineConfig.getShardId(), engineConfig.getIndexSettings(),
+                engineConfig.getIndicesMergeScheduler());
             throttle = new IndexThrottle();
             this.searcherFactory = new SearchFactory(logger, isClosed, engineConfig);
             try {
@@ -328,6 +339,9 @@ public class InternalEngine extends Engine {
                         throw new VersionConflictEngineException(shardId, uid.type(), uid.id(),
                                 get.versionType().explainConflictForReads(versionValue.version(), get.version()));
                     }
+                    if (versionValue.source() != null) {
+                        return new GetResult(true, versionValue.version(), versionValue.source());
+                    }
                     Translog.Operation op = translog.read(versionValue.translogLocation());
                     if (op != null) {
                         return new GetResult(true, versionValue.version(), op.getSource());
@@ -420,6 +434,14 @@ public class InternalEngine extends Engine {
     private boolean innerIndex(Index index) throws IOException {
         try (Releasable ignored = acquireLock(index.uid())) {
             lastWriteNanos = index.startTime();
+            if (canOptimizeAddDocument(index) && mayHaveBeenIndexedBefore(index) == false) {
+                // the id was generated for this operation and it has not been retried: the document can't be in the index yet
+                if (checkVersionConflict(index, Versions.NOT_FOUND, index.version(), true)) return false;
+                final long updatedVersion = updateVersion(index, Versions.NOT_FOUND, index.version());
+                index(index, indexWriter);
+                maybeAddToTranslog(index, updatedVersion, Translog.Index::new, indexVersionValue(index));
+                return true;
+            }
             final long currentVersion;
             final boolean deleted;
             final VersionValue versionValue = versionMap.getUnderLock(index.uid());
@@ -438,12 +460,67 @@ public class InternalEngine extends Engine {
 
             final boolean created = indexOrUpdate(index, currentVersion, versionValue);
 
-            maybeAddToTranslog(index, updatedVersion, Translog.Index::new, NEW_VERSION_VALUE);
+            maybeAddToTranslog(index, updatedVersion, Translog.Index::new, indexVersionValue(index));
 
             return created;
         }
     }
 
+    /**
+     * Keeps the source of the document in the live version map to serve realtime gets without reading the translog, unless
+     * the version map already uses more memory than <code>index.realtime_get.source_cache_size</code>. The whole version map
+     * counts, including the entries of documents whose source is not cached, since it is released at once on refresh.
+     */
+    private VersionValueSupplier indexVersionValue(Index index) {
+        if (versionMap.ramBytesUsedForRefresh() >= engineConfig.getIndexSettings().getRealtimeGetSourceCacheSize().bytes()) {
+            return NEW_VERSION_VALUE;
+        }
+        return (u, t, l) -> {
+            // the source might be a slice of a larger request buffer, copy it so that the request can be released
+            final BytesReference source = new BytesArray(index.source().toBytesRef(), true);
+            return new SourceVersionValue(u, l, new Translog.Source(source, index.routing(), index.parent(), index.timestamp(),
+                index.ttl()));
+        };
+    }
+
+    @Override
+    public void ensureNotStale(String type, String id, Term uid, long version, VersionType versionType) throws EngineException {
+        // versions only increase, so a conflict with the live version map is final even if it is read without the uid lock
+        final VersionValue versionValue = versionMap.getUnderLock(uid);
+        if (versionValue != null) {
+            final long currentVersion = checkDeletedAndGCed(versionValue);
+            final boolean deleted = versionValue.delete();
+            if (versionType.isVersionConflictForWrites(currentVersion, version, deleted)) {
+                throw new VersionConflictEngineException(shardId, type, id,
+                    versionType.explainConflictForWrites(currentVersion, version, deleted));
+            }
+        }
+    }
+
+    private boolean canOptimizeAddDocument(Index index) {
+        if (engineConfig.isOptimizeAutoGeneratedIds() && index.getAutoGeneratedIdTimestamp() != IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP) {
+            // operations that are replayed from a translog are retries: they go through the version lookup, but still raise the
+            // watermark so that a replicated copy of the same operation that arrives once the shard is started isn't appended
+            assert index.origin().isRecovery() == false || index.isRetry() : "recovered operations must be retries";
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the given operation might already have been indexed, because it has been retried or because a
+     * retry of an operation with a later auto-generated id timestamp has been seen. Must be called under the uid lock, so that an
+     * operation and its retry can't both be appended.
+     */
+    private boolean mayHaveBeenIndexedBefore(Index index) {
+        final long autoGeneratedIdTimestamp = index.getAutoGeneratedIdTimestamp();
+        if (index.isRetry()) {
+            maxUnsafeAutoIdTimestamp.accumulateAndGet(autoGeneratedIdTimestamp, Math::max);
+            return true;
+        }
+        return autoGeneratedIdTimestamp <= maxUnsafeAutoIdTimestamp.get();
+    }
+
     private long updateVersion(Engine.Operation op, long currentVersion, long expectedVersion) {
         final long updatedVersion = op.versionType().updateVersion(currentVersion, expectedVersion);
         op.updateVersion(updatedVersion);
@@ -917,6 +994,11 @@ public class InternalEngine extends Engine {
         return indexWriter.ramBytesUsed() + versionMap.ramBytesUsedForRefresh();
     }
 
+    // pkg-private for testing
+    VersionValue getVersionValue(Term uid) {
+        return versionMap.getUnderLock(uid);
+    }
+
     @Override
     public List<Segment> segments(boolean verbose) {
         try (ReleasableLock lock = readLock.acquire()) {
@@ -1095,8 +1177,8 @@ public class InternalEngine extends Engine {
         private final AtomicInteger numMergesInFlight = new AtomicInteger(0);
         private final AtomicBoolean isThrottling = new AtomicBoolean();
 
-        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
-            super(shardId, indexSettings);
+        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings, IndicesMergeScheduler indicesMergeScheduler) {
+            super(shardId, indexSettings, indicesMergeScheduler);
         }
 
         @Override
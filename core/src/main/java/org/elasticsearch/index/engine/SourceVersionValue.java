@@ -0,0 +1,59 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.translog.Translog;
+
+/**
+ * Holds an indexed version together with the source of the document, so that realtime gets can be served from memory
+ * instead of reading the operation back from the translog until the document is visible to searches.
+ */
+class SourceVersionValue extends VersionValue {
+    private final Translog.Source source;
+
+    public SourceVersionValue(long version, Translog.Location translogLocation, Translog.Source source) {
+        super(version, translogLocation);
+        this.source = source;
+    }
+
+    @Override
+    public Translog.Source source() {
+        return source;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return super.ramBytesUsed() + RamUsageEstimator.NUM_BYTES_OBJECT_REF + sourceRamBytesUsed(source);
+    }
+
+    private static long sourceRamBytesUsed(Translog.Source source) {
+        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 4 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + 2 * Long.BYTES
+            + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + source.source.length()
+            + stringRamBytesUsed(source.routing) + stringRamBytesUsed(source.parent);
+    }
+
+    private static long stringRamBytesUsed(String s) {
+        if (s == null) {
+            return 0;
+        }
+        return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + Character.BYTES * s.length();
+    }
+}
@@ -52,6 +52,11 @@ class VersionValue implements Accountable {
         return this.translogLocation;
     }
 
+    /** Returns the source of the document if it is kept in memory for realtime gets, <code>null</code> otherwise. */
+    public Translog.Source source() {
+        return null;
+    }
+
     @Override
     public long ramBytesUsed() {
         return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF +
@@ -232,6 +232,14 @@ public interface IndexFieldData<FD extends AtomicFieldData> extends IndexCompone
 
         IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Load a global view for the given reader, possibly reusing work from the global view that was previously
+         * loaded for another reader of the same shard. The default implementation ignores the previous view.
+         */
+        default IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous) throws Exception {
+            return localGlobalDirect(indexReader);
+        }
+
     }
 
 }
@@ -52,6 +52,13 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         }
     }, Property.IndexScope);
 
+    /**
+     * Whether global ordinals of a new reader should be built incrementally from the global ordinals of the previous reader
+     * when only new segments were added, which is typically the case for append-only indices with a short refresh interval.
+     */
+    public static final Setting<Boolean> INDEX_FIELDDATA_INCREMENTAL_GLOBAL_ORDINALS =
+        Setting.boolSetting("index.fielddata.global_ordinals.incremental", false, Property.IndexScope);
+
     private final CircuitBreakerService circuitBreakerService;
 
     private final IndicesFieldDataCache indicesFieldDataCache;
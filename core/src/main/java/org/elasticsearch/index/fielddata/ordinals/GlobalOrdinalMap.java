@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Maps the ordinals of each segment of a reader to global ordinals, and global ordinals back to
+ * the first segment that contains the term. This abstracts Lucene's {@link OrdinalMap} so that
+ * global ordinals can also be built incrementally from the ones of a previous reader.
+ */
+abstract class GlobalOrdinalMap implements Accountable {
+
+    private final int segmentCount;
+
+    GlobalOrdinalMap(int segmentCount) {
+        this.segmentCount = segmentCount;
+    }
+
+    /**
+     * Returns the number of segments this map was built for.
+     */
+    final int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the total number of unique terms in the global ord space.
+     */
+    abstract long getValueCount();
+
+    /**
+     * Returns the mapping from ordinals of the given segment to global ordinals.
+     */
+    abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the index of the first segment that contains the term of the given global ordinal.
+     */
+    abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * Returns the ordinal of the term of the given global ordinal in the segment returned by
+     * {@link #getFirstSegmentNumber(long)}.
+     */
+    abstract long getFirstSegmentOrd(long globalOrd);
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Wraps a Lucene {@link OrdinalMap} that was built for <code>segmentCount</code> segments.
+     */
+    static GlobalOrdinalMap wrap(OrdinalMap ordinalMap, int segmentCount) {
+        return new GlobalOrdinalMap(segmentCount) {
+
+            @Override
+            long getValueCount() {
+                return ordinalMap.getValueCount();
+            }
+
+            @Override
+            LongValues getGlobalOrds(int segmentIndex) {
+                return ordinalMap.getGlobalOrds(segmentIndex);
+            }
+
+            @Override
+            int getFirstSegmentNumber(long globalOrd) {
+                return ordinalMap.getFirstSegmentNumber(globalOrd);
+            }
+
+            @Override
+            long getFirstSegmentOrd(long globalOrd) {
+                return ordinalMap.getFirstSegmentOrd(globalOrd);
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return ordinalMap.ramBytesUsed();
+            }
+
+            @Override
+            public Collection<Accountable> getChildResources() {
+                return ordinalMap.getChildResources();
+            }
+        };
+    }
+}
@@ -21,15 +21,18 @@ package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -49,29 +52,64 @@ public enum GlobalOrdinalsBuilder {
      * Build global ordinals for the provided {@link IndexReader}.
      */
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData, IndexSettings indexSettings, CircuitBreakerService breakerService, ESLogger logger) throws IOException {
+        return build(indexReader, indexFieldData, null, indexSettings, breakerService, logger);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}. If <code>previous</code> holds global ordinals that were built
+     * for another reader over the same segments (for instance a reader that was reopened because of deletes only), its
+     * ordinal map is reused instead of being recomputed. If the provided reader only added segments to the ones of the
+     * previous reader and {@link IndexFieldDataService#INDEX_FIELDDATA_INCREMENTAL_GLOBAL_ORDINALS} is enabled, the
+     * ordinal map is built incrementally from the previous one. This must only be used by field data implementations
+     * whose segment ordinals only depend on the segment itself.
+     */
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
+                                               @Nullable IndexOrdinalsFieldData previous, IndexSettings indexSettings,
+                                               CircuitBreakerService breakerService, ESLogger logger) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final RandomAccessOrds[] subs = new RandomAccessOrds[indexReader.leaves().size()];
+        final Object[] coreKeys = new Object[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            coreKeys[i] = context.reader().getCoreCacheKey();
+        }
+        GlobalOrdinalMap ordinalMap = null;
+        String mode = "full";
+        if (previous instanceof InternalGlobalOrdinalsIndexFieldData) {
+            final InternalGlobalOrdinalsIndexFieldData previousOrdinals = (InternalGlobalOrdinalsIndexFieldData) previous;
+            if (previousOrdinals.hasSameSegments(coreKeys)) {
+                ordinalMap = previousOrdinals.getOrdinalMap();
+                mode = "reused";
+            } else if (indexSettings.getValue(IndexFieldDataService.INDEX_FIELDDATA_INCREMENTAL_GLOBAL_ORDINALS)) {
+                final int[] previousSegments = IncrementalGlobalOrdinalMap.findPreviousSegments(previousOrdinals.getSegmentCoreKeys(), coreKeys);
+                if (previousSegments != null) {
+                    ordinalMap = IncrementalGlobalOrdinalMap.build(previousOrdinals.getOrdinalMap(), previousSegments, subs);
+                    mode = "incremental";
+                }
+            }
+        }
+        if (ordinalMap == null) {
+            ordinalMap = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs, PackedInts.DEFAULT), subs.length);
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "global-ordinals [{}][{}] took [{}]",
+                    "global-ordinals [{}][{}] took [{}], mode [{}]",
                     indexFieldData.getFieldName(),
                     ordinalMap.getValueCount(),
-                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS),
+                    mode
             );
         }
         return new InternalGlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, memorySizeInBytes
+                atomicFD, ordinalMap, coreKeys, memorySizeInBytes
         );
     }
 
@@ -80,6 +118,8 @@ public enum GlobalOrdinalsBuilder {
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final RandomAccessOrds[] subs = new RandomAccessOrds[indexReader.leaves().size()];
+        // no core keys: empty global ordinals must never be reused for a reader that has values
+        final Object[] coreKeys = new Object[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = new AbstractAtomicOrdinalsFieldData() {
                 @Override
@@ -103,9 +143,9 @@ public enum GlobalOrdinalsBuilder {
             };
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final GlobalOrdinalMap ordinalMap = GlobalOrdinalMap.wrap(OrdinalMap.build(null, subs, PackedInts.DEFAULT), subs.length);
         return new InternalGlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, 0
+                atomicFD, ordinalMap, coreKeys, 0
         );
     }
 
@@ -0,0 +1,264 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link GlobalOrdinalMap} that is built from the global ordinals of a previous reader and the segments that were
+ * added since. Only the terms of the new segments are read and compared against the terms of the previous global ord
+ * space (with a binary search), the ordinals of the segments that both readers share are just shifted. This avoids
+ * merging the term dictionaries of all segments of the shard again on every refresh.
+ */
+final class IncrementalGlobalOrdinalMap extends GlobalOrdinalMap {
+
+    private final long valueCount;
+    private final LongValues[] segmentToGlobalOrds;
+    private final PackedLongValues firstSegments;
+    private final PackedLongValues globalOrdDeltas;
+    private final long ramBytesUsed;
+
+    private IncrementalGlobalOrdinalMap(long valueCount, LongValues[] segmentToGlobalOrds, PackedLongValues firstSegments,
+                                        PackedLongValues globalOrdDeltas) {
+        super(segmentToGlobalOrds.length);
+        this.valueCount = valueCount;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+        long ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(IncrementalGlobalOrdinalMap.class)
+            + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds) + firstSegments.ramBytesUsed() + globalOrdDeltas.ramBytesUsed();
+        for (LongValues mapping : segmentToGlobalOrds) {
+            if (mapping instanceof PackedLongValues) {
+                ramBytesUsed += ((PackedLongValues) mapping).ramBytesUsed();
+            }
+        }
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    @Override
+    long getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    @Override
+    int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    @Override
+    long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    /**
+     * Returns, for each segment of a new reader identified by its core cache key, the index of the same segment in the
+     * previous reader or <code>-1</code> if the segment is new. Returns <code>null</code> if a segment of the previous
+     * reader is not part of the new reader anymore (e.g. it has been merged away), since its terms can't be removed from
+     * the previous global ord space.
+     */
+    static int[] findPreviousSegments(Object[] previousCoreKeys, Object[] coreKeys) {
+        final int[] previousSegments = new int[coreKeys.length];
+        Arrays.fill(previousSegments, -1);
+        for (int previous = 0; previous < previousCoreKeys.length; previous++) {
+            int found = -1;
+            for (int i = 0; i < coreKeys.length; i++) {
+                if (coreKeys[i] == previousCoreKeys[previous]) {
+                    found = i;
+                    break;
+                }
+            }
+            if (found == -1) {
+                return null;
+            }
+            previousSegments[found] = previous;
+        }
+        return previousSegments;
+    }
+
+    /**
+     * Builds the global ordinals of a new reader from the global ordinals of a previous reader.
+     *
+     * @param previous          the global ordinals of the previous reader
+     * @param previousSegments  for each segment of the new reader, the index of this segment in the previous reader, or
+     *                          <code>-1</code> for new segments, see {@link #findPreviousSegments(Object[], Object[])}
+     * @param subs              the ordinals of each segment of the new reader
+     */
+    static GlobalOrdinalMap build(GlobalOrdinalMap previous, int[] previousSegments, RandomAccessOrds[] subs) throws IOException {
+        assert previousSegments.length == subs.length;
+        final int[] previousToSegment = new int[previous.getSegmentCount()];
+        int numNewSegments = 0;
+        for (int i = 0; i < previousSegments.length; i++) {
+            if (previousSegments[i] == -1) {
+                numNewSegments++;
+            } else {
+                previousToSegment[previousSegments[i]] = i;
+            }
+        }
+        final int[] newSegments = new int[numNewSegments];
+        final RandomAccessOrds[] newSubs = new RandomAccessOrds[numNewSegments];
+        for (int i = 0, j = 0; i < previousSegments.length; i++) {
+            if (previousSegments[i] == -1) {
+                newSegments[j] = i;
+                newSubs[j++] = subs[i];
+            }
+        }
+
+        // merge the terms of the new segments together, then locate each of them in the previous global ord space
+        final OrdinalMap newTermsMap = OrdinalMap.build(null, newSubs, PackedInts.DEFAULT);
+        final PreviousTerms previousTerms = new PreviousTerms(previous, previousToSegment, subs);
+        final PackedLongValues.Builder newTermToGlobalBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        // the insertion points in the previous ord space and the ordinals in newTermsMap of the terms that are not in previous
+        final PackedLongValues.Builder insertionPointsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder addedTermsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        long from = 0;
+        for (long newTermOrd = 0; newTermOrd < newTermsMap.getValueCount(); newTermOrd++) {
+            final RandomAccessOrds newSub = newSubs[newTermsMap.getFirstSegmentNumber(newTermOrd)];
+            final BytesRef term = newSub.lookupOrd(newTermsMap.getFirstSegmentOrd(newTermOrd));
+            final long position = previousTerms.lowerBound(from, term);
+            // the terms that were added before this one are all smaller, and so are shifting its global ordinal
+            newTermToGlobalBuilder.add(position + addedTermsBuilder.size());
+            if (position == previous.getValueCount() || previousTerms.get(position).equals(term) == false) {
+                insertionPointsBuilder.add(position);
+                addedTermsBuilder.add(newTermOrd);
+            }
+            from = position;
+        }
+        final PackedLongValues newTermToGlobal = newTermToGlobalBuilder.build();
+        final PackedLongValues insertionPoints = insertionPointsBuilder.build();
+        final PackedLongValues addedTerms = addedTermsBuilder.build();
+        final long valueCount = previous.getValueCount() + addedTerms.size();
+
+        // global ordinal -> first segment that contains the term
+        final PackedLongValues.Builder firstSegmentsBuilder = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltasBuilder = PackedLongValues.deltaPackedBuilder(PackedInts.COMPACT);
+        long previousOrd = 0;
+        long addedTerm = 0;
+        for (long globalOrd = 0; globalOrd < valueCount; globalOrd++) {
+            final int firstSegment;
+            final long firstSegmentOrd;
+            if (addedTerm < addedTerms.size() && insertionPoints.get(addedTerm) <= previousOrd) {
+                final long newTermOrd = addedTerms.get(addedTerm++);
+                firstSegment = newSegments[newTermsMap.getFirstSegmentNumber(newTermOrd)];
+                firstSegmentOrd = newTermsMap.getFirstSegmentOrd(newTermOrd);
+            } else {
+                firstSegment = previousToSegment[previous.getFirstSegmentNumber(previousOrd)];
+                firstSegmentOrd = previous.getFirstSegmentOrd(previousOrd);
+                previousOrd++;
+            }
+            firstSegmentsBuilder.add(firstSegment);
+            globalOrdDeltasBuilder.add(globalOrd - firstSegmentOrd);
+        }
+
+        // segment ordinal -> global ordinal
+        final LongValues[] segmentToGlobalOrds = new LongValues[subs.length];
+        for (int i = 0; i < newSegments.length; i++) {
+            final LongValues newTermOrds = newTermsMap.getGlobalOrds(i);
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            for (long segmentOrd = 0; segmentOrd < newSubs[i].getValueCount(); segmentOrd++) {
+                builder.add(newTermToGlobal.get(newTermOrds.get(segmentOrd)));
+            }
+            segmentToGlobalOrds[newSegments[i]] = builder.build();
+        }
+        for (int i = 0; i < previousSegments.length; i++) {
+            if (previousSegments[i] == -1) {
+                continue;
+            }
+            final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            // segment ordinals map to increasing previous global ordinals, so the number of added terms that sort before
+            // each of them can be computed with a single pass over the insertion points
+            long shift = 0;
+            for (long segmentOrd = 0; segmentOrd < subs[i].getValueCount(); segmentOrd++) {
+                final long ord = previousGlobalOrds.get(segmentOrd);
+                while (shift < insertionPoints.size() && insertionPoints.get(shift) <= ord) {
+                    shift++;
+                }
+                builder.add(ord + shift);
+            }
+            segmentToGlobalOrds[i] = builder.build();
+        }
+        for (int i = 0; i < subs.length; i++) {
+            if (subs[i].getValueCount() == valueCount) {
+                // segment ordinals match global ordinals
+                segmentToGlobalOrds[i] = LongValues.IDENTITY;
+            }
+        }
+        return new IncrementalGlobalOrdinalMap(valueCount, segmentToGlobalOrds, firstSegmentsBuilder.build(),
+            globalOrdDeltasBuilder.build());
+    }
+
+    /**
+     * Random access to the terms of the previous global ord space, read from the segments of the new reader.
+     */
+    private static final class PreviousTerms {
+
+        private final GlobalOrdinalMap previous;
+        private final int[] previousToSegment;
+        private final RandomAccessOrds[] subs;
+
+        PreviousTerms(GlobalOrdinalMap previous, int[] previousToSegment, RandomAccessOrds[] subs) {
+            this.previous = previous;
+            this.previousToSegment = previousToSegment;
+            this.subs = subs;
+        }
+
+        BytesRef get(long previousOrd) {
+            final int segment = previousToSegment[previous.getFirstSegmentNumber(previousOrd)];
+            return subs[segment].lookupOrd(previous.getFirstSegmentOrd(previousOrd));
+        }
+
+        /**
+         * Returns the smallest previous global ordinal greater than or equal to <code>from</code> whose term is greater
+         * than or equal to <code>term</code>, or the value count of the previous global ord space if there is none.
+         */
+        long lowerBound(long from, BytesRef term) {
+            long low = from;
+            long high = previous.getValueCount();
+            while (low < high) {
+                final long mid = (low + high) >>> 1;
+                if (get(mid).compareTo(term) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -19,13 +19,13 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -34,9 +34,15 @@ import java.util.Collection;
 final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFieldData {
 
     private final Atomic[] atomicReaders;
+    private final GlobalOrdinalMap ordinalMap;
+    private final Object[] segmentCoreKeys;
 
-    InternalGlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd, OrdinalMap ordinalMap, long memorySizeInBytes) {
+    InternalGlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd, GlobalOrdinalMap ordinalMap,
+                                         Object[] segmentCoreKeys, long memorySizeInBytes) {
         super(indexSettings, fieldName, memorySizeInBytes);
+        assert segmentAfd.length == segmentCoreKeys.length;
+        this.ordinalMap = ordinalMap;
+        this.segmentCoreKeys = segmentCoreKeys;
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
@@ -48,13 +54,32 @@ final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFiel
         return atomicReaders[context.ord];
     }
 
+    GlobalOrdinalMap getOrdinalMap() {
+        return ordinalMap;
+    }
+
+    /**
+     * Returns <code>true</code> if these global ordinals were built on the same segments, in the same order, as
+     * the ones identified by the given core cache keys. In that case the ordinal map can be shared.
+     */
+    boolean hasSameSegments(Object[] coreKeys) {
+        return Arrays.equals(segmentCoreKeys, coreKeys);
+    }
+
+    /**
+     * Returns the core cache keys of the segments these global ordinals were built on.
+     */
+    Object[] getSegmentCoreKeys() {
+        return segmentCoreKeys;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
-        private final OrdinalMap ordinalMap;
+        private final GlobalOrdinalMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(AtomicOrdinalsFieldData afd, OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(AtomicOrdinalsFieldData afd, GlobalOrdinalMap ordinalMap, int segmentIndex) {
             this.afd = afd;
             this.ordinalMap = ordinalMap;
             this.segmentIndex = segmentIndex;
@@ -102,4 +102,11 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
     public IndexOrdinalsFieldData localGlobalDirect(DirectoryReader indexReader) throws Exception {
         return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger);
     }
+
+    @Override
+    public IndexOrdinalsFieldData localGlobalDirect(DirectoryReader indexReader, IndexFieldData<AtomicOrdinalsFieldData> previous) throws Exception {
+        // doc values ordinals only depend on the segment, so global ordinals of a previous reader can be reused
+        final IndexOrdinalsFieldData previousOrdinals = previous instanceof IndexOrdinalsFieldData ? (IndexOrdinalsFieldData) previous : null;
+        return GlobalOrdinalsBuilder.build(indexReader, this, previousOrdinals, indexSettings, breakerService, logger);
+    }
 }
@@ -50,6 +50,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.ParseContext;
 import org.elasticsearch.index.mapper.core.LegacyNumberFieldMapper.Defaults;
 import org.elasticsearch.index.mapper.internal.AllFieldMapper;
+import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.internal.SearchContext;
@@ -356,6 +357,11 @@ public class DateFieldMapper extends FieldMapper implements AllFieldMapper.Inclu
 
         public long parseToMilliseconds(Object value, boolean roundUp,
                 @Nullable DateTimeZone zone, @Nullable DateMathParser forcedDateParser) {
+            return parseToMilliseconds(value, roundUp, zone, forcedDateParser, now());
+        }
+
+        private long parseToMilliseconds(Object value, boolean roundUp,
+                @Nullable DateTimeZone zone, @Nullable DateMathParser forcedDateParser, Callable<Long> now) {
             DateMathParser dateParser = dateMathParser();
             if (forcedDateParser != null) {
                 dateParser = forcedDateParser;
@@ -367,7 +373,7 @@ public class DateFieldMapper extends FieldMapper implements AllFieldMapper.Inclu
             } else {
                 strValue = value.toString();
             }
-            return dateParser.parse(strValue, now(), roundUp, zone);
+            return dateParser.parse(strValue, now, roundUp, zone);
         }
 
         private static Callable<Long> now() {
@@ -398,7 +404,7 @@ public class DateFieldMapper extends FieldMapper implements AllFieldMapper.Inclu
         public Relation isFieldWithinQuery(IndexReader reader,
                 Object from, Object to,
                 boolean includeLower, boolean includeUpper,
-                DateTimeZone timeZone, DateMathParser dateParser) throws IOException {
+                DateTimeZone timeZone, DateMathParser dateParser, QueryRewriteContext context) throws IOException {
             if (dateParser == null) {
                 dateParser = this.dateMathParser;
             }
@@ -413,7 +419,7 @@ public class DateFieldMapper extends FieldMapper implements AllFieldMapper.Inclu
 
             long fromInclusive = Long.MIN_VALUE;
             if (from != null) {
-                fromInclusive = parseToMilliseconds(from, !includeLower, timeZone, dateParser);
+                fromInclusive = parseToMilliseconds(from, !includeLower, timeZone, dateParser, context::nowInMillis);
                 if (includeLower == false) {
                     if (fromInclusive == Long.MAX_VALUE) {
                         return Relation.DISJOINT;
@@ -424,7 +430,7 @@ public class DateFieldMapper extends FieldMapper implements AllFieldMapper.Inclu
 
             long toInclusive = Long.MAX_VALUE;
             if (to != null) {
-                toInclusive = parseToMilliseconds(to, includeUpper, timeZone, dateParser);
+                toInclusive = parseToMilliseconds(to, includeUpper, timeZone, dateParser, context::nowInMillis);
                 if (includeUpper == false) {
                     if (toInclusive == Long.MIN_VALUE) {
                         return Relation.DISJOINT;
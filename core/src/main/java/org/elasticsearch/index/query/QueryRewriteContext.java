@@ -28,6 +28,9 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.indices.query.IndicesQueriesRegistry;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.function.LongSupplier;
 
 /**
  * Context object used to rewrite {@link QueryBuilder} instances into simplified version.
@@ -40,10 +43,18 @@ public class QueryRewriteContext implements ParseFieldMatcherSupplier {
     protected final Client client;
     protected final IndexReader reader;
     protected final ClusterState clusterState;
+    protected final LongSupplier nowInMillis;
 
     public QueryRewriteContext(IndexSettings indexSettings, MapperService mapperService, ScriptService scriptService,
                                IndicesQueriesRegistry indicesQueriesRegistry, Client client, IndexReader reader,
                                ClusterState clusterState) {
+        this(indexSettings, mapperService, scriptService, indicesQueriesRegistry, client, reader, clusterState,
+            QueryRewriteContext::currentNowInMillis);
+    }
+
+    public QueryRewriteContext(IndexSettings indexSettings, MapperService mapperService, ScriptService scriptService,
+                               IndicesQueriesRegistry indicesQueriesRegistry, Client client, IndexReader reader,
+                               ClusterState clusterState, LongSupplier nowInMillis) {
         this.mapperService = mapperService;
         this.scriptService = scriptService;
         this.indexSettings = indexSettings;
@@ -51,6 +62,7 @@ public class QueryRewriteContext implements ParseFieldMatcherSupplier {
         this.client = client;
         this.reader = reader;
         this.clusterState = clusterState;
+        this.nowInMillis = nowInMillis;
     }
 
     /**
@@ -99,6 +111,22 @@ public class QueryRewriteContext implements ParseFieldMatcherSupplier {
         return clusterState;
     }
 
+    /**
+     * Returns the time in milliseconds that date math expressions like <code>now-1h</code> are resolved against. Unless a
+     * time was given to this context, this is the time of the current search request, or the current time.
+     */
+    public long nowInMillis() {
+        return nowInMillis.getAsLong();
+    }
+
+    protected static long currentNowInMillis() {
+        SearchContext current = SearchContext.current();
+        if (current != null) {
+            return current.nowInMillis();
+        }
+        return System.currentTimeMillis();
+    }
+
     /**
      * Returns a new {@link QueryParseContext} that wraps the provided parser, using the ParseFieldMatcher settings that
      * are configured in the index settings
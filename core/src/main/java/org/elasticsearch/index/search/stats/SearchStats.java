@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.search.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -241,6 +242,8 @@ public class SearchStats implements Streamable, ToXContent {
 
     Stats totalStats;
     long openContexts;
+    long openPointInTimes;
+    long pointInTimeSegments;
 
     @Nullable
     Map<String, Stats> groupStats;
@@ -250,8 +253,15 @@ public class SearchStats implements Streamable, ToXContent {
     }
 
     public SearchStats(Stats totalStats, long openContexts, @Nullable Map<String, Stats> groupStats) {
+        this(totalStats, openContexts, 0, 0, groupStats);
+    }
+
+    public SearchStats(Stats totalStats, long openContexts, long openPointInTimes, long pointInTimeSegments,
+                       @Nullable Map<String, Stats> groupStats) {
         this.totalStats = totalStats;
         this.openContexts = openContexts;
+        this.openPointInTimes = openPointInTimes;
+        this.pointInTimeSegments = pointInTimeSegments;
         this.groupStats = groupStats;
     }
 
@@ -265,6 +275,8 @@ public class SearchStats implements Streamable, ToXContent {
         }
         addTotals(searchStats);
         openContexts += searchStats.openContexts;
+        openPointInTimes += searchStats.openPointInTimes;
+        pointInTimeSegments += searchStats.pointInTimeSegments;
         if (includeTypes && searchStats.groupStats != null && !searchStats.groupStats.isEmpty()) {
             if (groupStats == null) {
                 groupStats = new HashMap<>(searchStats.groupStats.size());
@@ -295,6 +307,21 @@ public class SearchStats implements Streamable, ToXContent {
         return this.openContexts;
     }
 
+    /**
+     * Returns the number of open point in time readers.
+     */
+    public long getOpenPointInTimes() {
+        return this.openPointInTimes;
+    }
+
+    /**
+     * Returns the number of segments that are referenced by open point in time readers, these segments can't be deleted
+     * even if they have been merged away.
+     */
+    public long getPointInTimeSegments() {
+        return this.pointInTimeSegments;
+    }
+
     @Nullable
     public Map<String, Stats> getGroupStats() {
         return this.groupStats;
@@ -304,6 +331,8 @@ public class SearchStats implements Streamable, ToXContent {
     public XContentBuilder toXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
         builder.startObject(Fields.SEARCH);
         builder.field(Fields.OPEN_CONTEXTS, openContexts);
+        builder.field(Fields.POINT_IN_TIME_CURRENT, openPointInTimes);
+        builder.field(Fields.POINT_IN_TIME_SEGMENTS, pointInTimeSegments);
         totalStats.toXContent(builder, params);
         if (groupStats != null && !groupStats.isEmpty()) {
             builder.startObject(Fields.GROUPS);
@@ -321,6 +350,8 @@ public class SearchStats implements Streamable, ToXContent {
     static final class Fields {
         static final String SEARCH = "search";
         static final String OPEN_CONTEXTS = "open_contexts";
+        static final String POINT_IN_TIME_CURRENT = "point_in_time_current";
+        static final String POINT_IN_TIME_SEGMENTS = "point_in_time_segments";
         static final String GROUPS = "groups";
         static final String QUERY_TOTAL = "query_total";
         static final String QUERY_TIME = "query_time";
@@ -350,6 +381,10 @@ public class SearchStats implements Streamable, ToXContent {
     public void readFrom(StreamInput in) throws IOException {
         totalStats = Stats.readStats(in);
         openContexts = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            openPointInTimes = in.readVLong();
+            pointInTimeSegments = in.readVLong();
+        }
         if (in.readBoolean()) {
             int size = in.readVInt();
             groupStats = new HashMap<>(size);
@@ -363,6 +398,10 @@ public class SearchStats implements Streamable, ToXContent {
     public void writeTo(StreamOutput out) throws IOException {
         totalStats.writeTo(out);
         out.writeVLong(openContexts);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeVLong(openPointInTimes);
+            out.writeVLong(pointInTimeSegments);
+        }
         if (groupStats == null || groupStats.isEmpty()) {
             out.writeBoolean(false);
         } else {
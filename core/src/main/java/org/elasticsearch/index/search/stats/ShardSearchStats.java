@@ -23,6 +23,7 @@ import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -39,6 +40,8 @@ public final class ShardSearchStats implements SearchOperationListener {
 
     private final StatsHolder totalStats = new StatsHolder();
     private final CounterMetric openContexts = new CounterMetric();
+    private final CounterMetric openPointInTimes = new CounterMetric();
+    private final CounterMetric pointInTimeSegments = new CounterMetric();
     private volatile Map<String, StatsHolder> groupsStats = emptyMap();
 
     /**
@@ -63,7 +66,7 @@ public final class ShardSearchStats implements SearchOperationListener {
                 }
             }
         }
-        return new SearchStats(total, openContexts.count(), groupsSt);
+        return new SearchStats(total, openContexts.count(), openPointInTimes.count(), pointInTimeSegments.count(), groupsSt);
     }
 
     @Override
@@ -179,6 +182,18 @@ public final class ShardSearchStats implements SearchOperationListener {
         totalStats.scrollMetric.inc(System.nanoTime() - context.getOriginNanoTime());
     }
 
+    @Override
+    public void onNewPointInTime(Engine.Searcher searcher) {
+        openPointInTimes.inc();
+        pointInTimeSegments.inc(searcher.reader().leaves().size());
+    }
+
+    @Override
+    public void onFreePointInTime(Engine.Searcher searcher) {
+        openPointInTimes.dec();
+        pointInTimeSegments.dec(searcher.reader().leaves().size());
+    }
+
     static final class StatsHolder {
         public final MeanMetric queryMetric = new MeanMetric();
         public final MeanMetric fetchMetric = new MeanMetric();
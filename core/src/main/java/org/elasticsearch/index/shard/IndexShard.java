@@ -63,6 +63,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
@@ -104,6 +105,7 @@ import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
+import org.elasticsearch.indices.IndicesMergeScheduler;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.recovery.RecoveryFailedException;
@@ -141,6 +143,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final ThreadPool threadPool;
     private final MapperService mapperService;
     private final IndexCache indexCache;
+    @Nullable
+    private final IndicesMergeScheduler indicesMergeScheduler;
     private final Store store;
     private final InternalIndexingStats internalIndexingStats;
     private final ShardSearchStats searchStats = new ShardSearchStats();
@@ -167,6 +171,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * being indexed/deleted.
      */
     private final AtomicLong writingBytes = new AtomicLong();
+
+    /**
+     * How many bytes of index and delete operations this shard has applied.  IndexingMemoryController polls this to measure the
+     * indexing rate of each shard.
+     */
+    private final AtomicLong indexingBytes = new AtomicLong();
+
+    /** The share of the node's indexing buffer that IndexingMemoryController currently assigns to this shard, reported in the stats. */
+    private volatile long indexBufferBudget;
+
     private final SearchOperationListener searchOperationListener;
 
     protected volatile ShardRouting shardRouting;
@@ -217,7 +231,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                       MapperService mapperService, SimilarityService similarityService, IndexFieldDataService indexFieldDataService,
                       @Nullable EngineFactory engineFactory,
                       IndexEventListener indexEventListener, IndexSearcherWrapper indexSearcherWrapper, ThreadPool threadPool, BigArrays bigArrays,
-                      Engine.Warmer warmer, List<SearchOperationListener> searchOperationListener, List<IndexingOperationListener> listeners) throws IOException {
+                      Engine.Warmer warmer, List<SearchOperationListener> searchOperationListener, List<IndexingOperationListener> listeners,
+                      @Nullable IndicesMergeScheduler indicesMergeScheduler) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -233,6 +248,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.threadPool = threadPool;
         this.mapperService = mapperService;
         this.indexCache = indexCache;
+        this.indicesMergeScheduler = indicesMergeScheduler;
         this.internalIndexingStats = new InternalIndexingStats();
         final List<IndexingOperationListener> listenersList = new ArrayList<>(listeners);
         listenersList.add(internalIndexingStats);
@@ -258,6 +274,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         // to be computed on a per-shard basis
         if (IndexModule.INDEX_QUERY_CACHE_EVERYTHING_SETTING.get(settings)) {
             cachingPolicy = QueryCachingPolicy.ALWAYS_CACHE;
+        } else if (IndexModule.INDEX_QUERY_CACHE_COST_AWARE_SETTING.get(settings)) {
+            cachingPolicy = new CostAwareQueryCachingPolicy();
         } else {
             cachingPolicy = new UsageTrackingQueryCachingPolicy();
         }
@@ -479,27 +497,40 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return previousState;
     }
 
-    public Engine.Index prepareIndexOnPrimary(SourceToParse source, long version, VersionType versionType) {
+    public Engine.Index prepareIndexOnPrimary(SourceToParse source, long version, VersionType versionType, long autoGeneratedIdTimestamp,
+                                              boolean isRetry) {
         try {
             verifyPrimary();
-            return prepareIndex(docMapper(source.type()), source, version, versionType, Engine.Operation.Origin.PRIMARY);
+            return prepareIndex(docMapper(source.type()), source, version, versionType, Engine.Operation.Origin.PRIMARY,
+                autoGeneratedIdTimestamp, isRetry);
         } catch (Exception e) {
             verifyNotClosed(e);
             throw e;
         }
     }
 
-    public Engine.Index prepareIndexOnReplica(SourceToParse source, long version, VersionType versionType) {
+    public Engine.Index prepareIndexOnReplica(SourceToParse source, long version, VersionType versionType, long autoGeneratedIdTimestamp,
+                                              boolean isRetry) {
         try {
             verifyReplicationTarget();
-            return prepareIndex(docMapper(source.type()), source, version, versionType, Engine.Operation.Origin.REPLICA);
+            final DocumentMapperForType docMapper = docMapper(source.type());
+            final MappedFieldType uidFieldType = docMapper.getDocumentMapper().uidMapper().fieldType();
+            final Term uid = MappedFieldType.extractTerm(uidFieldType.termQuery(Uid.createUid(source.type(), source.id()), null));
+            // stale operations are rejected by the engine anyway, but only after the document has been parsed
+            getEngine().ensureNotStale(source.type(), source.id(), uid, version, versionType);
+            // while the shard is recovering, the same operation may also be replayed from the translog of the primary or be part of
+            // the files that are copied from it, so it has to be treated as a retry
+            final boolean mayBeDuplicate = isRetry || state != IndexShardState.STARTED;
+            return prepareIndex(docMapper, source, version, versionType, Engine.Operation.Origin.REPLICA, autoGeneratedIdTimestamp,
+                mayBeDuplicate);
         } catch (Exception e) {
             verifyNotClosed(e);
             throw e;
         }
     }
 
-    static Engine.Index prepareIndex(DocumentMapperForType docMapper, SourceToParse source, long version, VersionType versionType, Engine.Operation.Origin origin) {
+    static Engine.Index prepareIndex(DocumentMapperForType docMapper, SourceToParse source, long version, VersionType versionType,
+                                     Engine.Operation.Origin origin, long autoGeneratedIdTimestamp, boolean isRetry) {
         long startTime = System.nanoTime();
         ParsedDocument doc = docMapper.getDocumentMapper().parse(source);
         if (docMapper.getMapping() != null) {
@@ -508,7 +539,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         MappedFieldType uidFieldType = docMapper.getDocumentMapper().uidMapper().fieldType();
         Query uidQuery = uidFieldType.termQuery(doc.uid(), null);
         Term uid = MappedFieldType.extractTerm(uidQuery);
-        return new Engine.Index(uid, doc, version, versionType, origin, startTime);
+        return new Engine.Index(uid, doc, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry);
     }
 
     /**
@@ -530,6 +561,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 logger.trace("index [{}][{}]{}", index.type(), index.id(), index.docs());
             }
             created = engine.index(index);
+            indexingBytes.addAndGet(index.sizeInBytes());
             index.endTime(System.nanoTime());
         } catch (Exception e) {
             indexingOperationListeners.postIndex(index, e);
@@ -577,6 +609,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 logger.trace("delete [{}]", delete.uid().text());
             }
             engine.delete(delete);
+            indexingBytes.addAndGet(delete.sizeInBytes());
             delete.endTime(System.nanoTime());
         } catch (Exception e) {
             indexingOperationListeners.postDelete(delete, e);
@@ -630,6 +663,20 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return writingBytes.get();
     }
 
+    /**
+     * Returns how many bytes of index and delete operations this shard has applied since it was created
+     */
+    public long getIndexingBytes() {
+        return indexingBytes.get();
+    }
+
+    /**
+     * Called by {@link IndexingMemoryController} to record the share of the node's indexing buffer that this shard currently gets
+     */
+    public void setIndexBufferBudget(long indexBufferBudget) {
+        this.indexBufferBudget = indexBufferBudget;
+    }
+
     public RefreshStats refreshStats() {
         return new RefreshStats(refreshMetric.count(), TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()));
     }
@@ -664,7 +711,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             throttled = engine.isThrottled();
             throttleTimeInMillis = engine.getIndexThrottleTimeInMillis();
         }
-        return internalIndexingStats.stats(throttled, throttleTimeInMillis, types);
+        return internalIndexingStats.stats(throttled, throttleTimeInMillis, getIndexBufferRAMBytesUsed(), indexBufferBudget, types);
     }
 
     public SearchStats searchStats(String... groups) {
@@ -1543,7 +1590,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return new EngineConfig(openMode, shardId,
             threadPool, indexSettings, warmer, store, deletionPolicy, indexSettings.getMergePolicy(),
             mapperService.indexAnalyzer(), similarityService.similarity(mapperService), codecService, shardEventListener, translogRecoveryPerformer, indexCache.query(), cachingPolicy, translogConfig,
-            IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING.get(indexSettings.getSettings()), refreshListeners);
+            IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING.get(indexSettings.getSettings()), refreshListeners,
+            indicesMergeScheduler);
     }
 
     /**
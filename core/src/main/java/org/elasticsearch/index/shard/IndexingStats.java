@@ -24,6 +24,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -48,10 +49,13 @@ public class IndexingStats implements Streamable, ToXContent {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long indexBufferSizeInBytes;
+        private long indexBufferBudgetInBytes;
 
         Stats() {}
 
-        public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount, long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis) {
+        public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount, long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis,
+                     long indexBufferSizeInBytes, long indexBufferBudgetInBytes) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
             this.indexCurrent = indexCurrent;
@@ -62,6 +66,8 @@ public class IndexingStats implements Streamable, ToXContent {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.indexBufferSizeInBytes = indexBufferSizeInBytes;
+            this.indexBufferBudgetInBytes = indexBufferBudgetInBytes;
         }
 
         public void add(Stats stats) {
@@ -79,6 +85,8 @@ public class IndexingStats implements Streamable, ToXContent {
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; //When combining if one is throttled set result to throttled.
             }
+            indexBufferSizeInBytes += stats.indexBufferSizeInBytes;
+            indexBufferBudgetInBytes += stats.indexBufferBudgetInBytes;
         }
 
         /**
@@ -134,6 +142,21 @@ public class IndexingStats implements Streamable, ToXContent {
             return noopUpdateCount;
         }
 
+        /**
+         * Returns the heap used by the indexing buffer
+         */
+        public ByteSizeValue getIndexBufferSize() {
+            return new ByteSizeValue(indexBufferSizeInBytes);
+        }
+
+        /**
+         * Returns the share of the node's indexing buffer that is assigned to the shard, based on how fast it is indexing.  The buffer
+         * is under pressure when its size comes close to its budget.
+         */
+        public ByteSizeValue getIndexBufferBudget() {
+            return new ByteSizeValue(indexBufferBudgetInBytes);
+        }
+
         public static Stats readStats(StreamInput in) throws IOException {
             Stats stats = new Stats();
             stats.readFrom(in);
@@ -156,6 +179,10 @@ public class IndexingStats implements Streamable, ToXContent {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+                indexBufferSizeInBytes = in.readVLong();
+                indexBufferBudgetInBytes = in.readVLong();
+            }
         }
 
         @Override
@@ -174,7 +201,10 @@ public class IndexingStats implements Streamable, ToXContent {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+                out.writeVLong(indexBufferSizeInBytes);
+                out.writeVLong(indexBufferBudgetInBytes);
+            }
         }
 
         @Override
@@ -192,6 +222,9 @@ public class IndexingStats implements Streamable, ToXContent {
 
             builder.field(Fields.IS_THROTTLED, isThrottled);
             builder.timeValueField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, throttleTimeInMillis);
+
+            builder.byteSizeField(Fields.INDEX_BUFFER_SIZE_IN_BYTES, Fields.INDEX_BUFFER_SIZE, indexBufferSizeInBytes);
+            builder.byteSizeField(Fields.INDEX_BUFFER_BUDGET_IN_BYTES, Fields.INDEX_BUFFER_BUDGET, indexBufferBudgetInBytes);
             return builder;
         }
     }
@@ -283,6 +316,10 @@ public class IndexingStats implements Streamable, ToXContent {
         static final String IS_THROTTLED = "is_throttled";
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
+        static final String INDEX_BUFFER_SIZE = "index_buffer_size";
+        static final String INDEX_BUFFER_SIZE_IN_BYTES = "index_buffer_size_in_bytes";
+        static final String INDEX_BUFFER_BUDGET = "index_buffer_budget";
+        static final String INDEX_BUFFER_BUDGET_IN_BYTES = "index_buffer_budget_in_bytes";
     }
 
     public static IndexingStats readIndexingStats(StreamInput in) throws IOException {
@@ -19,6 +19,7 @@
 package org.elasticsearch.index.shard;
 
 import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.util.List;
@@ -102,6 +103,18 @@ public interface SearchOperationListener {
      */
     default void onFreeScrollContext(SearchContext context) {};
 
+    /**
+     * Executed when a point in time reader was opened
+     * @param searcher the searcher that is pinned by the point in time
+     */
+    default void onNewPointInTime(Engine.Searcher searcher) {};
+
+    /**
+     * Executed when a point in time reader is freed, either because it was closed or because it expired.
+     * @param searcher the searcher that was pinned by the point in time
+     */
+    default void onFreePointInTime(Engine.Searcher searcher) {};
+
     /**
      * A Composite listener that multiplexes calls to each of the listeners methods.
      */
@@ -223,5 +236,27 @@ public interface SearchOperationListener {
                 }
             }
         }
+
+        @Override
+        public void onNewPointInTime(Engine.Searcher searcher) {
+            for (SearchOperationListener listener : listeners) {
+                try {
+                    listener.onNewPointInTime(searcher);
+                } catch (Exception e) {
+                    logger.warn("onNewPointInTime listener [{}] failed", e, listener);
+                }
+            }
+        }
+
+        @Override
+        public void onFreePointInTime(Engine.Searcher searcher) {
+            for (SearchOperationListener listener : listeners) {
+                try {
+                    listener.onFreePointInTime(searcher);
+                } catch (Exception e) {
+                    logger.warn("onFreePointInTime listener [{}] failed", e, listener);
+                }
+            }
+        }
     }
 }
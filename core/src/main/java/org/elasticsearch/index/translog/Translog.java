@@ -26,6 +26,8 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -822,7 +824,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     }
 
     public static class Index implements Operation {
-        public static final int SERIALIZATION_FORMAT = 6; // since 2.0-beta1 and 1.1
+        public static final int FORMAT_2_X = 6; // since 2.0-beta1 and 1.1
+        public static final int FORMAT_AUTO_GENERATED_IDS = 7; // since 5.0.0-alpha5
+        public static final int SERIALIZATION_FORMAT = FORMAT_AUTO_GENERATED_IDS;
         private final String id;
         private final String type;
         private final long version;
@@ -832,10 +836,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         private final String parent;
         private final long timestamp;
         private final long ttl;
+        private final long autoGeneratedIdTimestamp;
 
         public Index(StreamInput in) throws IOException {
             final int format = in.readVInt(); // SERIALIZATION_FORMAT
-            assert format == SERIALIZATION_FORMAT : "format was: " + format;
+            assert format >= FORMAT_2_X && format <= SERIALIZATION_FORMAT : "format was: " + format;
             id = in.readString();
             type = in.readString();
             source = in.readBytesReference();
@@ -846,6 +851,11 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             this.ttl = in.readLong();
             this.versionType = VersionType.fromValue(in.readByte());
             assert versionType.validateVersionForWrites(this.version);
+            if (format >= FORMAT_AUTO_GENERATED_IDS) {
+                this.autoGeneratedIdTimestamp = in.readLong();
+            } else {
+                this.autoGeneratedIdTimestamp = IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP;
+            }
         }
 
         public Index(Engine.Index index) {
@@ -858,6 +868,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             this.timestamp = index.timestamp();
             this.ttl = index.ttl();
             this.versionType = index.versionType();
+            this.autoGeneratedIdTimestamp = index.getAutoGeneratedIdTimestamp();
         }
 
         public Index(String type, String id, byte[] source) {
@@ -870,6 +881,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             parent = null;
             timestamp = 0;
             ttl = 0;
+            autoGeneratedIdTimestamp = IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP;
         }
 
         @Override
@@ -918,6 +930,14 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             return versionType;
         }
 
+        /**
+         * Returns the time at which the id of this document was generated, or {@link IndexRequest#UNSET_AUTO_GENERATED_TIMESTAMP}
+         * if the id was provided by the user
+         */
+        public long getAutoGeneratedIdTimestamp() {
+            return autoGeneratedIdTimestamp;
+        }
+
         @Override
         public Source getSource() {
             return new Source(source, routing, parent, timestamp, ttl);
@@ -925,7 +945,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
-            out.writeVInt(SERIALIZATION_FORMAT);
+            final int format = out.getVersion().onOrAfter(Version.V_5_0_0_alpha5) ? SERIALIZATION_FORMAT : FORMAT_2_X;
+            out.writeVInt(format);
             out.writeString(id);
             out.writeString(type);
             out.writeBytesReference(source);
@@ -935,6 +956,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             out.writeLong(timestamp);
             out.writeLong(ttl);
             out.writeByte(versionType.getValue());
+            if (format >= FORMAT_AUTO_GENERATED_IDS) {
+                out.writeLong(autoGeneratedIdTimestamp);
+            }
         }
 
         @Override
@@ -951,6 +975,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             if (version != index.version ||
                     timestamp != index.timestamp ||
                     ttl != index.ttl ||
+                    autoGeneratedIdTimestamp != index.autoGeneratedIdTimestamp ||
                     id.equals(index.id) == false ||
                     type.equals(index.type) == false ||
                     versionType != index.versionType ||
@@ -975,6 +1000,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
             result = 31 * result + (parent != null ? parent.hashCode() : 0);
             result = 31 * result + Long.hashCode(timestamp);
             result = 31 * result + Long.hashCode(ttl);
+            result = 31 * result + Long.hashCode(autoGeneratedIdTimestamp);
             return result;
         }
 
@@ -1160,6 +1186,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try {
             outStream.writeInt(toWrite.size());
             final BufferedChecksumStreamOutput checksumStreamOutput = new BufferedChecksumStreamOutput(out);
+            // operations are written in the format that the receiving node understands
+            checksumStreamOutput.setVersion(outStream.getVersion());
             for (Operation op : toWrite) {
                 out.reset();
                 final long start = out.position();
@@ -39,8 +39,11 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
@@ -72,6 +75,12 @@ public class IndexingMemoryController extends AbstractComponent implements Index
     /** How frequently we check indexing memory usage (default: 5 seconds). */
     public static final Setting<TimeValue> SHARD_MEMORY_INTERVAL_TIME_SETTING = Setting.positiveTimeSetting("indices.memory.interval", TimeValue.timeValueSeconds(5), Property.NodeScope);
 
+    /**
+     * Whether indexing buffers are written ahead of time when the indexing rate of their shard says that they will exceed the budget
+     * within the next <code>indices.memory.interval</code> (default: true).
+     */
+    public static final Setting<Boolean> WRITE_AHEAD_SETTING = Setting.boolSetting("indices.memory.write_ahead", true, Property.NodeScope);
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -80,6 +89,7 @@ public class IndexingMemoryController extends AbstractComponent implements Index
 
     private final TimeValue inactiveTime;
     private final TimeValue interval;
+    private final boolean writeAhead;
 
     /** Contains shards currently being throttled because we can't write segments quickly enough */
     private final Set<IndexShard> throttled = new HashSet<>();
@@ -115,6 +125,7 @@ public class IndexingMemoryController extends AbstractComponent implements Index
         this.inactiveTime = SHARD_INACTIVE_TIME_SETTING.get(this.settings);
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(this.settings);
+        this.writeAhead = WRITE_AHEAD_SETTING.get(this.settings);
 
         this.statusChecker = new ShardsIndicesStatusChecker();
 
@@ -182,6 +193,21 @@ public class IndexingMemoryController extends AbstractComponent implements Index
         });
     }
 
+    /** returns how many bytes of index and delete operations this shard has applied, used to measure its indexing rate */
+    protected long getShardIndexingBytes(IndexShard shard) {
+        return shard.getIndexingBytes();
+    }
+
+    /** records the share of the indexing buffer that this shard currently gets, so that it shows up in its stats */
+    protected void setIndexBufferBudget(IndexShard shard, long budget) {
+        shard.setIndexBufferBudget(budget);
+    }
+
+    /** returns the current time, in nanoseconds, used to measure the indexing rate */
+    protected long currentTimeInNanos() {
+        return System.nanoTime();
+    }
+
     /** force checker to run now */
     void forceCheck() {
         statusChecker.run();
@@ -218,17 +244,31 @@ public class IndexingMemoryController extends AbstractComponent implements Index
 
     private static final class ShardAndBytesUsed implements Comparable<ShardAndBytesUsed> {
         final long bytesUsed;
+        final long bytesOverBudget;
         final IndexShard shard;
 
-        public ShardAndBytesUsed(long bytesUsed, IndexShard shard) {
+        public ShardAndBytesUsed(long bytesUsed, long bytesOverBudget, IndexShard shard) {
             this.bytesUsed = bytesUsed;
+            this.bytesOverBudget = bytesOverBudget;
             this.shard = shard;
         }
 
         @Override
         public int compareTo(ShardAndBytesUsed other) {
-            // Sort larger shards first:
-            return Long.compare(other.bytesUsed, bytesUsed);
+            // Sort shards that exceed their budget the most first:
+            return Long.compare(other.bytesOverBudget, bytesOverBudget);
+        }
+    }
+
+    /** The indexing rate of a shard, smoothed over roughly one <code>indices.memory.interval</code>. */
+    private static final class ShardIndexingRate {
+        long lastIndexingBytes;
+        long lastCheckNanos;
+        double bytesPerNanos;
+
+        ShardIndexingRate(long indexingBytes, long nanos) {
+            this.lastIndexingBytes = indexingBytes;
+            this.lastCheckNanos = nanos;
         }
     }
 
@@ -238,6 +278,9 @@ public class IndexingMemoryController extends AbstractComponent implements Index
         final AtomicLong bytesWrittenSinceCheck = new AtomicLong();
         final ReentrantLock runLock = new ReentrantLock();
 
+        // only accessed under runLock:
+        private final Map<IndexShard, ShardIndexingRate> indexingRates = new HashMap<>();
+
         /** Shard calls this on each indexing/delete op */
         public void bytesWritten(int bytes) {
             long totalBytes = bytesWrittenSinceCheck.addAndGet(bytes);
@@ -283,11 +326,18 @@ public class IndexingMemoryController extends AbstractComponent implements Index
             // NOTE: even if we hit an errant exc here, our ThreadPool.scheduledWithFixedDelay will log the exception and re-invoke us
             // again, on schedule
 
-            // First pass to sum up how much heap all shards' indexing buffers are using now, and how many bytes they are currently moving
-            // to disk:
+            final long now = currentTimeInNanos();
+            final List<IndexShard> shards = availableShards();
+            final long[] shardsBytesUsed = new long[shards.size()];
+            final double[] shardsBytesPerNanos = new double[shards.size()];
+
+            // First pass to sum up how much heap all shards' indexing buffers are using now, how many bytes they are currently moving
+            // to disk, and how fast they are indexing:
             long totalBytesUsed = 0;
             long totalBytesWriting = 0;
-            for (IndexShard shard : availableShards()) {
+            double totalBytesPerNanos = 0;
+            for (int i = 0; i < shards.size(); i++) {
+                IndexShard shard = shards.get(i);
 
                 // Give shard a chance to transition to inactive so sync'd flush can happen:
                 checkIdle(shard, inactiveTime.nanos());
@@ -298,63 +348,85 @@ public class IndexingMemoryController extends AbstractComponent implements Index
                 // How many heap bytes this shard is currently using
                 long shardBytesUsed = getIndexBufferRAMBytesUsed(shard);
 
+                // Only count up bytes not already being refreshed:
                 shardBytesUsed -= shardWritingBytes;
                 totalBytesWriting += shardWritingBytes;
 
+                shardsBytesPerNanos[i] = updateIndexingRate(shard, now);
+                totalBytesPerNanos += shardsBytesPerNanos[i];
+
                 // If the refresh completed just after we pulled shardWritingBytes and before we pulled shardBytesUsed, then we could
                 // have a negative value here.  So we just skip this shard since that means it's now using very little heap:
                 if (shardBytesUsed < 0) {
                     continue;
                 }
 
+                shardsBytesUsed[i] = shardBytesUsed;
                 totalBytesUsed += shardBytesUsed;
             }
 
+            // Forget about the rates of shards that were closed or moved away:
+            for (Iterator<IndexShard> it = indexingRates.keySet().iterator(); it.hasNext(); ) {
+                IndexShard shard = it.next();
+                if (shards.contains(shard) == false) {
+                    setIndexBufferBudget(shard, 0);
+                    it.remove();
+                }
+            }
+
             if (logger.isTraceEnabled()) {
                 logger.trace("total indexing heap bytes used [{}] vs {} [{}], currently writing bytes [{}]",
                              new ByteSizeValue(totalBytesUsed), INDEX_BUFFER_SIZE_SETTING.getKey(), indexingBuffer, new ByteSizeValue(totalBytesWriting));
             }
 
+            // Each shard gets a share of the budget that is proportional to its indexing rate, so that the shards that index the most
+            // get to build the largest segments.  As long as we know of no indexing, the budget is split evenly.  We also estimate how
+            // many bytes each shard will add to its buffer until the next check, at the rate we measured, so that we can start writing
+            // buffers while there is still room left in the budget rather than only once we are already over it.  A buffer is never
+            // written ahead of time before it reached half of its budget though, so that segments of busy shards do not get smaller:
+            final long[] shardsBudget = new long[shards.size()];
+            final long[] shardsExpectedBytes = new long[shards.size()];
+            long totalExpectedBytes = 0;
+            for (int i = 0; i < shards.size(); i++) {
+                if (totalBytesPerNanos > 0) {
+                    shardsBudget[i] = (long) (indexingBuffer.bytes() * (shardsBytesPerNanos[i] / totalBytesPerNanos));
+                } else {
+                    shardsBudget[i] = indexingBuffer.bytes() / shards.size();
+                }
+                setIndexBufferBudget(shards.get(i), shardsBudget[i]);
+                if (writeAhead) {
+                    shardsExpectedBytes[i] = Math.min((long) (shardsBytesPerNanos[i] * interval.nanos()), shardsBudget[i] / 2);
+                    totalExpectedBytes += shardsExpectedBytes[i];
+                }
+            }
+
             // If we are using more than 50% of our budget across both indexing buffer and bytes we are still moving to disk, then we now
             // throttle the top shards to send back-pressure to ongoing indexing:
             boolean doThrottle = (totalBytesWriting + totalBytesUsed) > 1.5 * indexingBuffer.bytes();
 
-            if (totalBytesUsed > indexingBuffer.bytes()) {
-                // OK we are now over-budget; fill the priority queue and ask largest shard(s) to refresh:
-                PriorityQueue<ShardAndBytesUsed> queue = new PriorityQueue<>();
-
-                for (IndexShard shard : availableShards()) {
-                    // How many bytes this shard is currently (async'd) moving from heap to disk:
-                    long shardWritingBytes = getShardWritingBytes(shard);
+            long targetBytesUsed = indexingBuffer.bytes() - totalExpectedBytes;
 
-                    // How many heap bytes this shard is currently using
-                    long shardBytesUsed = getIndexBufferRAMBytesUsed(shard);
-
-                    // Only count up bytes not already being refreshed:
-                    shardBytesUsed -= shardWritingBytes;
-
-                    // If the refresh completed just after we pulled shardWritingBytes and before we pulled shardBytesUsed, then we could
-                    // have a negative value here.  So we just skip this shard since that means it's now using very little heap:
-                    if (shardBytesUsed < 0) {
-                        continue;
-                    }
+            if (totalBytesUsed > targetBytesUsed) {
+                // OK we are now over-budget; fill the priority queue and ask the shard(s) that exceed their share the most to refresh:
+                PriorityQueue<ShardAndBytesUsed> queue = new PriorityQueue<>();
 
+                for (int i = 0; i < shards.size(); i++) {
+                    IndexShard shard = shards.get(i);
+                    long shardBytesUsed = shardsBytesUsed[i];
                     if (shardBytesUsed > 0) {
                         if (logger.isTraceEnabled()) {
-                            if (shardWritingBytes != 0) {
-                                logger.trace("shard [{}] is using [{}] heap, writing [{}] heap", shard.shardId(), shardBytesUsed, shardWritingBytes);
-                            } else {
-                                logger.trace("shard [{}] is using [{}] heap, not writing any bytes", shard.shardId(), shardBytesUsed);
-                            }
+                            logger.trace("shard [{}] is using [{}] heap out of a budget of [{}], expecting [{}] more bytes until the next check",
+                                         shard.shardId(), shardBytesUsed, shardsBudget[i], shardsExpectedBytes[i]);
                         }
-                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shard));
+                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shardBytesUsed + shardsExpectedBytes[i] - shardsBudget[i], shard));
                     }
                 }
 
-                logger.debug("now write some indexing buffers: total indexing heap bytes used [{}] vs {} [{}], currently writing bytes [{}], [{}] shards with non-zero indexing buffer",
-                             new ByteSizeValue(totalBytesUsed), INDEX_BUFFER_SIZE_SETTING.getKey(), indexingBuffer, new ByteSizeValue(totalBytesWriting), queue.size());
+                logger.debug("now write some indexing buffers: total indexing heap bytes used [{}] vs {} [{}], currently writing bytes [{}], expected bytes until next check [{}], [{}] shards with non-zero indexing buffer",
+                             new ByteSizeValue(totalBytesUsed), INDEX_BUFFER_SIZE_SETTING.getKey(), indexingBuffer, new ByteSizeValue(totalBytesWriting),
+                             new ByteSizeValue(totalExpectedBytes), queue.size());
 
-                while (totalBytesUsed > indexingBuffer.bytes() && queue.isEmpty() == false) {
+                while (totalBytesUsed > targetBytesUsed && queue.isEmpty() == false) {
                     ShardAndBytesUsed largest = queue.poll();
                     logger.debug("write indexing buffer to disk for shard [{}] to free up its [{}] indexing buffer", largest.shard.shardId(), new ByteSizeValue(largest.bytesUsed));
                     writeIndexingBufferAsync(largest.shard);
@@ -375,6 +447,28 @@ public class IndexingMemoryController extends AbstractComponent implements Index
                 throttled.clear();
             }
         }
+
+        /**
+         * Returns how many bytes per nanosecond this shard is indexing.  The rate is smoothed over roughly one
+         * <code>indices.memory.interval</code>, since checks also happen in between whenever a thirtieth of the budget was written.
+         */
+        private double updateIndexingRate(IndexShard shard, long now) {
+            final long indexingBytes = getShardIndexingBytes(shard);
+            ShardIndexingRate rate = indexingRates.get(shard);
+            if (rate == null) {
+                indexingRates.put(shard, new ShardIndexingRate(indexingBytes, now));
+                return 0;
+            }
+            if (now > rate.lastCheckNanos) {
+                final long elapsedNanos = now - rate.lastCheckNanos;
+                final double bytesPerNanos = (double) Math.max(0, indexingBytes - rate.lastIndexingBytes) / elapsedNanos;
+                final double weight = 1 - Math.exp(-(double) elapsedNanos / interval.nanos());
+                rate.bytesPerNanos += weight * (bytesPerNanos - rate.bytesPerNanos);
+                rate.lastIndexingBytes = indexingBytes;
+                rate.lastCheckNanos = now;
+            }
+            return rate.bytesPerNanos;
+        }
     }
 
     /**
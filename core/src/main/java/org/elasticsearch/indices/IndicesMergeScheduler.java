@@ -0,0 +1,167 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Arbitrates the merges of all shards of a node. Each shard has its own merge scheduler with its own thread count, so
+ * a node with many active shards can run a lot of concurrent merges that all compete for the same disks. When
+ * <tt>indices.merge.scheduler.max_thread_count</tt> is set, a merge has to acquire one of that many node wide merge
+ * slots before it starts. Waiting merges are granted a slot smallest first, since small merges are cheap and keep the
+ * number of segments of their shard at bay, unless the merge that has been waiting the longest has waited for more than
+ * {@link #MAX_WAIT} in which case it goes first so that large merges are not starved.
+ */
+public class IndicesMergeScheduler extends AbstractComponent {
+
+    /**
+     * The maximum number of merges that may run at once across all shards of the node, <code>-1</code> (the default)
+     * means unbounded.
+     */
+    public static final Setting<Integer> MAX_THREAD_COUNT_SETTING =
+        new Setting<>("indices.merge.scheduler.max_thread_count", "-1", IndicesMergeScheduler::parseMaxThreadCount,
+            Property.Dynamic, Property.NodeScope);
+
+    /** How long a merge may be overtaken by smaller merges before it runs first. */
+    static final TimeValue MAX_WAIT = TimeValue.timeValueMinutes(1);
+
+    /** How often waiting merges check whether they have been aborted, e.g. because their shard is closing. */
+    private static final long ABORT_CHECK_INTERVAL_MILLIS = 1000;
+
+    private static final Releasable NO_SLOT = () -> {};
+
+    // the merges that wait for a slot, in arrival order
+    private final List<PendingMerge> pending = new ArrayList<>();
+    private int maxThreadCount;
+    private int running;
+
+    @Inject
+    public IndicesMergeScheduler(Settings settings, ClusterSettings clusterSettings) {
+        super(settings);
+        this.maxThreadCount = MAX_THREAD_COUNT_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MAX_THREAD_COUNT_SETTING, this::setMaxThreadCount);
+    }
+
+    private static int parseMaxThreadCount(String s) {
+        int value = Integer.parseInt(s);
+        if (value != -1 && value < 1) {
+            throw new IllegalArgumentException("Failed to parse value [" + s + "] for setting [indices.merge.scheduler.max_thread_count] "
+                + "must be -1 or >= 1");
+        }
+        return value;
+    }
+
+    synchronized void setMaxThreadCount(int maxThreadCount) {
+        this.maxThreadCount = maxThreadCount;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a merge of the given size may run. The returned {@link Releasable} must be closed once the merge is
+     * done. Returns immediately if the merge has been aborted, since it is going to stop as soon as it starts anyway.
+     */
+    public Releasable acquire(long mergeSizeInBytes, BooleanSupplier aborted) throws InterruptedException {
+        synchronized (this) {
+            if (maxThreadCount < 0) {
+                return NO_SLOT;
+            }
+            final PendingMerge merge = new PendingMerge(mergeSizeInBytes, currentTimeInNanos());
+            pending.add(merge);
+            try {
+                while (true) {
+                    if (maxThreadCount < 0 || aborted.getAsBoolean()) {
+                        return NO_SLOT;
+                    }
+                    if (running < maxThreadCount && next() == merge) {
+                        running++;
+                        return this::release;
+                    }
+                    wait(ABORT_CHECK_INTERVAL_MILLIS);
+                }
+            } finally {
+                pending.remove(merge);
+                // the merge that is next in line has changed
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void release() {
+        assert running > 0;
+        running--;
+        notifyAll();
+    }
+
+    /**
+     * Returns the waiting merge that should run next.
+     */
+    private PendingMerge next() {
+        final PendingMerge oldest = pending.get(0);
+        if (currentTimeInNanos() - oldest.queuedTimeInNanos >= MAX_WAIT.nanos()) {
+            return oldest;
+        }
+        PendingMerge smallest = oldest;
+        for (PendingMerge merge : pending) {
+            if (merge.sizeInBytes < smallest.sizeInBytes) {
+                smallest = merge;
+            }
+        }
+        return smallest;
+    }
+
+    /**
+     * Returns the number of merges that wait for a slot.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of merges that hold a slot.
+     */
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    protected long currentTimeInNanos() {
+        return System.nanoTime();
+    }
+
+    private static final class PendingMerge {
+        final long sizeInBytes;
+        final long queuedTimeInNanos;
+
+        PendingMerge(long sizeInBytes, long queuedTimeInNanos) {
+            this.sizeInBytes = sizeInBytes;
+            this.queuedTimeInNanos = queuedTimeInNanos;
+        }
+    }
+}
@@ -177,6 +177,7 @@ public class IndicesModule extends AbstractModule {
         bind(IndicesTTLService.class).asEagerSingleton();
         bind(UpdateHelper.class).asEagerSingleton();
         bind(MetaDataIndexUpgradeService.class).asEagerSingleton();
+        bind(IndicesMergeScheduler.class).asEagerSingleton();
         bind(NodeServicesProvider.class).asEagerSingleton();
     }
 
@@ -22,6 +22,8 @@ package org.elasticsearch.indices;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.Query;
@@ -35,6 +37,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -61,6 +64,8 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
+    // the doc id set that is being built for the cache by the current thread, if any
+    private final ThreadLocal<CacheBuild> currentBuild = new ThreadLocal<>();
 
     // This is a hack for the fact that the close listener for the
     // ShardCoreKeyMap will be called before onDocIdSetEviction
@@ -116,16 +121,30 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        final CostAwareQueryCachingPolicy costAwarePolicy =
+            policy instanceof CostAwareQueryCachingPolicy ? (CostAwareQueryCachingPolicy) policy : null;
+        return new CachingWeightWrapper(in, costAwarePolicy);
+    }
+
+    /**
+     * Tracks the doc id set that the cache builds while a {@link CachingWeightWrapper} creates a scorer.
+     */
+    private static final class CacheBuild {
+        final long startTimeInNanos = System.nanoTime();
+        DocIdSet docIdSet;
+        int maxDoc;
     }
 
     private class CachingWeightWrapper extends Weight {
 
         private final Weight in;
+        // the policy to report the cost of building doc id sets to, if it is interested
+        private final CostAwareQueryCachingPolicy costAwarePolicy;
 
-        protected CachingWeightWrapper(Weight in) {
+        protected CachingWeightWrapper(Weight in, CostAwareQueryCachingPolicy costAwarePolicy) {
             super(in.getQuery());
             this.in = in;
+            this.costAwarePolicy = costAwarePolicy;
         }
 
         @Override
@@ -152,13 +171,51 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         @Override
         public Scorer scorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorer(context);
+            if (costAwarePolicy == null) {
+                return in.scorer(context);
+            }
+            final CacheBuild previous = startBuild();
+            try {
+                return in.scorer(context);
+            } finally {
+                endBuild(previous);
+            }
         }
 
         @Override
         public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.bulkScorer(context);
+            if (costAwarePolicy == null) {
+                return in.bulkScorer(context);
+            }
+            final CacheBuild previous = startBuild();
+            try {
+                return in.bulkScorer(context);
+            } finally {
+                endBuild(previous);
+            }
+        }
+
+        /**
+         * Starts to track whether the cache builds a doc id set for this weight and returns the build that was tracked
+         * before, which is not <code>null</code> if this weight is a clause of a query that is being cached too.
+         */
+        private CacheBuild startBuild() {
+            final CacheBuild previous = currentBuild.get();
+            currentBuild.set(new CacheBuild());
+            return previous;
+        }
+
+        private void endBuild(CacheBuild previous) throws IOException {
+            final CacheBuild build = currentBuild.get();
+            currentBuild.set(previous);
+            if (build.docIdSet != null) {
+                // the build time includes the creation of the scorer, e.g. the rewrite of multi-term queries
+                final long buildTimeInNanos = System.nanoTime() - build.startTimeInNanos;
+                final DocIdSetIterator iterator = build.docIdSet.iterator();
+                final long matchingDocs = iterator == null ? 0 : iterator.cost();
+                costAwarePolicy.onCache(getQuery(), buildTimeInNanos, build.docIdSet.ramBytesUsed(), matchingDocs, build.maxDoc);
+            }
         }
     }
 
@@ -231,6 +288,17 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
             super(maxSize, maxRamBytesUsed);
         }
 
+        @Override
+        protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+            final DocIdSet docIdSet = super.cacheImpl(scorer, maxDoc);
+            final CacheBuild build = currentBuild.get();
+            if (build != null) {
+                build.docIdSet = docIdSet;
+                build.maxDoc = maxDoc;
+            }
+            return docIdSet;
+        }
+
         private Stats getStats(Object coreKey) {
             final ShardId shardId = shardKeyMap.getShardId(coreKey);
             if (shardId == null) {
@@ -26,7 +26,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.plugins.IngestPlugin;
 import org.elasticsearch.script.ScriptService;
@@ -37,6 +40,13 @@ import org.elasticsearch.threadpool.ThreadPool;
  */
 public class IngestService {
 
+    /**
+     * Whether the sources of the documents that went through a pipeline are serialized as SMILE rather than with the
+     * content type of the request. SMILE is a binary encoding of the same token stream that is much cheaper to parse
+     * again on the primary, the replicas and when the translog is replayed.
+     */
+    public static final Setting<Boolean> BINARY_SOURCE_SETTING = Setting.boolSetting("ingest.binary_source", false, Property.NodeScope);
+
     private final PipelineStore pipelineStore;
     private final PipelineExecutionService pipelineExecutionService;
 
@@ -53,7 +63,8 @@ public class IngestService {
             }
         }
         this.pipelineStore = new PipelineStore(settings, Collections.unmodifiableMap(processorFactories));
-        this.pipelineExecutionService = new PipelineExecutionService(pipelineStore, threadPool);
+        this.pipelineExecutionService = new PipelineExecutionService(pipelineStore, threadPool,
+            BINARY_SOURCE_SETTING.get(settings) ? XContentType.SMILE : null);
     }
 
     public PipelineStore getPipelineStore() {
@@ -27,6 +27,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Collections;
@@ -42,13 +43,23 @@ public class PipelineExecutionService implements ClusterStateListener {
 
     private final PipelineStore store;
     private final ThreadPool threadPool;
+    private final XContentType sourceContentType;
 
     private final StatsHolder totalStats = new StatsHolder();
     private volatile Map<String, StatsHolder> statsHolderPerPipeline = Collections.emptyMap();
 
     public PipelineExecutionService(PipelineStore store, ThreadPool threadPool) {
+        this(store, threadPool, null);
+    }
+
+    /**
+     * @param sourceContentType the content type the ingested sources are serialized with, or <code>null</code> to use the
+     *                          content type of each index request
+     */
+    public PipelineExecutionService(PipelineStore store, ThreadPool threadPool, XContentType sourceContentType) {
         this.store = store;
         this.threadPool = threadPool;
+        this.sourceContentType = sourceContentType;
     }
 
     public void executeIndexRequest(IndexRequest request, Consumer<Exception> failureHandler, Consumer<Boolean> completionHandler) {
@@ -175,7 +186,11 @@ public class PipelineExecutionService implements ClusterStateListener {
             indexRequest.parent(metadataMap.get(IngestDocument.MetaData.PARENT));
             indexRequest.timestamp(metadataMap.get(IngestDocument.MetaData.TIMESTAMP));
             indexRequest.ttl(metadataMap.get(IngestDocument.MetaData.TTL));
-            indexRequest.source(ingestDocument.getSourceAndMetadata());
+            if (sourceContentType == null) {
+                indexRequest.source(ingestDocument.getSourceAndMetadata());
+            } else {
+                indexRequest.source(ingestDocument.getSourceAndMetadata(), sourceContentType);
+            }
         } catch (Exception e) {
             totalStats.ingestFailed();
             pipelineStats.ifPresent(StatsHolder::ingestFailed);
@@ -23,9 +23,12 @@ import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.BytesRestResponse;
 import org.elasticsearch.rest.RestChannel;
@@ -77,7 +80,7 @@ public class RestGetSourceAction extends BaseRestHandler {
         client.get(getRequest, new RestResponseListener<GetResponse>(channel) {
             @Override
             public RestResponse buildResponse(GetResponse response) throws Exception {
-                XContentBuilder builder = channel.newBuilder(response.getSourceInternal(), false);
+                XContentBuilder builder = channel.newBuilder(autoDetectSource(response.getSourceInternal()), false);
                 if (response.isSourceEmpty()) { // check if doc source (or doc itself) is missing
                     return new BytesRestResponse(NOT_FOUND, builder);
                 } else {
@@ -87,4 +90,19 @@ public class RestGetSourceAction extends BaseRestHandler {
             }
         });
     }
+
+    /**
+     * The source is rendered with its own content type unless a format is requested, except for binary sources (such
+     * as the SMILE sources written by ingest nodes) which are converted to JSON.
+     */
+    private static BytesReference autoDetectSource(BytesReference source) {
+        if (source == null) {
+            return null;
+        }
+        XContentType contentType = XContentFactory.xContentType(source);
+        if (contentType == XContentType.SMILE || contentType == XContentType.CBOR) {
+            return null;
+        }
+        return source;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.support.RestActions;
+import org.elasticsearch.rest.action.support.RestStatusToXContentListener;
+
+import java.io.IOException;
+
+import static org.elasticsearch.rest.RestRequest.Method.DELETE;
+
+/**
+ */
+public class RestClosePointInTimeAction extends BaseRestHandler {
+
+    @Inject
+    public RestClosePointInTimeAction(Settings settings, RestController controller) {
+        super(settings);
+        controller.registerHandler(DELETE, "/_point_in_time", this);
+    }
+
+    @Override
+    public void handleRequest(final RestRequest request, final RestChannel channel, final NodeClient client) {
+        ClosePointInTimeRequest closeRequest = new ClosePointInTimeRequest(request.param("id"));
+        if (RestActions.hasBodyContent(request)) {
+            buildFromContent(RestActions.getRestContent(request), closeRequest);
+        }
+        client.execute(ClosePointInTimeAction.INSTANCE, closeRequest, new RestStatusToXContentListener<ClearScrollResponse>(channel));
+    }
+
+    static void buildFromContent(BytesReference content, ClosePointInTimeRequest closeRequest) {
+        try (XContentParser parser = XContentHelper.createParser(content)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new IllegalArgumentException("Malformed content, must start with an object");
+            }
+            XContentParser.Token token;
+            String currentFieldName = null;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if ("id".equals(currentFieldName) && token == XContentParser.Token.VALUE_STRING) {
+                    closeRequest.id(parser.text());
+                } else {
+                    throw new IllegalArgumentException("Unknown parameter [" + currentFieldName
+                        + "] in request body or parameter is of the wrong type[" + token + "] ");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse request body", e);
+        }
+    }
+}
@@ -59,12 +59,16 @@ public class RestTable {
         RestRequest request = channel.request();
         XContentBuilder builder = channel.newBuilder();
         List<DisplayHeader> displayHeaders = buildDisplayHeaders(table, request);
+        List<List<Table.Cell>> columns = new ArrayList<>(displayHeaders.size());
+        for (DisplayHeader header : displayHeaders) {
+            columns.add(table.getAsMap().get(header.name));
+        }
 
         builder.startArray();
         for (int row = 0; row < table.getRows().size(); row++) {
             builder.startObject();
-            for (DisplayHeader header : displayHeaders) {
-                builder.field(header.display, renderValue(request, table.getAsMap().get(header.name).get(row).value));
+            for (int col = 0; col < displayHeaders.size(); col++) {
+                builder.field(displayHeaders.get(col).display, renderValue(request, columns.get(col).get(row).value));
             }
             builder.endObject();
 
@@ -78,7 +82,13 @@ public class RestTable {
         boolean verbose = request.paramAsBoolean("v", false);
 
         List<DisplayHeader> headers = buildDisplayHeaders(table, request);
-        int[] width = buildWidths(table, request, verbose, headers);
+        // columns are looked up and every cell is rendered once, both to compute the width of the columns and to write the rows
+        List<List<Table.Cell>> columns = new ArrayList<>(headers.size());
+        for (DisplayHeader header : headers) {
+            columns.add(table.getAsMap().get(header.name));
+        }
+        String[][] values = renderValues(request, columns);
+        int[] width = buildWidths(verbose, headers, values);
 
         BytesStreamOutput bytesOut = channel.bytesOutput();
         UTF8StreamWriter out = new UTF8StreamWriter().setOutput(bytesOut);
@@ -96,9 +106,8 @@ public class RestTable {
         }
         for (int row = 0; row < table.getRows().size(); row++) {
             for (int col = 0; col < headers.size(); col++) {
-                DisplayHeader header = headers.get(col);
                 boolean isLastColumn = col == lastHeader;
-                pad(table.getAsMap().get(header.name).get(row), width[col], request, out, isLastColumn);
+                pad(columns.get(col).get(row), values[col][row], width[col], out, isLastColumn);
                 if (!isLastColumn) {
                     out.append(" ");
                 }
@@ -233,7 +242,19 @@ public class RestTable {
         return width;
     }
 
-    private static int[] buildWidths(Table table, RestRequest request, boolean verbose, List<DisplayHeader> headers) {
+    private static String[][] renderValues(RestRequest request, List<List<Table.Cell>> columns) {
+        String[][] values = new String[columns.size()][];
+        for (int col = 0; col < columns.size(); col++) {
+            List<Table.Cell> cells = columns.get(col);
+            values[col] = new String[cells.size()];
+            for (int row = 0; row < cells.size(); row++) {
+                values[col][row] = renderValue(request, cells.get(row).value);
+            }
+        }
+        return values;
+    }
+
+    private static int[] buildWidths(boolean verbose, List<DisplayHeader> headers, String[][] values) {
         int[] width = new int[headers.size()];
         int i;
 
@@ -248,16 +269,13 @@ public class RestTable {
             }
         }
 
-        i = 0;
-        for (DisplayHeader hdr : headers) {
-            for (Table.Cell cell : table.getAsMap().get(hdr.name)) {
-                String v = renderValue(request, cell.value);
+        for (i = 0; i < headers.size(); i++) {
+            for (String v : values[i]) {
                 int vWidth = v == null ? 0 : v.length();
                 if (width[i] < vWidth) {
                     width[i] = vWidth;
                 }
             }
-            i++;
         }
         return width;
     }
@@ -267,7 +285,10 @@ public class RestTable {
     }
 
     public static void pad(Table.Cell cell, int width, RestRequest request, UTF8StreamWriter out, boolean isLast) throws IOException {
-        String sValue = renderValue(request, cell.value);
+        pad(cell, renderValue(request, cell.value), width, out, isLast);
+    }
+
+    private static void pad(Table.Cell cell, String sValue, int width, UTF8StreamWriter out, boolean isLast) throws IOException {
         int length = sValue == null ? 0 : sValue.length();
         byte leftOver = (byte) (width - length);
         String textAlign = cell.attr.get("text-align");
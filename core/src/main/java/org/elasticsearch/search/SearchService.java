@@ -37,6 +37,7 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
@@ -46,11 +47,16 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
 import org.elasticsearch.index.query.InnerHitBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.script.ScriptService;
@@ -145,6 +151,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<PointInTimeReader> activePointInTimeReaders =
+        ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final Map<String, SearchParseElement> elementParsers;
 
     private final ParseFieldMatcher parseFieldMatcher;
@@ -219,6 +228,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final PointInTimeReader reader : activePointInTimeReaders.values()) {
+            freePointInTime(reader.id);
+        }
     }
 
     @Override
@@ -227,6 +239,52 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         FutureUtils.cancel(keepAliveReaper);
     }
 
+    /**
+     * Returns <code>false</code> if the query of the given request can't match any document of the shard, e.g. because
+     * it filters on a range of dates that no document of the shard falls into. This only rewrites the query against the
+     * reader that the request would search, so that shards can be skipped without creating a search context.
+     *
+     * @see #canRewriteToMatchNone(SearchSourceBuilder)
+     */
+    public boolean canMatch(ShardSearchRequest request) throws IOException {
+        if (canRewriteToMatchNone(request.source()) == false) {
+            return true;
+        }
+        IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
+        IndexShard indexShard = indexService.getShard(request.shardId().getId());
+        try (Engine.Searcher searcher = acquireSearcher("can_match", request, indexShard)) {
+            // resolve date math against the time of the request, like the search will
+            QueryShardContext context = indexService.newQueryShardContext(searcher.reader(), request::nowInMillis);
+            context.setTypes(request.types());
+            return matchesNone(QueryBuilder.rewriteQuery(request.source().query(), context)) == false;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a shard whose query matches no documents would return an empty response to the given
+     * search, so that it does not have to be searched at all. This is not the case if there are aggregations (which may
+     * for instance be global or return empty buckets) or suggestions.
+     */
+    public static boolean canRewriteToMatchNone(SearchSourceBuilder source) {
+        return source != null && source.query() != null && source.aggregations() == null && source.suggest() == null;
+    }
+
+    /**
+     * Returns <code>true</code> if the given rewritten query can't match any document: match_none queries, and bool
+     * queries with a required clause that can't match.
+     */
+    private static boolean matchesNone(QueryBuilder query) {
+        if (query instanceof MatchNoneQueryBuilder) {
+            return true;
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            return matchesNone(((ConstantScoreQueryBuilder) query).innerQuery());
+        } else if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return bool.must().stream().anyMatch(SearchService::matchesNone) || bool.filter().stream().anyMatch(SearchService::matchesNone);
+        }
+        return false;
+    }
+
     public DfsSearchResult executeDfsPhase(ShardSearchRequest request) throws IOException {
         final SearchContext context = createAndPutContext(request);
         try {
@@ -523,12 +581,34 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Acquires the searcher of the point in time reader of the request if it has one, or the current searcher of the shard.
+     */
+    private Engine.Searcher acquireSearcher(String source, ShardSearchRequest request, IndexShard indexShard) {
+        if (request.pointInTimeId() == -1) {
+            return indexShard.acquireSearcher(source);
+        }
+        final PointInTimeReader reader = activePointInTimeReaders.get(request.pointInTimeId());
+        if (reader == null || reader.shardId.equals(request.shardId()) == false || reader.tryIncRef() == false) {
+            throw new SearchContextMissingException(request.pointInTimeId());
+        }
+        reader.lastAccessTime = threadPool.estimatedTimeInMillis();
+        return new Engine.Searcher(source, reader.searcher.searcher()) {
+            @Override
+            public void close() {
+                // the point in time is kept alive for as long as it is used
+                reader.lastAccessTime = threadPool.estimatedTimeInMillis();
+                reader.decRef();
+            }
+        };
+    }
+
     final SearchContext createContext(ShardSearchRequest request, @Nullable Engine.Searcher searcher) throws IOException {
         IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(), indexShard.shardId());
 
-        Engine.Searcher engineSearcher = searcher == null ? indexShard.acquireSearcher("search") : searcher;
+        Engine.Searcher engineSearcher = searcher == null ? acquireSearcher("search", request, indexShard) : searcher;
 
         DefaultSearchContext context = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher,
                 indexService,
@@ -583,6 +663,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 freeContext(ctx.id());
             }
         }
+        for (PointInTimeReader reader : activePointInTimeReaders.values()) {
+            if (index.equals(reader.shardId.getIndex())) {
+                freePointInTime(reader.id);
+            }
+        }
     }
 
 
@@ -865,6 +950,66 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeContexts.size();
     }
 
+    /**
+     * Pins the current searcher of the given shard so that searches can use it until the returned point in time id is
+     * freed, or until it has not been used for <code>keepAlive</code>. Unlike scroll contexts, a point in time holds no
+     * per search state, so any number of searches, e.g. <code>search_after</code> requests, can use it concurrently.
+     */
+    public long openPointInTime(ShardId shardId, TimeValue keepAlive) {
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        IndexShard indexShard = indexService.getShard(shardId.id());
+        Engine.Searcher searcher = indexShard.acquireSearcher("point_in_time");
+        PointInTimeReader reader = new PointInTimeReader(idGenerator.incrementAndGet(), indexShard, searcher, keepAlive.millis());
+        reader.lastAccessTime = threadPool.estimatedTimeInMillis();
+        activePointInTimeReaders.put(reader.id, reader);
+        indexShard.getSearchOperationListener().onNewPointInTime(searcher);
+        logger.trace("opened point in time [{}] on {} with [{}] segments", reader.id, shardId, searcher.reader().leaves().size());
+        return reader.id;
+    }
+
+    /**
+     * Frees the point in time with the given id. Searches that are using it complete before its searcher is released.
+     */
+    public boolean freePointInTime(long id) {
+        final PointInTimeReader reader = activePointInTimeReaders.remove(id);
+        if (reader == null) {
+            return false;
+        }
+        reader.decRef();
+        return true;
+    }
+
+    public int getActivePointInTimes() {
+        return this.activePointInTimeReaders.size();
+    }
+
+    private static final class PointInTimeReader extends AbstractRefCounted {
+        final long id;
+        final ShardId shardId;
+        final IndexShard indexShard;
+        final Engine.Searcher searcher;
+        final long keepAlive;
+        volatile long lastAccessTime;
+
+        PointInTimeReader(long id, IndexShard indexShard, Engine.Searcher searcher, long keepAlive) {
+            super("point_in_time");
+            this.id = id;
+            this.shardId = indexShard.shardId();
+            this.indexShard = indexShard;
+            this.searcher = searcher;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        protected void closeInternal() {
+            try {
+                indexShard.getSearchOperationListener().onFreePointInTime(searcher);
+            } finally {
+                searcher.close();
+            }
+        }
+    }
+
     class Reaper implements Runnable {
         @Override
         public void run() {
@@ -881,6 +1026,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (PointInTimeReader reader : activePointInTimeReaders.values()) {
+                if (time - reader.lastAccessTime > reader.keepAlive) {
+                    logger.debug("freeing point in time [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", reader.id, time,
+                        reader.lastAccessTime, reader.keepAlive);
+                    freePointInTime(reader.id);
+                }
+            }
         }
     }
 }
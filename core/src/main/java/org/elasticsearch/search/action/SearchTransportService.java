@@ -31,6 +31,8 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.fetch.FetchSearchResult;
@@ -62,6 +64,7 @@ public class SearchTransportService extends AbstractComponent {
     public static final String FREE_CONTEXT_SCROLL_ACTION_NAME = "indices:data/read/search[free_context/scroll]";
     public static final String FREE_CONTEXT_ACTION_NAME = "indices:data/read/search[free_context]";
     public static final String CLEAR_SCROLL_CONTEXTS_ACTION_NAME = "indices:data/read/search[clear_scroll_contexts]";
+    public static final String CAN_MATCH_ACTION_NAME = "indices:data/read/search[phase/can_match]";
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
     public static final String QUERY_ID_ACTION_NAME = "indices:data/read/search[phase/query/id]";
@@ -71,6 +74,8 @@ public class SearchTransportService extends AbstractComponent {
     public static final String QUERY_FETCH_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query+fetch/scroll]";
     public static final String FETCH_ID_SCROLL_ACTION_NAME = "indices:data/read/search[phase/fetch/id/scroll]";
     public static final String FETCH_ID_ACTION_NAME = "indices:data/read/search[phase/fetch/id]";
+    public static final String OPEN_POINT_IN_TIME_ACTION_NAME = "indices:data/read/search[open_point_in_time]";
+    public static final String FREE_POINT_IN_TIME_ACTION_NAME = "indices:data/read/search[free_point_in_time]";
 
     private final TransportService transportService;
     private final SearchService searchService;
@@ -86,6 +91,8 @@ public class SearchTransportService extends AbstractComponent {
                 new FreeContextTransportHandler<>());
         transportService.registerRequestHandler(CLEAR_SCROLL_CONTEXTS_ACTION_NAME, ClearScrollContextsRequest::new, ThreadPool.Names.SAME,
                 new ClearScrollContextsTransportHandler());
+        transportService.registerRequestHandler(CAN_MATCH_ACTION_NAME, ShardSearchTransportRequest::new, ThreadPool.Names.SEARCH,
+                new CanMatchTransportHandler());
         transportService.registerRequestHandler(DFS_ACTION_NAME, ShardSearchTransportRequest::new, ThreadPool.Names.SEARCH,
                 new SearchDfsTransportHandler());
         transportService.registerRequestHandler(QUERY_ACTION_NAME, ShardSearchTransportRequest::new, ThreadPool.Names.SEARCH,
@@ -104,6 +111,10 @@ public class SearchTransportService extends AbstractComponent {
                 new FetchByIdTransportHandler<>());
         transportService.registerRequestHandler(FETCH_ID_ACTION_NAME, ShardFetchSearchRequest::new, ThreadPool.Names.SEARCH,
                 new FetchByIdTransportHandler<>());
+        transportService.registerRequestHandler(OPEN_POINT_IN_TIME_ACTION_NAME, ShardOpenPointInTimeRequest::new, ThreadPool.Names.SEARCH,
+                new OpenPointInTimeTransportHandler());
+        transportService.registerRequestHandler(FREE_POINT_IN_TIME_ACTION_NAME, ScrollFreeContextRequest::new, ThreadPool.Names.SAME,
+                new FreePointInTimeTransportHandler());
     }
 
     public void sendFreeContext(DiscoveryNode node, final long contextId, SearchRequest request) {
@@ -126,11 +137,28 @@ public class SearchTransportService extends AbstractComponent {
                 new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
     }
 
+    public void sendOpenPointInTime(DiscoveryNode node, ShardId shardId, TimeValue keepAlive,
+                                    final ActionListener<ShardOpenPointInTimeResponse> listener) {
+        transportService.sendRequest(node, OPEN_POINT_IN_TIME_ACTION_NAME, new ShardOpenPointInTimeRequest(shardId, keepAlive),
+                new ActionListenerResponseHandler<>(listener, ShardOpenPointInTimeResponse::new));
+    }
+
+    public void sendFreePointInTime(DiscoveryNode node, long id, final ActionListener<SearchFreeContextResponse> listener) {
+        transportService.sendRequest(node, FREE_POINT_IN_TIME_ACTION_NAME, new ScrollFreeContextRequest(id),
+                new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
+    }
+
     public void sendClearAllScrollContexts(DiscoveryNode node, final ActionListener<TransportResponse> listener) {
         transportService.sendRequest(node, CLEAR_SCROLL_CONTEXTS_ACTION_NAME, new ClearScrollContextsRequest(),
                 new ActionListenerResponseHandler<>(listener, () -> TransportResponse.Empty.INSTANCE));
     }
 
+    public void sendCanMatch(DiscoveryNode node, final ShardSearchTransportRequest request,
+                             final ActionListener<CanMatchResponse> listener) {
+        transportService.sendRequest(node, CAN_MATCH_ACTION_NAME, request,
+                new ActionListenerResponseHandler<>(listener, CanMatchResponse::new));
+    }
+
     public void sendExecuteDfs(DiscoveryNode node, final ShardSearchTransportRequest request,
                                final ActionListener<DfsSearchResult> listener) {
         transportService.sendRequest(node, DFS_ACTION_NAME, request, new ActionListenerResponseHandler<>(listener, DfsSearchResult::new));
@@ -290,6 +318,75 @@ public class SearchTransportService extends AbstractComponent {
         }
     }
 
+    static class ShardOpenPointInTimeRequest extends TransportRequest {
+        private ShardId shardId;
+        private TimeValue keepAlive;
+
+        ShardOpenPointInTimeRequest() {
+        }
+
+        ShardOpenPointInTimeRequest(ShardId shardId, TimeValue keepAlive) {
+            this.shardId = shardId;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shardId = ShardId.readShardId(in);
+            keepAlive = new TimeValue(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            shardId.writeTo(out);
+            keepAlive.writeTo(out);
+        }
+    }
+
+    public static class ShardOpenPointInTimeResponse extends TransportResponse {
+
+        private long id;
+
+        ShardOpenPointInTimeResponse() {
+        }
+
+        ShardOpenPointInTimeResponse(long id) {
+            this.id = id;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            id = in.readLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeLong(id);
+        }
+    }
+
+    class OpenPointInTimeTransportHandler implements TransportRequestHandler<ShardOpenPointInTimeRequest> {
+        @Override
+        public void messageReceived(ShardOpenPointInTimeRequest request, TransportChannel channel) throws Exception {
+            channel.sendResponse(new ShardOpenPointInTimeResponse(searchService.openPointInTime(request.shardId, request.keepAlive)));
+        }
+    }
+
+    class FreePointInTimeTransportHandler implements TransportRequestHandler<ScrollFreeContextRequest> {
+        @Override
+        public void messageReceived(ScrollFreeContextRequest request, TransportChannel channel) throws Exception {
+            channel.sendResponse(new SearchFreeContextResponse(searchService.freePointInTime(request.id())));
+        }
+    }
+
     static class ClearScrollContextsRequest extends TransportRequest {
     }
 
@@ -301,6 +398,41 @@ public class SearchTransportService extends AbstractComponent {
         }
     }
 
+    public static class CanMatchResponse extends TransportResponse {
+
+        private boolean canMatch;
+
+        CanMatchResponse() {
+        }
+
+        CanMatchResponse(boolean canMatch) {
+            this.canMatch = canMatch;
+        }
+
+        public boolean canMatch() {
+            return canMatch;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            canMatch = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeBoolean(canMatch);
+        }
+    }
+
+    class CanMatchTransportHandler implements TransportRequestHandler<ShardSearchTransportRequest> {
+        @Override
+        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
+            channel.sendResponse(new CanMatchResponse(searchService.canMatch(request)));
+        }
+    }
+
     class SearchDfsTransportHandler implements TransportRequestHandler<ShardSearchTransportRequest> {
         @Override
         public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
@@ -31,6 +31,7 @@ import org.elasticsearch.search.internal.SearchContext.Lifetime;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 public abstract class AggregatorFactory<AF extends AggregatorFactory<AF>> {
 
@@ -83,6 +84,12 @@ public abstract class AggregatorFactory<AF extends AggregatorFactory<AF>> {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            // all instances are created by the same factory with the same settings
+            first.collectDebugInfo(add);
+        }
+
         @Override
         public void preCollection() throws IOException {
             for (long i = 0; i < aggregators.size(); ++i) {
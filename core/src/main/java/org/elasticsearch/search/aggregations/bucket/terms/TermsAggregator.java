@@ -37,11 +37,13 @@ import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public abstract class TermsAggregator extends BucketsAggregator {
 
@@ -169,6 +171,8 @@ public abstract class TermsAggregator extends BucketsAggregator {
     protected final Terms.Order order;
     protected final Set<Aggregator> aggsUsedForSorting = new HashSet<>();
     protected final SubAggCollectionMode collectMode;
+    // how the execution mode of this aggregator has been selected, exposed to the profiler
+    private Map<String, Object> executionInfo = Collections.emptyMap();
 
     public TermsAggregator(String name, AggregatorFactories factories, AggregationContext context, Aggregator parent,
             BucketCountThresholds bucketCountThresholds, Terms.Order order, DocValueFormat format, SubAggCollectionMode collectMode,
@@ -193,6 +197,16 @@ public abstract class TermsAggregator extends BucketsAggregator {
         }
     }
 
+    void setExecutionInfo(Map<String, Object> executionInfo) {
+        this.executionInfo = executionInfo;
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        executionInfo.forEach(add);
+    }
+
     @Override
     protected boolean shouldDefer(Aggregator aggregator) {
         return collectMode == SubAggCollectionMode.BREADTH_FIRST
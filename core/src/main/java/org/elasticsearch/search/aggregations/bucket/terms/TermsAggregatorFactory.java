@@ -19,6 +19,9 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.ParseFieldMatcher;
@@ -41,11 +44,25 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFacto
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource, TermsAggregatorFactory> {
 
+    /**
+     * The cost of collecting a value with the {@link ExecutionMode#MAP} execution mode, relative to collecting a value and
+     * visiting a global ordinal with the {@link ExecutionMode#GLOBAL_ORDINALS} execution mode: the term of every value
+     * needs to be looked up and hashed.
+     */
+    static final int MAP_VALUE_COST = 8;
+
+    /**
+     * Fields whose segments have fewer unique terms are cheap to aggregate with global ordinals whatever the number of
+     * matching documents, so there is no need to estimate the cost of the query.
+     */
+    static final long MIN_CARDINALITY_FOR_COST_ESTIMATION = 2048;
+
     private final Terms.Order order;
     private final IncludeExclude includeExclude;
     private final String executionHint;
@@ -112,6 +129,14 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 execution = ExecutionMode.MAP;
             }
 
+            Map<String, Object> executionInfo = new HashMap<>();
+            if (executionHint != null) {
+                executionInfo.put("execution_hint", executionHint);
+            } else if (execution == null && Aggregator.descendsFromBucketAggregator(parent) == false) {
+                // pick the map execution mode before global ordinals get loaded if the query matches few documents
+                execution = selectByCost((ValuesSource.Bytes.WithOrdinals) valuesSource, context, executionInfo);
+            }
+
             final long maxOrd;
             final double ratio;
             if (execution == null || execution.needsGlobalOrdinals()) {
@@ -164,8 +189,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                         + "settings as they can only be applied to string fields. Use an array of values for include/exclude clauses");
             }
 
-            return execution.create(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent,
-                    cm, showTermDocCountError, pipelineAggregators, metaData);
+            Aggregator aggregator = execution.create(name, factories, valuesSource, order, format, bucketCountThresholds,
+                    includeExclude, context, parent, cm, showTermDocCountError, pipelineAggregators, metaData);
+            if (aggregator instanceof TermsAggregator) {
+                executionInfo.put("execution_mode", execution.toString());
+                ((TermsAggregator) aggregator).setExecutionInfo(executionInfo);
+            }
+            return aggregator;
         }
 
         if ((includeExclude != null) && (includeExclude.isRegexBased())) {
@@ -203,6 +233,39 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 + "]. It can only be applied to numeric or string fields.");
     }
 
+    /**
+     * Picks {@link ExecutionMode#MAP} if the query is expected to match so few documents that collecting their terms
+     * directly is cheaper than visiting the global ordinals of the field. Returns <code>null</code> if the global
+     * ordinals based heuristics should be used instead.
+     *
+     * The number of unique terms of the field is estimated from its segments without loading global ordinals: the
+     * largest segment cardinality is a lower bound of the global cardinality, so this errs on the side of global
+     * ordinals. The number of matching documents is estimated once per shard by the {@link AggregationContext}.
+     */
+    static ExecutionMode selectByCost(ValuesSource.Bytes.WithOrdinals valuesSource, AggregationContext context,
+            Map<String, Object> executionInfo) throws IOException {
+        IndexReader reader = context.searchContext().searcher().getIndexReader();
+        long maxSegmentCardinality = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            RandomAccessOrds ordinals = valuesSource.ordinalsValues(ctx);
+            maxSegmentCardinality = Math.max(maxSegmentCardinality, ordinals.getValueCount());
+        }
+        executionInfo.put("segments", reader.leaves().size());
+        executionInfo.put("estimated_cardinality", maxSegmentCardinality);
+        if (maxSegmentCardinality < MIN_CARDINALITY_FOR_COST_ESTIMATION) {
+            return null;
+        }
+        final long matchCount = context.estimatedMatchCount();
+        // global ordinals: every matching document is collected by ordinal, then every global ordinal is visited
+        final long globalOrdinalsCost = matchCount + maxSegmentCardinality;
+        // map: the term of every matching document is hashed, but only terms that exist in matching documents are visited
+        final long mapCost = matchCount * MAP_VALUE_COST;
+        executionInfo.put("estimated_match_count", matchCount);
+        executionInfo.put("estimated_cost_global_ordinals", globalOrdinalsCost);
+        executionInfo.put("estimated_cost_map", mapCost);
+        return mapCost < globalOrdinalsCost ? ExecutionMode.MAP : null;
+    }
+
     // return the SubAggCollectionMode that this aggregation should use based on the expected size
     // and the cardinality of the field
     static SubAggCollectionMode subAggCollectionMode(int expectedSize, long maxOrd) {
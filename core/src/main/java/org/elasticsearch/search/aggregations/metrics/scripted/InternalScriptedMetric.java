@@ -19,8 +19,14 @@
 
 package org.elasticsearch.search.aggregations.metrics.scripted;
 
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.script.CompiledScript;
 import org.elasticsearch.script.ExecutableScript;
@@ -39,13 +45,20 @@ import java.util.Map;
 
 public class InternalScriptedMetric extends InternalMetricsAggregation implements ScriptedMetric {
     private final Script reduceScript;
+    private final boolean incrementalReduce;
     private final Object aggregation;
 
     public InternalScriptedMetric(String name, Object aggregation, Script reduceScript, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) {
+        this(name, aggregation, reduceScript, false, pipelineAggregators, metaData);
+    }
+
+    public InternalScriptedMetric(String name, Object aggregation, Script reduceScript, boolean incrementalReduce,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
         super(name, pipelineAggregators, metaData);
         this.aggregation = aggregation;
         this.reduceScript = reduceScript;
+        this.incrementalReduce = incrementalReduce;
     }
 
     /**
@@ -54,12 +67,20 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
     public InternalScriptedMetric(StreamInput in) throws IOException {
         super(in);
         reduceScript = in.readOptionalWriteable(Script::new);
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            incrementalReduce = in.readBoolean();
+        } else {
+            incrementalReduce = false;
+        }
         aggregation = in.readGenericValue();
     }
 
     @Override
     protected void doWriteTo(StreamOutput out) throws IOException {
         out.writeOptionalWriteable(reduceScript);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeBoolean(incrementalReduce);
+        }
         out.writeGenericValue(aggregation);
     }
 
@@ -75,12 +96,17 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
 
     @Override
     public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) aggregations.get(0));
+        if (firstAggregation.reduceScript != null && firstAggregation.incrementalReduce) {
+            Object aggregation = incrementalReduce(aggregations, firstAggregation.reduceScript, reduceContext);
+            return new InternalScriptedMetric(firstAggregation.getName(), aggregation, firstAggregation.reduceScript, true,
+                    pipelineAggregators(), getMetaData());
+        }
         List<Object> aggregationObjects = new ArrayList<>();
         for (InternalAggregation aggregation : aggregations) {
             InternalScriptedMetric mapReduceAggregation = (InternalScriptedMetric) aggregation;
             aggregationObjects.add(mapReduceAggregation.aggregation());
         }
-        InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) aggregations.get(0));
         Object aggregation;
         if (firstAggregation.reduceScript != null) {
             Map<String, Object> vars = new HashMap<>();
@@ -100,6 +126,54 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
 
     }
 
+    /**
+     * Runs the reduce script once per shard result, with the output of the previous run and the result of the next shard as
+     * <tt>_aggs</tt>, so that the script never has to hold the results of all shards at once. The output of each run is
+     * serialized until the next run, so that its size is accounted in the request circuit breaker.
+     */
+    private static Object incrementalReduce(List<InternalAggregation> aggregations, Script reduceScript, ReduceContext reduceContext) {
+        CompiledScript compiledScript = reduceContext.scriptService().compile(reduceScript, ScriptContext.Standard.AGGS,
+                Collections.emptyMap());
+        BigArrays bigArrays = reduceContext.bigArrays().withCircuitBreaking();
+        ReleasablePagedBytesReference state = null;
+        try {
+            Object aggregation = null;
+            for (int i = 0; i < aggregations.size(); i++) {
+                List<Object> aggregationObjects = new ArrayList<>(2);
+                if (state != null) {
+                    aggregationObjects.add(state.streamInput().readGenericValue());
+                    Releasables.close(state);
+                    state = null;
+                }
+                aggregationObjects.add(((InternalScriptedMetric) aggregations.get(i)).aggregation());
+                Map<String, Object> vars = new HashMap<>();
+                vars.put("_aggs", aggregationObjects);
+                if (reduceScript.getParams() != null) {
+                    vars.putAll(reduceScript.getParams());
+                }
+                aggregation = reduceContext.scriptService().executable(compiledScript, vars).run();
+                if (i < aggregations.size() - 1) {
+                    ReleasableBytesStreamOutput out = new ReleasableBytesStreamOutput(bigArrays);
+                    boolean success = false;
+                    try {
+                        out.writeGenericValue(aggregation);
+                        success = true;
+                    } finally {
+                        if (success == false) {
+                            Releasables.close(out.bytes());
+                        }
+                    }
+                    state = out.bytes();
+                }
+            }
+            return aggregation;
+        } catch (IOException e) {
+            throw new ElasticsearchException("failed to serialize the intermediate state of the reduce script", e);
+        } finally {
+            Releasables.close(state);
+        }
+    }
+
     @Override
     public Object getProperty(List<String> path) {
         if (path.isEmpty()) {
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.scripted;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -53,12 +54,14 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
     private static final ParseField REDUCE_SCRIPT_FIELD = new ParseField("reduce_script");
     private static final ParseField PARAMS_FIELD = new ParseField("params");
     private static final ParseField REDUCE_PARAMS_FIELD = new ParseField("reduce_params");
+    private static final ParseField INCREMENTAL_REDUCE_FIELD = new ParseField("incremental_reduce");
 
     private Script initScript;
     private Script mapScript;
     private Script combineScript;
     private Script reduceScript;
     private Map<String, Object> params;
+    private boolean incrementalReduce = false;
 
     public ScriptedMetricAggregationBuilder(String name) {
         super(name, TYPE);
@@ -76,6 +79,9 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         if (in.readBoolean()) {
             params = in.readMap();
         }
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            incrementalReduce = in.readBoolean();
+        }
     }
 
     @Override
@@ -89,6 +95,9 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         if (hasParams) {
             out.writeMap(params);
         }
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeBoolean(incrementalReduce);
+        }
     }
 
     /**
@@ -183,11 +192,29 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         return params;
     }
 
+    /**
+     * Set whether the <tt>reduce</tt> script should be run once per shard result rather than once with the results of all
+     * shards. The <tt>_aggs</tt> list that is passed to the script then contains the output of the previous invocation
+     * followed by the result of the next shard, so the script must be able to consume its own output. The intermediate
+     * state is serialized between invocations and accounted in the request circuit breaker.
+     */
+    public ScriptedMetricAggregationBuilder incrementalReduce(boolean incrementalReduce) {
+        this.incrementalReduce = incrementalReduce;
+        return this;
+    }
+
+    /**
+     * Whether the <tt>reduce</tt> script is run once per shard result.
+     */
+    public boolean incrementalReduce() {
+        return incrementalReduce;
+    }
+
     @Override
     protected ScriptedMetricAggregatorFactory doBuild(AggregationContext context, AggregatorFactory<?> parent,
             Builder subfactoriesBuilder) throws IOException {
-        return new ScriptedMetricAggregatorFactory(name, type, initScript, mapScript, combineScript, reduceScript, params, context,
-                parent, subfactoriesBuilder, metaData);
+        return new ScriptedMetricAggregatorFactory(name, type, initScript, mapScript, combineScript, reduceScript, params,
+                incrementalReduce, context, parent, subfactoriesBuilder, metaData);
     }
 
     @Override
@@ -212,6 +239,9 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
             builder.field(PARAMS_FIELD.getPreferredName());
             builder.map(params);
         }
+        if (incrementalReduce) {
+            builder.field(INCREMENTAL_REDUCE_FIELD.getPreferredName(), incrementalReduce);
+        }
         builder.endObject();
         return builder;
     }
@@ -223,6 +253,7 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         Script reduceScript = null;
         Map<String, Object> params = null;
         Map<String, Object> reduceParams = null;
+        boolean incrementalReduce = false;
         XContentParser.Token token;
         String currentFieldName = null;
         Set<String> scriptParameters = new HashSet<>();
@@ -254,7 +285,9 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
                             "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
                 }
             } else if (token.isValue()) {
-                if (!scriptParameterParser.token(currentFieldName, token, parser, context.getParseFieldMatcher())) {
+                if (context.getParseFieldMatcher().match(currentFieldName, INCREMENTAL_REDUCE_FIELD)) {
+                    incrementalReduce = parser.booleanValue();
+                } else if (!scriptParameterParser.token(currentFieldName, token, parser, context.getParseFieldMatcher())) {
                     throw new ParsingException(parser.getTokenLocation(),
                             "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
                 }
@@ -323,6 +356,7 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         if (params != null) {
             factory.params(params);
         }
+        factory.incrementalReduce(incrementalReduce);
         return factory;
     }
 
@@ -333,7 +367,7 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
 
     @Override
     protected int doHashCode() {
-        return Objects.hash(initScript, mapScript, combineScript, reduceScript, params);
+        return Objects.hash(initScript, mapScript, combineScript, reduceScript, params, incrementalReduce);
     }
 
     @Override
@@ -343,7 +377,8 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
                 && Objects.equals(mapScript, other.mapScript)
                 && Objects.equals(combineScript, other.combineScript)
                 && Objects.equals(reduceScript, other.reduceScript)
-                && Objects.equals(params, other.params);
+                && Objects.equals(params, other.params)
+                && Objects.equals(incrementalReduce, other.incrementalReduce);
     }
 
 }
@@ -44,10 +44,12 @@ public class ScriptedMetricAggregator extends MetricsAggregator {
     private final SearchScript mapScript;
     private final ExecutableScript combineScript;
     private final Script reduceScript;
+    private final boolean incrementalReduce;
     private Map<String, Object> params;
 
     protected ScriptedMetricAggregator(String name, Script initScript, Script mapScript, Script combineScript, Script reduceScript,
-            Map<String, Object> params, AggregationContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
+            boolean incrementalReduce, Map<String, Object> params, AggregationContext context, Aggregator parent,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
             throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.params = params;
@@ -62,6 +64,7 @@ public class ScriptedMetricAggregator extends MetricsAggregator {
             this.combineScript = null;
         }
         this.reduceScript = reduceScript;
+        this.incrementalReduce = incrementalReduce;
     }
 
     @Override
@@ -91,13 +94,13 @@ public class ScriptedMetricAggregator extends MetricsAggregator {
         } else {
             aggregation = params.get("_agg");
         }
-        return new InternalScriptedMetric(name, aggregation, reduceScript, pipelineAggregators(),
+        return new InternalScriptedMetric(name, aggregation, reduceScript, incrementalReduce, pipelineAggregators(),
                 metaData());
     }
 
     @Override
     public InternalAggregation buildEmptyAggregation() {
-        return new InternalScriptedMetric(name, null, reduceScript, pipelineAggregators(), metaData());
+        return new InternalScriptedMetric(name, null, reduceScript, incrementalReduce, pipelineAggregators(), metaData());
     }
 
 }
@@ -43,16 +43,18 @@ public class ScriptedMetricAggregatorFactory extends AggregatorFactory<ScriptedM
     private final Script combineScript;
     private final Script reduceScript;
     private final Map<String, Object> params;
+    private final boolean incrementalReduce;
 
     public ScriptedMetricAggregatorFactory(String name, Type type, Script initScript, Script mapScript, Script combineScript,
-            Script reduceScript, Map<String, Object> params, AggregationContext context, AggregatorFactory<?> parent,
-            AggregatorFactories.Builder subFactories, Map<String, Object> metaData) throws IOException {
+            Script reduceScript, Map<String, Object> params, boolean incrementalReduce, AggregationContext context,
+            AggregatorFactory<?> parent, AggregatorFactories.Builder subFactories, Map<String, Object> metaData) throws IOException {
         super(name, type, context, parent, subFactories, metaData);
         this.initScript = initScript;
         this.mapScript = mapScript;
         this.combineScript = combineScript;
         this.reduceScript = reduceScript;
         this.params = params;
+        this.incrementalReduce = incrementalReduce;
     }
 
     @Override
@@ -69,8 +71,8 @@ public class ScriptedMetricAggregatorFactory extends AggregatorFactory<ScriptedM
             params.put("_agg", new HashMap<String, Object>());
         }
         return new ScriptedMetricAggregator(name, insertParams(initScript, params), insertParams(mapScript, params),
-                insertParams(combineScript, params), deepCopyScript(reduceScript, context.searchContext()), params, context, parent,
-                pipelineAggregators, metaData);
+                insertParams(combineScript, params), deepCopyScript(reduceScript, context.searchContext()), incrementalReduce, params,
+                context, parent, pipelineAggregators, metaData);
     }
 
     private static Script insertParams(Script script, Map<String, Object> params) {
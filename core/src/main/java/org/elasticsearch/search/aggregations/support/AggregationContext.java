@@ -18,6 +18,13 @@
  */
 package org.elasticsearch.search.aggregations.support;
 
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.geo.GeoPoint;
@@ -38,6 +45,7 @@ import java.io.IOException;
 public class AggregationContext {
 
     private final SearchContext searchContext;
+    private long estimatedMatchCount = -1;
 
     public AggregationContext(SearchContext searchContext) {
         this.searchContext = searchContext;
@@ -51,6 +59,38 @@ public class AggregationContext {
         return searchContext.bigArrays();
     }
 
+    /**
+     * Return an estimate of the number of documents that match the query of the search. It is computed once and
+     * shared by all the aggregations of the request since it requires to rewrite the query and create its weight.
+     */
+    public long estimatedMatchCount() throws IOException {
+        if (estimatedMatchCount == -1) {
+            estimatedMatchCount = estimateMatchCount(searchContext.query(), searchContext.searcher().getIndexReader());
+        }
+        return estimatedMatchCount;
+    }
+
+    /**
+     * Estimates the number of documents that match the given query with the cost of its iterator on every segment.
+     */
+    public static long estimateMatchCount(Query query, IndexReader reader) throws IOException {
+        if (query == null || query instanceof MatchAllDocsQuery) {
+            return reader.numDocs();
+        }
+        // use a plain searcher: this must neither be profiled nor populate the query cache
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+        Weight weight = searcher.createNormalizedWeight(query, false);
+        long matchCount = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            Scorer scorer = weight.scorer(ctx);
+            if (scorer != null) {
+                matchCount += scorer.iterator().cost();
+            }
+        }
+        return matchCount;
+    }
+
     /** Get a value source given its configuration. A return value of null indicates that
      *  no value source could be built. */
     @Nullable
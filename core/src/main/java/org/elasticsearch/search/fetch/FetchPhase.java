@@ -55,6 +55,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -139,10 +140,18 @@ public class FetchPhase implements SearchPhase {
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        LeafReaderContext subReaderContext = null;
+        int subReaderEndDocId = -1;
+        // hits are loaded in doc id order, so that stored fields are read sequentially within each segment and the
+        // decompressed blocks are reused across hits, but are returned in the order of docIdsToLoad
+        for (long docIdAndIndex : sortByDocId(context.docIdsToLoad(), context.docIdsToLoadFrom(), context.docIdsToLoadSize())) {
+            int docId = (int) (docIdAndIndex >>> 32);
+            int index = (int) docIdAndIndex;
+            if (docId >= subReaderEndDocId) {
+                subReaderContext = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                subReaderEndDocId = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+            }
             int subDocId = docId - subReaderContext.docBase;
 
             final InternalSearchHit searchHit;
@@ -171,6 +180,19 @@ public class FetchPhase implements SearchPhase {
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
     }
 
+    /**
+     * Returns the doc ids to load in ascending order, each one in the upper 32 bits of a long whose lower 32 bits hold
+     * its index in the docIdsToLoad array (relative to <code>from</code>).
+     */
+    static long[] sortByDocId(int[] docIdsToLoad, int from, int size) {
+        final long[] docIdsAndIndices = new long[size];
+        for (int index = 0; index < size; index++) {
+            docIdsAndIndices[index] = ((long) docIdsToLoad[from + index] << 32) | index;
+        }
+        Arrays.sort(docIdsAndIndices);
+        return docIdsAndIndices;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitSet bits = context.bitsetFilterCache().getBitSetProducer(Queries.newNonNestedFilter()).getBitSet(subReaderContext);
@@ -18,20 +18,29 @@
  */
 package org.elasticsearch.search.fetch.fielddata;
 
-import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHitField;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Query sub phase which pulls data from field data (using the cache if
  * available, building it if not).
+ * <p>
+ * Search requests that ask for docvalue fields and disable <code>_source</code> only load the metadata stored fields
+ * of the hits, such as their <code>_uid</code>, so hits are built from doc values without parsing any source.
  *
  * Specifying {@code "fielddata_fields": ["field1", "field2"]}
  */
@@ -52,26 +61,47 @@ public final class FieldDataFieldsFetchSubPhase implements FetchSubPhase {
     };
 
     @Override
-    public void hitExecute(SearchContext context, HitContext hitContext) {
-        if (context.getFetchSubPhaseContext(CONTEXT_FACTORY).hitExecutionNeeded() == false) {
+    public void hitsExecute(SearchContext context, InternalSearchHit[] hits) {
+        FieldDataFieldsContext fieldDataFieldsContext = context.getFetchSubPhaseContext(CONTEXT_FACTORY);
+        if (hits.length == 0 || fieldDataFieldsContext.hitExecutionNeeded() == false) {
             return;
         }
-        for (FieldDataFieldsContext.FieldDataField field : context.getFetchSubPhaseContext(CONTEXT_FACTORY).fields()) {
-            if (hitContext.hit().fieldsOrNull() == null) {
-                hitContext.hit().fields(new HashMap<>(2));
-            }
-            SearchHitField hitField = hitContext.hit().fields().get(field.name());
-            if (hitField == null) {
-                hitField = new InternalSearchHitField(field.name(), new ArrayList<>(2));
-                hitContext.hit().fields().put(field.name(), hitField);
-            }
+        // the values are read one field at a time over the hits in doc id order, so that the doc values of each
+        // field are loaded once per segment and read forward
+        InternalSearchHit[] sortedHits = hits.clone();
+        Arrays.sort(sortedHits, Comparator.comparingInt(InternalSearchHit::docId));
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        for (FieldDataFieldsContext.FieldDataField field : fieldDataFieldsContext.fields()) {
             MappedFieldType fieldType = context.mapperService().fullName(field.name());
-            if (fieldType != null) {
-                AtomicFieldData data = context.fieldData().getForField(fieldType).load(hitContext.readerContext());
-                ScriptDocValues values = data.getScriptValues();
-                values.setNextDocId(hitContext.docId());
-                hitField.values().addAll(values.getValues());
+            IndexFieldData<?> indexFieldData = fieldType == null ? null : context.fieldData().getForField(fieldType);
+            LeafReaderContext leaf = null;
+            int leafEndDocId = -1;
+            ScriptDocValues<?> values = null;
+            for (InternalSearchHit hit : sortedHits) {
+                List<Object> hitValues = hitValues(hit, field.name());
+                if (indexFieldData == null) {
+                    continue;
+                }
+                if (hit.docId() >= leafEndDocId) {
+                    leaf = leaves.get(ReaderUtil.subIndex(hit.docId(), leaves));
+                    leafEndDocId = leaf.docBase + leaf.reader().maxDoc();
+                    values = indexFieldData.load(leaf).getScriptValues();
+                }
+                values.setNextDocId(hit.docId() - leaf.docBase);
+                hitValues.addAll(values.getValues());
             }
         }
     }
+
+    private static List<Object> hitValues(InternalSearchHit hit, String field) {
+        if (hit.fieldsOrNull() == null) {
+            hit.fields(new HashMap<>(2));
+        }
+        SearchHitField hitField = hit.fields().get(field);
+        if (hitField == null) {
+            hitField = new InternalSearchHitField(field, new ArrayList<>(2));
+            hit.fields().put(field, hitField);
+        }
+        return hitField.values();
+    }
 }
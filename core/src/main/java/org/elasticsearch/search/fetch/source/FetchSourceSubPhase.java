@@ -22,6 +22,9 @@ package org.elasticsearch.search.fetch.source;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
@@ -43,16 +46,26 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
         }
 
         SourceLookup source = context.lookup().source();
-        Object value = source.filter(fetchSourceContext.includes(), fetchSourceContext.excludes());
         try {
             final int initialCapacity = Math.min(1024, source.internalSourceRef().length());
             BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
-            XContentBuilder builder = new XContentBuilder(context.lookup().source().sourceContentType().xContent(), streamOutput);
-            builder.value(value);
-            hitContext.hit().sourceRef(builder.bytes());
+            if (source.source() == null) {
+                // the source has not been parsed into a map yet, filter its bytes directly rather than building a map
+                // that would only be serialized again
+                try (XContentParser parser = XContentHelper.createParser(source.internalSourceRef())) {
+                    XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+                    parser.nextToken();
+                    XContentMapValues.filter(parser, builder, fetchSourceContext.includes(), fetchSourceContext.excludes());
+                    hitContext.hit().sourceRef(builder.bytes());
+                }
+            } else {
+                Object value = source.filter(fetchSourceContext.includes(), fetchSourceContext.excludes());
+                XContentBuilder builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
+                builder.value(value);
+                hitContext.hit().sourceRef(builder.bytes());
+            }
         } catch (IOException e) {
             throw new ElasticsearchException("Error filtering source", e);
         }
-
     }
 }
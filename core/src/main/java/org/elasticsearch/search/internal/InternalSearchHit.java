@@ -45,6 +45,7 @@ import org.elasticsearch.search.lookup.SourceLookup;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -417,9 +418,12 @@ public class InternalSearchHit implements SearchHit {
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
-        List<SearchHitField> metaFields = new ArrayList<>();
-        List<SearchHitField> otherFields = new ArrayList<>();
+        // most hits don't have any fields, so don't allocate the lists for each of them
+        List<SearchHitField> metaFields = Collections.emptyList();
+        List<SearchHitField> otherFields = Collections.emptyList();
         if (fields != null && !fields.isEmpty()) {
+            metaFields = new ArrayList<>();
+            otherFields = new ArrayList<>();
             for (SearchHitField field : fields.values()) {
                 if (field.values().isEmpty()) {
                     continue;
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.mapper.MapperService;
@@ -34,6 +35,12 @@ import java.util.List;
  */
 public class InternalSearchHitField implements SearchHitField {
 
+    // the values of doc value fields all have the same type, which is then written once for all values
+    private static final byte GENERIC_VALUES = 0;
+    private static final byte LONG_VALUES = 1;
+    private static final byte DOUBLE_VALUES = 2;
+    private static final byte STRING_VALUES = 3;
+
     private String name;
     private List<Object> values;
 
@@ -99,8 +106,24 @@ public class InternalSearchHitField implements SearchHitField {
         name = in.readString();
         int size = in.readVInt();
         values = new ArrayList<>(size);
+        byte valuesType = in.getVersion().onOrAfter(Version.V_5_0_0_alpha5) ? in.readByte() : GENERIC_VALUES;
         for (int i = 0; i < size; i++) {
-            values.add(in.readGenericValue());
+            switch (valuesType) {
+                case LONG_VALUES:
+                    values.add(in.readZLong());
+                    break;
+                case DOUBLE_VALUES:
+                    values.add(in.readDouble());
+                    break;
+                case STRING_VALUES:
+                    values.add(in.readString());
+                    break;
+                case GENERIC_VALUES:
+                    values.add(in.readGenericValue());
+                    break;
+                default:
+                    throw new IOException("Unknown type of values [" + valuesType + "]");
+            }
         }
     }
 
@@ -108,8 +131,48 @@ public class InternalSearchHitField implements SearchHitField {
     public void writeTo(StreamOutput out) throws IOException {
         out.writeString(name);
         out.writeVInt(values.size());
+        final byte valuesType;
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            valuesType = valuesType(values);
+            out.writeByte(valuesType);
+        } else {
+            valuesType = GENERIC_VALUES;
+        }
+        for (Object value : values) {
+            switch (valuesType) {
+                case LONG_VALUES:
+                    out.writeZLong((Long) value);
+                    break;
+                case DOUBLE_VALUES:
+                    out.writeDouble((Double) value);
+                    break;
+                case STRING_VALUES:
+                    out.writeString((String) value);
+                    break;
+                default:
+                    out.writeGenericValue(value);
+                    break;
+            }
+        }
+    }
+
+    private static byte valuesType(List<Object> values) {
+        if (values.isEmpty()) {
+            return GENERIC_VALUES;
+        }
+        final Class<?> clazz = values.get(0) == null ? null : values.get(0).getClass();
         for (Object value : values) {
-            out.writeGenericValue(value);
+            if (value == null || value.getClass() != clazz) {
+                return GENERIC_VALUES;
+            }
+        }
+        if (clazz == Long.class) {
+            return LONG_VALUES;
+        } else if (clazz == Double.class) {
+            return DOUBLE_VALUES;
+        } else if (clazz == String.class) {
+            return STRING_VALUES;
         }
+        return GENERIC_VALUES;
     }
 }
\ No newline at end of file
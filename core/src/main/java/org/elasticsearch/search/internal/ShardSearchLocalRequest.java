@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -68,6 +69,7 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
     private SearchSourceBuilder source;
     private Boolean requestCache;
     private long nowInMillis;
+    private long pointInTimeId = -1;
 
     private boolean profile;
 
@@ -75,12 +77,13 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
     }
 
     ShardSearchLocalRequest(SearchRequest searchRequest, ShardRouting shardRouting, int numberOfShards,
-                            String[] filteringAliases, long nowInMillis) {
+                            String[] filteringAliases, long nowInMillis, long pointInTimeId) {
         this(shardRouting.shardId(), numberOfShards, searchRequest.searchType(),
                 searchRequest.source(), searchRequest.types(), searchRequest.requestCache());
         this.scroll = searchRequest.scroll();
         this.filteringAliases = filteringAliases;
         this.nowInMillis = nowInMillis;
+        this.pointInTimeId = pointInTimeId;
     }
 
     public ShardSearchLocalRequest(String[] types, long nowInMillis) {
@@ -154,6 +157,11 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         return scroll;
     }
 
+    @Override
+    public long pointInTimeId() {
+        return pointInTimeId;
+    }
+
     @Override
     public void setProfile(boolean profile) {
         this.profile = profile;
@@ -178,6 +186,9 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
         filteringAliases = in.readStringArray();
         nowInMillis = in.readVLong();
         requestCache = in.readOptionalBoolean();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            pointInTimeId = in.readLong();
+        }
     }
 
     protected void innerWriteTo(StreamOutput out, boolean asKey) throws IOException {
@@ -205,6 +216,10 @@ public class ShardSearchLocalRequest implements ShardSearchRequest {
             out.writeVLong(nowInMillis);
         }
         out.writeOptionalBoolean(requestCache);
+        if (!asKey && out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            // cached results are bound to the reader they were computed on already
+            out.writeLong(pointInTimeId);
+        }
     }
 
     @Override
@@ -55,6 +55,11 @@ public interface ShardSearchRequest {
 
     Scroll scroll();
 
+    /**
+     * Returns the id of the point in time reader of the shard to search, or <code>-1</code> to search the current reader.
+     */
+    long pointInTimeId();
+
     /**
      * Sets if this shard search needs to be profiled or not
      * @param profile True if the shard should be profiled
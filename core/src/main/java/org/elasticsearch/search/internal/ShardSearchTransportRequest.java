@@ -52,7 +52,13 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
 
     public ShardSearchTransportRequest(SearchRequest searchRequest, ShardRouting shardRouting, int numberOfShards,
                                        String[] filteringAliases, long nowInMillis) {
-        this.shardSearchLocalRequest = new ShardSearchLocalRequest(searchRequest, shardRouting, numberOfShards, filteringAliases, nowInMillis);
+        this(searchRequest, shardRouting, numberOfShards, filteringAliases, nowInMillis, -1);
+    }
+
+    public ShardSearchTransportRequest(SearchRequest searchRequest, ShardRouting shardRouting, int numberOfShards,
+                                       String[] filteringAliases, long nowInMillis, long pointInTimeId) {
+        this.shardSearchLocalRequest = new ShardSearchLocalRequest(searchRequest, shardRouting, numberOfShards, filteringAliases,
+            nowInMillis, pointInTimeId);
         this.originalIndices = new OriginalIndices(searchRequest);
     }
 
@@ -123,6 +129,11 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
         return shardSearchLocalRequest.scroll();
     }
 
+    @Override
+    public long pointInTimeId() {
+        return shardSearchLocalRequest.pointInTimeId();
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
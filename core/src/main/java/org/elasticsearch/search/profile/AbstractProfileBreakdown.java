@@ -87,6 +87,14 @@ public abstract class AbstractProfileBreakdown<T extends Enum<T>> {
         return Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Additional information about the execution of the profiled element, like decisions that were made to execute it.
+     * Empty by default.
+     */
+    public Map<String, Object> toDebugMap() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Add <code>other</code>'s timings into this breakdown
      * @param other Another Breakdown to merge with this one
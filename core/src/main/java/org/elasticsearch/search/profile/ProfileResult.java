@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.profile;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -50,18 +51,26 @@ public final class ProfileResult implements Writeable, ToXContent {
     private static final ParseField NODE_TIME = new ParseField("time");
     private static final ParseField CHILDREN = new ParseField("children");
     private static final ParseField BREAKDOWN = new ParseField("breakdown");
+    private static final ParseField DEBUG = new ParseField("debug");
 
     private final String type;
     private final String description;
     private final Map<String, Long> timings;
+    private final Map<String, Object> debug;
     private final long nodeTime;
     private final List<ProfileResult> children;
 
     public ProfileResult(String type, String description, Map<String, Long> timings, List<ProfileResult> children,
             long nodeTime) {
+        this(type, description, timings, Collections.emptyMap(), children, nodeTime);
+    }
+
+    public ProfileResult(String type, String description, Map<String, Long> timings, Map<String, Object> debug,
+            List<ProfileResult> children, long nodeTime) {
         this.type = type;
         this.description = description;
         this.timings = timings;
+        this.debug = debug;
         this.children = children;
         this.nodeTime = nodeTime;
     }
@@ -79,6 +88,11 @@ public final class ProfileResult implements Writeable, ToXContent {
         for (int i = 0; i < timingsSize; ++i) {
             timings.put(in.readString(), in.readLong());
         }
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            this.debug = in.readMap();
+        } else {
+            this.debug = Collections.emptyMap();
+        }
 
         int size = in.readVInt();
         this.children = new ArrayList<>(size);
@@ -98,6 +112,9 @@ public final class ProfileResult implements Writeable, ToXContent {
             out.writeString(entry.getKey());
             out.writeLong(entry.getValue());
         }
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeMap(debug);
+        }
         out.writeVInt(children.size());
         for (ProfileResult child : children) {
             child.writeTo(out);
@@ -125,6 +142,13 @@ public final class ProfileResult implements Writeable, ToXContent {
         return Collections.unmodifiableMap(timings);
     }
 
+    /**
+     * Returns additional information about the execution of this node, e.g. the decisions that were made to execute it
+     */
+    public Map<String, Object> getDebugInfo() {
+        return Collections.unmodifiableMap(debug);
+    }
+
     /**
      * Returns the total time (inclusive of children) for this query node.
      *
@@ -148,6 +172,9 @@ public final class ProfileResult implements Writeable, ToXContent {
                 .field(DESCRIPTION.getPreferredName(), description)
                 .field(NODE_TIME.getPreferredName(), String.format(Locale.US, "%.10gms", getTime() / 1000000.0))
                 .field(BREAKDOWN.getPreferredName(), timings);
+        if (!debug.isEmpty()) {
+            builder.field(DEBUG.getPreferredName(), debug);
+        }
 
         if (!children.isEmpty()) {
             builder = builder.startArray(CHILDREN.getPreferredName());
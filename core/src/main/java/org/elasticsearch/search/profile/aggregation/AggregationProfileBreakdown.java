@@ -21,10 +21,30 @@ package org.elasticsearch.search.profile.aggregation;
 
 import org.elasticsearch.search.profile.AbstractProfileBreakdown;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 public class AggregationProfileBreakdown extends AbstractProfileBreakdown<AggregationTimingType> {
 
+    private final Map<String, Object> debugInfo = new HashMap<>();
+
     public AggregationProfileBreakdown() {
         super(AggregationTimingType.values());
     }
 
+    /**
+     * Add extra information about the execution of the aggregator.
+     *
+     * @see org.elasticsearch.search.aggregations.Aggregator#collectDebugInfo
+     */
+    public void addDebugInfo(String key, Object value) {
+        debugInfo.put(key, value);
+    }
+
+    @Override
+    public Map<String, Object> toDebugMap() {
+        return Collections.unmodifiableMap(debugInfo);
+    }
+
 }
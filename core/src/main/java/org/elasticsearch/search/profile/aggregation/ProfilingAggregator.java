@@ -26,6 +26,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
+import java.util.function.BiConsumer;
 
 public class ProfilingAggregator extends Aggregator {
 
@@ -81,6 +82,11 @@ public class ProfilingAggregator extends Aggregator {
         return delegate.buildEmptyAggregation();
     }
 
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        delegate.collectDebugInfo(add);
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
         return new ProfilingLeafBucketCollector(delegate.getLeafCollector(ctx), profileBreakdown);
@@ -92,6 +98,7 @@ public class ProfilingAggregator extends Aggregator {
         profileBreakdown.startTime(AggregationTimingType.INITIALIZE);
         delegate.preCollection();
         profileBreakdown.stopAndRecordTime();
+        delegate.collectDebugInfo(profileBreakdown::addDebugInfo);
         profiler.pollLastElement();
     }
 
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+
+/**
+ * Wraps the collector of the top hits of a search that is sorted by score, and publishes the score of the worst top hit
+ * to a {@link MaxScoreDisjunctionQuery.MinCompetitiveScore} once the top hits are full, so that the query can skip the
+ * documents that can't compete anymore.
+ */
+final class CompetitiveScoreCollector extends FilterCollector {
+
+    private final MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore;
+    // a min heap of the scores of the collected hits
+    private final float[] heap;
+    private int heapSize;
+
+    /**
+     * @param in                   the collector of the top hits
+     * @param numHits              the number of top hits
+     * @param minCompetitiveScore  where to publish the score of the worst top hit
+     */
+    CompetitiveScoreCollector(Collector in, int numHits, MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore) {
+        super(in);
+        this.minCompetitiveScore = minCompetitiveScore;
+        this.heap = new float[numHits];
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        return new FilterLeafCollector(super.getLeafCollector(context)) {
+            private Scorer scorer;
+
+            @Override
+            public void setScorer(Scorer scorer) throws IOException {
+                super.setScorer(scorer);
+                this.scorer = scorer;
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                offer(scorer.score());
+            }
+        };
+    }
+
+    private void offer(float score) {
+        if (heapSize < heap.length) {
+            int i = heapSize++;
+            heap[i] = score;
+            while (i > 0 && heap[(i - 1) >>> 1] > heap[i]) {
+                swap(i, (i - 1) >>> 1);
+                i = (i - 1) >>> 1;
+            }
+            if (heapSize == heap.length) {
+                minCompetitiveScore.set(heap[0]);
+            }
+        } else if (score > heap[0]) {
+            heap[0] = score;
+            int i = 0;
+            while (true) {
+                final int left = 2 * i + 1;
+                if (left >= heapSize) {
+                    break;
+                }
+                final int right = left + 1;
+                final int smallest = right < heapSize && heap[right] < heap[left] ? right : left;
+                if (heap[smallest] >= heap[i]) {
+                    break;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+            minCompetitiveScore.set(heap[0]);
+        }
+    }
+
+    private void swap(int i, int j) {
+        final float tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
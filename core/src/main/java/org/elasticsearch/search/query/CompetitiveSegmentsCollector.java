@@ -0,0 +1,150 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Wraps the collector of the top hits of a search that is sorted on a numeric field, and skips the segments whose values
+ * of this field can't compete with the top hits that have already been collected. The range of values of a segment is
+ * known from its points. Segments are still visited in the order of their doc base, because the wrapped collector breaks
+ * ties on the sort value by doc id and assumes that documents are collected in increasing doc id order: only segments
+ * whose best value is strictly worse than the values of all the top hits are skipped, so that ties are always collected.
+ *
+ * Skipped segments don't count towards the total number of hits, which is then a lower bound.
+ */
+final class CompetitiveSegmentsCollector extends FilterCollector {
+
+    private final String field;
+    private final boolean reverse;
+    private final ToLongFunction<byte[]> pointDecoder;
+    // a min heap of the best values of the collected hits, reversed for ascending sorts so that larger is always better
+    private final long[] heap;
+    private int heapSize;
+    private boolean skippedSegments;
+
+    /**
+     * @param in            the collector of the top hits
+     * @param field         the numeric field the hits are sorted by, its doc values and points must hold the same values
+     * @param reverse       <code>true</code> for a descending sort
+     * @param numHits       the number of top hits
+     * @param pointDecoder  decodes the packed value of a point of the field into the value of its doc values
+     */
+    CompetitiveSegmentsCollector(Collector in, String field, boolean reverse, int numHits, ToLongFunction<byte[]> pointDecoder) {
+        super(in);
+        this.field = field;
+        this.reverse = reverse;
+        this.pointDecoder = pointDecoder;
+        this.heap = new long[numHits];
+    }
+
+    /**
+     * Returns <code>true</code> if some segments have not been collected.
+     */
+    boolean skippedSegments() {
+        return skippedSegments;
+    }
+
+    /**
+     * Returns the best value a document of the given leaf may have, or {@link Long#MIN_VALUE} if no document has a value.
+     */
+    private long bestValue(LeafReaderContext leaf) throws IOException {
+        final PointValues points = leaf.reader().getPointValues();
+        if (points == null) {
+            return Long.MIN_VALUE;
+        }
+        final byte[] packedValue = reverse ? points.getMaxPackedValue(field) : points.getMinPackedValue(field);
+        if (packedValue == null) {
+            return Long.MIN_VALUE;
+        }
+        return orient(pointDecoder.applyAsLong(packedValue));
+    }
+
+    private long orient(long value) {
+        // ~value reverses the order without overflowing
+        return reverse ? value : ~value;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        if (heapSize == heap.length && bestValue(context) < heap[0]) {
+            // documents without a value sort last, so they can't compete either
+            skippedSegments = true;
+            throw new CollectionTerminatedException();
+        }
+        final SortedNumericDocValues values = DocValues.getSortedNumeric(context.reader(), field);
+        return new FilterLeafCollector(super.getLeafCollector(context)) {
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                values.setDocument(doc);
+                final int count = values.count();
+                if (count > 0) {
+                    // multi-valued fields sort on their largest value in descending order and their smallest value otherwise
+                    offer(orient(reverse ? values.valueAt(count - 1) : values.valueAt(0)));
+                }
+            }
+        };
+    }
+
+    private void offer(long value) {
+        if (heapSize < heap.length) {
+            int i = heapSize++;
+            heap[i] = value;
+            while (i > 0 && heap[(i - 1) >>> 1] > heap[i]) {
+                swap(i, (i - 1) >>> 1);
+                i = (i - 1) >>> 1;
+            }
+        } else if (value > heap[0]) {
+            heap[0] = value;
+            int i = 0;
+            while (true) {
+                final int left = 2 * i + 1;
+                if (left >= heapSize) {
+                    break;
+                }
+                final int right = left + 1;
+                final int smallest = right < heapSize && heap[right] < heap[left] ? right : left;
+                if (heap[smallest] >= heap[i]) {
+                    break;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        final long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisiPriorityQueue;
+import org.apache.lucene.search.DisiWrapper;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.PerFieldSimilarityWrapper;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A disjunction of term queries that only matches the documents that may compete with the top hits of the search,
+ * following the MaxScore algorithm. Each clause has an upper bound of its score: once the top hits are full, the
+ * clauses whose upper bounds sum up to less than the score of the worst top hit can't produce a competitive hit on
+ * their own, so only the other clauses are iterated to find candidates, and the scores of candidates are only
+ * completed as long as they may still be competitive.
+ * <p>
+ * The upper bound of the score of a term is only known for the BM25 similarity, where the score of a term never
+ * exceeds <code>boost * idf * (k1 + 1)</code>. The score of the worst top hit is shared with the collector of the top
+ * hits through a {@link MinCompetitiveScore}. Documents that are skipped are not counted in the total number of hits.
+ */
+final class MaxScoreDisjunctionQuery extends Query {
+
+    /** The minimum number of clauses of a disjunction for it to be worth using MaxScore. */
+    static final int MIN_CLAUSES = 2;
+
+    /**
+     * Scores of the clauses are computed in floats, the upper bounds are slightly increased to cover rounding errors.
+     */
+    private static final double MAX_SCORE_TOLERANCE = 1e-5;
+
+    /**
+     * The score that a hit must exceed in order to compete with the top hits that have been collected so far.
+     */
+    static final class MinCompetitiveScore {
+        private float value = Float.NEGATIVE_INFINITY;
+
+        float get() {
+            return value;
+        }
+
+        void set(float value) {
+            assert value >= this.value;
+            this.value = value;
+        }
+    }
+
+    private final List<Query> clauses;
+    private final int minShouldMatch;
+    private final MinCompetitiveScore minCompetitiveScore;
+
+    /**
+     * @param clauses   term queries, optionally wrapped in a {@link BoostQuery}
+     */
+    MaxScoreDisjunctionQuery(List<Query> clauses, int minShouldMatch, MinCompetitiveScore minCompetitiveScore) {
+        this.clauses = clauses;
+        this.minShouldMatch = minShouldMatch;
+        this.minCompetitiveScore = minCompetitiveScore;
+    }
+
+    /**
+     * Returns the given query with its scoring disjunction of terms replaced with a {@link MaxScoreDisjunctionQuery}, or
+     * <code>null</code> if it has none, e.g. because the disjunction is a clause of a query that adds other scores to
+     * it. The query must be rewritten already.
+     */
+    static Query rewrite(Query query, IndexSearcher searcher, MinCompetitiveScore minCompetitiveScore) throws IOException {
+        final Similarity similarity = searcher.getSimilarity(true);
+        for (int i = 1; i < 16; i++) {
+            for (int j = 1; j <= i; j++) {
+                if (similarity.coord(j, i) != 1f) {
+                    // scores of boolean queries are not plain sums
+                    return null;
+                }
+            }
+        }
+        return rewrite(query, similarity, minCompetitiveScore);
+    }
+
+    private static Query rewrite(Query query, Similarity similarity, MinCompetitiveScore minCompetitiveScore) {
+        if (query instanceof BoostQuery) {
+            final BoostQuery boostQuery = (BoostQuery) query;
+            final Query rewritten = rewrite(boostQuery.getQuery(), similarity, minCompetitiveScore);
+            return rewritten == null ? null : new BoostQuery(rewritten, boostQuery.getBoost());
+        }
+        if (query instanceof BooleanQuery == false) {
+            return null;
+        }
+        final BooleanQuery booleanQuery = (BooleanQuery) query;
+        final List<Query> terms = new ArrayList<>();
+        if (flattenDisjunction(booleanQuery, 1f, terms)) {
+            if (terms.size() < MIN_CLAUSES || booleanQuery.getMinimumNumberShouldMatch() > terms.size()) {
+                return null;
+            }
+            for (Query term : terms) {
+                if (hasMaxScore(term, similarity) == false) {
+                    return null;
+                }
+            }
+            return new MaxScoreDisjunctionQuery(terms, Math.max(1, booleanQuery.getMinimumNumberShouldMatch()), minCompetitiveScore);
+        }
+        // the score of a conjunction whose other clauses are filters is the score of its scoring clause
+        BooleanClause scoringClause = null;
+        boolean hasFilters = false;
+        for (BooleanClause clause : booleanQuery.clauses()) {
+            if (clause.getOccur() == Occur.FILTER) {
+                hasFilters = true;
+            } else if (clause.isScoring()) {
+                if (scoringClause != null) {
+                    return null;
+                }
+                scoringClause = clause;
+            }
+        }
+        if (scoringClause == null
+            || (scoringClause.getOccur() == Occur.SHOULD && hasFilters && booleanQuery.getMinimumNumberShouldMatch() == 0)) {
+            // no scoring clause or an optional one
+            return null;
+        }
+        final Query rewritten = rewrite(scoringClause.getQuery(), similarity, minCompetitiveScore);
+        if (rewritten == null) {
+            return null;
+        }
+        final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.setDisableCoord(booleanQuery.isCoordDisabled());
+        builder.setMinimumNumberShouldMatch(booleanQuery.getMinimumNumberShouldMatch());
+        for (BooleanClause clause : booleanQuery.clauses()) {
+            builder.add(clause == scoringClause ? rewritten : clause.getQuery(), clause.getOccur());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds the terms of the given disjunction to <code>terms</code>, also the ones of nested disjunctions since their
+     * scores add up the same, and returns <code>true</code> if the disjunction only consists of terms.
+     */
+    private static boolean flattenDisjunction(BooleanQuery booleanQuery, float boost, List<Query> terms) {
+        for (BooleanClause clause : booleanQuery.clauses()) {
+            if (clause.getOccur() != Occur.SHOULD) {
+                return false;
+            }
+            Query query = clause.getQuery();
+            float clauseBoost = boost;
+            while (query instanceof BoostQuery) {
+                clauseBoost *= ((BoostQuery) query).getBoost();
+                query = ((BoostQuery) query).getQuery();
+            }
+            if (query instanceof TermQuery) {
+                terms.add(clauseBoost == 1f ? query : new BoostQuery(query, clauseBoost));
+            } else if (query instanceof BooleanQuery
+                    && booleanQuery.getMinimumNumberShouldMatch() <= 1
+                    && ((BooleanQuery) query).getMinimumNumberShouldMatch() <= 1) {
+                if (flattenDisjunction((BooleanQuery) query, clauseBoost, terms) == false) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TermQuery termQuery(Query query) {
+        return (TermQuery) (query instanceof BoostQuery ? ((BoostQuery) query).getQuery() : query);
+    }
+
+    private static float clauseBoost(Query query) {
+        return query instanceof BoostQuery ? ((BoostQuery) query).getBoost() : 1f;
+    }
+
+    private static Similarity fieldSimilarity(Similarity similarity, String field) {
+        return similarity instanceof PerFieldSimilarityWrapper ? ((PerFieldSimilarityWrapper) similarity).get(field) : similarity;
+    }
+
+    private static boolean hasMaxScore(Query query, Similarity similarity) {
+        return fieldSimilarity(similarity, termQuery(query).getTerm().field()).getClass() == BM25Similarity.class;
+    }
+
+    BooleanQuery toBooleanQuery() {
+        final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.setMinimumNumberShouldMatch(minShouldMatch);
+        for (Query clause : clauses) {
+            builder.add(clause, Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores) throws IOException {
+        if (needsScores == false) {
+            return searcher.createWeight(toBooleanQuery(), false);
+        }
+        final Similarity similarity = searcher.getSimilarity(true);
+        final Weight[] weights = new Weight[clauses.size()];
+        final float[] maxScoresWithoutBoost = new float[clauses.size()];
+        for (int i = 0; i < weights.length; i++) {
+            final Query clause = clauses.get(i);
+            weights[i] = searcher.createWeight(clause, true);
+            final Term term = termQuery(clause).getTerm();
+            final BM25Similarity bm25 = (BM25Similarity) fieldSimilarity(similarity, term.field());
+            final TermContext termContext = TermContext.build(searcher.getTopReaderContext(), term);
+            final float idf = bm25.idfExplain(searcher.collectionStatistics(term.field()),
+                searcher.termStatistics(term, termContext)).getValue();
+            maxScoresWithoutBoost[i] = clauseBoost(clause) * idf * (bm25.getK1() + 1);
+        }
+        return new MaxScoreWeight(weights, maxScoresWithoutBoost);
+    }
+
+    private class MaxScoreWeight extends Weight {
+
+        private final Weight[] weights;
+        private final float[] maxScoresWithoutBoost;
+        private final double[] maxScores;
+
+        MaxScoreWeight(Weight[] weights, float[] maxScoresWithoutBoost) {
+            super(MaxScoreDisjunctionQuery.this);
+            this.weights = weights;
+            this.maxScoresWithoutBoost = maxScoresWithoutBoost;
+            this.maxScores = new double[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                maxScores[i] = maxScoresWithoutBoost[i] * (1 + MAX_SCORE_TOLERANCE);
+            }
+        }
+
+        @Override
+        public void extractTerms(Set<Term> terms) {
+            for (Weight weight : weights) {
+                weight.extractTerms(terms);
+            }
+        }
+
+        @Override
+        public float getValueForNormalization() throws IOException {
+            float sum = 0;
+            for (Weight weight : weights) {
+                sum += weight.getValueForNormalization();
+            }
+            return sum;
+        }
+
+        @Override
+        public void normalize(float norm, float boost) {
+            for (int i = 0; i < weights.length; i++) {
+                // BM25 ignores the query norm
+                weights[i].normalize(norm, boost);
+                maxScores[i] = (double) maxScoresWithoutBoost[i] * boost * (1 + MAX_SCORE_TOLERANCE);
+            }
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+            final List<Explanation> subs = new ArrayList<>();
+            float score = 0;
+            for (Weight weight : weights) {
+                final Explanation explanation = weight.explain(context, doc);
+                if (explanation.isMatch()) {
+                    subs.add(explanation);
+                    score += explanation.getValue();
+                }
+            }
+            if (subs.size() < minShouldMatch) {
+                return Explanation.noMatch("less than " + minShouldMatch + " matching clauses", subs);
+            }
+            return Explanation.match(score, "sum of:", subs);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+            final List<DisiWrapper> subs = new ArrayList<>();
+            final List<Double> subMaxScores = new ArrayList<>();
+            for (int i = 0; i < weights.length; i++) {
+                final Scorer scorer = weights[i].scorer(context);
+                if (scorer != null) {
+                    subs.add(new DisiWrapper(scorer));
+                    subMaxScores.add(maxScores[i]);
+                }
+            }
+            if (subs.size() < minShouldMatch) {
+                return null;
+            }
+            return new MaxScoreScorer(this, subs, subMaxScores, minShouldMatch, minCompetitiveScore);
+        }
+    }
+
+    /**
+     * Iterates the documents that match at least <code>minShouldMatch</code> clauses and may compete with the top hits.
+     */
+    static final class MaxScoreScorer extends Scorer {
+
+        // sorted by increasing max score
+        private final DisiWrapper[] subs;
+        // sums of the max scores of the first clauses: maxScoreSums[i] is the sum of the max scores of subs[0..i]
+        private final double[] maxScoreSums;
+        private final int minShouldMatch;
+        private final MinCompetitiveScore minCompetitiveScore;
+        private final long cost;
+
+        private float minScore = Float.NEGATIVE_INFINITY;
+        // the clauses before this index can't produce competitive hits on their own
+        private int firstEssential;
+        private DisiPriorityQueue essentials;
+
+        private int doc = -1;
+        private float score;
+        private int freq;
+
+        MaxScoreScorer(Weight weight, List<DisiWrapper> subs, List<Double> maxScores, int minShouldMatch,
+                       MinCompetitiveScore minCompetitiveScore) {
+            super(weight);
+            final Integer[] order = new Integer[subs.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(maxScores::get));
+            this.subs = new DisiWrapper[order.length];
+            this.maxScoreSums = new double[order.length];
+            long cost = 0;
+            for (int i = 0; i < order.length; i++) {
+                this.subs[i] = subs.get(order[i]);
+                maxScoreSums[i] = (i == 0 ? 0 : maxScoreSums[i - 1]) + maxScores.get(order[i]);
+                cost += this.subs[i].cost;
+            }
+            this.cost = cost;
+            this.minShouldMatch = minShouldMatch;
+            this.minCompetitiveScore = minCompetitiveScore;
+            this.essentials = new DisiPriorityQueue(order.length);
+            for (DisiWrapper sub : this.subs) {
+                essentials.add(sub);
+            }
+            updateMinCompetitiveScore();
+        }
+
+        private void updateMinCompetitiveScore() {
+            final float newMinScore = minCompetitiveScore.get();
+            if (newMinScore <= minScore) {
+                return;
+            }
+            minScore = newMinScore;
+            int newFirstEssential = firstEssential;
+            while (newFirstEssential < subs.length && maxScoreSums[newFirstEssential] <= minScore) {
+                newFirstEssential++;
+            }
+            if (newFirstEssential != firstEssential) {
+                firstEssential = newFirstEssential;
+                essentials = new DisiPriorityQueue(subs.length - firstEssential);
+                for (int i = firstEssential; i < subs.length; i++) {
+                    essentials.add(subs[i]);
+                }
+            }
+        }
+
+        /**
+         * Moves to the first document on or after <code>target</code> that may be competitive.
+         */
+        private int doNext(int target) throws IOException {
+            updateMinCompetitiveScore();
+            while (true) {
+                if (essentials.size() == 0) {
+                    // the max scores of all clauses together can't compete anymore
+                    return doc = DocIdSetIterator.NO_MORE_DOCS;
+                }
+                DisiWrapper top = essentials.top();
+                while (top.doc < target) {
+                    top.doc = top.iterator.advance(target);
+                    top = essentials.updateTop();
+                }
+                final int candidate = top.doc;
+                if (candidate == DocIdSetIterator.NO_MORE_DOCS) {
+                    return doc = DocIdSetIterator.NO_MORE_DOCS;
+                }
+                double candidateScore = 0;
+                int candidateFreq = 0;
+                for (DisiWrapper w = essentials.topList(); w != null; w = w.next) {
+                    candidateScore += w.scorer.score();
+                    candidateFreq++;
+                }
+                boolean competitive = true;
+                for (int i = firstEssential - 1; i >= 0; i--) {
+                    if (candidateScore + maxScoreSums[i] <= minScore || candidateFreq + i + 1 < minShouldMatch) {
+                        competitive = false;
+                        break;
+                    }
+                    final DisiWrapper sub = subs[i];
+                    if (sub.doc < candidate) {
+                        sub.doc = sub.iterator.advance(candidate);
+                    }
+                    if (sub.doc == candidate) {
+                        candidateScore += sub.scorer.score();
+                        candidateFreq++;
+                    }
+                }
+                if (competitive && candidateFreq >= minShouldMatch) {
+                    score = (float) candidateScore;
+                    freq = candidateFreq;
+                    return doc = candidate;
+                }
+                target = candidate + 1;
+            }
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public float score() throws IOException {
+            return score;
+        }
+
+        @Override
+        public int freq() throws IOException {
+            return freq;
+        }
+
+        @Override
+        public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+                @Override
+                public int docID() {
+                    return doc;
+                }
+
+                @Override
+                public int nextDoc() throws IOException {
+                    return doNext(doc + 1);
+                }
+
+                @Override
+                public int advance(int target) throws IOException {
+                    return doNext(target);
+                }
+
+                @Override
+                public long cost() {
+                    return cost;
+                }
+            };
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        final StringBuilder builder = new StringBuilder("max_score(");
+        for (int i = 0; i < clauses.size(); i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(clauses.get(i).toString(field));
+        }
+        builder.append(')');
+        if (minShouldMatch > 1) {
+            builder.append('~').append(minShouldMatch);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        final MaxScoreDisjunctionQuery other = (MaxScoreDisjunctionQuery) obj;
+        return clauses.equals(other.clauses) && minShouldMatch == other.minShouldMatch
+            && minCompetitiveScore == other.minCompetitiveScore;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), clauses, minShouldMatch, System.identityHashCode(minCompetitiveScore));
+    }
+}
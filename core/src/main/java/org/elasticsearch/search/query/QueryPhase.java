@@ -19,6 +19,9 @@
 
 package org.elasticsearch.search.query;
 
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.MinDocQuery;
@@ -46,6 +49,9 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.core.DateFieldMapper;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.SearchService;
@@ -58,14 +64,19 @@ import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.search.sort.SortMode;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestPhase;
 
+import java.io.IOException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
 
 /**
  *
@@ -153,6 +164,7 @@ public class QueryPhase implements SearchPhase {
             Collector collector;
             Callable<TopDocs> topDocsCallable;
             DocValueFormat[] sortValueFormats = new DocValueFormat[0];
+            CompetitiveSegmentsCollector competitiveSegmentsCollector = null;
 
             assert query == searcher.rewrite(query); // already rewritten
 
@@ -221,6 +233,26 @@ public class QueryPhase implements SearchPhase {
                 if (doProfile) {
                     collector = new InternalProfileCollector(collector, CollectorResult.REASON_SEARCH_TOP_HITS, Collections.emptyList());
                 }
+                competitiveSegmentsCollector = competitiveSegmentsCollector(searchContext, collector, numDocs);
+                if (competitiveSegmentsCollector != null) {
+                    final Collector child = collector;
+                    collector = competitiveSegmentsCollector;
+                    if (doProfile) {
+                        collector = new InternalProfileCollector(collector, CollectorResult.REASON_SEARCH_COMPETITIVE_SEGMENTS,
+                                Collections.singletonList((InternalProfileCollector) child));
+                    }
+                }
+                final MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore = new MaxScoreDisjunctionQuery.MinCompetitiveScore();
+                final Query maxScoreQuery = maxScoreQuery(searchContext, searcher, query, minCompetitiveScore);
+                if (maxScoreQuery != null) {
+                    query = maxScoreQuery;
+                    final Collector child = collector;
+                    collector = new CompetitiveScoreCollector(collector, numDocs, minCompetitiveScore);
+                    if (doProfile) {
+                        collector = new InternalProfileCollector(collector, CollectorResult.REASON_SEARCH_COMPETITIVE_SCORES,
+                                Collections.singletonList((InternalProfileCollector) child));
+                    }
+                }
                 topDocsCallable = new Callable<TopDocs>() {
                     @Override
                     public TopDocs call() throws Exception {
@@ -377,6 +409,9 @@ public class QueryPhase implements SearchPhase {
             } finally {
                 searchContext.clearReleasables(SearchContext.Lifetime.COLLECTION);
             }
+            if (competitiveSegmentsCollector != null && competitiveSegmentsCollector.skippedSegments()) {
+                queryResult.terminatedEarly(true);
+            }
             if (terminateAfterSet && queryResult.terminatedEarly() == null) {
                 queryResult.terminatedEarly(false);
             }
@@ -395,4 +430,75 @@ public class QueryPhase implements SearchPhase {
             throw new QueryPhaseExecutionException(searchContext, "Failed to execute main query", e);
         }
     }
+
+    /**
+     * Returns a collector that skips the segments that can't compete with the top hits, if the index allows it and the
+     * search is sorted on a numeric field with the default sort mode and missing value, or <code>null</code> otherwise.
+     * Hits have to be collected past the top hits for scrolls and search after, and skipping segments is pointless if other
+     * collectors like aggregations have to see all matches anyway.
+     */
+    private static CompetitiveSegmentsCollector competitiveSegmentsCollector(SearchContext searchContext, Collector topDocsCollector,
+                                                                             int numHits) {
+        if (searchContext.sort() == null
+            || searchContext.scrollContext() != null
+            || searchContext.searchAfter() != null
+            || searchContext.queryCollectors().isEmpty() == false
+            || searchContext.request().source() == null
+            || searchContext.request().source().sorts() == null
+            || searchContext.request().source().sorts().get(0) instanceof FieldSortBuilder == false
+            || searchContext.mapperService().getIndexSettings().isSortEarlyTermination() == false) {
+            return null;
+        }
+        final FieldSortBuilder sort = (FieldSortBuilder) searchContext.request().source().sorts().get(0);
+        final boolean reverse = sort.order() == SortOrder.DESC;
+        if ((sort.missing() != null && "_last".equals(sort.missing()) == false)
+            || (sort.sortMode() != null && sort.sortMode() != (reverse ? SortMode.MAX : SortMode.MIN))
+            || sort.getNestedPath() != null
+            || sort.getNestedFilter() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = searchContext.mapperService().fullName(sort.getFieldName());
+        if (fieldType == null || fieldType.hasDocValues() == false || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        final ToLongFunction<byte[]> pointDecoder;
+        if (fieldType instanceof DateFieldMapper.DateFieldType) {
+            pointDecoder = packedValue -> LongPoint.decodeDimension(packedValue, 0);
+        } else if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            switch (fieldType.typeName()) {
+                case "long":
+                    pointDecoder = packedValue -> LongPoint.decodeDimension(packedValue, 0);
+                    break;
+                case "integer":
+                case "short":
+                case "byte":
+                    pointDecoder = packedValue -> IntPoint.decodeDimension(packedValue, 0);
+                    break;
+                default:
+                    // floating point values are encoded differently in doc values and points
+                    return null;
+            }
+        } else {
+            return null;
+        }
+        return new CompetitiveSegmentsCollector(topDocsCollector, fieldType.name(), reverse, numHits, pointDecoder);
+    }
+
+    /**
+     * Returns the given query with its disjunction of terms replaced with a {@link MaxScoreDisjunctionQuery} that skips the
+     * documents that can't compete with the top hits, if the search is sorted by score and doesn't need the total number of
+     * hits, or <code>null</code> otherwise.
+     */
+    private static Query maxScoreQuery(SearchContext searchContext, IndexSearcher searcher, Query query,
+                                       MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore) throws IOException {
+        if (searchContext.sort() != null
+            || searchContext.scrollContext() != null
+            || searchContext.searchAfter() != null
+            || searchContext.queryCollectors().isEmpty() == false
+            || searchContext.request().source() == null
+            || searchContext.request().source().trackTotalHits()) {
+            return null;
+        }
+        return MaxScoreDisjunctionQuery.rewrite(query, searcher, minCompetitiveScore);
+    }
 }
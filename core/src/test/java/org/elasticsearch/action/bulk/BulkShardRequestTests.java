@@ -19,6 +19,8 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
@@ -36,4 +38,13 @@ public class BulkShardRequestTests extends ESTestCase {
         r = new BulkShardRequest(new ShardId(index, "ignored", 0), RefreshPolicy.WAIT_UNTIL, new BulkItemRequest[count]);
         assertEquals("BulkShardRequest to [" + index + "] containing [" + count + "] requests blocking until refresh", r.toString());
     }
+
+    public void testOnRetry() {
+        IndexRequest indexRequest = new IndexRequest("index", "type");
+        BulkShardRequest r = new BulkShardRequest(new ShardId("index", "ignored", 0), RefreshPolicy.NONE,
+            new BulkItemRequest[] {new BulkItemRequest(0, indexRequest), null, new BulkItemRequest(2, new DeleteRequest("index"))});
+        assertFalse(indexRequest.isRetry());
+        r.onRetry();
+        assertTrue(indexRequest.isRetry());
+    }
 }
@@ -18,11 +18,15 @@
  */
 package org.elasticsearch.action.index;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -30,6 +34,7 @@ import java.util.Set;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -131,4 +136,45 @@ public class IndexRequestTests extends ESTestCase {
         assertThat(validate, notNullValue());
         assertThat(validate.getMessage(), containsString("ttl must not be negative"));
     }
+    public void testAutoGeneratedTimestamp() throws IOException {
+        IndexRequest indexRequest = new IndexRequest("index", "type");
+        assertThat(indexRequest.getAutoGeneratedTimestamp(), equalTo(IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP));
+        indexRequest.process(null, true, "index");
+        assertNotNull(indexRequest.id());
+        assertThat(indexRequest.getAutoGeneratedTimestamp(), greaterThanOrEqualTo(0L));
+        assertFalse(indexRequest.isRetry());
+
+        IndexRequest withId = new IndexRequest("index", "type", "1");
+        withId.process(null, true, "index");
+        assertThat(withId.getAutoGeneratedTimestamp(), equalTo(IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP));
+
+        indexRequest.onRetry();
+        assertTrue(indexRequest.isRetry());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        indexRequest.writeTo(out);
+        IndexRequest read = new IndexRequest();
+        read.readFrom(out.bytes().streamInput());
+        assertThat(read.getAutoGeneratedTimestamp(), equalTo(indexRequest.getAutoGeneratedTimestamp()));
+        assertTrue(read.isRetry());
+    }
+
+    public void testAutoGeneratedTimestampSerializationBwc() throws IOException {
+        IndexRequest indexRequest = new IndexRequest("index", "type");
+        indexRequest.source("{}");
+        indexRequest.process(null, true, "index");
+        indexRequest.onRetry();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_0_0_alpha4);
+        indexRequest.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_0_0_alpha4);
+        IndexRequest read = new IndexRequest();
+        read.readFrom(in);
+        assertThat(in.available(), equalTo(0));
+        assertThat(read.id(), equalTo(indexRequest.id()));
+        assertThat(read.getAutoGeneratedTimestamp(), equalTo(IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP));
+        assertFalse(read.isRetry());
+    }
 }
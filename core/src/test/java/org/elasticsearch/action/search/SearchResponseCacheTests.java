@@ -0,0 +1,184 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SearchResponseCacheTests extends ESTestCase {
+
+    private final ClusterState state = ClusterState.builder(ClusterName.DEFAULT).metaData(MetaData.builder().version(1)).build();
+
+    private static SearchResponseCache newCache() {
+        return new SearchResponseCache(Settings.builder().put(SearchResponseCache.EXPIRE_SETTING.getKey(), "1m").build());
+    }
+
+    private static SearchRequest newRequest(String value) {
+        return new SearchRequest("index").source(new SearchSourceBuilder().query(QueryBuilders.termQuery("field", value)));
+    }
+
+    private static SearchResponse newResponse(ShardSearchFailure... failures) {
+        return new SearchResponse(InternalSearchResponse.empty(), null, 1, 1 - failures.length, 1, failures);
+    }
+
+    public void testDisabledByDefault() throws Exception {
+        SearchResponseCache cache = new SearchResponseCache(Settings.EMPTY);
+        assertNull(cache.key(newRequest("foo"), state));
+    }
+
+    public void testKey() throws Exception {
+        SearchResponseCache cache = newCache();
+        SearchResponseCache.Key key = cache.key(newRequest("foo"), state);
+        assertThat(cache.key(newRequest("foo"), state), equalTo(key));
+        assertThat(cache.key(newRequest("bar"), state), not(equalTo(key)));
+        ClusterState newState = ClusterState.builder(state).metaData(MetaData.builder(state.metaData()).version(2)).build();
+        assertThat(cache.key(newRequest("foo"), newState), not(equalTo(key)));
+        assertNull(cache.key(newRequest("foo").scroll(TimeValue.timeValueMinutes(1)), state));
+        assertNull(cache.key(newRequest("foo").requestCache(false), state));
+    }
+
+    public void testCoalesceAndCache() throws Exception {
+        SearchResponseCache cache = newCache();
+        SearchResponseCache.Key key = cache.key(newRequest("foo"), state);
+        List<ActionListener<SearchResponse>> searches = new ArrayList<>();
+        List<AtomicReference<SearchResponse>> responses = new ArrayList<>();
+        int numSearches = randomIntBetween(2, 10);
+        for (int i = 0; i < numSearches; i++) {
+            AtomicReference<SearchResponse> response = new AtomicReference<>();
+            responses.add(response);
+            cache.execute(key, searches::add, listener(response, new AtomicReference<>()));
+        }
+        assertThat(searches.size(), equalTo(1));
+        assertThat(cache.stats().getMissCount(), equalTo(1L));
+        assertThat(cache.stats().getCoalescedCount(), equalTo((long) numSearches - 1));
+
+        SearchResponse response = newResponse();
+        searches.get(0).onResponse(response);
+        for (AtomicReference<SearchResponse> received : responses) {
+            assertThat(received.get(), sameInstance(response));
+        }
+
+        AtomicReference<SearchResponse> cached = new AtomicReference<>();
+        cache.execute(key, searches::add, listener(cached, new AtomicReference<>()));
+        assertThat(searches.size(), equalTo(1));
+        assertThat(cached.get(), sameInstance(response));
+        assertThat(cache.stats().getHitCount(), equalTo(1L));
+    }
+
+    public void testFailuresAreNotCached() throws Exception {
+        SearchResponseCache cache = newCache();
+        SearchResponseCache.Key key = cache.key(newRequest("foo"), state);
+        List<ActionListener<SearchResponse>> searches = new ArrayList<>();
+
+        AtomicReference<SearchResponse> first = new AtomicReference<>();
+        AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        AtomicReference<Exception> secondFailure = new AtomicReference<>();
+        cache.execute(key, searches::add, listener(first, firstFailure));
+        cache.execute(key, searches::add, listener(new AtomicReference<>(), secondFailure));
+        Exception e = new IllegalStateException("boom");
+        searches.get(0).onFailure(e);
+        assertThat(firstFailure.get(), sameInstance(e));
+        assertThat(secondFailure.get(), sameInstance(e));
+
+        // responses with shard failures are not cached either
+        cache.execute(key, searches::add, listener(first, firstFailure));
+        assertThat(searches.size(), equalTo(2));
+        SearchResponse partial = newResponse(new ShardSearchFailure(new IllegalStateException("boom")));
+        searches.get(1).onResponse(partial);
+        assertThat(first.get(), sameInstance(partial));
+
+        cache.execute(key, searches::add, listener(first, firstFailure));
+        assertThat(searches.size(), equalTo(3));
+        assertThat(cache.stats().getHitCount(), equalTo(0L));
+
+        // a search that fails to start releases the searches that wait for it
+        SearchResponseCache.Key otherKey = cache.key(newRequest("bar"), state);
+        AtomicReference<Exception> startFailure = new AtomicReference<>();
+        cache.execute(otherKey, l -> {
+            throw new IllegalArgumentException("can't start");
+        }, listener(new AtomicReference<>(), startFailure));
+        assertThat(startFailure.get().getMessage(), equalTo("can't start"));
+    }
+
+    public void testSizeInBytes() throws Exception {
+        SearchResponseCache cache = newCache();
+        SearchResponseCache.Key key = cache.key(newRequest("foo"), state);
+        SearchResponse response = newResponse();
+        cache.execute(key, l -> l.onResponse(response), listener(new AtomicReference<>(), new AtomicReference<>()));
+        long entrySize = cache.stats().getMemorySizeInBytes();
+        assertThat(entrySize, greaterThan(SearchResponseCache.serializedSize(response)));
+
+        // only a single response fits in the cache
+        cache = new SearchResponseCache(Settings.builder()
+            .put(SearchResponseCache.EXPIRE_SETTING.getKey(), "1m")
+            .put(SearchResponseCache.SIZE_SETTING.getKey(), (entrySize + 1) + "b")
+            .build());
+        for (String value : new String[] {"foo", "bar"}) {
+            cache.execute(cache.key(newRequest(value), state), l -> l.onResponse(newResponse()),
+                listener(new AtomicReference<>(), new AtomicReference<>()));
+        }
+        SearchResponseCacheStats stats = cache.stats();
+        assertThat(stats.getMemorySizeInBytes(), equalTo(entrySize));
+        assertThat(stats.getEvictions(), equalTo(1L));
+        assertThat(stats.getMissCount(), equalTo(2L));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        SearchResponseCacheStats read = new SearchResponseCacheStats(out.bytes().streamInput());
+        assertThat(read.getMemorySizeInBytes(), equalTo(stats.getMemorySizeInBytes()));
+        assertThat(read.getEvictions(), equalTo(stats.getEvictions()));
+        assertThat(read.getHitCount(), equalTo(stats.getHitCount()));
+        assertThat(read.getMissCount(), equalTo(stats.getMissCount()));
+        assertThat(read.getCoalescedCount(), equalTo(stats.getCoalescedCount()));
+    }
+
+    private static ActionListener<SearchResponse> listener(AtomicReference<SearchResponse> response,
+                                                           AtomicReference<Exception> failure) {
+        return new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                response.set(searchResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        };
+    }
+}
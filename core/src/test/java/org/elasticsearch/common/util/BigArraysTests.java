@@ -20,6 +20,7 @@
 package org.elasticsearch.common.util;
 
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -37,7 +38,8 @@ import java.util.Arrays;
 public class BigArraysTests extends ESSingleNodeTestCase {
 
     private BigArrays randombigArrays() {
-        return new MockBigArrays(Settings.EMPTY, new NoneCircuitBreakerService());
+        Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_SETTING.getKey(), randomBoolean()).build();
+        return new MockBigArrays(settings, new NoneCircuitBreakerService());
     }
 
     private BigArrays bigArrays;
@@ -248,6 +250,27 @@ public class BigArraysTests extends ESSingleNodeTestCase {
         array2.close();
     }
 
+    public void testByteArrayBulkGetWithScratch() {
+        final byte[] array1 = new byte[randomIntBetween(1, 4000000)];
+        random().nextBytes(array1);
+        final ByteArray array2 = bigArrays.newByteArray(array1.length, randomBoolean());
+        array2.set(0, array1, 0, array1.length);
+        final BytesRef ref = new BytesRef();
+        final BytesRefBuilder scratch = new BytesRefBuilder();
+        scratch.grow(array1.length);
+        final byte[] scratchBytes = scratch.bytes();
+        for (int i = 0; i < 1000; ++i) {
+            final int offset = randomInt(array1.length - 1);
+            final int len = randomInt(Math.min(randomBoolean() ? 10 : Integer.MAX_VALUE, array1.length - offset));
+            if (array2.get(offset, len, ref, scratch)) {
+                // materialized slices are copied to the scratch buffer, which is large enough already
+                assertSame(scratchBytes, ref.bytes);
+            }
+            assertEquals(new BytesRef(array1, offset, len), ref);
+        }
+        array2.close();
+    }
+
     public void testByteArrayBulkSet() {
         final byte[] array1 = new byte[randomIntBetween(1, 4000000)];
         random().nextBytes(array1);
@@ -377,4 +400,26 @@ public class BigArraysTests extends ESSingleNodeTestCase {
         }
     }
 
+    public void testDirectPagesAreAccountedInRequestBreaker() throws Exception {
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        Settings settings = Settings.builder().put(PageCacheRecycler.DIRECT_SETTING.getKey(), true).build();
+        PageCacheRecycler recycler = new PageCacheRecycler(settings);
+        assertTrue(recycler.isDirect());
+        BigArrays bigArrays = new BigArrays(recycler, hcbs, false).withCircuitBreaking();
+        final long size = randomIntBetween(BigArrays.LONG_PAGE_SIZE + 1, 10 * BigArrays.LONG_PAGE_SIZE);
+        LongArray array = bigArrays.newLongArray(size);
+        assertTrue(array instanceof BigDirectLongArray);
+        for (long i = 0; i < size; ++i) {
+            assertEquals(0L, array.get(i));
+        }
+        assertEquals(array.ramBytesUsed(), hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        array = bigArrays.resize(array, size * 2);
+        assertTrue(array instanceof BigDirectLongArray);
+        assertEquals(array.ramBytesUsed(), hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        array.close();
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        recycler.close();
+    }
+
 }
@@ -551,4 +551,59 @@ public class XContentMapValuesTests extends ESTestCase {
                     parser.list());
         }
     }
+
+    public void testStreamingFilterMatchesMapFilter() throws IOException {
+        XContentBuilder builder = XContentFactory.contentBuilder(randomFrom(XContentType.values())).startObject()
+                .field("field", "value")
+                .field("null_field", (String) null)
+                .startObject("obj")
+                    .field("field", 1)
+                    .startObject("empty").endObject()
+                    .startObject("inner").field("field", true).field("other", "value").endObject()
+                .endObject()
+                .startArray("array")
+                    .startObject().field("field", "value1").field("other", "value2").endObject()
+                    .startObject().field("other", "value3").endObject()
+                    .value(3)
+                    .startArray().value(1).startObject().field("field", 2).endObject().endArray()
+                    .startArray().startObject().field("other", 3).endObject().endArray()
+                .endArray()
+                .startArray("empty_array").endArray()
+                .endObject();
+        Map<String, Object> source = XContentHelper.convertToMap(builder.bytes(), true).v2();
+
+        String[][] filters = new String[][] {
+            Strings.EMPTY_ARRAY, new String[] {"field"}, new String[] {"obj"}, new String[] {"obj.*"},
+            new String[] {"obj.inner.field"}, new String[] {"*.field"}, new String[] {"array"}, new String[] {"array.field"},
+            new String[] {"array.*"}, new String[] {"empty_array"}, new String[] {"null_field", "obj.empty"},
+            new String[] {"nonexisting"}, new String[] {"*"}, new String[] {"obj.inner"}, new String[] {"obj.inner.*"}
+        };
+        for (String[] includes : filters) {
+            for (String[] excludes : filters) {
+                Map<String, Object> expected = XContentMapValues.filter(source, includes, excludes);
+                XContentBuilder filtered = XContentFactory.contentBuilder(builder.contentType());
+                try (XContentParser parser = XContentHelper.createParser(builder.bytes())) {
+                    parser.nextToken();
+                    XContentMapValues.filter(parser, filtered, includes, excludes);
+                }
+                assertThat("includes " + Arrays.toString(includes) + ", excludes " + Arrays.toString(excludes),
+                        XContentHelper.convertToMap(filtered.bytes(), true).v2(), equalTo(expected));
+            }
+        }
+    }
+
+    public void testStreamingFilterPreservesOrder() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .field("c", 1)
+                .field("b", 2)
+                .field("x", 3)
+                .field("a", 4)
+                .endObject();
+        XContentBuilder filtered = XContentFactory.jsonBuilder();
+        try (XContentParser parser = XContentHelper.createParser(builder.bytes())) {
+            parser.nextToken();
+            XContentMapValues.filter(parser, filtered, Strings.EMPTY_ARRAY, new String[] {"x"});
+        }
+        assertThat(filtered.string(), equalTo("{\"c\":1,\"b\":2,\"a\":4}"));
+    }
 }
@@ -18,8 +18,17 @@
  */
 package org.elasticsearch.index;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
+import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
@@ -31,6 +40,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
 import static org.elasticsearch.index.IndexSettingsTests.newIndexMeta;
@@ -119,6 +129,50 @@ public class MergePolicySettingsTests extends ESTestCase {
         assertEquals(((TieredMergePolicy) indexSettings.getMergePolicy()).getSegmentsPerTier(), MergePolicyConfig.DEFAULT_SEGMENTS_PER_TIER, 0);
     }
 
+    public void testTimeSeriesMergePolicy() throws IOException {
+        assertTrue(indexSettings(Settings.EMPTY).getMergePolicy() instanceof TieredMergePolicy);
+        IndexSettings indexSettings = indexSettings(Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), MergePolicyConfig.TIME_SERIES_MERGE_POLICY).build());
+        assertTrue(indexSettings.getMergePolicy() instanceof LogByteSizeMergePolicy);
+        LogByteSizeMergePolicy mergePolicy = (LogByteSizeMergePolicy) indexSettings.getMergePolicy();
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGE_AT_ONCE, mergePolicy.getMergeFactor());
+        assertEquals(MergePolicyConfig.DEFAULT_FLOOR_SEGMENT.mbFrac(), mergePolicy.getMinMergeMB(), 0.0001);
+        // merging max_merge_at_once segments doesn't produce segments that are larger than max_merged_segment
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGED_SEGMENT.mbFrac() / MergePolicyConfig.DEFAULT_MAX_MERGE_AT_ONCE,
+            mergePolicy.getMaxMergeMB(), 0.0001);
+        assertEquals(0.1, mergePolicy.getNoCFSRatio(), 0.0);
+        assertEquals(MergePolicyConfig.DEFAULT_EXPUNGE_DELETES_ALLOWED,
+            ((MergePolicyConfig.TimeSeriesMergePolicy) mergePolicy).getForceMergeDeletesPctAllowed(), 0.0);
+
+        indexSettings.updateIndexMetaData(newIndexMeta("index", Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), MergePolicyConfig.TIME_SERIES_MERGE_POLICY)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGE_AT_ONCE_SETTING.getKey(), 5)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.MB))
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.GB))
+            .put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), 0.5)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_EXPUNGE_DELETES_ALLOWED_SETTING.getKey(), 20)
+            .build()));
+        assertSame(mergePolicy, indexSettings.getMergePolicy());
+        assertEquals(5, mergePolicy.getMergeFactor());
+        assertEquals(1, mergePolicy.getMinMergeMB(), 0.0001);
+        assertEquals(1024 / 5d, mergePolicy.getMaxMergeMB(), 0.0001);
+        assertEquals(0.5, mergePolicy.getNoCFSRatio(), 0.0);
+        assertEquals(20, ((MergePolicyConfig.TimeSeriesMergePolicy) mergePolicy).getForceMergeDeletesPctAllowed(), 0.0);
+
+        // changing only max_merge_at_once still caps the size of merged segments
+        indexSettings.updateIndexMetaData(newIndexMeta("index", Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), MergePolicyConfig.TIME_SERIES_MERGE_POLICY)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGE_AT_ONCE_SETTING.getKey(), 8)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.GB))
+            .build()));
+        assertEquals(8, mergePolicy.getMergeFactor());
+        assertEquals(1024 / 8d, mergePolicy.getMaxMergeMB(), 0.0001);
+
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> indexSettings(Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_doc").build()));
+        assertEquals("unknown value for [index.merge.policy.type] must be one of [tiered, time_series] but was: log_doc", e.getMessage());
+    }
+
     public Settings build(String value) {
         return Settings.builder().put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), value).build();
     }
@@ -135,5 +189,38 @@ public class MergePolicySettingsTests extends ESTestCase {
         return Settings.builder().put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), value).build();
     }
 
-
+    public void testTimeSeriesExpungeDeletes() throws IOException {
+        MergePolicyConfig.TimeSeriesMergePolicy mergePolicy = new MergePolicyConfig.TimeSeriesMergePolicy();
+        mergePolicy.setForceMergeDeletesPctAllowed(20);
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            // three segments of ten documents each, with 50%, 10% and 30% of deleted documents
+            int[] deletes = new int[] {5, 1, 3};
+            for (int segment = 0; segment < deletes.length; segment++) {
+                for (int i = 0; i < 10; i++) {
+                    Document doc = new Document();
+                    doc.add(new StringField("id", segment + "_" + i, Field.Store.NO));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+            for (int segment = 0; segment < deletes.length; segment++) {
+                for (int i = 0; i < deletes[segment]; i++) {
+                    writer.deleteDocuments(new Term("id", segment + "_" + i));
+                }
+            }
+            writer.commit();
+
+            SegmentInfos segmentInfos = SegmentInfos.readLatestCommit(dir);
+            assertEquals(3, segmentInfos.size());
+            MergePolicy.MergeSpecification spec = mergePolicy.findForcedDeletesMerges(segmentInfos, writer);
+            // only the first and the last segment have too many deletes, and they are not adjacent
+            assertEquals(2, spec.merges.size());
+            assertEquals(Collections.singletonList(segmentInfos.info(0)), spec.merges.get(0).segments);
+            assertEquals(Collections.singletonList(segmentInfos.info(2)), spec.merges.get(1).segments);
+
+            mergePolicy.setForceMergeDeletesPctAllowed(50);
+            assertNull(mergePolicy.findForcedDeletesMerges(segmentInfos, writer));
+        }
+    }
 }
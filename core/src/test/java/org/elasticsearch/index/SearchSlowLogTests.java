@@ -102,6 +102,11 @@ public class SearchSlowLogTests extends ESSingleNodeTestCase {
                         return null;
                     }
 
+                    @Override
+                    public long pointInTimeId() {
+                        return -1;
+                    }
+
                     @Override
                     public void setProfile(boolean profile) {
 
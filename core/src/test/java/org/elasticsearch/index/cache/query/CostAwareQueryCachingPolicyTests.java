@@ -0,0 +1,162 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class CostAwareQueryCachingPolicyTests extends ESTestCase {
+
+    public void testMinFrequencyBeforeFirstBuild() throws Exception {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query term = new TermQuery(new Term("foo", "bar"));
+        Query bool = new BooleanQuery.Builder().add(term, Occur.MUST).add(new TermQuery(new Term("foo", "baz")), Occur.MUST).build();
+        Query range = TermRangeQuery.newStringRange("foo", "a", "b", true, true);
+        for (Query query : new Query[] {term, bool, range}) {
+            int minFrequency = CostAwareQueryCachingPolicy.minFrequencyToCache(query);
+            for (int i = 1; i < minFrequency; i++) {
+                policy.onUse(query);
+                assertFalse(policy.shouldCache(query));
+            }
+            policy.onUse(query);
+            assertTrue(policy.shouldCache(query));
+        }
+        assertThat(CostAwareQueryCachingPolicy.minFrequencyToCache(term), equalTo(20));
+        assertThat(CostAwareQueryCachingPolicy.minFrequencyToCache(bool), equalTo(5));
+        assertThat(CostAwareQueryCachingPolicy.minFrequencyToCache(range), equalTo(2));
+    }
+
+    public void testNeverCache() throws Exception {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = new MatchAllDocsQuery();
+        for (int i = 0; i < 100; i++) {
+            policy.onUse(query);
+        }
+        assertFalse(policy.shouldCache(query));
+        assertTrue(policy.stats().getTopRejectedFilters().isEmpty());
+    }
+
+    public void testBenefitPerByte() throws Exception {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy(10);
+        Query expensive = TermRangeQuery.newStringRange("foo", "a", "b", true, true);
+        Query cheap = TermRangeQuery.newStringRange("foo", "c", "d", true, true);
+        for (Query query : new Query[] {expensive, cheap}) {
+            policy.onUse(query);
+            policy.onUse(query);
+            assertTrue(policy.shouldCache(query));
+        }
+        // 2 uses * 1000ns >= 10 * 100 bytes
+        policy.onCache(expensive, 1000, 100, 10, 100);
+        // 2 uses * 1000ns < 10 * 1000 bytes
+        policy.onCache(cheap, 1000, 1000, 50, 100);
+        assertTrue(policy.shouldCache(expensive));
+        assertFalse(policy.shouldCache(cheap));
+        // until it gets used more often
+        for (int i = 0; i < 3; i++) {
+            policy.onUse(cheap);
+            assertFalse(policy.shouldCache(cheap));
+        }
+        for (int i = 0; i < 5; i++) {
+            policy.onUse(cheap);
+        }
+        assertTrue(policy.shouldCache(cheap));
+    }
+
+    public void testUsesDecay() throws Exception {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = TermRangeQuery.newStringRange("foo", "a", "b", true, true);
+        policy.onUse(query);
+        // other filters are used in the meantime
+        for (int i = 0; i < CostAwareQueryCachingPolicy.HISTORY_SIZE; i++) {
+            policy.onUse(new TermQuery(new Term("foo", Integer.toString(i))));
+        }
+        policy.onUse(query);
+        assertFalse(policy.shouldCache(query));
+        policy.onUse(query);
+        assertTrue(policy.shouldCache(query));
+    }
+
+    public void testStats() throws Exception {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < 2 * QueryCacheStats.TOP_FILTERS; i++) {
+            Query query = TermRangeQuery.newStringRange("foo", "a", Integer.toString(i), true, true);
+            queries.add(query);
+            policy.onUse(query);
+            assertFalse(policy.shouldCache(query));
+        }
+        for (int i = 0; i < queries.size(); i += 2) {
+            Query query = queries.get(i);
+            policy.onUse(query);
+            assertTrue(policy.shouldCache(query));
+            policy.onCache(query, 1000 * (i + 1), 10, 5, 10);
+        }
+        QueryCacheStats stats = policy.stats();
+        assertThat(stats.getTopCachedFilters().size(), equalTo(QueryCacheStats.TOP_FILTERS));
+        assertThat(stats.getTopRejectedFilters().size(), equalTo(QueryCacheStats.TOP_FILTERS));
+        // the filter that is the most expensive to build comes first
+        QueryCacheStats.FilterStats first = stats.getTopCachedFilters().get(0);
+        assertThat(first.getQuery(), equalTo(queries.get(queries.size() - 2).toString()));
+        assertThat(first.getBuildTimeInNanos(), equalTo(1000L * (queries.size() - 1)));
+        assertThat(first.getSelectivity(), equalTo(0.5));
+
+        // the stats of the same filters on different shards get merged
+        QueryCacheStats merged = new QueryCacheStats();
+        merged.add(stats);
+        merged.add(stats);
+        assertThat(merged.getTopCachedFilters().size(), equalTo(QueryCacheStats.TOP_FILTERS));
+        assertThat(merged.getTopCachedFilters().get(0).getBuilds(), equalTo(2L));
+        assertThat(merged.getTopRejectedFilters().get(0).getRejections(), equalTo(2L));
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        merged.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        QueryCacheStats read = QueryCacheStats.readQueryCacheStats(in);
+        assertThat(read.getTopCachedFilters().size(), equalTo(QueryCacheStats.TOP_FILTERS));
+        assertThat(read.getTopCachedFilters().get(0).getQuery(), equalTo(first.getQuery()));
+        assertThat(read.getTopCachedFilters().get(0).getBenefit(), equalTo(merged.getTopCachedFilters().get(0).getBenefit()));
+        assertThat(read.getTopRejectedFilters().size(), equalTo(QueryCacheStats.TOP_FILTERS));
+
+        // nodes on older versions don't know about the top filters
+        out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_0_0_alpha4);
+        merged.writeTo(out);
+        in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_0_0_alpha4);
+        read = QueryCacheStats.readQueryCacheStats(in);
+        assertThat(in.available(), equalTo(0));
+        assertThat(read.getTopCachedFilters().size(), equalTo(0));
+        assertThat(read.getTopRejectedFilters().size(), equalTo(0));
+    }
+}
@@ -80,6 +80,7 @@ import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MetadataFieldMapper;
 import org.elasticsearch.index.mapper.ParseContext.Document;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.mapper.object.RootObjectMapper;
@@ -132,6 +133,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -204,7 +206,8 @@ public class InternalEngineTests extends ESTestCase {
         return new EngineConfig(openMode, config.getShardId(), config.getThreadPool(), config.getIndexSettings(), config.getWarmer(),
             config.getStore(), config.getDeletionPolicy(), config.getMergePolicy(), config.getAnalyzer(), config.getSimilarity(),
             new CodecService(null, logger), config.getEventListener(), config.getTranslogRecoveryPerformer(), config.getQueryCache(),
-            config.getQueryCachingPolicy(), config.getTranslogConfig(), config.getFlushMergesAfter(), config.getRefreshListeners());
+            config.getQueryCachingPolicy(), config.getTranslogConfig(), config.getFlushMergesAfter(), config.getRefreshListeners(),
+            config.getIndicesMergeScheduler());
     }
 
     @Override
@@ -304,7 +307,7 @@ public class InternalEngineTests extends ESTestCase {
         EngineConfig config = new EngineConfig(openMode, shardId, threadPool, indexSettings, null, store, createSnapshotDeletionPolicy(),
                 mergePolicy, iwc.getAnalyzer(), iwc.getSimilarity(), new CodecService(null, logger), listener,
                 new TranslogHandler(shardId.getIndexName(), logger), IndexSearcher.getDefaultQueryCache(),
-                IndexSearcher.getDefaultQueryCachingPolicy(), translogConfig, TimeValue.timeValueMinutes(5), null);
+                IndexSearcher.getDefaultQueryCachingPolicy(), translogConfig, TimeValue.timeValueMinutes(5), null, null);
 
         return config;
     }
@@ -1429,6 +1432,148 @@ public class InternalEngineTests extends ESTestCase {
         }
     }
 
+    public void testEnsureNotStaleOnReplica() {
+        final VersionType versionType = VersionType.INTERNAL.versionTypeForReplicationAndRecovery();
+        // unknown documents are never stale
+        replicaEngine.ensureNotStale("test", "1", newUid("1"), 1L, versionType);
+
+        ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), B_1, null);
+        Engine.Index index = new Engine.Index(newUid("1"), doc, 2L, versionType, REPLICA, 0);
+        replicaEngine.index(index);
+        expectThrows(VersionConflictEngineException.class, () -> replicaEngine.ensureNotStale("test", "1", newUid("1"), 1L, versionType));
+        expectThrows(VersionConflictEngineException.class, () -> replicaEngine.ensureNotStale("test", "1", newUid("1"), 2L, versionType));
+        replicaEngine.ensureNotStale("test", "1", newUid("1"), 3L, versionType);
+
+        Engine.Delete delete = new Engine.Delete("test", "1", newUid("1"), 3L, versionType, REPLICA, 0, false);
+        replicaEngine.delete(delete);
+        expectThrows(VersionConflictEngineException.class, () -> replicaEngine.ensureNotStale("test", "1", newUid("1"), 2L, versionType));
+        replicaEngine.ensureNotStale("test", "1", newUid("1"), 4L, versionType);
+    }
+
+    public void testRealtimeGetSourceCache() throws IOException {
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(IndexSettings.INDEX_REALTIME_GET_SOURCE_CACHE_SIZE_SETTING.getKey(), "1b").build());
+        try (Store store = createStore();
+             InternalEngine engine = createEngine(indexSettings, store, createTempDir(), NoMergePolicy.INSTANCE)) {
+            ParsedDocument doc = testParsedDocument("1", "1", "test", "routing", -1, -1, testDocument(), B_1, null);
+            engine.index(new Engine.Index(newUid("1"), doc));
+            assertThat(engine.getVersionValue(newUid("1")), instanceOf(SourceVersionValue.class));
+            Engine.GetResult getResult = engine.get(new Engine.Get(true, newUid("1")));
+            assertThat(getResult.exists(), equalTo(true));
+            assertThat(getResult.version(), equalTo(1L));
+            assertThat(getResult.source().source, equalTo(B_1));
+            assertThat(getResult.source().routing, equalTo("routing"));
+            getResult.release();
+
+            // the version map is full, sources of new documents are read from the translog
+            doc = testParsedDocument("2", "2", "test", null, -1, -1, testDocument(), B_2, null);
+            engine.index(new Engine.Index(newUid("2"), doc));
+            assertThat(engine.getVersionValue(newUid("2")), not(instanceOf(SourceVersionValue.class)));
+            getResult = engine.get(new Engine.Get(true, newUid("2")));
+            assertThat(getResult.exists(), equalTo(true));
+            assertThat(getResult.source().source, equalTo(B_2));
+            getResult.release();
+
+            // until the next refresh
+            engine.refresh("test");
+            assertThat(engine.getVersionValue(newUid("1")), nullValue());
+            doc = testParsedDocument("3", "3", "test", null, -1, -1, testDocument(), B_3, null);
+            engine.index(new Engine.Index(newUid("3"), doc));
+            assertThat(engine.getVersionValue(newUid("3")), instanceOf(SourceVersionValue.class));
+
+            // a document that is updated is not served from the cached source of its previous version
+            doc = testParsedDocument("3", "3", "test", null, -1, -1, testDocument(), B_1, null);
+            engine.index(new Engine.Index(newUid("3"), doc));
+            getResult = engine.get(new Engine.Get(true, newUid("3")));
+            assertThat(getResult.version(), equalTo(2L));
+            assertThat(getResult.source().source, equalTo(B_1));
+            getResult.release();
+        }
+    }
+
+    public void testAppendOnlyAutoGeneratedIds() throws IOException {
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(EngineConfig.INDEX_OPTIMIZE_AUTO_GENERATED_ID_SETTING.getKey(), true).build());
+        try (Store store = createStore();
+             Engine engine = createEngine(indexSettings, store, createTempDir(), NoMergePolicy.INSTANCE)) {
+            final boolean retryFirst = randomBoolean();
+            final long autoGeneratedIdTimestamp = randomIntBetween(0, 1000);
+            ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), B_1, null);
+            Engine.Index original = new Engine.Index(newUid("1"), doc, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY,
+                System.nanoTime(), autoGeneratedIdTimestamp, false);
+            Engine.Index retry = new Engine.Index(newUid("1"), doc, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY,
+                System.nanoTime(), autoGeneratedIdTimestamp, true);
+            if (retryFirst) {
+                assertTrue(engine.index(retry));
+                // the retry raised the watermark, so the original operation has to look up the id
+                assertFalse(engine.index(original));
+            } else {
+                assertTrue(engine.index(original));
+                assertFalse(engine.index(retry));
+            }
+            assertThat(retry.version(), equalTo(retryFirst ? 1L : 2L));
+            assertThat(original.version(), equalTo(retryFirst ? 2L : 1L));
+
+            // a document with a later auto-generated id is appended as is
+            ParsedDocument doc2 = testParsedDocument("2", "2", "test", null, -1, -1, testDocument(), B_1, null);
+            Engine.Index append = new Engine.Index(newUid("2"), doc2, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY,
+                System.nanoTime(), autoGeneratedIdTimestamp + 1, false);
+            assertTrue(engine.index(append));
+            assertThat(append.version(), equalTo(1L));
+            // and is still visible to realtime gets
+            try (Engine.GetResult get = engine.get(new Engine.Get(true, newUid("2")))) {
+                assertTrue(get.exists());
+            }
+
+            engine.refresh("test");
+            try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+                TopDocs topDocs = searcher.searcher().search(new MatchAllDocsQuery(), 10);
+                assertThat(topDocs.totalHits, equalTo(2));
+            }
+        }
+    }
+
+    public void testReplayedAutoGeneratedIdsAreNotAppendedAgain() throws IOException {
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", Settings.builder()
+            .put(defaultSettings.getSettings())
+            .put(EngineConfig.INDEX_OPTIMIZE_AUTO_GENERATED_ID_SETTING.getKey(), true).build());
+        final long autoGeneratedIdTimestamp = randomIntBetween(0, 1000);
+        // the same uid as the one that the translog replay parses the document to
+        final Term uid = newUid(Uid.createUid("test", "1"));
+        final ParsedDocument doc = testParsedDocument(uid.text(), "1", "test", null, -1, -1, testDocument(), new BytesArray("{}"), null);
+        try (Store store = createStore()) {
+            final Path translogPath = createTempDir();
+            try (Engine replica = createEngine(indexSettings, store, translogPath, NoMergePolicy.INSTANCE)) {
+                Engine.Index original = new Engine.Index(uid, doc, 1L, VersionType.INTERNAL.versionTypeForReplicationAndRecovery(),
+                    REPLICA, System.nanoTime(), autoGeneratedIdTimestamp, false);
+                assertTrue(replica.index(original));
+            }
+            final MockDirectoryWrapper directory = DirectoryUtils.getLeaf(store.directory(), MockDirectoryWrapper.class);
+            if (directory != null) {
+                // since we rollback the IW we are writing the same segment files again after starting IW but MDW prevents
+                // this so we have to disable the check explicitly
+                directory.setPreventDoubleWrite(false);
+            }
+
+            // the operation is replayed from the translog, as it would be when the shard recovers from its own translog or from a peer
+            try (Engine replica = createEngine(indexSettings, store, translogPath, NoMergePolicy.INSTANCE)) {
+                assertEquals(1, ((TranslogHandler) replica.config().getTranslogRecoveryPerformer()).recoveredOps.get());
+                // a copy of the same operation that is replicated once the shard is started must not be appended a second time
+                Engine.Index replicated = new Engine.Index(uid, doc, 1L, VersionType.INTERNAL.versionTypeForReplicationAndRecovery(),
+                    REPLICA, System.nanoTime(), autoGeneratedIdTimestamp, false);
+                expectThrows(VersionConflictEngineException.class, () -> replica.index(replicated));
+
+                replica.refresh("test");
+                try (Engine.Searcher searcher = replica.acquireSearcher("test")) {
+                    TopDocs topDocs = searcher.searcher().search(new MatchAllDocsQuery(), 10);
+                    assertThat(topDocs.totalHits, equalTo(1));
+                }
+            }
+        }
+    }
+
     public void testVersioningReplicaConflict2() {
         ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), B_1, null);
         Engine.Index index = new Engine.Index(newUid("1"), doc);
@@ -2076,7 +2221,7 @@ public class InternalEngineTests extends ESTestCase {
                 config.getIndexSettings(), null, store, createSnapshotDeletionPolicy(), newMergePolicy(), config.getAnalyzer(),
                 config.getSimilarity(), new CodecService(null, logger), config.getEventListener(), config.getTranslogRecoveryPerformer(),
                 IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), translogConfig,
-                TimeValue.timeValueMinutes(5), config.getRefreshListeners());
+                TimeValue.timeValueMinutes(5), config.getRefreshListeners(), null);
 
         try {
             InternalEngine internalEngine = new InternalEngine(brokenConfig);
@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.plain.SortedSetDVOrdinalsIndexFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class GlobalOrdinalsBuilderTests extends ESTestCase {
+
+    private static final ESLogger logger = Loggers.getLogger(GlobalOrdinalsBuilderTests.class);
+
+    public void testReuseOrdinalMapForSameSegments() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numDocs = scaledRandomIntBetween(32, 128);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", String.valueOf(i), Field.Store.NO));
+            doc.add(new SortedSetDocValuesField("field", new BytesRef(String.valueOf(i % 17))));
+            iw.addDocument(doc);
+            if (i % 10 == 9) {
+                iw.commit();
+            }
+        }
+        iw.commit();
+        DirectoryReader first = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), new ShardId("_index", "_na_", 0));
+        SortedSetDVOrdinalsIndexFieldData ifd = new SortedSetDVOrdinalsIndexFieldData(createIndexSettings(),
+            new IndexFieldDataCache.None(), "field", new NoneCircuitBreakerService());
+        InternalGlobalOrdinalsIndexFieldData firstOrdinals = build(first, ifd, null);
+
+        // deletes only: same segments, new reader
+        iw.deleteDocuments(new Term("id", "0"));
+        DirectoryReader second = DirectoryReader.openIfChanged(first);
+        assertNotNull(second);
+        InternalGlobalOrdinalsIndexFieldData secondOrdinals = build(second, ifd, firstOrdinals);
+        assertThat(secondOrdinals.getOrdinalMap(), sameInstance(firstOrdinals.getOrdinalMap()));
+        assertSameTerms(second, secondOrdinals, build(second, ifd, null));
+
+        // a new segment: the ordinal map must be rebuilt
+        Document doc = new Document();
+        doc.add(new StringField("id", String.valueOf(numDocs), Field.Store.NO));
+        doc.add(new SortedSetDocValuesField("field", new BytesRef("new_term")));
+        iw.addDocument(doc);
+        DirectoryReader third = DirectoryReader.openIfChanged(second);
+        assertNotNull(third);
+        InternalGlobalOrdinalsIndexFieldData thirdOrdinals = build(third, ifd, secondOrdinals);
+        assertThat(thirdOrdinals.getOrdinalMap(), not(sameInstance(secondOrdinals.getOrdinalMap())));
+        assertThat(thirdOrdinals.getOrdinalMap().getValueCount(), equalTo(secondOrdinals.getOrdinalMap().getValueCount() + 1));
+
+        third.close();
+        second.close();
+        first.close();
+        iw.close();
+        dir.close();
+    }
+
+    public void testIncrementalBuild() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int id = 0;
+        for (; id < 50; id++) {
+            addDocument(iw, id);
+            if (id % 10 == 9) {
+                iw.commit();
+            }
+        }
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), new ShardId("_index", "_na_", 0));
+        SortedSetDVOrdinalsIndexFieldData ifd = new SortedSetDVOrdinalsIndexFieldData(createIndexSettings(),
+            new IndexFieldDataCache.None(), "field", new NoneCircuitBreakerService());
+        InternalGlobalOrdinalsIndexFieldData previous = build(reader, ifd, null, true);
+        assertThat(previous.getOrdinalMap(), not(instanceOf(IncrementalGlobalOrdinalMap.class)));
+        int iters = randomIntBetween(1, 10);
+        for (int i = 0; i < iters; i++) {
+            int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; j++) {
+                addDocument(iw, id++);
+            }
+            DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+            assertNotNull(newReader);
+            InternalGlobalOrdinalsIndexFieldData incremental = build(newReader, ifd, previous, true);
+            assertThat(incremental.getOrdinalMap(), instanceOf(IncrementalGlobalOrdinalMap.class));
+            InternalGlobalOrdinalsIndexFieldData full = build(newReader, ifd, null, true);
+            assertThat(incremental.getOrdinalMap().getValueCount(), equalTo(full.getOrdinalMap().getValueCount()));
+            assertSameTerms(newReader, incremental, full);
+            // the incremental build must only kick in when it is enabled
+            assertThat(build(newReader, ifd, previous, false).getOrdinalMap(), not(instanceOf(IncrementalGlobalOrdinalMap.class)));
+            reader.close();
+            reader = newReader;
+            previous = incremental;
+        }
+
+        // once a segment of the previous reader is gone, global ordinals are built from scratch
+        for (int i = 0; i < 10; i++) {
+            iw.deleteDocuments(new Term("id", String.valueOf(i)));
+        }
+        addDocument(iw, id);
+        DirectoryReader merged = DirectoryReader.openIfChanged(reader);
+        assertNotNull(merged);
+        assertThat(build(merged, ifd, previous, true).getOrdinalMap(), not(instanceOf(IncrementalGlobalOrdinalMap.class)));
+
+        merged.close();
+        reader.close();
+        iw.close();
+        dir.close();
+    }
+
+    private static void addDocument(IndexWriter iw, int id) throws Exception {
+        Document doc = new Document();
+        doc.add(new StringField("id", String.valueOf(id), Field.Store.NO));
+        int numValues = randomIntBetween(0, 3);
+        for (int i = 0; i < numValues; i++) {
+            // a mix of terms that are shared with other segments and terms that are unique to this segment
+            String value = randomBoolean() ? randomAsciiOfLength(1) : randomAsciiOfLengthBetween(2, 10);
+            doc.add(new SortedSetDocValuesField("field", new BytesRef(value)));
+        }
+        iw.addDocument(doc);
+    }
+
+    private static InternalGlobalOrdinalsIndexFieldData build(DirectoryReader reader, IndexOrdinalsFieldData ifd,
+                                                              IndexOrdinalsFieldData previous) throws Exception {
+        return build(reader, ifd, previous, false);
+    }
+
+    private static InternalGlobalOrdinalsIndexFieldData build(DirectoryReader reader, IndexOrdinalsFieldData ifd,
+                                                              IndexOrdinalsFieldData previous, boolean incremental) throws Exception {
+        return (InternalGlobalOrdinalsIndexFieldData) GlobalOrdinalsBuilder.build(reader, ifd, previous,
+            createIndexSettings(incremental), new NoneCircuitBreakerService(), logger);
+    }
+
+    private static void assertSameTerms(DirectoryReader reader, IndexOrdinalsFieldData actual, IndexOrdinalsFieldData expected) {
+        for (LeafReaderContext context : reader.leaves()) {
+            RandomAccessOrds actualValues = actual.load(context).getOrdinalsValues();
+            RandomAccessOrds expectedValues = expected.load(context).getOrdinalsValues();
+            assertThat(actualValues.getValueCount(), equalTo(expectedValues.getValueCount()));
+            for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                actualValues.setDocument(doc);
+                expectedValues.setDocument(doc);
+                assertThat(actualValues.cardinality(), equalTo(expectedValues.cardinality()));
+                for (int i = 0; i < actualValues.cardinality(); i++) {
+                    assertThat(actualValues.ordAt(i), equalTo(expectedValues.ordAt(i)));
+                    assertThat(actualValues.lookupOrd(actualValues.ordAt(i)), equalTo(expectedValues.lookupOrd(expectedValues.ordAt(i))));
+                }
+            }
+        }
+    }
+
+    private static IndexSettings createIndexSettings() {
+        return createIndexSettings(false);
+    }
+
+    private static IndexSettings createIndexSettings(boolean incremental) {
+        IndexMetaData indexMetaData = IndexMetaData.builder("_name")
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexFieldDataService.INDEX_FIELDDATA_INCREMENTAL_GLOBAL_ORDINALS.getKey(), incremental))
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .creationDate(System.currentTimeMillis())
+                .build();
+        return new IndexSettings(indexMetaData, Settings.EMPTY);
+    }
+}
@@ -223,7 +223,7 @@ public abstract class ESIndexLevelReplicationTestCase extends ESTestCase {
         };
         return new IndexShard(shardRouting, indexSettings, shardPath, store, indexCache, mapperService, similarityService, null, null,
             indexEventListener, null, threadPool, BigArrays.NON_RECYCLING_INSTANCE, warmer, Collections.emptyList(),
-            Collections.emptyList());
+            Collections.emptyList(), null);
     }
 
 
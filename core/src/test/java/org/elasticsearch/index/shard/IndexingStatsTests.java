@@ -0,0 +1,71 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class IndexingStatsTests extends ESTestCase {
+
+    public void testIndexBufferSerialization() throws IOException {
+        IndexingStats.Stats stats = new IndexingStats.Stats(1, 2, 3, 4, 5, 6, 7, 8, randomBoolean(), 9, 10, 11);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                IndexingStats.Stats read = IndexingStats.Stats.readStats(in);
+                assertThat(in.available(), equalTo(0));
+                assertEquals(stats.getIndexCount(), read.getIndexCount());
+                assertEquals(stats.getThrottleTime(), read.getThrottleTime());
+                assertEquals(new ByteSizeValue(10), read.getIndexBufferSize());
+                assertEquals(new ByteSizeValue(11), read.getIndexBufferBudget());
+            }
+        }
+    }
+
+    public void testIndexBufferSerializationBwc() throws IOException {
+        IndexingStats.Stats stats = new IndexingStats.Stats(1, 2, 3, 4, 5, 6, 7, 8, randomBoolean(), 9, 10, 11);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.V_5_0_0_alpha4);
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(Version.V_5_0_0_alpha4);
+                IndexingStats.Stats read = IndexingStats.Stats.readStats(in);
+                assertThat(in.available(), equalTo(0));
+                assertEquals(stats.getThrottleTime(), read.getThrottleTime());
+                assertEquals(new ByteSizeValue(0), read.getIndexBufferSize());
+                assertEquals(new ByteSizeValue(0), read.getIndexBufferBudget());
+            }
+        }
+    }
+
+    public void testAddIndexBuffer() {
+        IndexingStats.Stats stats = new IndexingStats.Stats(1, 2, 3, 4, 5, 6, 7, 8, false, 9, 10, 11);
+        stats.add(new IndexingStats.Stats(1, 2, 3, 4, 5, 6, 7, 8, false, 9, 20, 22));
+        assertEquals(new ByteSizeValue(30), stats.getIndexBufferSize());
+        assertEquals(new ByteSizeValue(33), stats.getIndexBufferBudget());
+    }
+}
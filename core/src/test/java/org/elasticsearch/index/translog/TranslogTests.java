@@ -21,6 +21,7 @@ package org.elasticsearch.index.translog;
 
 import com.carrotsearch.randomizedtesting.generators.RandomPicks;
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.mockfile.FilterFileChannel;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -30,6 +31,8 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LineFileDocs;
 import org.apache.lucene.util.LuceneTestCase;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -43,6 +46,9 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog.Location;
 import org.elasticsearch.test.ESTestCase;
@@ -342,7 +348,7 @@ public class TranslogTests extends ESTestCase {
         assertThat(stats.estimatedNumberOfOperations(), equalTo(0L));
         assertThat(stats.getTranslogSizeInBytes(), equalTo(firstOperationPosition));
         assertEquals(6, total.estimatedNumberOfOperations());
-        assertEquals(431, total.getTranslogSizeInBytes());
+        assertEquals(455, total.getTranslogSizeInBytes());
 
         BytesStreamOutput out = new BytesStreamOutput();
         total.writeTo(out);
@@ -350,10 +356,10 @@ public class TranslogTests extends ESTestCase {
         copy.readFrom(out.bytes().streamInput());
 
         assertEquals(6, copy.estimatedNumberOfOperations());
-        assertEquals(431, copy.getTranslogSizeInBytes());
+        assertEquals(455, copy.getTranslogSizeInBytes());
         assertEquals("\"translog\"{\n" +
             "  \"operations\" : 6,\n" +
-            "  \"size_in_bytes\" : 431\n" +
+            "  \"size_in_bytes\" : 455\n" +
             "}", copy.toString().trim());
 
         try {
@@ -1128,7 +1134,7 @@ public class TranslogTests extends ESTestCase {
         try (Translog translog = new Translog(config, translogGeneration)) {
             fail("corrupted");
         } catch (IllegalStateException ex) {
-            assertEquals(ex.getMessage(), "Checkpoint file translog-2.ckp already exists but has corrupted content expected: Checkpoint{offset=2683, numOps=55, translogFileGeneration= 2} but got: Checkpoint{offset=0, numOps=0, translogFileGeneration= 0}");
+            assertEquals(ex.getMessage(), "Checkpoint file translog-2.ckp already exists but has corrupted content expected: Checkpoint{offset=3123, numOps=55, translogFileGeneration= 2} but got: Checkpoint{offset=0, numOps=0, translogFileGeneration= 0}");
         }
         Checkpoint.write(FileChannel::open, config.getTranslogPath().resolve(Translog.getCommitCheckpointFileName(read.generation)), read, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
         try (Translog translog = new Translog(config, translogGeneration)) {
@@ -1159,6 +1165,33 @@ public class TranslogTests extends ESTestCase {
         assertEquals(ops, readOperations);
     }
 
+    public void testAutoGeneratedIdTimestampSerialization() throws IOException {
+        final long autoGeneratedIdTimestamp = randomIntBetween(0, 1000);
+        ParsedDocument doc = new ParsedDocument(new NumericDocValuesField("_version", 0), "1", "test", null, -1, -1,
+            Collections.singletonList(new ParseContext.Document()), new BytesArray("{}"), null);
+        Engine.Index engineIndex = new Engine.Index(new Term("_uid", "test#1"), doc, 1L, VersionType.INTERNAL,
+            Engine.Operation.Origin.PRIMARY, System.nanoTime(), autoGeneratedIdTimestamp, false);
+        Translog.Index index = new Translog.Index(engineIndex);
+        assertEquals(autoGeneratedIdTimestamp, index.getAutoGeneratedIdTimestamp());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        Translog.writeOperations(out, Collections.singletonList(index));
+        assertEquals(Collections.singletonList(index), Translog.readOperations(out.bytes().streamInput()));
+
+        // nodes before 5.0.0-alpha5 don't know about the timestamp
+        out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_0_0_alpha4);
+        Translog.writeOperations(out, Collections.singletonList(index));
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_0_0_alpha4);
+        List<Translog.Operation> operations = Translog.readOperations(in);
+        assertEquals(1, operations.size());
+        Translog.Index read = (Translog.Index) operations.get(0);
+        assertEquals(IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP, read.getAutoGeneratedIdTimestamp());
+        assertEquals(index.id(), read.id());
+        assertEquals(index.source(), read.source());
+    }
+
     public void testLocationHashCodeEquals() throws IOException {
         List<Translog.Location> locations = new ArrayList<>();
         List<Translog.Location> locations2 = new ArrayList<>();
@@ -26,6 +26,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.LocalTransportAddress;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexSearcherWrapper;
@@ -45,6 +46,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
@@ -65,6 +67,12 @@ public class IndexingMemoryControllerTests extends ESSingleNodeTestCase {
         // Shards that are currently throttled
         final Set<IndexShard> throttled = new HashSet<>();
 
+        // How many bytes of operations each shard has applied
+        final Map<IndexShard, Long> indexingBytes = new HashMap<>();
+
+        // Share of the indexing buffer that each shard got at the last check
+        final Map<IndexShard, Long> budgets = new HashMap<>();
+
         public MockController(Settings settings) {
             super(Settings.builder()
                             .put("indices.memory.interval", "200h") // disable it
@@ -97,6 +105,22 @@ public class IndexingMemoryControllerTests extends ESSingleNodeTestCase {
             }
         }
 
+        @Override
+        protected long getShardIndexingBytes(IndexShard shard) {
+            Long bytes = indexingBytes.get(shard);
+            if (bytes == null) {
+                return 0;
+            } else {
+                return bytes;
+            }
+        }
+
+        @Override
+        protected void setIndexBufferBudget(IndexShard shard, long budget) {
+            super.setIndexBufferBudget(shard, budget);
+            budgets.put(shard, budget);
+        }
+
         @Override
         protected void checkIdle(IndexShard shard, long inactiveTimeNS) {
         }
@@ -146,6 +170,14 @@ public class IndexingMemoryControllerTests extends ESSingleNodeTestCase {
             assertEquals(expectedMB * 1024 * 1024, actual.longValue());
         }
 
+        public void assertBudget(IndexShard shard, int expectedMB) {
+            assertEquals(expectedMB * 1024 * 1024, budgets.get(shard).longValue());
+        }
+
+        public void simulateIndexingRate(IndexShard shard, int mb) {
+            indexingBytes.put(shard, getShardIndexingBytes(shard) + mb * 1024 * 1024);
+        }
+
         public void simulateIndexing(IndexShard shard) {
             Long bytes = indexBufferRAMBytesUsed.get(shard);
             if (bytes == null) {
@@ -345,6 +377,61 @@ public class IndexingMemoryControllerTests extends ESSingleNodeTestCase {
         controller.assertNotThrottled(shard1);
     }
 
+    public void testBudgetFollowsIndexingRate() throws Exception {
+        createIndex("test", Settings.builder().put("index.number_of_shards", 2).put("index.number_of_replicas", 0).build());
+        IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        IndexService test = indicesService.indexService(resolveIndex("test"));
+        IndexShard shard0 = test.getShard(0);
+        IndexShard shard1 = test.getShard(1);
+
+        final boolean writeAhead = randomBoolean();
+        final AtomicLong time = new AtomicLong();
+        MockController controller = new MockController(Settings.builder()
+                                                       .put("indices.memory.index_buffer_size", "30mb")
+                                                       .put("indices.memory.interval", "5s")
+                                                       .put("indices.memory.write_ahead", writeAhead).build()) {
+            @Override
+            protected long currentTimeInNanos() {
+                return time.get();
+            }
+        };
+        for (int i = 0; i < 14; i++) {
+            controller.simulateIndexing(shard0);
+        }
+        for (int i = 0; i < 14; i++) {
+            controller.simulateIndexing(shard1);
+        }
+        // 28 MB out of 30 MB, but we know of no indexing yet, so both shards get the same share
+        controller.assertBuffer(shard0, 14);
+        controller.assertBuffer(shard1, 14);
+        controller.assertBudget(shard0, 15);
+        controller.assertBudget(shard1, 15);
+
+        // only shard0 keeps indexing, at 1 MB/s: it gets the whole budget and the buffer of shard1 is written first, once the buffers
+        // are expected to exceed the budget before the next check
+        time.addAndGet(TimeValue.timeValueSeconds(5).nanos());
+        controller.simulateIndexingRate(shard0, 5);
+        controller.forceCheck();
+        controller.assertBudget(shard0, 30);
+        controller.assertBudget(shard1, 0);
+        controller.assertBuffer(shard0, 14);
+        controller.assertBuffer(shard1, writeAhead ? 0 : 14);
+        controller.assertWriting(shard1, writeAhead ? 14 : 0);
+        assertEquals(new ByteSizeValue(30, ByteSizeUnit.MB), shard0.indexingStats().getTotal().getIndexBufferBudget());
+
+        // the shard that exceeds its share the most is written first, even when it is not the largest one
+        controller.doneWriting(shard1);
+        for (int i = 0; i < 3; i++) {
+            controller.simulateIndexing(shard1);
+        }
+        for (int i = 0; i < 12; i++) {
+            controller.simulateIndexing(shard0);
+        }
+        controller.assertBuffer(shard0, 26);
+        controller.assertBuffer(shard1, 0);
+        controller.assertWriting(shard1, writeAhead ? 3 : 17);
+    }
+
     // #10312
     public void testDeletesAloneCanTriggerRefresh() throws Exception {
         createIndex("index",
@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class IndicesMergeSchedulerTests extends ESTestCase {
+
+    private final AtomicLong currentTimeInNanos = new AtomicLong();
+
+    private IndicesMergeScheduler newScheduler(int maxThreadCount) {
+        Settings settings = Settings.builder().put(IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.getKey(), maxThreadCount).build();
+        return new IndicesMergeScheduler(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)) {
+            @Override
+            protected long currentTimeInNanos() {
+                return currentTimeInNanos.get();
+            }
+        };
+    }
+
+    public void testUnbounded() throws Exception {
+        IndicesMergeScheduler scheduler = newScheduler(-1);
+        List<Releasable> slots = new ArrayList<>();
+        int numMerges = randomIntBetween(1, 10);
+        for (int i = 0; i < numMerges; i++) {
+            slots.add(scheduler.acquire(randomIntBetween(0, Integer.MAX_VALUE), () -> false));
+        }
+        assertThat(scheduler.getRunningCount(), equalTo(0));
+        assertThat(scheduler.getPendingCount(), equalTo(0));
+        slots.forEach(Releasable::close);
+    }
+
+    public void testMaxThreadCountSetting() {
+        assertThat(IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.get(Settings.EMPTY), equalTo(-1));
+        int maxThreadCount = randomIntBetween(1, 100);
+        Settings settings = Settings.builder().put(IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.getKey(), maxThreadCount).build();
+        assertThat(IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.get(settings), equalTo(maxThreadCount));
+        for (int invalid : new int[] {0, -2, randomIntBetween(Integer.MIN_VALUE, -2)}) {
+            Settings invalidSettings = Settings.builder().put(IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.getKey(), invalid).build();
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> IndicesMergeScheduler.MAX_THREAD_COUNT_SETTING.get(invalidSettings));
+            assertThat(e.getMessage(), containsString("must be -1 or >= 1"));
+        }
+    }
+
+    public void testMaxThreadCount() throws Exception {
+        int maxThreadCount = randomIntBetween(1, 5);
+        IndicesMergeScheduler scheduler = newScheduler(maxThreadCount);
+        List<Releasable> slots = new ArrayList<>();
+        for (int i = 0; i < maxThreadCount; i++) {
+            slots.add(scheduler.acquire(randomIntBetween(0, Integer.MAX_VALUE), () -> false));
+        }
+        assertThat(scheduler.getRunningCount(), equalTo(maxThreadCount));
+        Thread waiter = acquireAndRelease(scheduler, randomIntBetween(0, Integer.MAX_VALUE), () -> false,
+            Collections.synchronizedList(new ArrayList<>()));
+        assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(1)));
+        slots.remove(0).close();
+        waiter.join();
+        assertThat(scheduler.getPendingCount(), equalTo(0));
+        assertThat(scheduler.getRunningCount(), equalTo(maxThreadCount - 1));
+        slots.forEach(Releasable::close);
+        assertThat(scheduler.getRunningCount(), equalTo(0));
+    }
+
+    public void testSmallestMergeFirst() throws Exception {
+        IndicesMergeScheduler scheduler = newScheduler(1);
+        Releasable slot = scheduler.acquire(100, () -> false);
+        List<Long> granted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> waiters = new ArrayList<>();
+        for (long size : Arrays.asList(30L, 10L, 20L)) {
+            waiters.add(acquireAndRelease(scheduler, size, () -> false, granted));
+            final int numWaiters = waiters.size();
+            assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(numWaiters)));
+        }
+        slot.close();
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+        assertThat(granted, equalTo(Arrays.asList(10L, 20L, 30L)));
+    }
+
+    public void testLongWaitingMergeFirst() throws Exception {
+        IndicesMergeScheduler scheduler = newScheduler(1);
+        Releasable slot = scheduler.acquire(100, () -> false);
+        List<Long> granted = Collections.synchronizedList(new ArrayList<>());
+        Thread large = acquireAndRelease(scheduler, 1000, () -> false, granted);
+        assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(1)));
+        currentTimeInNanos.addAndGet(IndicesMergeScheduler.MAX_WAIT.nanos());
+        Thread small = acquireAndRelease(scheduler, 1, () -> false, granted);
+        assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(2)));
+        slot.close();
+        large.join();
+        small.join();
+        assertThat(granted, equalTo(Arrays.asList(1000L, 1L)));
+    }
+
+    public void testAbortedMergeDoesNotWait() throws Exception {
+        IndicesMergeScheduler scheduler = newScheduler(1);
+        Releasable slot = scheduler.acquire(100, () -> false);
+        AtomicBoolean aborted = new AtomicBoolean();
+        Thread waiter = acquireAndRelease(scheduler, 10, aborted::get, Collections.synchronizedList(new ArrayList<>()));
+        assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(1)));
+        aborted.set(true);
+        waiter.join();
+        assertThat(scheduler.getPendingCount(), equalTo(0));
+        assertThat(scheduler.getRunningCount(), equalTo(1));
+        slot.close();
+        assertThat(scheduler.getRunningCount(), equalTo(0));
+    }
+
+    public void testDisableReleasesWaitingMerges() throws Exception {
+        IndicesMergeScheduler scheduler = newScheduler(1);
+        Releasable slot = scheduler.acquire(100, () -> false);
+        Thread waiter = acquireAndRelease(scheduler, 10, () -> false, Collections.synchronizedList(new ArrayList<>()));
+        assertBusy(() -> assertThat(scheduler.getPendingCount(), equalTo(1)));
+        scheduler.setMaxThreadCount(-1);
+        waiter.join();
+        assertThat(scheduler.getPendingCount(), equalTo(0));
+        slot.close();
+        assertThat(scheduler.getRunningCount(), equalTo(0));
+    }
+
+    /**
+     * Starts a thread that acquires a slot for a merge of the given size, records the size and releases the slot.
+     */
+    private Thread acquireAndRelease(IndicesMergeScheduler scheduler, long size, BooleanSupplier aborted, List<Long> granted) {
+        Thread thread = new Thread(() -> {
+            try (Releasable slot = scheduler.acquire(size, aborted)) {
+                granted.add(size);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
@@ -36,6 +36,7 @@ import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesQueryCache;
@@ -328,4 +329,44 @@ public class IndicesQueryCacheTests extends ESTestCase {
         cache.close(); // this triggers some assertions
     }
 
+    public void testCostAwarePolicy() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        s.setQueryCachingPolicy(policy);
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // not used often enough yet
+        assertEquals(1, s.count(new DummyQuery(0)));
+        assertEquals(0L, cache.getStats(shard).getCacheCount());
+        assertEquals(1, policy.stats().getTopRejectedFilters().size());
+        assertEquals(0, policy.stats().getTopCachedFilters().size());
+
+        // the second use admits the query, and the cache reports what it cost to build its doc id set
+        assertEquals(1, s.count(new DummyQuery(0)));
+        assertEquals(1L, cache.getStats(shard).getCacheCount());
+        assertEquals(0, policy.stats().getTopRejectedFilters().size());
+        assertEquals(1, policy.stats().getTopCachedFilters().size());
+        QueryCacheStats.FilterStats filter = policy.stats().getTopCachedFilters().get(0);
+        assertEquals("dummy", filter.getQuery());
+        assertEquals(1L, filter.getBuilds());
+        assertEquals(1L, filter.getRejections());
+        assertEquals(1d, filter.getSelectivity(), 0d);
+        assertTrue(filter.getMemorySizeInBytes() > 0);
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close(); // this triggers some assertions
+    }
 }
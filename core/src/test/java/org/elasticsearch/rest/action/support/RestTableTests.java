@@ -20,6 +20,7 @@
 package org.elasticsearch.rest.action.support;
 
 import org.elasticsearch.common.Table;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.AbstractRestChannel;
 import org.elasticsearch.rest.RestResponse;
@@ -29,6 +30,7 @@ import org.junit.Before;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -145,6 +147,32 @@ public class RestTableTests extends ESTestCase {
         assertThat(headerNames, not(hasItem("epoch")));
     }
 
+    public void testTextPlainColumnWidths() throws Exception {
+        Table table = new Table();
+        table.startHeaders();
+        table.addCell("name");
+        table.addCell("size", "text-align:right");
+        table.endHeaders();
+        table.startRow();
+        table.addCell("a");
+        table.addCell(new ByteSizeValue(1024));
+        table.endRow();
+        table.startRow();
+        table.addCell("bbb");
+        table.addCell(new ByteSizeValue(10));
+        table.endRow();
+        Map<String, String> params = new HashMap<>();
+        params.put("v", "true");
+        params.put("bytes", "b");
+        FakeRestRequest request = new FakeRestRequest.Builder().withParams(params).build();
+        RestResponse response = buildResponse(table, new AbstractRestChannel(request, true) {
+            @Override
+            public void sendResponse(RestResponse response) {
+            }
+        });
+        assertThat(response.content().utf8ToString(), equalTo("name size\na    1024\nbbb    10\n"));
+    }
+
     private RestResponse assertResponseContentType(Map<String, String> headers, String mediaType) throws Exception {
         FakeRestRequest requestWithAcceptHeader = new FakeRestRequest.Builder().withHeaders(headers).build();
         table.startRow();
@@ -22,9 +22,14 @@ package org.elasticsearch.search;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.action.search.TransportSearchAction;
 import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.query.AbstractQueryBuilder;
@@ -34,14 +39,25 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.global.Global;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardSearchLocalRequest;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.concurrent.ExecutionException;
 
 import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -110,6 +126,63 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals(activeRefs, indexShard.store().refCount());
     }
 
+    public void testPreFilterSkipsShardsThatCannotMatch() {
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(TransportSearchAction.PRE_FILTER_SHARD_SIZE_SETTING.getKey(), 1)).get();
+        createIndex("old", Settings.EMPTY, "type", "timestamp", "type=date", "field", "type=keyword");
+        createIndex("new", Settings.EMPTY, "type", "timestamp", "type=date", "field", "type=keyword");
+        client().prepareIndex("old", "type", "1").setSource("timestamp", "2016-01-01", "field", "value")
+            .setRefreshPolicy(IMMEDIATE).get();
+        client().prepareIndex("new", "type", "1").setSource("timestamp", "2016-07-01", "field", "value")
+            .setRefreshPolicy(IMMEDIATE).get();
+
+        SearchResponse response = client().prepareSearch("old", "new")
+            .setQuery(boolQuery().must(termQuery("field", "value")).filter(rangeQuery("timestamp").gte("2016-06-01"))).get();
+        assertHitCount(response, 1);
+        assertEquals("new", response.getHits().getAt(0).getIndex());
+        assertEquals(2, response.getTotalShards());
+        assertEquals(2, response.getSuccessfulShards());
+        assertEquals(0, client().admin().indices().prepareStats("old").setSearch(true).get()
+            .getTotal().getSearch().getTotal().getQueryCount());
+        assertEquals(1, client().admin().indices().prepareStats("new").setSearch(true).get()
+            .getTotal().getSearch().getTotal().getQueryCount());
+
+        // no shard can match, one is still searched to build the response
+        response = client().prepareSearch("old", "new").setQuery(rangeQuery("timestamp").gte("2017-01-01")).get();
+        assertHitCount(response, 0);
+        assertEquals(2, response.getSuccessfulShards());
+
+        // aggregations need all shards
+        response = client().prepareSearch("old", "new").setQuery(rangeQuery("timestamp").gte("2016-06-01"))
+            .addAggregation(AggregationBuilders.global("global")).get();
+        assertHitCount(response, 1);
+        Global global = response.getAggregations().get("global");
+        assertEquals(2, global.getDocCount());
+    }
+
+    public void testCanMatchUsesTheTimeOfTheRequest() throws IOException {
+        createIndex("index", Settings.EMPTY, "type", "timestamp", "type=date");
+        client().prepareIndex("index", "type", "1").setSource("timestamp", "2016-01-01T00:00:00Z").setRefreshPolicy(IMMEDIATE).get();
+        final long timestamp = new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        IndexShard indexShard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+        SearchSourceBuilder source = new SearchSourceBuilder().query(rangeQuery("timestamp").gte("now-1h"));
+
+        // the document is half an hour old when the request is issued, although it is much older by the wall clock
+        assertTrue(service.canMatch(newShardSearchRequest(indexShard, source, timestamp + TimeValue.timeValueMinutes(30).millis())));
+        assertFalse(service.canMatch(newShardSearchRequest(indexShard, source, timestamp + TimeValue.timeValueHours(2).millis())));
+    }
+
+    private static ShardSearchRequest newShardSearchRequest(IndexShard indexShard, SearchSourceBuilder source, long nowInMillis) {
+        return new ShardSearchLocalRequest(indexShard.shardId(), 1, SearchType.QUERY_THEN_FETCH, source, Strings.EMPTY_ARRAY, null) {
+            @Override
+            public long nowInMillis() {
+                return nowInMillis;
+            }
+        };
+    }
+
     public static class FailOnRewriteQueryPlugin extends Plugin {
 
         public void onModule(SearchModule module) {
@@ -19,7 +19,20 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -41,4 +54,34 @@ public class TermsAggregatorFactoryTests extends ESSingleNodeTestCase {
         assertThat(TermsAggregatorFactory.subAggCollectionMode(1, 100),
             equalTo(Aggregator.SubAggCollectionMode.BREADTH_FIRST));
     }
+
+    public void testEstimateMatchCount() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        int numDocs = scaledRandomIntBetween(10, 1000);
+        int numFoo = 0;
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            boolean foo = randomBoolean();
+            doc.add(new StringField("field", foo ? "foo" : "bar", Field.Store.NO));
+            numFoo += foo ? 1 : 0;
+            w.addDocument(doc);
+            if (rarely()) {
+                w.commit();
+            }
+        }
+        IndexReader reader = DirectoryReader.open(w);
+        assertThat(AggregationContext.estimateMatchCount(null, reader), equalTo((long) numDocs));
+        assertThat(AggregationContext.estimateMatchCount(new MatchAllDocsQuery(), reader), equalTo((long) numDocs));
+        assertThat(AggregationContext.estimateMatchCount(new TermQuery(new Term("field", "foo")), reader),
+            equalTo((long) numFoo));
+        assertThat(AggregationContext.estimateMatchCount(new TermQuery(new Term("field", "baz")), reader), equalTo(0L));
+        BooleanQuery.Builder disjunction = new BooleanQuery.Builder();
+        disjunction.add(new TermQuery(new Term("field", "foo")), Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "bar")), Occur.SHOULD);
+        assertThat(AggregationContext.estimateMatchCount(disjunction.build(), reader), equalTo((long) numDocs));
+        reader.close();
+        w.close();
+        dir.close();
+    }
 }
@@ -19,14 +19,20 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptService.ScriptType;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.metrics.scripted.ScriptedMetricAggregationBuilder;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.equalTo;
+
 public class ScriptedMetricTests extends BaseAggregationTestCase<ScriptedMetricAggregationBuilder> {
 
     @Override
@@ -47,6 +53,9 @@ public class ScriptedMetricTests extends BaseAggregationTestCase<ScriptedMetricA
             params.put("foo", "bar");
             factory.params(params);
         }
+        if (randomBoolean()) {
+            factory.incrementalReduce(randomBoolean());
+        }
         return factory;
     }
 
@@ -58,4 +67,20 @@ public class ScriptedMetricTests extends BaseAggregationTestCase<ScriptedMetricA
         }
     }
 
+    public void testIncrementalReduceSerializationBwc() throws IOException {
+        ScriptedMetricAggregationBuilder builder = new ScriptedMetricAggregationBuilder(randomAsciiOfLengthBetween(1, 20));
+        builder.mapScript(randomScript("mapScript"));
+        builder.incrementalReduce(true);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.V_5_0_0_alpha4);
+            builder.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(Version.V_5_0_0_alpha4);
+                ScriptedMetricAggregationBuilder read = new ScriptedMetricAggregationBuilder(in);
+                assertThat(in.available(), equalTo(0));
+                assertFalse(read.incrementalReduce());
+                assertEquals(builder.mapScript(), read.mapScript());
+            }
+        }
+    }
 }
@@ -203,6 +203,9 @@ public class SearchSourceBuilderTests extends ESTestCase {
         if (randomBoolean()) {
             builder.trackScores(randomBoolean());
         }
+        if (randomBoolean()) {
+            builder.trackTotalHits(randomBoolean());
+        }
         if (randomBoolean()) {
             builder.minScore(randomFloat() * 1000);
         }
@@ -453,6 +456,22 @@ public class SearchSourceBuilderTests extends ESTestCase {
         }
     }
 
+    public void testTrackTotalHitsSerializationBwc() throws IOException {
+        SearchSourceBuilder testBuilder = new SearchSourceBuilder().trackTotalHits(false);
+        Version version = randomFrom(Version.CURRENT, Version.V_5_0_0_alpha4);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            output.setVersion(version);
+            testBuilder.writeTo(output);
+            try (StreamInput in = new NamedWriteableAwareStreamInput(output.bytes().streamInput(), namedWriteableRegistry)) {
+                in.setVersion(version);
+                SearchSourceBuilder deserializedBuilder = new SearchSourceBuilder(in);
+                assertEquals(0, in.available());
+                // older nodes always track the total number of hits
+                assertEquals(version.onOrAfter(Version.V_5_0_0_alpha5) == false, deserializedBuilder.trackTotalHits());
+            }
+        }
+    }
+
     public void testEqualsAndHashcode() throws IOException {
         SearchSourceBuilder firstBuilder = createSearchSourceBuilder();
         assertNotNull("source builder is equal to null", firstBuilder);
@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class FetchPhaseTests extends ESTestCase {
+
+    public void testSortByDocId() {
+        int from = randomIntBetween(0, 10);
+        int size = randomIntBetween(0, 100);
+        int[] docIdsToLoad = new int[from + size];
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < docIdsToLoad.length; i++) {
+            int docId;
+            do {
+                docId = randomIntBetween(0, Integer.MAX_VALUE - 1);
+            } while (seen.add(docId) == false);
+            docIdsToLoad[i] = docId;
+        }
+        long[] sorted = FetchPhase.sortByDocId(docIdsToLoad, from, size);
+        assertEquals(size, sorted.length);
+        Set<Integer> indices = new HashSet<>();
+        int previousDocId = -1;
+        for (long docIdAndIndex : sorted) {
+            int docId = (int) (docIdAndIndex >>> 32);
+            int index = (int) docIdAndIndex;
+            assertTrue(docId > previousDocId);
+            assertEquals(docIdsToLoad[from + index], docId);
+            assertTrue(indices.add(index));
+            previousDocId = docId;
+        }
+    }
+}
@@ -19,15 +19,20 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -79,4 +84,27 @@ public class InternalSearchHitTests extends ESTestCase {
         assertThat(results.getAt(1).shard(), equalTo(target));
     }
 
+    public void testSerializeFields() throws Exception {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        fields.put("longs", new InternalSearchHitField("longs",
+            Arrays.<Object>asList(randomLong(), 0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE)));
+        fields.put("doubles", new InternalSearchHitField("doubles", Arrays.<Object>asList(randomDouble(), -0d, Double.NaN)));
+        fields.put("strings", new InternalSearchHitField("strings", Arrays.<Object>asList(randomAsciiOfLength(5), "")));
+        fields.put("mixed", new InternalSearchHitField("mixed", Arrays.<Object>asList(1L, 2, "3", null)));
+        fields.put("empty", new InternalSearchHitField("empty", new ArrayList<>()));
+        InternalSearchHit hit = new InternalSearchHit(0, "_id", new Text("_type"), fields);
+
+        // nodes before 5.0.0-alpha5 write every value with its type
+        Version version = randomFrom(Version.CURRENT, Version.V_5_0_0_alpha4);
+        BytesStreamOutput output = new BytesStreamOutput();
+        output.setVersion(version);
+        hit.writeTo(output, new InternalSearchHits.StreamContext());
+        StreamInput input = output.bytes().streamInput();
+        input.setVersion(version);
+        InternalSearchHit result = InternalSearchHit.readSearchHit(input, new InternalSearchHits.StreamContext());
+        assertThat(result.fields().size(), equalTo(fields.size()));
+        for (SearchHitField field : fields.values()) {
+            assertThat(result.field(field.getName()).getValues(), equalTo(field.getValues()));
+        }
+    }
 }
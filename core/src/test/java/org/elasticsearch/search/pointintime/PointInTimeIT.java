@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.pointintime;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeResponse;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PointInTimeIT extends ESIntegTestCase {
+
+    private String openPointInTime(String index) {
+        OpenPointInTimeResponse response = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest(index).keepAlive(TimeValue.timeValueMinutes(2))).actionGet();
+        return response.getId();
+    }
+
+    private ClearScrollResponse closePointInTime(String id) {
+        return client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(id)).actionGet();
+    }
+
+    private long openPointInTimes() {
+        return client().admin().indices().prepareStats("test").get().getTotal().getSearch().getOpenPointInTimes();
+    }
+
+    public void testSearchesSeeThePointInTime() throws Exception {
+        int numShards = randomIntBetween(1, 3);
+        assertAcked(prepareCreate("test").setSettings("index.number_of_shards", numShards, "index.number_of_replicas", 0));
+        int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("value", i).get();
+        }
+        refresh();
+
+        String id = openPointInTime("test");
+        assertThat(openPointInTimes(), equalTo((long) numShards));
+
+        int numNewDocs = randomIntBetween(1, 10);
+        for (int i = numDocs; i < numDocs + numNewDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("value", i).get();
+        }
+        client().prepareDelete("test", "type", "0").get();
+        refresh();
+
+        assertHitCount(client().prepareSearch("test").setSize(0).get(), numDocs + numNewDocs - 1);
+        SearchResponse response = client().prepareSearch().setPointInTime(id).setSize(0).get();
+        assertSearchResponse(response);
+        assertHitCount(response, numDocs);
+        assertThat(response.getTotalShards(), equalTo(numShards));
+
+        ClearScrollResponse closeResponse = closePointInTime(id);
+        assertTrue(closeResponse.isSucceeded());
+        assertThat(closeResponse.getNumFreed(), equalTo(numShards));
+        assertThat(openPointInTimes(), equalTo(0L));
+        expectThrows(SearchPhaseExecutionException.class, () -> client().prepareSearch().setPointInTime(id).get());
+    }
+
+    public void testPaginateWithSearchAfter() throws Exception {
+        assertAcked(prepareCreate("test").setSettings("index.number_of_shards", randomIntBetween(1, 3)));
+        ensureGreen("test");
+        int numDocs = randomIntBetween(20, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("value", i).get();
+        }
+        refresh();
+
+        String id = openPointInTime("test");
+        Set<String> seen = new HashSet<>();
+        Object[] searchAfter = null;
+        int pageSize = randomIntBetween(1, 10);
+        while (true) {
+            // documents that are added between pages must not show up
+            client().prepareIndex("test", "type").setSource("value", -1).get();
+            refresh();
+            SearchRequestBuilder request = client().prepareSearch()
+                .setPointInTime(id)
+                .setQuery(matchAllQuery())
+                .addSort("value", SortOrder.ASC)
+                .setSize(pageSize);
+            if (searchAfter != null) {
+                request.searchAfter(searchAfter);
+            }
+            SearchResponse response = request.get();
+            assertSearchResponse(response);
+            assertHitCount(response, numDocs);
+            SearchHit[] hits = response.getHits().getHits();
+            if (hits.length == 0) {
+                break;
+            }
+            for (SearchHit hit : hits) {
+                assertTrue("duplicate hit [" + hit.getId() + "]", seen.add(hit.getId()));
+            }
+            searchAfter = hits[hits.length - 1].getSortValues();
+        }
+        assertThat(seen.size(), equalTo(numDocs));
+        closePointInTime(id);
+    }
+
+    public void testScrollIsRejected() {
+        createIndex("test");
+        String id = openPointInTime("test");
+        expectThrows(ActionRequestValidationException.class,
+            () -> client().prepareSearch().setPointInTime(id).setScroll(TimeValue.timeValueMinutes(1)).get());
+        expectThrows(ActionRequestValidationException.class,
+            () -> client().prepareSearch("test").setPointInTime(id).get());
+        closePointInTime(id);
+    }
+}
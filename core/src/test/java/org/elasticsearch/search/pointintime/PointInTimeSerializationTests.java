@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.pointintime;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.search.internal.ShardSearchTransportRequest;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PointInTimeSerializationTests extends ESTestCase {
+
+    public void testSearchRequestSerialization() throws IOException {
+        SearchRequest request = new SearchRequest(Strings.EMPTY_ARRAY).pointInTime(randomAsciiOfLength(10));
+        assertThat(copySearchRequest(request, Version.CURRENT).pointInTime(), equalTo(request.pointInTime()));
+    }
+
+    public void testSearchRequestSerializationBwc() throws IOException {
+        SearchRequest request = new SearchRequest(Strings.EMPTY_ARRAY).pointInTime(randomAsciiOfLength(10));
+        assertThat(copySearchRequest(request, Version.V_5_0_0_alpha4).pointInTime(), nullValue());
+    }
+
+    public void testShardSearchRequestSerialization() throws IOException {
+        long pointInTimeId = randomIntBetween(0, Integer.MAX_VALUE);
+        assertThat(copyShardSearchRequest(pointInTimeId, Version.CURRENT).pointInTimeId(), equalTo(pointInTimeId));
+    }
+
+    public void testShardSearchRequestSerializationBwc() throws IOException {
+        long pointInTimeId = randomIntBetween(0, Integer.MAX_VALUE);
+        assertThat(copyShardSearchRequest(pointInTimeId, Version.V_5_0_0_alpha4).pointInTimeId(), equalTo(-1L));
+    }
+
+    public void testSearchStatsSerialization() throws IOException {
+        SearchStats stats = searchStats(randomIntBetween(0, 100), randomIntBetween(0, 100));
+        SearchStats copy = copySearchStats(stats, Version.CURRENT);
+        assertThat(copy.getOpenContexts(), equalTo(stats.getOpenContexts()));
+        assertThat(copy.getOpenPointInTimes(), equalTo(stats.getOpenPointInTimes()));
+        assertThat(copy.getPointInTimeSegments(), equalTo(stats.getPointInTimeSegments()));
+    }
+
+    public void testSearchStatsSerializationBwc() throws IOException {
+        SearchStats stats = searchStats(randomIntBetween(1, 100), randomIntBetween(1, 100));
+        SearchStats copy = copySearchStats(stats, Version.V_5_0_0_alpha4);
+        assertThat(copy.getOpenContexts(), equalTo(stats.getOpenContexts()));
+        assertThat(copy.getOpenPointInTimes(), equalTo(0L));
+        assertThat(copy.getPointInTimeSegments(), equalTo(0L));
+    }
+
+    private static SearchStats searchStats(long openPointInTimes, long pointInTimeSegments) {
+        SearchStats.Stats totalStats = new SearchStats.Stats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        return new SearchStats(totalStats, randomIntBetween(0, 100), openPointInTimes, pointInTimeSegments, null);
+    }
+
+    private static SearchRequest copySearchRequest(SearchRequest request, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                SearchRequest copy = new SearchRequest();
+                copy.readFrom(in);
+                assertThat(in.available(), equalTo(0));
+                return copy;
+            }
+        }
+    }
+
+    private static ShardSearchTransportRequest copyShardSearchRequest(long pointInTimeId, Version version) throws IOException {
+        ShardSearchTransportRequest request = new ShardSearchTransportRequest(new SearchRequest("index"),
+            TestShardRouting.newShardRouting("index", 0, "node", true, ShardRoutingState.STARTED), 1, new String[0],
+            randomIntBetween(0, Integer.MAX_VALUE), pointInTimeId);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                ShardSearchTransportRequest copy = new ShardSearchTransportRequest();
+                copy.readFrom(in);
+                assertThat(in.available(), equalTo(0));
+                return copy;
+            }
+        }
+    }
+
+    private static SearchStats copySearchStats(SearchStats stats, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                SearchStats copy = SearchStats.readSearchStats(in);
+                assertThat(in.available(), equalTo(0));
+                return copy;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ProfileResultTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        ProfileResult result = createTestProfileResult();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            result.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                ProfileResult read = new ProfileResult(in);
+                assertThat(in.available(), equalTo(0));
+                assertEquals(result.getQueryName(), read.getQueryName());
+                assertEquals(result.getLuceneDescription(), read.getLuceneDescription());
+                assertEquals(result.getTime(), read.getTime());
+                assertEquals(result.getTimeBreakdown(), read.getTimeBreakdown());
+                assertEquals(result.getDebugInfo(), read.getDebugInfo());
+                assertEquals(1, read.getProfiledChildren().size());
+            }
+        }
+    }
+
+    public void testSerializationBwc() throws IOException {
+        ProfileResult result = createTestProfileResult();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.V_5_0_0_alpha4);
+            result.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(Version.V_5_0_0_alpha4);
+                ProfileResult read = new ProfileResult(in);
+                assertThat(in.available(), equalTo(0));
+                assertEquals(result.getTimeBreakdown(), read.getTimeBreakdown());
+                assertTrue(read.getDebugInfo().isEmpty());
+                assertEquals(1, read.getProfiledChildren().size());
+                assertTrue(read.getProfiledChildren().get(0).getDebugInfo().isEmpty());
+            }
+        }
+    }
+
+    private static ProfileResult createTestProfileResult() {
+        Map<String, Long> timings = new HashMap<>();
+        timings.put("build_aggregation", (long) randomIntBetween(0, 100000));
+        Map<String, Object> debug = new HashMap<>();
+        debug.put("execution_hint", randomAsciiOfLengthBetween(1, 10));
+        debug.put("estimated_matches", randomIntBetween(0, 1000));
+        ProfileResult child = new ProfileResult("child", "child description", timings, debug, Collections.emptyList(),
+                randomIntBetween(0, 100000));
+        return new ProfileResult("parent", "parent description", timings, debug, Collections.singletonList(child),
+                randomIntBetween(0, 100000));
+    }
+}
@@ -155,6 +155,7 @@ public class AggregationProfilerIT extends ESIntegTestCase {
             assertThat(termsAggResult.getQueryName(), equalTo(GlobalOrdinalsStringTermsAggregator.WithHash.class.getName()));
             assertThat(termsAggResult.getLuceneDescription(), equalTo("terms"));
             assertThat(termsAggResult.getTime(), greaterThan(0L));
+            assertThat(termsAggResult.getDebugInfo().get("execution_mode"), equalTo("global_ordinals_hash"));
             Map<String, Long> termsBreakdown = termsAggResult.getTimeBreakdown();
             assertThat(termsBreakdown, notNullValue());
             assertThat(termsBreakdown.get(AggregationTimingType.INITIALIZE.toString()), notNullValue());
@@ -0,0 +1,189 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class CompetitiveSegmentsCollectorTests extends ESTestCase {
+
+    public void testSameTopHits() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(2, 10);
+        for (int segment = 0; segment < numSegments; segment++) {
+            // values increase with the segment, like timestamps of documents that are indexed in time order
+            int numDocs = randomIntBetween(1, 50);
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                if (randomInt(10) > 0) {
+                    long value = segment * 1000L + randomIntBetween(0, 999) - 500;
+                    doc.add(new LongPoint("field", value));
+                    doc.add(new SortedNumericDocValuesField("field", value));
+                }
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        IndexSearcher searcher = newSearcher(reader, false);
+        int numHits = randomIntBetween(1, 20);
+        for (boolean reverse : new boolean[] {true, false}) {
+            Sort sort = sort(reverse);
+            TopDocs expected = searcher.search(new MatchAllDocsQuery(), numHits, sort);
+
+            TopDocs actual = searchTopHits(searcher, sort, reverse, numHits).topDocs();
+            assertSameTopHits(expected, actual);
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    public void testSameTopHitsWithTiesAcrossSegments() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(2, 10);
+        for (int segment = 0; segment < numSegments; segment++) {
+            // few distinct values, so that the values of the top hits are shared by documents of several segments
+            int numDocs = randomIntBetween(1, 20);
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                long value = randomIntBetween(0, 2);
+                doc.add(new LongPoint("field", value));
+                doc.add(new SortedNumericDocValuesField("field", value));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        IndexSearcher searcher = newSearcher(reader, false);
+        int numHits = randomIntBetween(1, 20);
+        for (boolean reverse : new boolean[] {true, false}) {
+            Sort sort = sort(reverse);
+            TopDocs expected = searcher.search(new MatchAllDocsQuery(), numHits, sort);
+            TopDocs actual = searchTopHits(searcher, sort, reverse, numHits).topDocs();
+            // ties are broken by doc id, like without skipping segments
+            assertSameTopHits(expected, actual);
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    public void testSkipsSegments() throws Exception {
+        Directory dir = newDirectory();
+        // one segment per commit
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+            .setMaxBufferedDocs(100).setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH));
+        for (int segment = 0; segment < 5; segment++) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                // values decrease with the segment, so that the first segment holds the top hits of a descending sort
+                long value = (4 - segment) * 100 + i;
+                doc.add(new LongPoint("field", value));
+                doc.add(new SortedNumericDocValuesField("field", value));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        for (boolean reverse : new boolean[] {true, false}) {
+            Sort sort = sort(reverse);
+            TopFieldCollector topDocsCollector = TopFieldCollector.create(sort, 10, true, false, false);
+            CompetitiveSegmentsCollector collector = new CompetitiveSegmentsCollector(topDocsCollector, "field", reverse, 10,
+                packedValue -> LongPoint.decodeDimension(packedValue, 0));
+            int collectedSegments = 0;
+            for (LeafReaderContext leaf : reader.leaves()) {
+                try {
+                    LeafCollector leafCollector = collector.getLeafCollector(leaf);
+                    collectedSegments++;
+                    for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                        leafCollector.collect(doc);
+                    }
+                } catch (CollectionTerminatedException e) {
+                    // skipped
+                }
+            }
+            TopDocs topDocs = topDocsCollector.topDocs();
+            if (reverse) {
+                // the first segment holds all top hits
+                assertThat(collectedSegments, equalTo(1));
+                assertTrue(collector.skippedSegments());
+                assertThat(topDocs.totalHits, equalTo(10));
+            } else {
+                // the top hits are in the last segment, which is only found after collecting all others
+                assertThat(collectedSegments, equalTo(5));
+                assertFalse(collector.skippedSegments());
+                assertThat(topDocs.totalHits, equalTo(50));
+            }
+            assertThat(((Number) ((FieldDoc) topDocs.scoreDocs[0]).fields[0]).longValue(),
+                equalTo(reverse ? 409L : 0L));
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    /**
+     * Sorts on the field with missing values last, as searches do when they skip non-competitive segments.
+     */
+    private static Sort sort(boolean reverse) {
+        SortField sortField = new SortedNumericSortField("field", SortField.Type.LONG, reverse);
+        sortField.setMissingValue(reverse ? Long.MIN_VALUE : Long.MAX_VALUE);
+        return new Sort(sortField);
+    }
+
+    private static TopFieldCollector searchTopHits(IndexSearcher searcher, Sort sort, boolean reverse, int numHits) throws Exception {
+        TopFieldCollector topDocsCollector = TopFieldCollector.create(sort, numHits, true, false, false);
+        CompetitiveSegmentsCollector collector = new CompetitiveSegmentsCollector(topDocsCollector, "field", reverse, numHits,
+            packedValue -> LongPoint.decodeDimension(packedValue, 0));
+        searcher.search(new MatchAllDocsQuery(), collector);
+        return topDocsCollector;
+    }
+
+    private static void assertSameTopHits(TopDocs expected, TopDocs actual) {
+        assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertThat(actual.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+            assertThat(((FieldDoc) actual.scoreDocs[i]).fields[0], equalTo(((FieldDoc) expected.scoreDocs[i]).fields[0]));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.ClassicSimilarity;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class MaxScoreDisjunctionQueryTests extends ESTestCase {
+
+    private static TermQuery term(String value) {
+        return new TermQuery(new Term("field", value));
+    }
+
+    public void testRewrite() throws Exception {
+        IndexSearcher searcher = new IndexSearcher(new MultiReader());
+        searcher.setSimilarity(new BM25Similarity());
+        MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore = new MaxScoreDisjunctionQuery.MinCompetitiveScore();
+        Query disjunction = new BooleanQuery.Builder()
+            .add(term("a"), Occur.SHOULD)
+            .add(new BoostQuery(term("b"), 2f), Occur.SHOULD)
+            .add(new BooleanQuery.Builder().add(term("c"), Occur.SHOULD).add(term("d"), Occur.SHOULD).build(), Occur.SHOULD)
+            .build();
+        assertThat(MaxScoreDisjunctionQuery.rewrite(disjunction, searcher, minCompetitiveScore),
+            equalTo(new MaxScoreDisjunctionQuery(
+                Arrays.asList(term("a"), new BoostQuery(term("b"), 2f), term("c"), term("d")), 1, minCompetitiveScore)));
+
+        // filters and exclusions don't change scores
+        Query filtered = new BoostQuery(new BooleanQuery.Builder()
+            .add(disjunction, Occur.MUST)
+            .add(term("e"), Occur.FILTER)
+            .add(term("f"), Occur.MUST_NOT)
+            .build(), 3f);
+        assertThat(MaxScoreDisjunctionQuery.rewrite(filtered, searcher, minCompetitiveScore), instanceOf(BoostQuery.class));
+
+        // the score of other clauses adds up
+        Query conjunction = new BooleanQuery.Builder().add(disjunction, Occur.MUST).add(term("e"), Occur.MUST).build();
+        assertNull(MaxScoreDisjunctionQuery.rewrite(conjunction, searcher, minCompetitiveScore));
+        // an optional clause next to a filter
+        Query optional = new BooleanQuery.Builder().add(disjunction, Occur.SHOULD).add(term("e"), Occur.FILTER).build();
+        assertNull(MaxScoreDisjunctionQuery.rewrite(optional, searcher, minCompetitiveScore));
+        // clauses without a max score
+        PhraseQuery phrase = new PhraseQuery("field", "a", "b");
+        Query withPhrase = new BooleanQuery.Builder().add(term("a"), Occur.SHOULD).add(phrase, Occur.SHOULD).build();
+        assertNull(MaxScoreDisjunctionQuery.rewrite(withPhrase, searcher, minCompetitiveScore));
+        // a single term
+        assertNull(MaxScoreDisjunctionQuery.rewrite(term("a"), searcher, minCompetitiveScore));
+        // other similarities
+        searcher.setSimilarity(new ClassicSimilarity());
+        assertNull(MaxScoreDisjunctionQuery.rewrite(disjunction, searcher, minCompetitiveScore));
+    }
+
+    public void testSameTopHits() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+            .setSimilarity(new BM25Similarity()));
+        int numSegments = randomIntBetween(1, 5);
+        for (int segment = 0; segment < numSegments; segment++) {
+            int numDocs = randomIntBetween(1, 500);
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                StringBuilder text = new StringBuilder();
+                int numTerms = randomIntBetween(1, 20);
+                for (int j = 0; j < numTerms; j++) {
+                    // the first terms are more frequent than the last ones
+                    text.append((char) ('a' + Math.min(randomInt(25), randomInt(25)))).append(' ');
+                }
+                doc.add(new TextField("field", text.toString(), Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        IndexSearcher searcher = newSearcher(reader, false);
+        searcher.setSimilarity(new BM25Similarity());
+        for (int iter = 0; iter < 10; iter++) {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            int numClauses = randomIntBetween(2, 6);
+            for (int i = 0; i < numClauses; i++) {
+                Query clause = term(Character.toString((char) ('a' + randomInt(25))));
+                if (randomBoolean()) {
+                    clause = new BoostQuery(clause, randomIntBetween(1, 10) / 2f);
+                }
+                builder.add(clause, Occur.SHOULD);
+            }
+            builder.setMinimumNumberShouldMatch(randomIntBetween(0, 2));
+            Query query = builder.build();
+            int numHits = randomIntBetween(1, 20);
+
+            Map<Integer, Float> expectedScores = new HashMap<>();
+            for (ScoreDoc scoreDoc : searcher.search(query, reader.maxDoc()).scoreDocs) {
+                expectedScores.put(scoreDoc.doc, scoreDoc.score);
+            }
+            TopDocs expected = searcher.search(query, numHits);
+
+            MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore = new MaxScoreDisjunctionQuery.MinCompetitiveScore();
+            Query maxScoreQuery = MaxScoreDisjunctionQuery.rewrite(query, searcher, minCompetitiveScore);
+            assertThat(maxScoreQuery, instanceOf(MaxScoreDisjunctionQuery.class));
+            TopScoreDocCollector topDocsCollector = TopScoreDocCollector.create(numHits);
+            searcher.search(maxScoreQuery, new CompetitiveScoreCollector(topDocsCollector, numHits, minCompetitiveScore));
+            TopDocs actual = topDocsCollector.topDocs();
+
+            assertThat(actual.totalHits, lessThanOrEqualTo(expected.totalHits));
+            assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                // scores may be summed in a different order, so ties may be broken differently
+                assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 1e-5f);
+                assertEquals(expectedScores.get(actual.scoreDocs[i].doc), actual.scoreDocs[i].score, 1e-5f);
+            }
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    public void testSkipsDocuments() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(newLogMergePolicy())
+            .setSimilarity(new BM25Similarity()));
+        for (int i = 0; i < 1000; i++) {
+            Document doc = new Document();
+            // "common" is in all documents, "rare" in only a few
+            doc.add(new TextField("field", i % 100 == 0 ? "common rare" : "common", Field.Store.NO));
+            w.addDocument(doc);
+        }
+        w.forceMerge(1);
+        DirectoryReader reader = DirectoryReader.open(w);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setSimilarity(new BM25Similarity());
+        Query query = new BooleanQuery.Builder().add(term("common"), Occur.SHOULD).add(term("rare"), Occur.SHOULD).build();
+        MaxScoreDisjunctionQuery.MinCompetitiveScore minCompetitiveScore = new MaxScoreDisjunctionQuery.MinCompetitiveScore();
+        Query maxScoreQuery = MaxScoreDisjunctionQuery.rewrite(query, searcher, minCompetitiveScore);
+        TopScoreDocCollector topDocsCollector = TopScoreDocCollector.create(5);
+        searcher.search(maxScoreQuery, new CompetitiveScoreCollector(topDocsCollector, 5, minCompetitiveScore));
+        TopDocs topDocs = topDocsCollector.topDocs();
+        // once the top hits all match "rare", documents that only match "common" are skipped
+        assertThat(topDocs.totalHits, lessThan(1000));
+        assertThat(topDocs.scoreDocs.length, equalTo(5));
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            assertThat(scoreDoc.doc % 100, equalTo(0));
+        }
+        assertThat(searcher.count(query), equalTo(1000));
+        assertThat(searcher.count(new MatchAllDocsQuery()), equalTo(1000));
+        reader.close();
+        w.close();
+        dir.close();
+    }
+}
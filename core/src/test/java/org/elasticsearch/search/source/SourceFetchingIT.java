@@ -20,8 +20,13 @@
 package org.elasticsearch.search.source;
 
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.test.ESIntegTestCase;
 
+import java.util.Collections;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -45,6 +50,35 @@ public class SourceFetchingIT extends ESIntegTestCase {
 
     }
 
+    public void testDocValueFieldsWithoutSource() {
+        assertAcked(prepareCreate("test").addMapping("type1", "number", "type=long", "tag", "type=keyword"));
+        ensureGreen();
+        int numDocs = randomIntBetween(1, 20);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource("number", i, "tag", "tag" + i).get();
+            if (rarely()) {
+                refresh();
+            }
+        }
+        refresh();
+
+        SearchResponse response = client().prepareSearch("test").setSize(numDocs).setFetchSource(false)
+            .addDocValueField("number").addDocValueField("tag").addDocValueField("missing").get();
+        assertHitCount(response, numDocs);
+        for (SearchHit hit : response.getHits()) {
+            assertThat(hit.getSourceAsString(), nullValue());
+            int i = Integer.parseInt(hit.getId());
+            assertThat(hit.field("number").getValues(), equalTo(Collections.<Object>singletonList((long) i)));
+            assertThat(hit.field("tag").getValues(), equalTo(Collections.<Object>singletonList("tag" + i)));
+            assertThat(hit.field("missing").getValues().isEmpty(), equalTo(true));
+        }
+
+        // the source is still returned by default
+        response = client().prepareSearch("test").addDocValueField("number").get();
+        assertThat(response.getHits().getAt(0).getSourceAsString(), notNullValue());
+        assertThat(response.getHits().getAt(0).field("number").getValue(), notNullValue());
+    }
+
     public void testSourceFiltering() {
         createIndex("test");
         ensureGreen();
@@ -382,6 +382,51 @@ public class ScriptedMetricTests extends ESIntegTestCase {
         assertThat(((Number) object).longValue(), equalTo(numDocs * 3));
     }
 
+    public void testInitMapCombineIncrementalReduceWithParams() {
+        Map<String, Object> varsMap = new HashMap<>();
+        varsMap.put("multiplier", 1);
+        Map<String, Object> params = new HashMap<>();
+        params.put("_agg", new ArrayList<>());
+        params.put("vars", varsMap);
+
+        // the combine script returns [sum] and the reduce script returns [sum, number of runs, largest size of _aggs]
+        SearchResponse response = client()
+                .prepareSearch("idx")
+                .setQuery(matchAllQuery())
+                .addAggregation(
+                        scriptedMetric("scripted")
+                                .params(params)
+                                .initScript(new Script("vars.multiplier = 3"))
+                                .mapScript(new Script("_agg.add(vars.multiplier)"))
+                                .combineScript(
+                                        new Script(
+                                                "newaggregation = []; sum = 0;for (a in _agg) { sum += a}; newaggregation.add(sum); " +
+                                                "return newaggregation"))
+                                .reduceScript(
+                                        new Script(
+                                                "sum = 0; runs = 1; maxSize = _aggs.size(); for (a in _aggs) { sum += a[0]; " +
+                                                "if (a.size() > 1) { runs += a[1]; if (a[2] > maxSize) { maxSize = a[2] } } }; " +
+                                                "return [sum, runs, maxSize]"))
+                                .incrementalReduce(true))
+                .execute().actionGet();
+        assertSearchResponse(response);
+        assertThat(response.getHits().getTotalHits(), equalTo(numDocs));
+
+        Aggregation aggregation = response.getAggregations().get("scripted");
+        assertThat(aggregation, notNullValue());
+        assertThat(aggregation, instanceOf(ScriptedMetric.class));
+        ScriptedMetric scriptedMetricAggregation = (ScriptedMetric) aggregation;
+        assertThat(scriptedMetricAggregation.getName(), equalTo("scripted"));
+        assertThat(scriptedMetricAggregation.aggregation(), notNullValue());
+        assertThat(scriptedMetricAggregation.aggregation(), instanceOf(List.class));
+        List<?> aggregationList = (List<?>) scriptedMetricAggregation.aggregation();
+        assertThat(aggregationList.size(), equalTo(3));
+        assertThat(((Number) aggregationList.get(0)).longValue(), equalTo(numDocs * 3));
+        // the reduce script ran once per shard result, and never saw more than its previous output and one shard result
+        assertThat(((Number) aggregationList.get(1)).intValue(), equalTo(getNumShards("idx").numPrimaries));
+        assertThat(((Number) aggregationList.get(2)).intValue(), lessThanOrEqualTo(2));
+    }
+
     @SuppressWarnings("rawtypes")
     public void testInitMapCombineReduceGetProperty() throws Exception {
         Map<String, Object> varsMap = new HashMap<>();
@@ -18,11 +18,14 @@
  */
 package org.elasticsearch.percolator;
 
+import org.apache.lucene.document.BinaryPoint;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.Fields;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.PrefixCodedTerms;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
@@ -36,9 +39,12 @@ import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DisjunctionMaxQuery;
 import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SynonymQuery;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.search.spans.SpanFirstQuery;
 import org.apache.lucene.search.spans.SpanNearQuery;
 import org.apache.lucene.search.spans.SpanNotQuery;
@@ -47,12 +53,15 @@ import org.apache.lucene.search.spans.SpanQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.common.hash.MurmurHash3;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
 import org.elasticsearch.common.lucene.search.MatchNoDocsQuery;
 import org.elasticsearch.index.mapper.ParseContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -64,10 +73,19 @@ import java.util.function.Function;
 
 /**
  * Utility to extract query terms from queries and create queries from documents.
+ * <p>
+ * Besides terms, prefixes of prefix and wildcard queries are extracted into the same field as terms, but separated from
+ * their field name by a different byte, and the bounds of numeric and date range queries are indexed as points, so
+ * that the queries that contain these clauses don't need to be verified against every document being percolated.
  */
 public final class ExtractQueryTermsService {
 
     private static final byte FIELD_VALUE_SEPARATOR = 0;  // nul code point
+    private static final byte FIELD_PREFIX_SEPARATOR = 1;
+    // prefixes are indexed with at most that many bytes, so that only that many prefixes of a term need to be looked up
+    static final int MAX_PREFIX_LENGTH = 16;
+    // the number of bytes of each dimension of the points of extracted ranges: the field and both bounds
+    static final int RANGE_BYTES = 16;
     public static final String EXTRACTION_COMPLETE = "complete";
     public static final String EXTRACTION_PARTIAL = "partial";
     public static final String EXTRACTION_FAILED = "failed";
@@ -92,6 +110,9 @@ public final class ExtractQueryTermsService {
         map.put(BooleanQuery.class, booleanQuery());
         map.put(DisjunctionMaxQuery.class, disjunctionMaxQuery());
         map.put(SynonymQuery.class, synonymQuery());
+        map.put(PrefixQuery.class, prefixQuery());
+        map.put(WildcardQuery.class, wildcardQuery());
+        map.put(PointRangeQuery.class, pointRangeQuery());
         queryProcessors = Collections.unmodifiableMap(map);
     }
 
@@ -99,18 +120,42 @@ public final class ExtractQueryTermsService {
     }
 
     /**
-     * Extracts all terms from the specified query and adds it to the specified document.
+     * Extracts all terms from the specified query and adds it to the specified document. Queries whose extraction
+     * needs prefixes or ranges fail, to match the candidates of {@link #createQueryTermsQuery(IndexReader, String, Term...)}.
      *
      * @param query                 The query to extract terms from
      * @param document              The document to add the extracted terms to
      * @param queryTermsFieldField  The field in the document holding the extracted terms
      * @param extractionResultField The field contains whether query term extraction was successful, partial or
-     *                              failed. (For example the query contained an unsupported query (e.g. WildcardQuery)
+     *                              failed. (For example the query contained an unsupported query (e.g. TermRangeQuery)
      *                              then query extraction would fail)
      * @param fieldType             The field type for the query metadata field
      */
     public static void extractQueryTerms(Query query, ParseContext.Document document, String queryTermsFieldField,
                                          String extractionResultField, FieldType fieldType) {
+        extractQueryTerms(query, document, queryTermsFieldField, null, false, extractionResultField, fieldType);
+    }
+
+    /**
+     * Extracts all terms, prefixes and ranges from the specified query and adds it to the specified document.
+     *
+     * @param query                 The query to extract terms from
+     * @param document              The document to add the extracted terms to
+     * @param queryTermsFieldField  The field in the document holding the extracted terms and prefixes
+     * @param queryRangesField      The field in the document holding the extracted ranges as points, or <code>null</code>
+     *                              if ranges must not be extracted, in which case queries that need them fail
+     * @param extractionResultField The field contains whether query term extraction was successful, partial or
+     *                              failed.
+     * @param fieldType             The field type for the query metadata field
+     */
+    public static void extractQueryTerms(Query query, ParseContext.Document document, String queryTermsFieldField,
+                                         String queryRangesField, String extractionResultField, FieldType fieldType) {
+        extractQueryTerms(query, document, queryTermsFieldField, queryRangesField, true, extractionResultField, fieldType);
+    }
+
+    private static void extractQueryTerms(Query query, ParseContext.Document document, String queryTermsFieldField,
+                                          String queryRangesField, boolean extractPrefixes, String extractionResultField,
+                                          FieldType fieldType) {
         Result result;
         try {
             result = extractQueryTerms(query);
@@ -118,12 +163,19 @@ public final class ExtractQueryTermsService {
             document.add(new Field(extractionResultField, EXTRACTION_FAILED, fieldType));
             return;
         }
+        if ((result.ranges.isEmpty() == false && queryRangesField == null)
+                || (result.prefixes.isEmpty() == false && extractPrefixes == false)) {
+            document.add(new Field(extractionResultField, EXTRACTION_FAILED, fieldType));
+            return;
+        }
         for (Term term : result.terms) {
-            BytesRefBuilder builder = new BytesRefBuilder();
-            builder.append(new BytesRef(term.field()));
-            builder.append(FIELD_VALUE_SEPARATOR);
-            builder.append(term.bytes());
-            document.add(new Field(queryTermsFieldField, builder.toBytesRef(), fieldType));
+            document.add(new Field(queryTermsFieldField, toQueryTerm(term.field(), FIELD_VALUE_SEPARATOR, term.bytes()), fieldType));
+        }
+        for (Term prefix : result.prefixes) {
+            document.add(new Field(queryTermsFieldField, toQueryTerm(prefix.field(), FIELD_PREFIX_SEPARATOR, prefix.bytes()), fieldType));
+        }
+        for (Range range : result.ranges) {
+            document.add(new BinaryPoint(queryRangesField, fieldId(range.fieldName), pad(range.lowerPoint), pad(range.upperPoint)));
         }
         if (result.verified) {
             document.add(new Field(extractionResultField, EXTRACTION_COMPLETE, fieldType));
@@ -132,11 +184,47 @@ public final class ExtractQueryTermsService {
         }
     }
 
+    private static BytesRef toQueryTerm(String field, byte separator, BytesRef value) {
+        BytesRefBuilder builder = new BytesRefBuilder();
+        builder.append(new BytesRef(field));
+        builder.append(separator);
+        builder.append(value);
+        return builder.toBytesRef();
+    }
+
+    /**
+     * Returns the first dimension of the points of the ranges of the given field.
+     */
+    private static byte[] fieldId(String field) {
+        BytesRef bytes = new BytesRef(field);
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytes.bytes, bytes.offset, bytes.length, 0, new MurmurHash3.Hash128());
+        byte[] id = new byte[RANGE_BYTES];
+        for (int i = 0; i < 8; i++) {
+            id[i] = (byte) (hash.h1 >>> (56 - 8 * i));
+            id[8 + i] = (byte) (hash.h2 >>> (56 - 8 * i));
+        }
+        return id;
+    }
+
+    /**
+     * Pads the given value of a point dimension with leading zeros, which keeps the order of the values of a field.
+     */
+    private static byte[] pad(BytesRef value) {
+        byte[] padded = new byte[RANGE_BYTES];
+        System.arraycopy(value.bytes, value.offset, padded, RANGE_BYTES - value.length, value.length);
+        return padded;
+    }
+
     /**
      * Creates a terms query containing all terms from all fields of the specified index reader.
      */
     public static Query createQueryTermsQuery(IndexReader indexReader, String queryMetadataField,
                                               Term... optionalTerms) throws IOException {
+        return createQueryTermsQuery(indexReader, queryMetadataField, false, optionalTerms);
+    }
+
+    private static TermsQuery createQueryTermsQuery(IndexReader indexReader, String queryMetadataField, boolean includePrefixes,
+                                                    Term... optionalTerms) throws IOException {
         Objects.requireNonNull(queryMetadataField);
 
         List<Term> extractedTerms = new ArrayList<>();
@@ -151,17 +239,60 @@ public final class ExtractQueryTermsService {
 
             BytesRef fieldBr = new BytesRef(field);
             TermsEnum tenum = terms.iterator();
+            BytesRef previousPrefix = new BytesRef();
             for (BytesRef term = tenum.next(); term != null; term = tenum.next()) {
                 BytesRefBuilder builder = new BytesRefBuilder();
                 builder.append(fieldBr);
                 builder.append(FIELD_VALUE_SEPARATOR);
                 builder.append(term);
                 extractedTerms.add(new Term(queryMetadataField, builder.toBytesRef()));
+                if (includePrefixes) {
+                    // terms are sorted, so the prefixes they share with the previous term were added already
+                    int prefixLength = Math.min(term.length, MAX_PREFIX_LENGTH);
+                    int sharedLength = StringHelper.bytesDifference(previousPrefix, term);
+                    for (int length = sharedLength + 1; length <= prefixLength; length++) {
+                        BytesRef prefix = new BytesRef(term.bytes, term.offset, length);
+                        extractedTerms.add(new Term(queryMetadataField, toQueryTerm(field, FIELD_PREFIX_SEPARATOR, prefix)));
+                    }
+                    previousPrefix = BytesRef.deepCopyOf(new BytesRef(term.bytes, term.offset, prefixLength));
+                }
             }
         }
         return new TermsQuery(extractedTerms);
     }
 
+    /**
+     * Creates a query that matches the percolator queries that may match the documents of the specified index reader:
+     * those with an extracted term of these documents, with an extracted prefix of one of their terms, or with an
+     * extracted range that contains a value of these documents.
+     */
+    public static Query createQueryCandidatesQuery(IndexReader indexReader, String queryMetadataField, String queryRangesField,
+                                                   Term... optionalTerms) throws IOException {
+        Objects.requireNonNull(queryRangesField);
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(createQueryTermsQuery(indexReader, queryMetadataField, true, optionalTerms), BooleanClause.Occur.SHOULD);
+        for (FieldInfo fieldInfo : MultiFields.getMergedFieldInfos(indexReader)) {
+            if (fieldInfo.getPointDimensionCount() != 1 || fieldInfo.getPointNumBytes() > RANGE_BYTES) {
+                continue;
+            }
+            byte[] minValue = PointValues.getMinPackedValue(indexReader, fieldInfo.name);
+            byte[] maxValue = PointValues.getMaxPackedValue(indexReader, fieldInfo.name);
+            if (minValue == null) {
+                continue;
+            }
+            // the ranges that start before the largest value and end after the smallest value, which are exactly the
+            // ranges that contain the value of a single valued field
+            byte[] fieldId = fieldId(fieldInfo.name);
+            byte[] lowest = new byte[RANGE_BYTES];
+            byte[] highest = new byte[RANGE_BYTES];
+            Arrays.fill(highest, (byte) 0xFF);
+            builder.add(BinaryPoint.newRangeQuery(queryRangesField,
+                    new byte[][] {fieldId, lowest, pad(new BytesRef(minValue))},
+                    new byte[][] {fieldId, pad(new BytesRef(maxValue)), highest}), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
     /**
      * Extracts all query terms from the provided query and adds it to specified list.
      * <p>
@@ -230,6 +361,65 @@ public final class ExtractQueryTermsService {
         };
     }
 
+    static Function<Query, Result> prefixQuery() {
+        return query -> {
+            Term prefix = ((PrefixQuery) query).getPrefix();
+            if (prefix.bytes().length == 0) {
+                // matches all documents that have the field
+                throw new UnsupportedQueryException(query);
+            }
+            // an indexed prefix is only exact if it didn't need to be truncated
+            return new Result(prefix.bytes().length <= MAX_PREFIX_LENGTH, Collections.emptySet(),
+                    Collections.singleton(truncatePrefix(prefix)), Collections.emptySet());
+        };
+    }
+
+    static Function<Query, Result> wildcardQuery() {
+        return query -> {
+            Term term = ((WildcardQuery) query).getTerm();
+            String text = term.text();
+            int prefixLength = 0;
+            while (prefixLength < text.length()) {
+                char c = text.charAt(prefixLength);
+                if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR || c == WildcardQuery.WILDCARD_ESCAPE) {
+                    break;
+                }
+                prefixLength++;
+            }
+            if (prefixLength == 0) {
+                throw new UnsupportedQueryException(query);
+            }
+            Term prefix = new Term(term.field(), text.substring(0, prefixLength));
+            return new Result(false, Collections.emptySet(), Collections.singleton(truncatePrefix(prefix)), Collections.emptySet());
+        };
+    }
+
+    static Term truncatePrefix(Term prefix) {
+        BytesRef bytes = prefix.bytes();
+        if (bytes.length <= MAX_PREFIX_LENGTH) {
+            return prefix;
+        }
+        return new Term(prefix.field(), BytesRef.deepCopyOf(new BytesRef(bytes.bytes, bytes.offset, MAX_PREFIX_LENGTH)));
+    }
+
+    static Function<Query, Result> pointRangeQuery() {
+        return query -> {
+            PointRangeQuery pointRangeQuery = (PointRangeQuery) query;
+            if (pointRangeQuery.getNumDims() != 1 || pointRangeQuery.getBytesPerDim() > RANGE_BYTES) {
+                throw new UnsupportedQueryException(query);
+            }
+            BytesRef lowerPoint = new BytesRef(pointRangeQuery.getLowerPoint());
+            BytesRef upperPoint = new BytesRef(pointRangeQuery.getUpperPoint());
+            if (lowerPoint.compareTo(upperPoint) > 0) {
+                // matches no documents
+                return new Result(true, Collections.emptySet());
+            }
+            // the candidates of documents with multi valued fields may not match
+            return new Result(false, Collections.emptySet(), Collections.emptySet(),
+                    Collections.singleton(new Range(pointRangeQuery.getField(), lowerPoint, upperPoint)));
+        };
+    }
+
     static Function<Query, Result> commonTermsQuery() {
         return query -> {
             List<Term> terms = ((CommonTermsQuery) query).getTerms();
@@ -327,7 +517,7 @@ public final class ExtractQueryTermsService {
                 }
             }
             if (numRequiredClauses > 0) {
-                Set<Term> bestClause = null;
+                Result bestClause = null;
                 UnsupportedQueryException uqe = null;
                 for (BooleanClause clause : clauses) {
                     if (clause.isRequired() == false) {
@@ -344,10 +534,10 @@ public final class ExtractQueryTermsService {
                         uqe = e;
                         continue;
                     }
-                    bestClause = selectTermListWithTheLongestShortestTerm(temp.terms, bestClause);
+                    bestClause = selectBestExtraction(temp, bestClause);
                 }
                 if (bestClause != null) {
-                    return new Result(false, bestClause);
+                    return new Result(false, bestClause.terms, bestClause.prefixes, bestClause.ranges);
                 } else {
                     if (uqe != null) {
                         // we're unable to select the best clause and an exception occurred, so we bail
@@ -379,14 +569,51 @@ public final class ExtractQueryTermsService {
     static Result handleDisjunction(List<Query> disjunctions, int minimumShouldMatch, boolean otherClauses) {
         boolean verified = minimumShouldMatch <= 1 && otherClauses == false;
         Set<Term> terms = new HashSet<>();
+        Set<Term> prefixes = new HashSet<>();
+        Set<Range> ranges = new HashSet<>();
         for (Query disjunct : disjunctions) {
             Result subResult = extractQueryTerms(disjunct);
             if (subResult.verified == false) {
                 verified = false;
             }
             terms.addAll(subResult.terms);
+            prefixes.addAll(subResult.prefixes);
+            ranges.addAll(subResult.ranges);
+        }
+        return new Result(verified, terms, prefixes, ranges);
+    }
+
+    /**
+     * Selects the extraction of a required clause that likely matches the fewest documents: terms are preferred to
+     * prefixes, which are preferred to ranges.
+     */
+    static Result selectBestExtraction(Result result1, Result result2) {
+        if (result1 == null) {
+            return result2;
+        } else if (result2 == null) {
+            return result1;
+        }
+        int rank1 = extractionRank(result1);
+        int rank2 = extractionRank(result2);
+        if (rank1 != rank2) {
+            return rank1 > rank2 ? result1 : result2;
+        } else if (result1.ranges.isEmpty() == false) {
+            return result1;
+        } else if (result1.prefixes.isEmpty() == false) {
+            return minTermLength(result1.prefixes) >= minTermLength(result2.prefixes) ? result1 : result2;
+        } else {
+            return selectTermListWithTheLongestShortestTerm(result1.terms, result2.terms) == result1.terms ? result1 : result2;
+        }
+    }
+
+    private static int extractionRank(Result result) {
+        if (result.ranges.isEmpty() == false) {
+            return 0;
+        } else if (result.prefixes.isEmpty() == false) {
+            return 1;
+        } else {
+            return 2;
         }
-        return new Result(verified, terms);
     }
 
     static Set<Term> selectTermListWithTheLongestShortestTerm(Set<Term> terms1, Set<Term> terms2) {
@@ -417,15 +644,53 @@ public final class ExtractQueryTermsService {
     static class Result {
 
         final Set<Term> terms;
+        final Set<Term> prefixes;
+        final Set<Range> ranges;
         final boolean verified;
 
         Result(boolean verified, Set<Term> terms) {
+            this(verified, terms, Collections.emptySet(), Collections.emptySet());
+        }
+
+        Result(boolean verified, Set<Term> terms, Set<Term> prefixes, Set<Range> ranges) {
             this.terms = terms;
+            this.prefixes = prefixes;
+            this.ranges = ranges;
             this.verified = verified;
         }
 
     }
 
+    /**
+     * The bounds, inclusive, of a range of the points of a single dimension field.
+     */
+    static final class Range {
+
+        final String fieldName;
+        final BytesRef lowerPoint;
+        final BytesRef upperPoint;
+
+        Range(String fieldName, BytesRef lowerPoint, BytesRef upperPoint) {
+            this.fieldName = fieldName;
+            this.lowerPoint = lowerPoint;
+            this.upperPoint = upperPoint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Range range = (Range) o;
+            return fieldName.equals(range.fieldName) && lowerPoint.equals(range.lowerPoint) && upperPoint.equals(range.upperPoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fieldName, lowerPoint, upperPoint);
+        }
+
+    }
+
     /**
      * Exception indicating that none or some query terms couldn't extracted from a percolator query.
      */
@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Maps the field that holds the ranges that were extracted from a percolator query. Each range is indexed by
+ * {@link ExtractQueryTermsService} as a point with three dimensions: the field of the range, its lower bound and its
+ * upper bound.
+ */
+final class ExtractedRangesFieldMapper extends FieldMapper {
+
+    static final String CONTENT_TYPE = "extracted_ranges";
+
+    private static final MappedFieldType FIELD_TYPE = new ExtractedRangesFieldType();
+
+    static {
+        FIELD_TYPE.setIndexOptions(IndexOptions.NONE);
+        FIELD_TYPE.setDimensions(3, ExtractQueryTermsService.RANGE_BYTES);
+        FIELD_TYPE.setHasDocValues(false);
+        FIELD_TYPE.freeze();
+    }
+
+    static final class Builder extends FieldMapper.Builder<Builder, ExtractedRangesFieldMapper> {
+
+        Builder(String name) {
+            super(name, FIELD_TYPE, FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public ExtractedRangesFieldMapper build(BuilderContext context) {
+            docValues(false);
+            setupFieldType(context);
+            return new ExtractedRangesFieldMapper(name, fieldType, defaultFieldType, context.indexSettings(),
+                    multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    static final class ExtractedRangesFieldType extends MappedFieldType {
+
+        ExtractedRangesFieldType() {
+        }
+
+        private ExtractedRangesFieldType(ExtractedRangesFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public MappedFieldType clone() {
+            return new ExtractedRangesFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "Extracted ranges are not searchable directly, use a percolate query instead");
+        }
+    }
+
+    private ExtractedRangesFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                       Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<Field> fields) throws IOException {
+        throw new UnsupportedOperationException("should not be invoked");
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.percolator;
 
+import com.carrotsearch.hppc.IntArrayList;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
@@ -26,10 +27,13 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TwoPhaseIterator;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Accountable;
@@ -39,6 +43,9 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.MatchNoDocsQuery;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -53,7 +60,7 @@ public final class PercolateQuery extends Query implements Accountable {
 
         private final String docType;
         private final QueryStore queryStore;
-        private final BytesReference documentSource;
+        private final List<BytesReference> documents;
         private final IndexSearcher percolatorIndexSearcher;
 
         private Query queriesMetaDataQuery;
@@ -67,9 +74,23 @@ public final class PercolateQuery extends Query implements Accountable {
          * @param percolatorIndexSearcher   The index searcher on top of the in-memory index that holds the document being percolated
          */
         public Builder(String docType, QueryStore queryStore, BytesReference documentSource, IndexSearcher percolatorIndexSearcher) {
+            this(docType, queryStore, Collections.singletonList(Objects.requireNonNull(documentSource)), percolatorIndexSearcher);
+        }
+
+        /**
+         * @param docType                   The type of the documents being percolated
+         * @param queryStore                The lookup holding all the percolator queries as Lucene queries.
+         * @param documents                 The sources of the documents being percolated
+         * @param percolatorIndexSearcher   The index searcher on top of the in-memory index that holds the documents being
+         *                                  percolated, in the same order, and that skips their nested documents
+         */
+        public Builder(String docType, QueryStore queryStore, List<BytesReference> documents, IndexSearcher percolatorIndexSearcher) {
             this.docType = Objects.requireNonNull(docType);
             this.queryStore = Objects.requireNonNull(queryStore);
-            this.documentSource = Objects.requireNonNull(documentSource);
+            this.documents = Objects.requireNonNull(documents);
+            if (documents.isEmpty()) {
+                throw new IllegalArgumentException("no documents to percolate");
+            }
             this.percolatorIndexSearcher = Objects.requireNonNull(percolatorIndexSearcher);
         }
 
@@ -81,20 +102,44 @@ public final class PercolateQuery extends Query implements Accountable {
          *                                  partial or failed. If query extraction was complete, the MemoryIndex doesn't
          */
         public void extractQueryTermsQuery(String extractedTermsFieldName, String extractionResultField) throws IOException {
-            // We can only skip the MemoryIndex verification when percolating a single document.
-            // When the document being percolated contains a nested object field then the MemoryIndex contains multiple
-            // documents. In this case the term query that indicates whether memory index verification can be skipped
+            extractQueryTermsQuery(extractedTermsFieldName, null, extractionResultField);
+        }
+
+        /**
+         * Like {@link #extractQueryTermsQuery(String, String)}, but also selects the queries by their extracted prefixes
+         * and ranges.
+         * @param extractedRangesFieldName  The name of the field to get the extracted ranges from, or <code>null</code> if
+         *                                  queries were indexed without prefixes and ranges
+         */
+        public void extractQueryTermsQuery(String extractedTermsFieldName, String extractedRangesFieldName,
+                                           String extractionResultField) throws IOException {
+            // We can only skip the MemoryIndex verification when the percolated documents have no nested documents.
+            // When a document being percolated contains a nested object field then the index contains its nested
+            // documents too. In this case the term query that indicates whether memory index verification can be skipped
             // can incorrectly indicate that non nested queries would match, while their nested variants would not.
-            if (percolatorIndexSearcher.getIndexReader().maxDoc() == 1) {
+            // Queries whose extraction is complete match as soon as one of their terms is in one of the documents,
+            // so verification can be skipped as well when percolating several documents without nested objects.
+            // The percolator index searcher skips nested documents, so it finds fewer documents than the index holds if
+            // there are any. (they are collected, because IndexSearcher#count takes the number of documents from the index)
+            IndexReader percolatorIndexReader = percolatorIndexSearcher.getIndexReader();
+            TotalHitCountCollector rootDocsCounter = new TotalHitCountCollector();
+            if (percolatorIndexReader.maxDoc() > 1) {
+                percolatorIndexSearcher.search(new MatchAllDocsQuery(), rootDocsCounter);
+            }
+            if (percolatorIndexReader.maxDoc() == 1 || rootDocsCounter.getTotalHits() == percolatorIndexReader.maxDoc()) {
                 this.verifiedQueriesQuery = new TermQuery(new Term(extractionResultField, ExtractQueryTermsService.EXTRACTION_COMPLETE));
             }
-            this.queriesMetaDataQuery = ExtractQueryTermsService.createQueryTermsQuery(
-                    percolatorIndexSearcher.getIndexReader(), extractedTermsFieldName,
-                    // include extractionResultField:failed, because docs with this term have no extractedTermsField
-                    // and otherwise we would fail to return these docs. Docs that failed query term extraction
-                    // always need to be verified by MemoryIndex:
-                    new Term(extractionResultField, ExtractQueryTermsService.EXTRACTION_FAILED)
-            );
+            // include extractionResultField:failed, because docs with this term have no extractedTermsField
+            // and otherwise we would fail to return these docs. Docs that failed query term extraction
+            // always need to be verified by MemoryIndex:
+            Term failedTerm = new Term(extractionResultField, ExtractQueryTermsService.EXTRACTION_FAILED);
+            if (extractedRangesFieldName == null) {
+                this.queriesMetaDataQuery = ExtractQueryTermsService.createQueryTermsQuery(
+                        percolatorIndexSearcher.getIndexReader(), extractedTermsFieldName, failedTerm);
+            } else {
+                this.queriesMetaDataQuery = ExtractQueryTermsService.createQueryCandidatesQuery(
+                        percolatorIndexSearcher.getIndexReader(), extractedTermsFieldName, extractedRangesFieldName, failedTerm);
+            }
         }
 
         /**
@@ -116,7 +161,7 @@ public final class PercolateQuery extends Query implements Accountable {
             if (queriesMetaDataQuery != null) {
                 queriesQuery.add(queriesMetaDataQuery, FILTER);
             }
-            return new PercolateQuery(docType, queryStore, documentSource, queriesQuery.build(), percolatorIndexSearcher,
+            return new PercolateQuery(docType, queryStore, documents, queriesQuery.build(), percolatorIndexSearcher,
                     verifiedQueriesQuery);
         }
 
@@ -124,15 +169,17 @@ public final class PercolateQuery extends Query implements Accountable {
 
     private final String documentType;
     private final QueryStore queryStore;
-    private final BytesReference documentSource;
+    private final List<BytesReference> documents;
     private final Query percolatorQueriesQuery;
     private final Query verifiedQueriesQuery;
     private final IndexSearcher percolatorIndexSearcher;
+    // the ids of the percolated documents in the percolator index searcher, in the order of their slots
+    private int[] rootDocs;
 
-    private PercolateQuery(String documentType, QueryStore queryStore, BytesReference documentSource,
+    private PercolateQuery(String documentType, QueryStore queryStore, List<BytesReference> documents,
                            Query percolatorQueriesQuery, IndexSearcher percolatorIndexSearcher, Query verifiedQueriesQuery) {
         this.documentType = documentType;
-        this.documentSource = documentSource;
+        this.documents = documents;
         this.percolatorQueriesQuery = percolatorQueriesQuery;
         this.queryStore = queryStore;
         this.percolatorIndexSearcher = percolatorIndexSearcher;
@@ -143,7 +190,7 @@ public final class PercolateQuery extends Query implements Accountable {
     public Query rewrite(IndexReader reader) throws IOException {
         Query rewritten = percolatorQueriesQuery.rewrite(reader);
         if (rewritten != percolatorQueriesQuery) {
-            return new PercolateQuery(documentType, queryStore, documentSource, rewritten, percolatorIndexSearcher,
+            return new PercolateQuery(documentType, queryStore, documents, rewritten, percolatorIndexSearcher,
                     verifiedQueriesQuery);
         } else {
             return this;
@@ -170,7 +217,9 @@ public final class PercolateQuery extends Query implements Accountable {
                             if (needsScores) {
                                 QueryStore.Leaf percolatorQueries = queryStore.getQueries(leafReaderContext);
                                 Query query = percolatorQueries.getQuery(docId);
-                                Explanation detail = percolatorIndexSearcher.explain(query, 0);
+                                // explains the best matching percolated document
+                                TopDocs topDocs = percolatorIndexSearcher.search(query, 1);
+                                Explanation detail = percolatorIndexSearcher.explain(query, topDocs.scoreDocs[0].doc);
                                 return Explanation.match(scorer.score(), "PercolateQuery", detail);
                             } else {
                                 return Explanation.match(scorer.score(), "PercolateQuery");
@@ -261,8 +310,68 @@ public final class PercolateQuery extends Query implements Accountable {
         return documentType;
     }
 
-    public BytesReference getDocumentSource() {
-        return documentSource;
+    /**
+     * The sources of the documents being percolated, in the order of their slots.
+     */
+    public List<BytesReference> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the slots of the percolated documents that the given percolator query matches, in increasing order.
+     * The slot of a document is its position in {@link #getDocuments()}.
+     */
+    public int[] matchingSlots(Query query) throws IOException {
+        if (documents.size() == 1) {
+            return Lucene.exists(percolatorIndexSearcher, query) ? new int[] {0} : new int[0];
+        }
+        int[] rootDocs = rootDocs();
+        int[] matchingDocs = matchingDocs(query);
+        int[] slots = new int[matchingDocs.length];
+        for (int i = 0; i < matchingDocs.length; i++) {
+            slots[i] = Arrays.binarySearch(rootDocs, matchingDocs[i]);
+            assert slots[i] >= 0;
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the id of the document in the percolator index searcher that holds the percolated document in the given slot.
+     */
+    int slotDocId(int slot) throws IOException {
+        if (documents.size() == 1) {
+            return 0;
+        }
+        return rootDocs()[slot];
+    }
+
+    private synchronized int[] rootDocs() throws IOException {
+        if (rootDocs == null) {
+            // the percolator index searcher skips nested documents, so all documents that it finds are percolated documents
+            rootDocs = matchingDocs(new MatchAllDocsQuery());
+            assert rootDocs.length == documents.size();
+        }
+        return rootDocs;
+    }
+
+    private int[] matchingDocs(Query query) throws IOException {
+        List<LeafReaderContext> leaves = percolatorIndexSearcher.getIndexReader().leaves();
+        assert leaves.size() == 1 : "Expected single leaf, but got [" + leaves.size() + "]";
+        IntArrayList docs = new IntArrayList();
+        percolatorIndexSearcher.search(query, new SimpleCollector() {
+            @Override
+            public void collect(int doc) throws IOException {
+                docs.add(doc);
+            }
+
+            @Override
+            public boolean needsScores() {
+                return false;
+            }
+        });
+        int[] result = docs.toArray();
+        Arrays.sort(result);
+        return result;
     }
 
     public QueryStore getQueryStore() {
@@ -278,7 +387,7 @@ public final class PercolateQuery extends Query implements Accountable {
         PercolateQuery that = (PercolateQuery) o;
 
         if (!documentType.equals(that.documentType)) return false;
-        return documentSource.equals(that.documentSource);
+        return documents.equals(that.documents);
 
     }
 
@@ -286,19 +395,31 @@ public final class PercolateQuery extends Query implements Accountable {
     public int hashCode() {
         int result = classHash();
         result = 31 * result + documentType.hashCode();
-        result = 31 * result + documentSource.hashCode();
+        result = 31 * result + documents.hashCode();
         return result;
     }
 
     @Override
     public String toString(String s) {
-        return "PercolateQuery{document_type={" + documentType + "},document_source={" + documentSource.utf8ToString() +
+        StringBuilder sources = new StringBuilder();
+        for (BytesReference document : documents) {
+            if (sources.length() > 0) {
+                sources.append(',');
+            }
+            sources.append(document.utf8ToString());
+        }
+        String documentsName = documents.size() == 1 ? "document_source" : "document_sources";
+        return "PercolateQuery{document_type={" + documentType + "}," + documentsName + "={" + sources +
                 "},inner={" + percolatorQueriesQuery.toString(s)  + "}}";
     }
 
     @Override
     public long ramBytesUsed() {
-        return documentSource.ramBytesUsed();
+        long ramBytesUsed = 0;
+        for (BytesReference document : documents) {
+            ramBytesUsed += document.ramBytesUsed();
+        }
+        return ramBytesUsed;
     }
 
     @FunctionalInterface
@@ -27,6 +27,7 @@ import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.memory.MemoryIndex;
@@ -74,6 +75,9 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.QueryShardException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -86,6 +90,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
     public static final ParseField QUERY_NAME_FIELD = new ParseField(NAME);
 
     static final ParseField DOCUMENT_FIELD = new ParseField("document");
+    static final ParseField DOCUMENTS_FIELD = new ParseField("documents");
     private static final ParseField QUERY_FIELD = new ParseField("field");
     private static final ParseField DOCUMENT_TYPE_FIELD = new ParseField("document_type");
     private static final ParseField INDEXED_DOCUMENT_FIELD_INDEX = new ParseField("index");
@@ -97,7 +102,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
 
     private final String field;
     private final String documentType;
-    private final BytesReference document;
+    private final List<BytesReference> documents;
 
     private final String indexedDocumentIndex;
     private final String indexedDocumentType;
@@ -107,18 +112,33 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
     private final Long indexedDocumentVersion;
 
     public PercolateQueryBuilder(String field, String documentType, BytesReference document) {
+        this(field, documentType, Collections.singletonList(requireDocument(document)));
+    }
+
+    /**
+     * Percolates several documents at once. Each percolator query is evaluated once against all documents, and
+     * matches if it matches any of them. The slots of the documents that a query matches are returned in the
+     * <code>_percolator_document_slot</code> field of its hit.
+     */
+    public PercolateQueryBuilder(String field, String documentType, List<BytesReference> documents) {
         if (field == null) {
             throw new IllegalArgumentException("[field] is a required argument");
         }
         if (documentType == null) {
             throw new IllegalArgumentException("[document_type] is a required argument");
         }
-        if (document == null) {
-            throw new IllegalArgumentException("[document] is a required argument");
+        if (documents == null) {
+            throw new IllegalArgumentException("[documents] is a required argument");
+        }
+        if (documents.isEmpty()) {
+            throw new IllegalArgumentException("[documents] must not be empty");
+        }
+        for (BytesReference document : documents) {
+            requireDocument(document);
         }
         this.field = field;
         this.documentType = documentType;
-        this.document = document;
+        this.documents = Collections.unmodifiableList(new ArrayList<>(documents));
         indexedDocumentIndex = null;
         indexedDocumentType = null;
         indexedDocumentId = null;
@@ -153,7 +173,14 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         this.indexedDocumentRouting = indexedDocumentRouting;
         this.indexedDocumentPreference = indexedDocumentPreference;
         this.indexedDocumentVersion = indexedDocumentVersion;
-        this.document = null;
+        this.documents = Collections.emptyList();
+    }
+
+    private static BytesReference requireDocument(BytesReference document) {
+        if (document == null) {
+            throw new IllegalArgumentException("[document] is a required argument");
+        }
+        return document;
     }
 
     /**
@@ -173,7 +200,12 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         } else {
             indexedDocumentVersion = null;
         }
-        document = in.readOptionalBytesReference();
+        if (in.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            documents = Collections.unmodifiableList(in.readList(StreamInput::readBytesReference));
+        } else {
+            BytesReference document = in.readOptionalBytesReference();
+            documents = document == null ? Collections.emptyList() : Collections.singletonList(document);
+        }
     }
 
     @Override
@@ -191,7 +223,18 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         } else {
             out.writeBoolean(false);
         }
-        out.writeOptionalBytesReference(document);
+        if (out.getVersion().onOrAfter(Version.V_5_0_0_alpha5)) {
+            out.writeVInt(documents.size());
+            for (BytesReference document : documents) {
+                out.writeBytesReference(document);
+            }
+        } else {
+            if (documents.size() > 1) {
+                throw new IllegalArgumentException("percolating several documents is not supported by nodes before version ["
+                        + Version.V_5_0_0_alpha5 + "]");
+            }
+            out.writeOptionalBytesReference(documents.isEmpty() ? null : documents.get(0));
+        }
     }
 
     @Override
@@ -199,17 +242,22 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         builder.startObject(NAME);
         builder.field(DOCUMENT_TYPE_FIELD.getPreferredName(), documentType);
         builder.field(QUERY_FIELD.getPreferredName(), field);
-        if (document != null) {
+        if (documents.size() == 1) {
+            BytesReference document = documents.get(0);
             XContentType contentType = XContentFactory.xContentType(document);
             if (contentType == builder.contentType()) {
                 builder.rawField(DOCUMENT_FIELD.getPreferredName(), document);
             } else {
-                try (XContentParser parser = XContentFactory.xContent(contentType).createParser(document)) {
-                    parser.nextToken();
-                    builder.field(DOCUMENT_FIELD.getPreferredName());
-                    builder.copyCurrentStructure(parser);
-                }
+                builder.field(DOCUMENT_FIELD.getPreferredName());
+                copyDocument(builder, document);
             }
+        } else if (documents.size() > 1) {
+            builder.startArray(DOCUMENTS_FIELD.getPreferredName());
+            for (BytesReference document : documents) {
+                // raw values don't get separated from each other in arrays, so they are always copied
+                copyDocument(builder, document);
+            }
+            builder.endArray();
         }
         if (indexedDocumentIndex != null || indexedDocumentType != null || indexedDocumentId != null) {
             if (indexedDocumentIndex != null) {
@@ -235,6 +283,13 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         builder.endObject();
     }
 
+    private static void copyDocument(XContentBuilder builder, BytesReference document) throws IOException {
+        try (XContentParser parser = XContentFactory.xContent(document).createParser(document)) {
+            parser.nextToken();
+            builder.copyCurrentStructure(parser);
+        }
+    }
+
     public static Optional<PercolateQueryBuilder> fromXContent(QueryParseContext parseContext) throws IOException {
         XContentParser parser = parseContext.parser();
         float boost = AbstractQueryBuilder.DEFAULT_BOOST;
@@ -249,7 +304,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         String indexedDocumentPreference = null;
         Long indexedDocumentVersion = null;
 
-        BytesReference source = null;
+        List<BytesReference> documents = new ArrayList<>();
 
         String queryName = null;
         String currentFieldName = null;
@@ -260,15 +315,34 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
                 currentFieldName = parser.currentName();
             } else if (token == XContentParser.Token.START_OBJECT) {
                 if (parseContext.getParseFieldMatcher().match(currentFieldName, DOCUMENT_FIELD)) {
-                    try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
-                        builder.copyCurrentStructure(parser);
-                        builder.flush();
-                        source = builder.bytes();
+                    if (documents.isEmpty() == false) {
+                        throw new ParsingException(parser.getTokenLocation(), "[" + PercolateQueryBuilder.NAME +
+                                "] query can't percolate both [" + DOCUMENT_FIELD.getPreferredName() + "] and [" +
+                                DOCUMENTS_FIELD.getPreferredName() + "]");
                     }
+                    documents.add(parseDocument(parser));
                 } else {
                     throw new ParsingException(parser.getTokenLocation(), "[" + PercolateQueryBuilder.NAME +
                             "] query does not support [" + token + "]");
                 }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                if (parseContext.getParseFieldMatcher().match(currentFieldName, DOCUMENTS_FIELD)) {
+                    if (documents.isEmpty() == false) {
+                        throw new ParsingException(parser.getTokenLocation(), "[" + PercolateQueryBuilder.NAME +
+                                "] query can't percolate both [" + DOCUMENT_FIELD.getPreferredName() + "] and [" +
+                                DOCUMENTS_FIELD.getPreferredName() + "]");
+                    }
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                        if (token != XContentParser.Token.START_OBJECT) {
+                            throw new ParsingException(parser.getTokenLocation(), "[" + PercolateQueryBuilder.NAME +
+                                    "] query expects objects in [" + DOCUMENTS_FIELD.getPreferredName() + "], but got [" + token + "]");
+                        }
+                        documents.add(parseDocument(parser));
+                    }
+                } else {
+                    throw new ParsingException(parser.getTokenLocation(), "[" + PercolateQueryBuilder.NAME +
+                            "] query does not support [" + currentFieldName + "]");
+                }
             } else if (token.isValue()) {
                 if (parseContext.getParseFieldMatcher().match(currentFieldName, QUERY_FIELD)) {
                     field = parser.text();
@@ -306,8 +380,8 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         }
 
         PercolateQueryBuilder queryBuilder;
-        if (source != null) {
-            queryBuilder = new PercolateQueryBuilder(field, documentType, source);
+        if (documents.isEmpty() == false) {
+            queryBuilder = new PercolateQueryBuilder(field, documentType, documents);
         } else if (indexedDocumentId != null) {
             queryBuilder = new PercolateQueryBuilder(field, documentType, indexedDocumentIndex, indexedDocumentType,
                     indexedDocumentId, indexedDocumentRouting, indexedDocumentPreference, indexedDocumentVersion);
@@ -319,11 +393,19 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         return Optional.of(queryBuilder);
     }
 
+    private static BytesReference parseDocument(XContentParser parser) throws IOException {
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.copyCurrentStructure(parser);
+            builder.flush();
+            return builder.bytes();
+        }
+    }
+
     @Override
     protected boolean doEquals(PercolateQueryBuilder other) {
         return Objects.equals(field, other.field)
                 && Objects.equals(documentType, other.documentType)
-                && Objects.equals(document, other.document)
+                && Objects.equals(documents, other.documents)
                 && Objects.equals(indexedDocumentIndex, other.indexedDocumentIndex)
                 && Objects.equals(indexedDocumentType, other.indexedDocumentType)
                 && Objects.equals(indexedDocumentId, other.indexedDocumentId);
@@ -331,7 +413,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
 
     @Override
     protected int doHashCode() {
-        return Objects.hash(field, documentType, document, indexedDocumentIndex, indexedDocumentType, indexedDocumentId);
+        return Objects.hash(field, documentType, documents, indexedDocumentIndex, indexedDocumentType, indexedDocumentId);
     }
 
     @Override
@@ -341,7 +423,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
 
     @Override
     protected QueryBuilder doRewrite(QueryRewriteContext queryShardContext) throws IOException {
-        if (document != null) {
+        if (documents.isEmpty() == false) {
             return this;
         }
 
@@ -372,7 +454,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             throw new IllegalStateException("query builder must be rewritten first");
         }
 
-        if (document == null) {
+        if (documents.isEmpty()) {
             throw new IllegalStateException("no document to percolate");
         }
 
@@ -380,7 +462,10 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         DocumentMapperForType docMapperForType = mapperService.documentMapperWithAutoCreate(documentType);
         DocumentMapper docMapper = docMapperForType.getDocumentMapper();
 
-        ParsedDocument doc = docMapper.parse(source(context.index().getName(), documentType, "_temp_id", document));
+        List<ParsedDocument> docs = new ArrayList<>(documents.size());
+        for (BytesReference document : documents) {
+            docs.add(docMapper.parse(source(context.index().getName(), documentType, "_temp_id", document)));
+        }
 
         FieldNameAnalyzer fieldNameAnalyzer = (FieldNameAnalyzer) docMapper.mappers().indexAnalyzer();
         // Need to this custom impl because FieldNameAnalyzer is strict and the percolator sometimes isn't when
@@ -397,11 +482,12 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             }
         };
         final IndexSearcher docSearcher;
-        if (doc.docs().size() > 1) {
-            assert docMapper.hasNestedObjects();
-            docSearcher = createMultiDocumentSearcher(analyzer, doc);
+        if (docs.size() > 1 || docs.get(0).docs().size() > 1) {
+            // all documents go to a single in-memory index, so that each percolator query is evaluated once
+            assert docs.size() > 1 || docMapper.hasNestedObjects();
+            docSearcher = createMultiDocumentSearcher(analyzer, docs);
         } else {
-            MemoryIndex memoryIndex = MemoryIndex.fromDocument(doc.rootDoc(), analyzer, true, false);
+            MemoryIndex memoryIndex = MemoryIndex.fromDocument(docs.get(0).rootDoc(), analyzer, true, false);
             docSearcher = memoryIndex.createSearcher();
             docSearcher.setQueryCache(null);
         }
@@ -426,14 +512,15 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             PercolatorFieldMapper.PercolatorFieldType pft = (PercolatorFieldMapper.PercolatorFieldType) fieldType;
             PercolateQuery.QueryStore queryStore = createStore(pft, context, mapUnmappedFieldsAsString);
             PercolateQuery.Builder builder = new PercolateQuery.Builder(
-                    documentType, queryStore, document, docSearcher
+                    documentType, queryStore, documents, docSearcher
             );
-            builder.extractQueryTermsQuery(pft.getExtractedTermsField(), pft.getExtractionResultFieldName());
+            builder.extractQueryTermsQuery(pft.getExtractedTermsField(), pft.getExtractedRangesField(),
+                    pft.getExtractionResultFieldName());
             return builder.build();
         } else {
             Query percolateTypeQuery = new TermQuery(new Term(TypeFieldMapper.NAME, MapperService.PERCOLATOR_LEGACY_TYPE_NAME));
             PercolateQuery.Builder builder = new PercolateQuery.Builder(
-                    documentType, createLegacyStore(context, mapUnmappedFieldsAsString), document, docSearcher
+                    documentType, createLegacyStore(context, mapUnmappedFieldsAsString), documents, docSearcher
             );
             builder.setPercolateTypeQuery(percolateTypeQuery);
             return builder.build();
@@ -448,14 +535,35 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
         return documentType;
     }
 
+    /**
+     * Returns the document to percolate, or <code>null</code> if several documents or an indexed document are percolated.
+     */
     public BytesReference getDocument() {
-        return document;
+        return documents.size() == 1 ? documents.get(0) : null;
+    }
+
+    public List<BytesReference> getDocuments() {
+        return documents;
     }
 
     static IndexSearcher createMultiDocumentSearcher(Analyzer analyzer, ParsedDocument doc) {
+        return createMultiDocumentSearcher(analyzer, Collections.singletonList(doc));
+    }
+
+    /**
+     * Creates a searcher on an in-memory index that holds the given documents in order, each one after its nested
+     * documents, and that skips the nested documents.
+     */
+    static IndexSearcher createMultiDocumentSearcher(Analyzer analyzer, List<ParsedDocument> docs) {
         RAMDirectory ramDirectory = new RAMDirectory();
-        try (IndexWriter indexWriter = new IndexWriter(ramDirectory, new IndexWriterConfig(analyzer))) {
-            indexWriter.addDocuments(doc.docs());
+        // only merges adjacent segments, so that the documents keep their order
+        IndexWriterConfig indexWriterConfig = new IndexWriterConfig(analyzer).setMergePolicy(new LogByteSizeMergePolicy());
+        try (IndexWriter indexWriter = new IndexWriter(ramDirectory, indexWriterConfig)) {
+            for (ParsedDocument doc : docs) {
+                indexWriter.addDocuments(doc.docs());
+            }
+            // many documents may not fit in a single segment
+            indexWriter.forceMerge(1);
             indexWriter.commit();
             DirectoryReader directoryReader = DirectoryReader.open(ramDirectory);
             assert directoryReader.leaves().size() == 1 : "Expected single leaf, but got [" + directoryReader.leaves().size() + "]";
@@ -473,7 +581,7 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
             slowSearcher.setQueryCache(null);
             return slowSearcher;
         } catch (IOException e) {
-            throw new ElasticsearchException("Failed to create index for percolator with nested document ", e);
+            throw new ElasticsearchException("Failed to create index for percolator with multiple documents", e);
         }
     }
 
@@ -28,6 +28,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentLocation;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -42,6 +43,7 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryParseContext;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -60,6 +62,7 @@ public class PercolatorFieldMapper extends FieldMapper {
 
     public static final String EXTRACTED_TERMS_FIELD_NAME = "extracted_terms";
     public static final String EXTRACTION_RESULT_FIELD_NAME = "extraction_result";
+    public static final String EXTRACTED_RANGES_FIELD_NAME = "extracted_ranges";
     public static final String QUERY_BUILDER_FIELD_NAME = "query_builder_field";
 
     public static class Builder extends FieldMapper.Builder<Builder, PercolatorFieldMapper> {
@@ -78,13 +81,16 @@ public class PercolatorFieldMapper extends FieldMapper {
             ((PercolatorFieldType) fieldType).queryTermsField = extractedTermsField.fieldType();
             KeywordFieldMapper extractionResultField = createExtractQueryFieldBuilder(EXTRACTION_RESULT_FIELD_NAME, context);
             ((PercolatorFieldType) fieldType).extractionResultField = extractionResultField.fieldType();
+            ExtractedRangesFieldMapper extractedRangesField = new ExtractedRangesFieldMapper.Builder(EXTRACTED_RANGES_FIELD_NAME)
+                    .build(context);
+            ((PercolatorFieldType) fieldType).queryRangesField = extractedRangesField.fieldType();
             BinaryFieldMapper queryBuilderField = createQueryBuilderFieldBuilder(context);
             ((PercolatorFieldType) fieldType).queryBuilderField = queryBuilderField.fieldType();
             context.path().remove();
             setupFieldType(context);
             return new PercolatorFieldMapper(name(), fieldType, defaultFieldType, context.indexSettings(),
                     multiFieldsBuilder.build(this, context), copyTo, queryShardContext, extractedTermsField,
-                    extractionResultField, queryBuilderField);
+                    extractionResultField, extractedRangesField, queryBuilderField);
         }
 
         static KeywordFieldMapper createExtractQueryFieldBuilder(String name, BuilderContext context) {
@@ -118,6 +124,7 @@ public class PercolatorFieldMapper extends FieldMapper {
 
         private MappedFieldType queryTermsField;
         private MappedFieldType extractionResultField;
+        private MappedFieldType queryRangesField;
         private MappedFieldType queryBuilderField;
 
         public PercolatorFieldType() {
@@ -130,6 +137,7 @@ public class PercolatorFieldMapper extends FieldMapper {
             super(ref);
             queryTermsField = ref.queryTermsField;
             extractionResultField = ref.extractionResultField;
+            queryRangesField = ref.queryRangesField;
             queryBuilderField = ref.queryBuilderField;
         }
 
@@ -141,6 +149,10 @@ public class PercolatorFieldMapper extends FieldMapper {
             return extractionResultField.name();
         }
 
+        public String getExtractedRangesField() {
+            return queryRangesField.name();
+        }
+
         public String getQueryBuilderFieldName() {
             return queryBuilderField.name();
         }
@@ -165,16 +177,18 @@ public class PercolatorFieldMapper extends FieldMapper {
     private final QueryShardContext queryShardContext;
     private KeywordFieldMapper queryTermsField;
     private KeywordFieldMapper extractionResultField;
+    private ExtractedRangesFieldMapper queryRangesField;
     private BinaryFieldMapper queryBuilderField;
 
     public PercolatorFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
                                  Settings indexSettings, MultiFields multiFields, CopyTo copyTo, QueryShardContext queryShardContext,
                                  KeywordFieldMapper queryTermsField, KeywordFieldMapper extractionResultField,
-                                 BinaryFieldMapper queryBuilderField) {
+                                 ExtractedRangesFieldMapper queryRangesField, BinaryFieldMapper queryBuilderField) {
         super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
         this.queryShardContext = queryShardContext;
         this.queryTermsField = queryTermsField;
         this.extractionResultField = extractionResultField;
+        this.queryRangesField = queryRangesField;
         this.queryBuilderField = queryBuilderField;
         this.mapUnmappedFieldAsString = INDEX_MAP_UNMAPPED_FIELDS_AS_STRING_SETTING.get(indexSettings);
     }
@@ -184,10 +198,12 @@ public class PercolatorFieldMapper extends FieldMapper {
         PercolatorFieldMapper updated = (PercolatorFieldMapper) super.updateFieldType(fullNameToFieldType);
         KeywordFieldMapper queryTermsUpdated = (KeywordFieldMapper) queryTermsField.updateFieldType(fullNameToFieldType);
         KeywordFieldMapper extractionResultUpdated = (KeywordFieldMapper) extractionResultField.updateFieldType(fullNameToFieldType);
+        ExtractedRangesFieldMapper queryRangesUpdated =
+                (ExtractedRangesFieldMapper) queryRangesField.updateFieldType(fullNameToFieldType);
         BinaryFieldMapper queryBuilderUpdated = (BinaryFieldMapper) queryBuilderField.updateFieldType(fullNameToFieldType);
 
         if (updated == this && queryTermsUpdated == queryTermsField && extractionResultUpdated == extractionResultField
-                && queryBuilderUpdated == queryBuilderField) {
+                && queryRangesUpdated == queryRangesField && queryBuilderUpdated == queryBuilderField) {
             return this;
         }
         if (updated == this) {
@@ -195,10 +211,16 @@ public class PercolatorFieldMapper extends FieldMapper {
         }
         updated.queryTermsField = queryTermsUpdated;
         updated.extractionResultField = extractionResultUpdated;
+        updated.queryRangesField = queryRangesUpdated;
         updated.queryBuilderField = queryBuilderUpdated;
         return updated;
     }
 
+    @Override
+    public PercolatorFieldType fieldType() {
+        return (PercolatorFieldType) super.fieldType();
+    }
+
     @Override
     public Mapper parse(ParseContext context) throws IOException {
         QueryShardContext queryShardContext = new QueryShardContext(this.queryShardContext);
@@ -214,19 +236,54 @@ public class PercolatorFieldMapper extends FieldMapper {
         // Fetching of terms, shapes and indexed scripts happen during this rewrite:
         queryBuilder = queryBuilder.rewrite(queryShardContext);
 
+        final boolean hasRangeRelativeToNow;
         try (XContentBuilder builder = XContentFactory.contentBuilder(QUERY_BUILDER_CONTENT_TYPE)) {
             queryBuilder.toXContent(builder, new MapParams(Collections.emptyMap()));
             builder.flush();
             byte[] queryBuilderAsBytes = BytesReference.toBytes(builder.bytes());
             context.doc().add(new Field(queryBuilderField.name(), queryBuilderAsBytes, queryBuilderField.fieldType()));
+            hasRangeRelativeToNow = hasRangeRelativeToNow(XContentHelper.convertToMap(builder.bytes(), false).v2());
         }
 
         Query query = toQuery(queryShardContext, mapUnmappedFieldAsString, queryBuilder);
-        ExtractQueryTermsService.extractQueryTerms(query, context.doc(), queryTermsField.name(), extractionResultField.name(),
-                queryTermsField.fieldType());
+        // the bounds of ranges relative to now would be outdated by the time documents get percolated
+        String extractedRangesField = hasRangeRelativeToNow ? null : queryRangesField.name();
+        ExtractQueryTermsService.extractQueryTerms(query, context.doc(), queryTermsField.name(), extractedRangesField,
+                extractionResultField.name(), queryTermsField.fieldType());
         return null;
     }
 
+    /**
+     * Returns whether the given query, as a map, contains a range query with a bound that depends on the current time.
+     */
+    static boolean hasRangeRelativeToNow(Object query) {
+        if (query instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) query).entrySet()) {
+                if (RangeQueryBuilder.NAME.equals(entry.getKey()) && entry.getValue() instanceof Map) {
+                    for (Object range : ((Map<?, ?>) entry.getValue()).values()) {
+                        if (range instanceof Map) {
+                            for (Object bound : ((Map<?, ?>) range).values()) {
+                                if (bound instanceof String && ((String) bound).startsWith("now")) {
+                                    return true;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (hasRangeRelativeToNow(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (query instanceof List) {
+            for (Object value : (List<?>) query) {
+                if (hasRangeRelativeToNow(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public static Query parseQuery(QueryShardContext context, boolean mapUnmappedFieldsAsString, XContentParser parser) throws IOException {
         return toQuery(context, mapUnmappedFieldsAsString, parseQueryBuilder(context.newParseContext(parser), parser.getTokenLocation()));
     }
@@ -260,7 +317,7 @@ public class PercolatorFieldMapper extends FieldMapper {
 
     @Override
     public Iterator<Mapper> iterator() {
-        return Arrays.<Mapper>asList(queryTermsField, extractionResultField, queryBuilderField).iterator();
+        return Arrays.<Mapper>asList(queryTermsField, extractionResultField, queryRangesField, queryBuilderField).iterator();
     }
 
     @Override
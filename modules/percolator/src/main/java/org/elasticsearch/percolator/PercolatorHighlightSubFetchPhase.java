@@ -33,6 +33,7 @@ import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.search.Highlighters;
 import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.highlight.HighlightField;
 import org.elasticsearch.search.highlight.HighlightPhase;
 import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.internal.InternalSearchHit;
@@ -46,6 +47,8 @@ import java.util.List;
 /**
  * Highlighting in the case of the percolate query is a bit different, because the PercolateQuery itself doesn't get highlighted,
  * but the source of the PercolateQuery gets highlighted by each hit containing a query.
+ * When several documents are percolated, each document that the query of a hit matches gets highlighted, and the names
+ * of its highlighted fields are prefixed with the slot of the document, like in <code>0_field</code>.
  */
 public final class PercolatorHighlightSubFetchPhase extends HighlightPhase {
 
@@ -75,8 +78,8 @@ public final class PercolatorHighlightSubFetchPhase extends HighlightPhase {
 
         LeafReaderContext percolatorLeafReaderContext = percolatorIndexSearcher.getIndexReader().leaves().get(0);
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        SubSearchContext subSearchContext =
-                createSubSearchContext(context, percolatorLeafReaderContext, percolateQuery.getDocumentSource());
+        List<BytesReference> documents = percolateQuery.getDocuments();
+        SubSearchContext subSearchContext = createSubSearchContext(context, percolatorLeafReaderContext, documents.get(0));
 
         for (InternalSearchHit hit : hits) {
             final Query query;
@@ -89,17 +92,46 @@ public final class PercolatorHighlightSubFetchPhase extends HighlightPhase {
             }
             if (query != null) {
                 subSearchContext.parsedQuery(new ParsedQuery(query));
-                hitContext.reset(
-                        new InternalSearchHit(0, "unknown", new Text(percolateQuery.getDocumentType()), Collections.emptyMap()),
-                        percolatorLeafReaderContext, 0, percolatorIndexSearcher
-                );
-                hitContext.cache().clear();
-                super.hitExecute(subSearchContext, hitContext);
-                hit.highlightFields().putAll(hitContext.hit().getHighlightFields());
+                if (documents.size() == 1) {
+                    highlight(subSearchContext, hitContext, percolateQuery, percolatorLeafReaderContext, 0);
+                    hit.highlightFields().putAll(hitContext.hit().getHighlightFields());
+                } else {
+                    final int[] slots;
+                    try {
+                        slots = percolateQuery.matchingSlots(query);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    for (int slot : slots) {
+                        final int docId;
+                        try {
+                            docId = percolateQuery.slotDocId(slot);
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                        subSearchContext.lookup().source().setSegmentAndDocument(percolatorLeafReaderContext, docId);
+                        subSearchContext.lookup().source().setSource(documents.get(slot));
+                        highlight(subSearchContext, hitContext, percolateQuery, percolatorLeafReaderContext, docId);
+                        for (HighlightField field : hitContext.hit().getHighlightFields().values()) {
+                            String name = slot + "_" + field.name();
+                            hit.highlightFields().put(name, new HighlightField(name, field.fragments()));
+                        }
+                    }
+                }
             }
         }
     }
 
+    private void highlight(SubSearchContext subSearchContext, FetchSubPhase.HitContext hitContext, PercolateQuery percolateQuery,
+                           LeafReaderContext percolatorLeafReaderContext, int docId) {
+        hitContext.reset(
+                new InternalSearchHit(0, "unknown", new Text(percolateQuery.getDocumentType()), Collections.emptyMap()),
+                percolatorLeafReaderContext, docId, percolateQuery.getPercolatorIndexSearcher()
+        );
+        hitContext.cache().clear();
+        super.hitExecute(subSearchContext, hitContext);
+    }
+
     static PercolateQuery locatePercolatorQuery(Query query) {
         if (query instanceof PercolateQuery) {
             return (PercolateQuery) query;
@@ -20,8 +20,12 @@ package org.elasticsearch.percolator;
 
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.PrefixCodedTerms;
 import org.apache.lucene.index.Term;
@@ -34,16 +38,21 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SynonymQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.search.spans.SpanFirstQuery;
 import org.apache.lucene.search.spans.SpanNearQuery;
 import org.apache.lucene.search.spans.SpanNotQuery;
 import org.apache.lucene.search.spans.SpanOrQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.search.MatchNoDocsQuery;
 import org.elasticsearch.index.mapper.ParseContext;
@@ -63,6 +72,7 @@ import static org.elasticsearch.percolator.ExtractQueryTermsService.EXTRACTION_F
 import static org.elasticsearch.percolator.ExtractQueryTermsService.EXTRACTION_PARTIAL;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.UnsupportedQueryException;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.extractQueryTerms;
+import static org.elasticsearch.percolator.ExtractQueryTermsService.createQueryCandidatesQuery;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.createQueryTermsQuery;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.selectTermListWithTheLongestShortestTerm;
 import static org.hamcrest.Matchers.equalTo;
@@ -72,6 +82,7 @@ import static org.hamcrest.Matchers.sameInstance;
 public class ExtractQueryTermsServiceTests extends ESTestCase {
 
     public static final String QUERY_TERMS_FIELD = "extracted_terms";
+    public static final String QUERY_RANGES_FIELD = "extracted_ranges";
     public static final String EXTRACTION_RESULT_FIELD = "extraction_result";
     public static final FieldType QUERY_TERMS_FIELD_TYPE = new FieldType();
 
@@ -602,6 +613,153 @@ public class ExtractQueryTermsServiceTests extends ESTestCase {
         assertTermIterator(termIterator, EXTRACTION_FAILED, EXTRACTION_RESULT_FIELD);
     }
 
+    public void testPrefixQuery() {
+        PrefixQuery prefixQuery = new PrefixQuery(new Term("_field", "_prefix"));
+        Result result = extractQueryTerms(prefixQuery);
+        assertThat(result.verified, is(true));
+        assertThat(result.terms.isEmpty(), is(true));
+        assertTermsEqual(result.prefixes, new Term("_field", "_prefix"));
+
+        // long prefixes are truncated, so they need to be verified
+        String prefix = randomAsciiOfLength(ExtractQueryTermsService.MAX_PREFIX_LENGTH + 1);
+        result = extractQueryTerms(new PrefixQuery(new Term("_field", prefix)));
+        assertThat(result.verified, is(false));
+        assertTermsEqual(result.prefixes, new Term("_field", prefix.substring(0, ExtractQueryTermsService.MAX_PREFIX_LENGTH)));
+
+        PrefixQuery emptyPrefixQuery = new PrefixQuery(new Term("_field", ""));
+        expectThrows(UnsupportedQueryException.class, () -> extractQueryTerms(emptyPrefixQuery));
+    }
+
+    public void testWildcardQuery() {
+        Result result = extractQueryTerms(new WildcardQuery(new Term("_field", "_pre?ix*")));
+        assertThat(result.verified, is(false));
+        assertThat(result.terms.isEmpty(), is(true));
+        assertTermsEqual(result.prefixes, new Term("_field", "_pre"));
+
+        WildcardQuery leadingWildcardQuery = new WildcardQuery(new Term("_field", "*_suffix"));
+        expectThrows(UnsupportedQueryException.class, () -> extractQueryTerms(leadingWildcardQuery));
+    }
+
+    public void testPointRangeQuery() {
+        Query rangeQuery = LongPoint.newRangeQuery("_field", 10, 20);
+        Result result = extractQueryTerms(rangeQuery);
+        assertThat(result.verified, is(false));
+        assertThat(result.terms.isEmpty(), is(true));
+        assertThat(result.ranges.size(), equalTo(1));
+        ExtractQueryTermsService.Range range = result.ranges.iterator().next();
+        assertThat(range.fieldName, equalTo("_field"));
+        assertThat(LongPoint.decodeDimension(range.lowerPoint.bytes, 0), equalTo(10L));
+        assertThat(LongPoint.decodeDimension(range.upperPoint.bytes, 0), equalTo(20L));
+
+        // empty ranges match nothing
+        result = extractQueryTerms(IntPoint.newRangeQuery("_field", 20, 10));
+        assertThat(result.verified, is(true));
+        assertThat(result.ranges.isEmpty(), is(true));
+
+        Query multiDimensionalQuery = LongPoint.newRangeQuery("_field", new long[] {1, 2}, new long[] {3, 4});
+        expectThrows(UnsupportedQueryException.class, () -> extractQueryTerms(multiDimensionalQuery));
+    }
+
+    public void testConjunctionPrefersTermsToPrefixesToRanges() {
+        TermQuery termQuery = new TermQuery(new Term("_field", "_term"));
+        PrefixQuery prefixQuery = new PrefixQuery(new Term("_field", "_prefix"));
+        Query rangeQuery = LongPoint.newRangeQuery("_field", 10, 20);
+        List<Query> clauses = new ArrayList<>(Arrays.asList(termQuery, prefixQuery, rangeQuery));
+        Collections.shuffle(clauses, random());
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (Query clause : clauses) {
+            builder.add(clause, BooleanClause.Occur.FILTER);
+        }
+        Result result = extractQueryTerms(builder.build());
+        assertThat(result.verified, is(false));
+        assertTermsEqual(result.terms, termQuery.getTerm());
+        assertThat(result.prefixes.isEmpty(), is(true));
+        assertThat(result.ranges.isEmpty(), is(true));
+
+        builder = new BooleanQuery.Builder();
+        builder.add(rangeQuery, BooleanClause.Occur.MUST);
+        builder.add(prefixQuery, BooleanClause.Occur.MUST);
+        result = extractQueryTerms(builder.build());
+        assertThat(result.verified, is(false));
+        assertThat(result.terms.isEmpty(), is(true));
+        assertTermsEqual(result.prefixes, prefixQuery.getPrefix());
+        assertThat(result.ranges.isEmpty(), is(true));
+
+        // disjunctions need all their clauses
+        builder = new BooleanQuery.Builder();
+        builder.add(termQuery, BooleanClause.Occur.SHOULD);
+        builder.add(prefixQuery, BooleanClause.Occur.SHOULD);
+        builder.add(rangeQuery, BooleanClause.Occur.SHOULD);
+        result = extractQueryTerms(builder.build());
+        assertThat(result.verified, is(false));
+        assertTermsEqual(result.terms, termQuery.getTerm());
+        assertTermsEqual(result.prefixes, prefixQuery.getPrefix());
+        assertThat(result.ranges.size(), equalTo(1));
+    }
+
+    public void testExtractQueryMetadata_ranges() {
+        ParseContext.Document document = new ParseContext.Document();
+        extractQueryTerms(LongPoint.newRangeQuery("_field", 10, 20), document, QUERY_TERMS_FIELD, QUERY_RANGES_FIELD,
+                EXTRACTION_RESULT_FIELD, QUERY_TERMS_FIELD_TYPE);
+        assertThat(document.getField(EXTRACTION_RESULT_FIELD).stringValue(), equalTo(EXTRACTION_PARTIAL));
+        assertThat(document.getFields(QUERY_RANGES_FIELD).length, equalTo(1));
+
+        // ranges and prefixes can't be extracted without a field to hold them
+        document = new ParseContext.Document();
+        extractQueryTerms(LongPoint.newRangeQuery("_field", 10, 20), document, QUERY_TERMS_FIELD, EXTRACTION_RESULT_FIELD,
+                QUERY_TERMS_FIELD_TYPE);
+        assertThat(document.getField(EXTRACTION_RESULT_FIELD).stringValue(), equalTo(EXTRACTION_FAILED));
+        document = new ParseContext.Document();
+        extractQueryTerms(new PrefixQuery(new Term("_field", "_prefix")), document, QUERY_TERMS_FIELD, EXTRACTION_RESULT_FIELD,
+                QUERY_TERMS_FIELD_TYPE);
+        assertThat(document.getField(EXTRACTION_RESULT_FIELD).stringValue(), equalTo(EXTRACTION_FAILED));
+    }
+
+    public void testCreateQueryCandidatesQuery() throws Exception {
+        MemoryIndex memoryIndex = new MemoryIndex(false);
+        memoryIndex.addField("field1", "brown fox", new WhitespaceAnalyzer());
+        memoryIndex.addField(new LongPoint("field2", 15), null);
+        IndexReader indexReader = memoryIndex.createSearcher().getIndexReader();
+        BooleanQuery query = (BooleanQuery) createQueryCandidatesQuery(indexReader, QUERY_TERMS_FIELD, QUERY_RANGES_FIELD,
+                new Term(EXTRACTION_RESULT_FIELD, EXTRACTION_FAILED));
+        assertThat(query.clauses().size(), equalTo(2));
+
+        PrefixCodedTerms terms = ((TermsQuery) query.clauses().get(0).getQuery()).getTermData();
+        // "b", "br", "bro", "brow", "brown", "f", "fo", "fox"
+        assertThat(terms.size(), equalTo(11L));
+        PrefixCodedTerms.TermIterator termIterator = terms.iterator();
+        assertTermIterator(termIterator, "field1\u0000brown", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0000fox", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001b", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001br", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001bro", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001brow", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001brown", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001f", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001fo", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, "field1\u0001fox", QUERY_TERMS_FIELD);
+        assertTermIterator(termIterator, EXTRACTION_FAILED, EXTRACTION_RESULT_FIELD);
+
+        // the candidate query matches the ranges that contain the value
+        Directory directory = newDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+            for (long[] bounds : new long[][] {{10, 20}, {15, 15}, {16, 20}, {0, 14}}) {
+                ParseContext.Document document = new ParseContext.Document();
+                extractQueryTerms(LongPoint.newRangeQuery("field2", bounds[0], bounds[1]), document, QUERY_TERMS_FIELD,
+                        QUERY_RANGES_FIELD, EXTRACTION_RESULT_FIELD, QUERY_TERMS_FIELD_TYPE);
+                writer.addDocument(document);
+            }
+            ParseContext.Document document = new ParseContext.Document();
+            extractQueryTerms(LongPoint.newRangeQuery("other_field", 10, 20), document, QUERY_TERMS_FIELD,
+                    QUERY_RANGES_FIELD, EXTRACTION_RESULT_FIELD, QUERY_TERMS_FIELD_TYPE);
+            writer.addDocument(document);
+        }
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            assertThat(new IndexSearcher(reader).count(query), equalTo(2));
+        }
+        directory.close();
+    }
+
     public void testSelectTermsListWithHighestSumOfTermLength() {
         Set<Term> terms1 = new HashSet<>();
         int shortestTerms1Length = Integer.MAX_VALUE;
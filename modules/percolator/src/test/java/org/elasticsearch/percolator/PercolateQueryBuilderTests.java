@@ -22,13 +22,21 @@ package org.elasticsearch.percolator;
 import com.fasterxml.jackson.core.JsonParseException;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
@@ -36,12 +44,15 @@ import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParseContext;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.internal.TypeFieldMapper;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.ingest.RandomDocumentPicks;
@@ -52,6 +63,7 @@ import org.hamcrest.Matchers;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -62,7 +74,8 @@ import static org.hamcrest.Matchers.sameInstance;
 
 public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQueryBuilder> {
 
-    private static final String[] SHUFFLE_PROTECTED_FIELDS = new String[] { PercolateQueryBuilder.DOCUMENT_FIELD.getPreferredName()};
+    private static final String[] SHUFFLE_PROTECTED_FIELDS = new String[] { PercolateQueryBuilder.DOCUMENT_FIELD.getPreferredName(),
+            PercolateQueryBuilder.DOCUMENTS_FIELD.getPreferredName()};
 
     private static String queryField;
     private static String docType;
@@ -74,6 +87,7 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
     private String indexedDocumentPreference;
     private Long indexedDocumentVersion;
     private BytesReference documentSource;
+    private List<BytesReference> documentSources;
 
     boolean indexedDocumentExists = true;
 
@@ -101,6 +115,7 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
 
     private PercolateQueryBuilder doCreateTestQueryBuilder(boolean indexedDocument) {
         documentSource = randomSource();
+        documentSources = Collections.singletonList(documentSource);
         if (indexedDocument) {
             indexedDocumentIndex = randomAsciiOfLength(4);
             indexedDocumentType = randomAsciiOfLength(4);
@@ -110,13 +125,20 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
             indexedDocumentVersion = (long) randomIntBetween(0, Integer.MAX_VALUE);
             return new PercolateQueryBuilder(queryField, docType, indexedDocumentIndex, indexedDocumentType, indexedDocumentId,
                     indexedDocumentRouting, indexedDocumentPreference, indexedDocumentVersion);
-        } else {
+        } else if (randomBoolean()) {
             return new PercolateQueryBuilder(queryField, docType, documentSource);
+        } else {
+            documentSources = new ArrayList<>();
+            int numDocuments = randomIntBetween(1, 4);
+            for (int i = 0; i < numDocuments; i++) {
+                documentSources.add(randomSource());
+            }
+            return new PercolateQueryBuilder(queryField, docType, documentSources);
         }
     }
 
     /**
-     * we don't want to shuffle the "document" field internally in {@link #testFromXContent()} because even though the
+     * we don't want to shuffle the "document" and "documents" fields internally in {@link #testFromXContent()} because even though the
      * documents would be functionally the same, their {@link BytesReference} representation isn't and thats what we
      * compare when check for equality of the original and the shuffled builder
      */
@@ -150,7 +172,7 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
         assertThat(query, Matchers.instanceOf(PercolateQuery.class));
         PercolateQuery percolateQuery = (PercolateQuery) query;
         assertThat(percolateQuery.getDocumentType(), Matchers.equalTo(queryBuilder.getDocumentType()));
-        assertThat(percolateQuery.getDocumentSource(), Matchers.equalTo(documentSource));
+        assertThat(percolateQuery.getDocuments(), Matchers.equalTo(documentSources));
     }
 
     @Override
@@ -208,7 +230,20 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
         e = expectThrows(IllegalArgumentException.class, () -> new PercolateQueryBuilder("_field", null, new BytesArray("{}")));
         assertThat(e.getMessage(), equalTo("[document_type] is a required argument"));
 
-        e = expectThrows(IllegalArgumentException.class, () -> new PercolateQueryBuilder("_field", "_document_type", null));
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new PercolateQueryBuilder("_field", "_document_type", (BytesReference) null));
+        assertThat(e.getMessage(), equalTo("[document] is a required argument"));
+
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new PercolateQueryBuilder("_field", "_document_type", (List<BytesReference>) null));
+        assertThat(e.getMessage(), equalTo("[documents] is a required argument"));
+
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new PercolateQueryBuilder("_field", "_document_type", Collections.emptyList()));
+        assertThat(e.getMessage(), equalTo("[documents] must not be empty"));
+
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new PercolateQueryBuilder("_field", "_document_type", Arrays.asList(new BytesArray("{}"), null)));
         assertThat(e.getMessage(), equalTo("[document] is a required argument"));
 
         e = expectThrows(IllegalArgumentException.class, () -> {
@@ -243,6 +278,62 @@ public class PercolateQueryBuilderTests extends AbstractQueryTestCase<PercolateQ
         assertThat(e.getMessage(), equalTo("[percolate] query is missing required [document_type] parameter"));
     }
 
+    public void testFromJsonDocumentAndDocuments() throws IOException {
+        ParsingException e = expectThrows(ParsingException.class, () -> parseQuery("{\"percolate\" : { \"document_type\": \"type\", " +
+                "\"document\": {}, \"documents\": [{}, {}]}"));
+        assertThat(e.getMessage(), equalTo("[percolate] query can't percolate both [document] and [documents]"));
+
+        e = expectThrows(ParsingException.class, () -> parseQuery("{\"percolate\" : { \"document_type\": \"type\", " +
+                "\"documents\": [{}, \"foo\"]}"));
+        assertThat(e.getMessage(), equalTo("[percolate] query expects objects in [documents], but got [VALUE_STRING]"));
+    }
+
+    public void testSerializationBwc() throws IOException {
+        BytesReference document = new BytesArray("{\"field\":\"value\"}");
+        PercolateQueryBuilder builder = new PercolateQueryBuilder(queryField, docType, document);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_5_0_0_alpha4);
+        builder.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_5_0_0_alpha4);
+        PercolateQueryBuilder read = new PercolateQueryBuilder(in);
+        assertThat(in.available(), equalTo(0));
+        assertThat(read.getDocuments(), equalTo(Collections.singletonList(document)));
+
+        PercolateQueryBuilder multiDocumentBuilder = new PercolateQueryBuilder(queryField, docType, Arrays.asList(document, document));
+        BytesStreamOutput oldOut = new BytesStreamOutput();
+        oldOut.setVersion(Version.V_5_0_0_alpha4);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> multiDocumentBuilder.writeTo(oldOut));
+        assertThat(e.getMessage(), containsString("percolating several documents is not supported"));
+    }
+
+    public void testCreateMultiDocumentSearcherKeepsOrder() throws Exception {
+        int numDocs = randomIntBetween(2, 8);
+        List<ParsedDocument> parsedDocuments = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            List<ParseContext.Document> docs = new ArrayList<>();
+            int numNestedDocs = randomIntBetween(0, 3);
+            for (int j = 0; j < numNestedDocs; j++) {
+                ParseContext.Document nestedDoc = new ParseContext.Document();
+                nestedDoc.add(new StringField(TypeFieldMapper.NAME, "__nested", Field.Store.NO));
+                docs.add(nestedDoc);
+            }
+            ParseContext.Document rootDoc = new ParseContext.Document();
+            rootDoc.add(new StringField("field", Integer.toString(i), Field.Store.NO));
+            docs.add(rootDoc);
+            parsedDocuments.add(new ParsedDocument(null, "_id", "_type", null, -1L, -1L, docs, null, null));
+        }
+
+        IndexSearcher indexSearcher = PercolateQueryBuilder.createMultiDocumentSearcher(new WhitespaceAnalyzer(), parsedDocuments);
+        TopDocs topDocs = indexSearcher.search(new MatchAllDocsQuery(), numDocs + 1, new Sort(SortField.FIELD_DOC));
+        assertThat(topDocs.totalHits, equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            TopDocs slot = indexSearcher.search(new TermQuery(new Term("field", Integer.toString(i))), 1);
+            assertThat(slot.totalHits, equalTo(1));
+            assertThat(slot.scoreDocs[0].doc, equalTo(topDocs.scoreDocs[i].doc));
+        }
+    }
+
     public void testCreateMultiDocumentSearcher() throws Exception {
         int numDocs = randomIntBetween(2, 8);
         List<ParseContext.Document> docs = new ArrayList<>(numDocs);
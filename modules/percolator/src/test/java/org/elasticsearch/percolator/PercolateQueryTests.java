@@ -22,8 +22,11 @@ package org.elasticsearch.percolator;
 import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
@@ -49,6 +52,7 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
@@ -60,9 +64,11 @@ import org.apache.lucene.search.spans.SpanOrQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.lucene.search.MatchNoDocsQuery;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.test.ESTestCase;
@@ -71,6 +77,7 @@ import org.junit.Before;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,6 +91,7 @@ public class PercolateQueryTests extends ESTestCase {
 
     public static final String EXTRACTED_TERMS_FIELD_NAME = "extracted_terms";
     public static final String UNKNOWN_QUERY_FIELD_NAME = "unknown_query";
+    public static final String EXTRACTED_RANGES_FIELD_NAME = "extracted_ranges";
     public static final FieldType EXTRACTED_TERMS_FIELD_TYPE = new FieldType();
 
     static {
@@ -97,6 +105,8 @@ public class PercolateQueryTests extends ESTestCase {
     private Map<String, Query> queries;
     private PercolateQuery.QueryStore queryStore;
     private DirectoryReader directoryReader;
+    // whether prefixes and ranges are extracted and used to select candidates
+    private boolean extractRanges;
 
     @Before
     public void init() throws Exception {
@@ -346,6 +356,130 @@ public class PercolateQueryTests extends ESTestCase {
         duelRun(memoryIndex, shardSearcher);
     }
 
+    public void testDuelPrefixesAndRanges() throws Exception {
+        extractRanges = true;
+        List<Function<Integer, Query>> queries = new ArrayList<>();
+        queries.add((i) -> new PrefixQuery(new Term("field", Integer.toString(i))));
+        queries.add((i) -> new PrefixQuery(new Term("field", Integer.toString(i) + randomAsciiOfLength(20))));
+        queries.add((i) -> new WildcardQuery(new Term("field", Integer.toString(i) + "?*")));
+        queries.add((i) -> LongPoint.newRangeQuery("long_field", i - randomInt(5), i + randomInt(5)));
+        queries.add((i) -> IntPoint.newRangeQuery("int_field", i + 1, i + randomInt(5)));
+        queries.add((i) -> {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(LongPoint.newRangeQuery("long_field", i - randomInt(5), i + randomInt(5)), BooleanClause.Occur.MUST);
+            builder.add(new PrefixQuery(new Term("field", Integer.toString(randomInt(9)))), BooleanClause.Occur.MUST);
+            return builder.build();
+        });
+        queries.add((i) -> {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(IntPoint.newRangeQuery("int_field", i - randomInt(5), i), BooleanClause.Occur.SHOULD);
+            builder.add(new TermQuery(new Term("field", Integer.toString(i))), BooleanClause.Occur.SHOULD);
+            return builder.build();
+        });
+
+        int numDocs = randomIntBetween(queries.size(), queries.size() * 5);
+        for (int i = 0; i < numDocs; i++) {
+            addPercolatorQuery(Integer.toString(i), queries.get(i % queries.size()).apply(i));
+        }
+
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        IndexSearcher shardSearcher = newSearcher(directoryReader);
+        // Disable query cache, because ControlQuery cannot be cached...
+        shardSearcher.setQueryCache(null);
+
+        for (int i = 0; i < numDocs; i++) {
+            MemoryIndex memoryIndex = new MemoryIndex();
+            memoryIndex.addField("field", Integer.toString(randomInt(numDocs * 10)), new WhitespaceAnalyzer());
+            memoryIndex.addField(new LongPoint("long_field", randomInt(numDocs)), null);
+            if (randomBoolean()) {
+                memoryIndex.addField(new IntPoint("int_field", randomInt(numDocs)), null);
+            }
+            duelRun(memoryIndex, shardSearcher);
+        }
+    }
+
+    public void testDuelMultipleDocuments() throws Exception {
+        List<Function<Integer, Query>> queries = new ArrayList<>();
+        queries.add((i) -> new TermQuery(new Term("field", "value" + i)));
+        queries.add((i) -> new PrefixQuery(new Term("field", "value" + i)));
+        queries.add((i) -> new CustomQuery(new Term("field", "value" + i)));
+        queries.add((i) -> {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(new TermQuery(new Term("field", "value" + i)), BooleanClause.Occur.MUST);
+            builder.add(new TermQuery(new Term("field", "value" + (i + 1))), BooleanClause.Occur.MUST);
+            return builder.build();
+        });
+        queries.add((i) -> {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(new TermQuery(new Term("field", "value" + i)), BooleanClause.Occur.SHOULD);
+            builder.add(new TermQuery(new Term("field", "value" + (i + 1))), BooleanClause.Occur.SHOULD);
+            return builder.build();
+        });
+
+        int numQueries = randomIntBetween(queries.size(), queries.size() * 5);
+        for (int i = 0; i < numQueries; i++) {
+            addPercolatorQuery(Integer.toString(i), queries.get(i % queries.size()).apply(i % 20));
+        }
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        IndexSearcher shardSearcher = newSearcher(directoryReader);
+        // Disable query cache, because ControlQuery cannot be cached...
+        shardSearcher.setQueryCache(null);
+
+        int numDocuments = randomIntBetween(2, 8);
+        List<BytesReference> documents = new ArrayList<>(numDocuments);
+        List<ParsedDocument> parsedDocuments = new ArrayList<>(numDocuments);
+        List<MemoryIndex> memoryIndices = new ArrayList<>(numDocuments);
+        for (int i = 0; i < numDocuments; i++) {
+            StringBuilder text = new StringBuilder();
+            int numValues = randomIntBetween(1, 3);
+            for (int j = 0; j < numValues; j++) {
+                text.append("value").append(randomInt(20)).append(' ');
+            }
+            documents.add(new BytesArray("{\"field\":\"" + text + "\"}"));
+            ParseContext.Document document = new ParseContext.Document();
+            document.add(new TextField("field", text.toString(), Field.Store.NO));
+            parsedDocuments.add(new ParsedDocument(null, "_id", "_type", null, -1L, -1L,
+                    Collections.singletonList(document), null, null));
+            MemoryIndex memoryIndex = new MemoryIndex();
+            memoryIndex.addField("field", text.toString(), new WhitespaceAnalyzer());
+            memoryIndices.add(memoryIndex);
+        }
+        IndexSearcher percolateSearcher = PercolateQueryBuilder.createMultiDocumentSearcher(new WhitespaceAnalyzer(), parsedDocuments);
+        PercolateQuery.Builder builder = new PercolateQuery.Builder("docType", queryStore, documents, percolateSearcher);
+        builder.extractQueryTermsQuery(EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME);
+        PercolateQuery percolateQuery = builder.build();
+        Query query = randomBoolean() ? percolateQuery : new ConstantScoreQuery(percolateQuery);
+        TopDocs topDocs = shardSearcher.search(query, numQueries);
+
+        int expectedTotalHits = 0;
+        for (Query percolatorQuery : this.queries.values()) {
+            for (MemoryIndex memoryIndex : memoryIndices) {
+                if (memoryIndex.search(percolatorQuery) > 0) {
+                    expectedTotalHits++;
+                    break;
+                }
+            }
+        }
+        assertThat(topDocs.totalHits, equalTo(expectedTotalHits));
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            String id = Uid.createUid(shardSearcher.doc(scoreDoc.doc).get(UidFieldMapper.NAME)).id();
+            Query percolatorQuery = this.queries.get(id);
+            List<Integer> expectedSlots = new ArrayList<>();
+            for (int slot = 0; slot < numDocuments; slot++) {
+                if (memoryIndices.get(slot).search(percolatorQuery) > 0) {
+                    expectedSlots.add(slot);
+                }
+            }
+            List<Integer> slots = new ArrayList<>();
+            for (int slot : percolateQuery.matchingSlots(percolatorQuery)) {
+                slots.add(slot);
+            }
+            assertThat("query " + percolatorQuery, slots, equalTo(expectedSlots));
+        }
+    }
+
     public void testDuelSpecificQueries() throws Exception {
         CommonTermsQuery commonTermsQuery = new CommonTermsQuery(BooleanClause.Occur.SHOULD, BooleanClause.Occur.SHOULD, 128);
         commonTermsQuery.add(new Term("field", "quick"));
@@ -392,8 +526,13 @@ public class PercolateQueryTests extends ESTestCase {
     void addPercolatorQuery(String id, Query query, String... extraFields) throws IOException {
         queries.put(id, query);
         ParseContext.Document document = new ParseContext.Document();
-        ExtractQueryTermsService.extractQueryTerms(query, document, EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME,
-                EXTRACTED_TERMS_FIELD_TYPE);
+        if (extractRanges) {
+            ExtractQueryTermsService.extractQueryTerms(query, document, EXTRACTED_TERMS_FIELD_NAME, EXTRACTED_RANGES_FIELD_NAME,
+                    UNKNOWN_QUERY_FIELD_NAME, EXTRACTED_TERMS_FIELD_TYPE);
+        } else {
+            ExtractQueryTermsService.extractQueryTerms(query, document, EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME,
+                    EXTRACTED_TERMS_FIELD_TYPE);
+        }
         document.add(new StoredField(UidFieldMapper.NAME, Uid.createUid(MapperService.PERCOLATOR_LEGACY_TYPE_NAME, id)));
         assert extraFields.length % 2 == 0;
         for (int i = 0; i < extraFields.length; i++) {
@@ -412,7 +551,11 @@ public class PercolateQueryTests extends ESTestCase {
                 percolateSearcher
         );
         // enables the optimization that prevents queries from being evaluated that don't match
-        builder.extractQueryTermsQuery(EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME);
+        if (extractRanges) {
+            builder.extractQueryTermsQuery(EXTRACTED_TERMS_FIELD_NAME, EXTRACTED_RANGES_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME);
+        } else {
+            builder.extractQueryTermsQuery(EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME);
+        }
         Query query = requireScore ? builder.build() : new ConstantScoreQuery(builder.build());
         TopDocs topDocs = shardSearcher.search(query, 10);
 
@@ -23,8 +23,10 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParsedDocument;
@@ -39,8 +41,10 @@ import org.junit.Before;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchPhraseQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
@@ -51,6 +55,7 @@ import static org.elasticsearch.index.query.QueryBuilders.termsLookupQuery;
 import static org.elasticsearch.index.query.QueryBuilders.wildcardQuery;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.EXTRACTION_COMPLETE;
 import static org.elasticsearch.percolator.ExtractQueryTermsService.EXTRACTION_FAILED;
+import static org.elasticsearch.percolator.ExtractQueryTermsService.EXTRACTION_PARTIAL;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
@@ -121,6 +126,50 @@ public class PercolatorFieldMapperTests extends ESSingleNodeTestCase {
         assertQueryBuilder(qbSource, queryBuilder);
     }
 
+    public void testExtractRanges() throws Exception {
+        addQueryMapping();
+        // the extracted ranges are part of the mapping like the other fields of the percolator field
+        MappedFieldType rangesFieldType = mapperService.fullName(fieldType.getExtractedRangesField());
+        assertThat(rangesFieldType.name(), equalTo(fieldName + "." + PercolatorFieldMapper.EXTRACTED_RANGES_FIELD_NAME));
+        assertThat(rangesFieldType.typeName(), equalTo(ExtractedRangesFieldMapper.CONTENT_TYPE));
+        assertThat(rangesFieldType.pointDimensionCount(), equalTo(3));
+
+        QueryBuilder queryBuilder = rangeQuery("number_field").gte(10).lte(20);
+        ParsedDocument doc = mapperService.documentMapper(typeName).parse("test", typeName, "1", XContentFactory.jsonBuilder().startObject()
+                .field(fieldName, queryBuilder)
+                .endObject().bytes());
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractionResultFieldName())[0].stringValue(), equalTo(EXTRACTION_PARTIAL));
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractedRangesField()).length, equalTo(1));
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractedTermsField()).length, equalTo(0));
+
+        // the bounds of ranges relative to now change over time
+        queryBuilder = rangeQuery("date_field").gte("now-1d");
+        doc = mapperService.documentMapper(typeName).parse("test", typeName, "1", XContentFactory.jsonBuilder().startObject()
+                .field(fieldName, boolQuery().filter(queryBuilder))
+                .endObject().bytes());
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractionResultFieldName())[0].stringValue(), equalTo(EXTRACTION_FAILED));
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractedRangesField()).length, equalTo(0));
+
+        // prefixes are extracted like terms
+        doc = mapperService.documentMapper(typeName).parse("test", typeName, "1", XContentFactory.jsonBuilder().startObject()
+                .field(fieldName, prefixQuery("field", "val"))
+                .endObject().bytes());
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractionResultFieldName())[0].stringValue(), equalTo(EXTRACTION_COMPLETE));
+        assertThat(doc.rootDoc().getFields(fieldType.getExtractedTermsField())[0].binaryValue().utf8ToString(), equalTo("field\u0001val"));
+    }
+
+    public void testHasRangeRelativeToNow() throws Exception {
+        assertTrue(PercolatorFieldMapper.hasRangeRelativeToNow(toMap(rangeQuery("date_field").gte("now-1d"))));
+        assertTrue(PercolatorFieldMapper.hasRangeRelativeToNow(toMap(boolQuery().must(termQuery("field", "value"))
+                .filter(rangeQuery("date_field").lt("now/d")))));
+        assertFalse(PercolatorFieldMapper.hasRangeRelativeToNow(toMap(rangeQuery("date_field").gte("2016-01-01"))));
+        assertFalse(PercolatorFieldMapper.hasRangeRelativeToNow(toMap(termQuery("field", "now"))));
+    }
+
+    private static Map<String, Object> toMap(QueryBuilder queryBuilder) throws IOException {
+        return XContentHelper.convertToMap(XContentFactory.jsonBuilder().value(queryBuilder).bytes(), false).v2();
+    }
+
     public void testStoringQueries() throws Exception {
         addQueryMapping();
         QueryBuilder[] queries = new QueryBuilder[]{
@@ -35,8 +35,10 @@ import org.elasticsearch.search.highlight.HighlightBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
@@ -109,6 +111,50 @@ public class PercolatorQuerySearchIT extends ESSingleNodeTestCase {
         assertThat(response.getHits().getAt(2).getId(), equalTo("3"));
     }
 
+    public void testPercolatorQueryWithMultipleDocuments() throws Exception {
+        createIndex("test", client().admin().indices().prepareCreate("test")
+                .addMapping("type", "field1", "type=text")
+                .addMapping("queries", "query", "type=percolator")
+        );
+
+        client().prepareIndex("test", "queries", "1")
+                .setSource(jsonBuilder().startObject().field("query", termQuery("field1", "fox")).endObject())
+                .get();
+        client().prepareIndex("test", "queries", "2")
+                .setSource(jsonBuilder().startObject().field("query", matchQuery("field1", "lazy dog")).endObject())
+                .get();
+        client().prepareIndex("test", "queries", "3")
+                .setSource(jsonBuilder().startObject().field("query", termQuery("field1", "cat")).endObject())
+                .get();
+        client().admin().indices().prepareRefresh().get();
+
+        List<BytesReference> documents = Arrays.asList(
+                jsonBuilder().startObject().field("field1", "the quick brown fox").endObject().bytes(),
+                jsonBuilder().startObject().field("field1", "the lazy dog").endObject().bytes(),
+                jsonBuilder().startObject().field("field1", "the fox jumps over the dog").endObject().bytes()
+        );
+        SearchResponse response = client().prepareSearch()
+                .setQuery(new PercolateQueryBuilder("query", "type", documents))
+                .highlighter(new HighlightBuilder().field("field1"))
+                .addSort("_uid", SortOrder.ASC)
+                .get();
+        assertHitCount(response, 2);
+        assertThat(response.getHits().getAt(0).getId(), equalTo("1"));
+        assertThat(response.getHits().getAt(0).field(PercolatorMatchedSlotSubFetchPhase.FIELD_NAME).getValues(),
+                equalTo(Arrays.asList(0, 2)));
+        assertThat(response.getHits().getAt(0).getHighlightFields().get("0_field1").fragments()[0].string(),
+                equalTo("the quick brown <em>fox</em>"));
+        assertThat(response.getHits().getAt(0).getHighlightFields().get("2_field1").fragments()[0].string(),
+                equalTo("the <em>fox</em> jumps over the dog"));
+        assertThat(response.getHits().getAt(1).getId(), equalTo("2"));
+        assertThat(response.getHits().getAt(1).field(PercolatorMatchedSlotSubFetchPhase.FIELD_NAME).getValues(),
+                equalTo(Arrays.asList(1, 2)));
+        assertThat(response.getHits().getAt(1).getHighlightFields().get("1_field1").fragments()[0].string(),
+                equalTo("the <em>lazy</em> <em>dog</em>"));
+        assertThat(response.getHits().getAt(1).getHighlightFields().get("2_field1").fragments()[0].string(),
+                equalTo("the fox jumps over the <em>dog</em>"));
+    }
+
     public void testPercolatorQueryExistingDocument() throws Exception {
         createIndex("test", client().admin().indices().prepareCreate("test")
                 .addMapping("type", "field1", "type=keyword", "field2", "type=keyword")
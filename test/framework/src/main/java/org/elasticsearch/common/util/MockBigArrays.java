@@ -24,6 +24,7 @@ import com.carrotsearch.randomizedtesting.SeedUtils;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.set.Sets;
@@ -316,6 +317,11 @@ public class MockBigArrays extends BigArrays {
             return in.get(index, len, ref);
         }
 
+        @Override
+        public boolean get(long index, int len, BytesRef ref, BytesRefBuilder scratch) {
+            return in.get(index, len, ref, scratch);
+        }
+
         @Override
         public void set(long index, byte[] buf, int offset, int len) {
             in.set(index, buf, offset, len);